@@ -0,0 +1,37 @@
+package com.badlogic.gdx.automation.recorder;
+
+/**
+ * A single benchmark, run by {@link BenchmarkRunner}. The runner calls
+ * {@link #run(int)} with growing operation counts until an iteration takes
+ * long enough to be measured, so implementations should do the same amount of
+ * work for every operation.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+abstract class Benchmark {
+	final String name;
+
+	public Benchmark(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Called once before the benchmark is run
+	 */
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Performs the given number of operations
+	 * 
+	 * @param ops
+	 */
+	public abstract void run(int ops) throws Exception;
+
+	/**
+	 * Called once after the benchmark has been run
+	 */
+	public void tearDown() throws Exception {
+	}
+}
@@ -0,0 +1,94 @@
+package com.badlogic.gdx.automation.recorder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Runs {@link Benchmark}s and reports their throughput and allocation rate. A
+ * benchmark is first warmed up, so the JIT compiler gets to see the hot code,
+ * and then measured over a number of iterations of fixed length.
+ * 
+ * The allocation rate is only available on VMs offering
+ * com.sun.management.ThreadMXBean and is reported as -1 elsewhere.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class BenchmarkRunner {
+	private static final long ITERATION_NANOS = 200000000L;
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASURED_ITERATIONS = 10;
+
+	private final com.sun.management.ThreadMXBean allocations;
+
+	public BenchmarkRunner() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threads)
+						.isThreadAllocatedMemorySupported()) {
+			allocations = (com.sun.management.ThreadMXBean) threads;
+			allocations.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			allocations = null;
+		}
+	}
+
+	public void printHeader() {
+		System.out.println(String.format(Locale.US, "%-40s %15s %12s",
+				"Benchmark", "ops/s", "bytes/op"));
+	}
+
+	public void run(Benchmark benchmark) throws Exception {
+		benchmark.setUp();
+		try {
+			int ops = calibrate(benchmark);
+			for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+				benchmark.run(ops);
+			}
+			long thread = Thread.currentThread().getId();
+			long totalNanos = 0;
+			long totalBytes = 0;
+			for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+				long bytesBefore = allocatedBytes(thread);
+				long start = System.nanoTime();
+				benchmark.run(ops);
+				totalNanos += System.nanoTime() - start;
+				totalBytes += allocatedBytes(thread) - bytesBefore;
+			}
+			long totalOps = (long) ops * MEASURED_ITERATIONS;
+			double opsPerSecond = totalOps * 1e9 / totalNanos;
+			double bytesPerOp = allocations == null ? -1 : totalBytes
+					/ (double) totalOps;
+			System.out.println(String.format(Locale.US,
+					"%-40s %15.1f %12.2f", benchmark.name, opsPerSecond,
+					bytesPerOp));
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * Finds the number of operations that takes about
+	 * {@link #ITERATION_NANOS}
+	 */
+	private int calibrate(Benchmark benchmark) throws Exception {
+		int ops = 1;
+		while (true) {
+			long start = System.nanoTime();
+			benchmark.run(ops);
+			long elapsed = System.nanoTime() - start;
+			if (elapsed >= ITERATION_NANOS / 2 || ops >= Integer.MAX_VALUE / 2) {
+				return (int) Math.max(1,
+						Math.min(Integer.MAX_VALUE, (long) ops
+								* ITERATION_NANOS / Math.max(1, elapsed)));
+			}
+			ops *= 2;
+		}
+	}
+
+	private long allocatedBytes(long thread) {
+		return allocations == null ? 0 : allocations
+				.getThreadAllocatedBytes(thread);
+	}
+}
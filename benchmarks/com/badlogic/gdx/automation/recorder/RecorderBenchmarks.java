@@ -0,0 +1,450 @@
+package com.badlogic.gdx.automation.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.Input.Orientation;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Type;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessApplication;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessInput;
+import com.badlogic.gdx.automation.recorder.io.InputRecordWriter;
+import com.badlogic.gdx.automation.recorder.io.JsonInputRecordReader;
+import com.badlogic.gdx.automation.recorder.io.JsonInputRecordWriter;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Benchmarks of the recorder's and player's hot paths, i.e. the code run every
+ * frame. They run headless against a {@link StubInput}, so they work on any
+ * machine with a JVM:
+ * 
+ * <pre>
+ * java -cp bin/inputrecorder:bin/benchmarks:libs/gdx.jar com.badlogic.gdx.automation.recorder.RecorderBenchmarks [name filter]
+ * </pre>
+ * 
+ * For every benchmark the throughput and the number of bytes allocated per
+ * operation are printed.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class RecorderBenchmarks {
+	private static final int POINTERS = 2;
+	/**
+	 * the most pointers libGDX backends support, for the multi-touch
+	 * benchmarks
+	 */
+	private static final int MAX_POINTERS = 20;
+	/**
+	 * everything a desktop backend can deliver, except for the pressed keys
+	 * which are read from LWJGL directly
+	 */
+	private static final int TRACKED_PROPERTIES = Type.BUTTONS.key
+			| Type.POINTERS.key | Type.KEY_EVENTS.key | Type.POINTER_EVENTS.key
+			| Type.ORIENTATION.key;
+	private static final int RECORD_LENGTH = 100000;
+
+	/**
+	 * results are added up here, so the JIT compiler cannot throw away the
+	 * work measured
+	 */
+	static long sink;
+
+	public static void main(String[] args) throws Exception {
+		String filter = args.length > 0 ? args[0] : "";
+		StubInput input = new StubInput();
+		StubBackend.install(input);
+		Benchmark[] benchmarks = new Benchmark[] { inputStateSet(input),
+				allPointers(input), activePointers(input), copyEvents(input),
+				process(), keyBitSet(), jsonWriter(), jsonReader(),
+				processEvents(), recordingFrame() };
+		BenchmarkRunner runner = new BenchmarkRunner();
+		runner.printHeader();
+		for (Benchmark benchmark : benchmarks) {
+			if (benchmark.name.contains(filter)) {
+				runner.run(benchmark);
+			}
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Tracking one frame of input into an {@link InputState}
+	 */
+	private static Benchmark inputStateSet(final StubInput input) {
+		return new Benchmark("InputState.set(Input)") {
+			private final InputState state = new InputState(POINTERS);
+
+			@Override
+			public void run(int ops) {
+				for (int i = 0; i < ops; i++) {
+					input.nextFrame();
+					state.set(input, TRACKED_PROPERTIES, true);
+					sink += state.getX();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Sampling all of {@link #MAX_POINTERS} pointers while one is touched
+	 */
+	private static Benchmark allPointers(final StubInput input) {
+		return new Benchmark("InputState.set, 20 pointers") {
+			private final InputState state = new InputState(MAX_POINTERS);
+
+			@Override
+			public void run(int ops) {
+				for (int i = 0; i < ops; i++) {
+					input.nextFrame();
+					state.set(input, Type.POINTERS.key, false);
+					sink += state.getX();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Sampling only the active ones of {@link #MAX_POINTERS} pointers while
+	 * one is touched
+	 */
+	private static Benchmark activePointers(final StubInput input) {
+		return new Benchmark("InputState.setActivePointers, 20 ptrs") {
+			private final InputState state = new InputState(MAX_POINTERS);
+
+			@Override
+			public void run(int ops) {
+				for (int i = 0; i < ops; i++) {
+					input.nextFrame();
+					state.setActivePointers(input, state.touchedPointers);
+					sink += state.getX();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Copying the events of one frame out of the backend's event buffers
+	 */
+	private static Benchmark copyEvents(final StubInput input) {
+		return new Benchmark("EventBufferAccessHelper.copyEvents") {
+			private final InputState state = new InputState(POINTERS);
+
+			@Override
+			public void run(int ops) {
+				for (int i = 0; i < ops; i++) {
+					input.nextFrame();
+					EventBufferAccessHelper.copyKeyEvents(input, state, true);
+					EventBufferAccessHelper.copyPointerEvents(input, state,
+							true);
+					sink += state.pointerEvents.size();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Comparing two frames of input and writing the differences
+	 */
+	private static Benchmark process() {
+		return new Benchmark("InputStateProcessor.process") {
+			private final StubInput input = new StubInput();
+			private final InputState[] states = new InputState[] {
+					new InputState(POINTERS), new InputState(POINTERS) };
+			private InputStateProcessor processor;
+			private int frame = 0;
+
+			@Override
+			public void setUp() {
+				InputRecorderConfiguration config = new InputRecorderConfiguration();
+				config.absoluteCoords = true;
+				config.recordButtons = true;
+				config.recordPointers = true;
+				config.recordedPointerCount = POINTERS;
+				config.recordKeyEvents = true;
+				config.recordPointerEvents = true;
+				config.writer = new NullWriter();
+				processor = new InputStateProcessor(new InputRecorder(config));
+			}
+
+			@Override
+			public void run(int ops) throws IOException {
+				for (int i = 0; i < ops; i++) {
+					InputState state = states[frame++ % states.length];
+					input.nextFrame();
+					state.set(input, TRACKED_PROPERTIES, true);
+					processor.process(state);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Diffing the pressed keys of two frames, as the processor does
+	 */
+	private static Benchmark keyBitSet() {
+		return new Benchmark("KeyBitSet diff") {
+			private final KeyBitSet last = new KeyBitSet();
+			private final KeyBitSet current = new KeyBitSet();
+
+			@Override
+			public void run(int ops) {
+				for (int i = 0; i < ops; i++) {
+					last.set(current);
+					current.clear((i + Keys.A) % 256);
+					current.set((i + Keys.B) % 256);
+					int words = Math.max(current.wordCount(), last.wordCount());
+					for (int w = 0; w < words; w++) {
+						sink += Long.bitCount(current.word(w) & ~last.word(w));
+						sink += Long.bitCount(last.word(w) & ~current.word(w));
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Writing sync values to a json record
+	 */
+	private static Benchmark jsonWriter() {
+		return new Benchmark("JsonInputRecordWriter.writeSyncValues") {
+			private final Pointer pointer = new Pointer();
+			private File dir;
+			private JsonInputRecordWriter writer;
+
+			@Override
+			public void setUp() throws IOException {
+				dir = createTempDir();
+				writer = new JsonInputRecordWriter(new FileHandle(new File(dir,
+						"record.json")));
+			}
+
+			@Override
+			public void run(int ops) throws IOException {
+				writer.open();
+				for (int i = 0; i < ops; i++) {
+					fillPointer(pointer, i);
+					writer.writeSyncValues(pointer);
+				}
+				writer.close();
+			}
+
+			@Override
+			public void tearDown() {
+				deleteDir(dir);
+			}
+		};
+	}
+
+	/**
+	 * Reading sync values from a json record, in streaming mode
+	 */
+	private static Benchmark jsonReader() {
+		return new Benchmark("JsonInputRecordReader (streaming)") {
+			private File dir;
+			private JsonInputRecordReader reader;
+			private Iterator<SyncProperty> iterator;
+
+			@Override
+			public void setUp() throws IOException {
+				dir = createTempDir();
+				FileHandle file = new FileHandle(new File(dir, "record.json"));
+				JsonInputRecordWriter writer = new JsonInputRecordWriter(file);
+				writer.open();
+				RecordProperties properties = new RecordProperties();
+				properties.absouluteCoords = true;
+				writer.writeRecordProperties(properties);
+				StaticProperties values = new StaticProperties();
+				values.nativeOrientation = Orientation.Landscape;
+				writer.writeStaticValues(values);
+				Pointer pointer = new Pointer();
+				for (int i = 0; i < RECORD_LENGTH; i++) {
+					fillPointer(pointer, i);
+					writer.writeSyncValues(pointer);
+				}
+				writer.close();
+				reader = new JsonInputRecordReader(file, true);
+				iterator = reader.getSyncValueIterator();
+			}
+
+			@Override
+			public void run(int ops) {
+				for (int i = 0; i < ops; i++) {
+					if (!iterator.hasNext()) {
+						iterator = reader.getSyncValueIterator();
+					}
+					sink += iterator.next().timeDelta;
+				}
+			}
+
+			@Override
+			public void tearDown() {
+				while (iterator.hasNext()) {
+					iterator.next();
+				}
+				deleteDir(dir);
+			}
+		};
+	}
+
+	/**
+	 * Handing one frame of played back events to an InputProcessor
+	 */
+	private static Benchmark processEvents() {
+		return new Benchmark("PlaybackInput.processEvents") {
+			private final SyncProperty.KeyEvent keyEvent = new SyncProperty.KeyEvent();
+			private final SyncProperty.PointerEvent pointerEvent = new SyncProperty.PointerEvent();
+			private PlaybackInput playback;
+
+			@Override
+			public void setUp() {
+				StaticProperties features = new StaticProperties();
+				features.nativeOrientation = Orientation.Landscape;
+				playback = new PlaybackInput(null, null, features);
+				playback.setInputProcessor(new InputAdapter() {
+					@Override
+					public boolean touchDragged(int screenX, int screenY,
+							int pointer) {
+						sink += screenX;
+						return true;
+					}
+				});
+				keyEvent.type = SyncProperty.KeyEvent.Type.KEY_TYPED;
+				keyEvent.keyCode = Keys.A;
+				keyEvent.keyChar = 'a';
+				pointerEvent.type = SyncProperty.PointerEvent.Type.TOUCH_DRAGGED;
+			}
+
+			@Override
+			public void run(int ops) {
+				InputState state = playback.getState();
+				for (int i = 0; i < ops; i++) {
+					synchronized (state) {
+						pointerEvent.x = i % StubBackend.WIDTH;
+						pointerEvent.y = i % StubBackend.HEIGHT;
+						state.apply(keyEvent);
+						state.apply(pointerEvent);
+					}
+					playback.processEvents();
+				}
+			}
+		};
+	}
+
+	/**
+	 * A whole frame of a {@link HeadlessApplication} while recording. Run
+	 * last, since it replaces the stub backend.
+	 */
+	private static Benchmark recordingFrame() {
+		return new Benchmark("HeadlessApplication.frame (recording)") {
+			private HeadlessApplication app;
+			private InputRecorder recorder;
+			private int frame = 0;
+
+			@Override
+			public void setUp() throws IOException {
+				app = new HeadlessApplication(new ApplicationAdapter() {
+				});
+				InputRecorderConfiguration config = new InputRecorderConfiguration();
+				config.absoluteCoords = true;
+				config.recordButtons = true;
+				config.recordPointers = true;
+				config.recordedPointerCount = POINTERS;
+				config.recordKeysPressed = true;
+				config.writer = new NullWriter();
+				recorder = new InputRecorder(config);
+				recorder.startRecording();
+			}
+
+			@Override
+			public void run(int ops) {
+				HeadlessInput input = app.getHeadlessInput();
+				for (int i = 0; i < ops; i++) {
+					frame++;
+					input.touchDragged(frame % StubBackend.WIDTH, frame
+							% StubBackend.HEIGHT, 0);
+					input.keyTyped('a');
+					app.frame();
+				}
+			}
+
+			@Override
+			public void tearDown() throws IOException {
+				recorder.stopRecording();
+				app.exit();
+			}
+		};
+	}
+
+	private static void fillPointer(Pointer pointer, int i) {
+		pointer.timeDelta = 16;
+		pointer.frameDelta = 1;
+		pointer.pointer = 0;
+		pointer.x = i % StubBackend.WIDTH;
+		pointer.y = i % StubBackend.HEIGHT;
+		pointer.deltaX = 1;
+		pointer.deltaY = 1;
+	}
+
+	private static File createTempDir() throws IOException {
+		File dir = File.createTempFile("gdx-automation-benchmark", "");
+		if (!dir.delete() || !dir.mkdir()) {
+			throw new IOException("Could not create directory " + dir);
+		}
+		return dir;
+	}
+
+	private static void deleteDir(File dir) {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	/**
+	 * Throws away everything written to it
+	 */
+	private static class NullWriter implements InputRecordWriter {
+		@Override
+		public void open() throws IOException {
+		}
+
+		@Override
+		public void flush() throws IOException {
+		}
+
+		@Override
+		public void close() throws IOException {
+		}
+
+		@Override
+		public void writeRecordProperties(RecordProperties properties)
+				throws IOException {
+		}
+
+		@Override
+		public void writeStaticValues(StaticProperties values)
+				throws IOException {
+		}
+
+		@Override
+		public void writeSyncValues(SyncProperty values) throws IOException {
+		}
+
+		@Override
+		public void writeAsyncValues(AsyncProperty values) throws IOException {
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.badlogic.gdx.automation.recorder;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Application.ApplicationType;
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Fills {@link Gdx}' fields with just enough of a desktop backend to run the
+ * recorder and player without a display: the application claims to be a
+ * desktop application and runs posted runnables right away, files are plain
+ * {@link File}s and the screen is 640x480.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class StubBackend {
+	static final int WIDTH = 640;
+	static final int HEIGHT = 480;
+
+	private StubBackend() {
+	}
+
+	public static void install(StubInput input) {
+		Gdx.app = stub(Application.class, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getType")) {
+					return ApplicationType.Desktop;
+				} else if (name.equals("postRunnable")) {
+					((Runnable) args[0]).run();
+				}
+				return defaultValue(method);
+			}
+		});
+		Gdx.graphics = stub(Graphics.class, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getWidth")) {
+					return WIDTH;
+				} else if (name.equals("getHeight")) {
+					return HEIGHT;
+				}
+				return defaultValue(method);
+			}
+		});
+		Gdx.files = stub(Files.class, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getReturnType() == FileHandle.class) {
+					return new FileHandle(new File((String) args[0]));
+				}
+				return defaultValue(method);
+			}
+		});
+		Gdx.input = input;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(StubBackend.class.getClassLoader(),
+				new Class<?>[] { type }, handler);
+	}
+
+	private static Object defaultValue(Method method) {
+		Class<?> type = method.getReturnType();
+		if (type == boolean.class) {
+			return false;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == float.class) {
+			return 0f;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,276 @@
+package com.badlogic.gdx.automation.recorder;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.graphics.Pixmap;
+
+/**
+ * An {@link Input} laid out like the LWJGL backend's, i.e. buffering its
+ * events in lists named keyEvents and touchEvents, so the recorder can read it
+ * via {@link EventBufferAccessHelper} without a display. Every call to
+ * {@link #nextFrame()} simulates a frame in which the mouse is dragged and a
+ * key is typed.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class StubInput implements Input {
+	static class KeyEvent {
+		static final int KEY_DOWN = 0;
+		static final int KEY_UP = 1;
+		static final int KEY_TYPED = 2;
+
+		long timeStamp;
+		int type;
+		int keyCode;
+		char keyChar;
+	}
+
+	static class TouchEvent {
+		static final int TOUCH_DOWN = 0;
+		static final int TOUCH_UP = 1;
+		static final int TOUCH_DRAGGED = 2;
+		static final int TOUCH_SCROLLED = 3;
+		static final int TOUCH_MOVED = 4;
+
+		long timeStamp;
+		int type;
+		int x;
+		int y;
+		int scrollAmount;
+		int button;
+		int pointer;
+	}
+
+	final ArrayList<KeyEvent> keyEvents = new ArrayList<KeyEvent>();
+	final ArrayList<TouchEvent> touchEvents = new ArrayList<TouchEvent>();
+	private final KeyEvent keyEvent = new KeyEvent();
+	private final TouchEvent touchEvent = new TouchEvent();
+
+	private InputProcessor processor;
+	private long frame = 0;
+	private int x;
+	private int y;
+
+	public StubInput() {
+		keyEvent.type = KeyEvent.KEY_TYPED;
+		keyEvent.keyCode = Keys.A;
+		keyEvent.keyChar = 'a';
+		touchEvent.type = TouchEvent.TOUCH_DRAGGED;
+	}
+
+	/**
+	 * Moves the input on to the next frame
+	 */
+	public void nextFrame() {
+		frame++;
+		x = (int) (frame % 640);
+		y = (int) (frame % 480);
+		keyEvents.clear();
+		touchEvents.clear();
+		keyEvent.timeStamp = frame;
+		keyEvents.add(keyEvent);
+		touchEvent.timeStamp = frame;
+		touchEvent.x = x;
+		touchEvent.y = y;
+		touchEvents.add(touchEvent);
+	}
+
+	/**
+	 * Called reflectively by {@link EventBufferAccessHelper}, just like
+	 * LwjglInput's
+	 */
+	void updateKeyboard() {
+	}
+
+	/**
+	 * Called reflectively by {@link EventBufferAccessHelper}, just like
+	 * LwjglInput's
+	 */
+	void updateMouse() {
+	}
+
+	@Override
+	public float getAccelerometerX() {
+		return 0;
+	}
+
+	@Override
+	public float getAccelerometerY() {
+		return 0;
+	}
+
+	@Override
+	public float getAccelerometerZ() {
+		return 0;
+	}
+
+	@Override
+	public int getX() {
+		return x;
+	}
+
+	@Override
+	public int getX(int pointer) {
+		return pointer == 0 ? x : 0;
+	}
+
+	@Override
+	public int getDeltaX() {
+		return 1;
+	}
+
+	@Override
+	public int getDeltaX(int pointer) {
+		return pointer == 0 ? 1 : 0;
+	}
+
+	@Override
+	public int getY() {
+		return y;
+	}
+
+	@Override
+	public int getY(int pointer) {
+		return pointer == 0 ? y : 0;
+	}
+
+	@Override
+	public int getDeltaY() {
+		return 1;
+	}
+
+	@Override
+	public int getDeltaY(int pointer) {
+		return pointer == 0 ? 1 : 0;
+	}
+
+	@Override
+	public boolean isTouched() {
+		return true;
+	}
+
+	@Override
+	public boolean justTouched() {
+		return false;
+	}
+
+	@Override
+	public boolean isTouched(int pointer) {
+		return pointer == 0;
+	}
+
+	@Override
+	public boolean isButtonPressed(int button) {
+		return button == 0 && frame % 2 == 0;
+	}
+
+	@Override
+	public boolean isKeyPressed(int key) {
+		return false;
+	}
+
+	@Override
+	public void getTextInput(TextInputListener listener, String title,
+			String text) {
+		listener.canceled();
+	}
+
+	@Override
+	public void getPlaceholderTextInput(TextInputListener listener,
+			String title, String placeholder) {
+		listener.canceled();
+	}
+
+	@Override
+	public void setOnscreenKeyboardVisible(boolean visible) {
+	}
+
+	@Override
+	public void vibrate(int milliseconds) {
+	}
+
+	@Override
+	public void vibrate(long[] pattern, int repeat) {
+	}
+
+	@Override
+	public void cancelVibrate() {
+	}
+
+	@Override
+	public float getAzimuth() {
+		return 0;
+	}
+
+	@Override
+	public float getPitch() {
+		return 0;
+	}
+
+	@Override
+	public float getRoll() {
+		return 0;
+	}
+
+	@Override
+	public void getRotationMatrix(float[] matrix) {
+	}
+
+	@Override
+	public long getCurrentEventTime() {
+		return frame;
+	}
+
+	@Override
+	public void setCatchBackKey(boolean catchBack) {
+	}
+
+	@Override
+	public void setCatchMenuKey(boolean catchMenu) {
+	}
+
+	@Override
+	public void setInputProcessor(InputProcessor processor) {
+		this.processor = processor;
+	}
+
+	@Override
+	public InputProcessor getInputProcessor() {
+		return processor;
+	}
+
+	@Override
+	public boolean isPeripheralAvailable(Peripheral peripheral) {
+		return peripheral == Peripheral.HardwareKeyboard;
+	}
+
+	@Override
+	public int getRotation() {
+		return 0;
+	}
+
+	@Override
+	public Orientation getNativeOrientation() {
+		return Orientation.Landscape;
+	}
+
+	@Override
+	public void setCursorCatched(boolean catched) {
+	}
+
+	@Override
+	public boolean isCursorCatched() {
+		return false;
+	}
+
+	@Override
+	public void setCursorPosition(int x, int y) {
+	}
+
+	@Override
+	public void setCursorImage(Pixmap pixmap, int xHotspot, int yHotspot) {
+	}
+}
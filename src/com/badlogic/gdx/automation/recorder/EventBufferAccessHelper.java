@@ -11,13 +11,16 @@ import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessInput;
 import com.badlogic.gdx.utils.IntMap;
 import com.badlogic.gdx.utils.IntMap.Keys;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * Helper class to get the sets of pressed keys from the different input types.
  * Uses reflection to retrieve the collections of pressed keys. Currently only
- * desktop and android supported.
+ * desktop and android supported, as well as the {@link HeadlessInput}, which
+ * is read directly.
  * 
  * @author Lukas Böhm
  * 
@@ -25,8 +28,7 @@ import com.badlogic.gdx.utils.IntMap.Keys;
 class EventBufferAccessHelper {
 	static final ArrayList<KeyEvent> keyEvents = new ArrayList<KeyEvent>();
 	static final ArrayList<PointerEvent> pointerEvents = new ArrayList<PointerEvent>();
-	// TODO SparseArray is shit. Replace with 256 byte ByteBuffer like in lwjgl
-	private static final SparseArray<Boolean> pressedKeys = new SparseArray<Boolean>();
+	private static final KeyBitSet pressedKeys = new KeyBitSet();
 	private static List<Object> inputKeyEvents = null;
 	private static List<Object> inputPointerEvents = null;
 	private static IntMap<Object> keysPressedAndroid = null;
@@ -34,17 +36,45 @@ class EventBufferAccessHelper {
 	private static Input keyPressedFrom = null;
 	private static Input pointerEventsFrom = null;
 	private static Input keyEventsFrom = null;
+	private static BackendAccessor backendAccessor = null;
+	/**
+	 * the events in {@link #keyEvents} and {@link #pointerEvents} are reused
+	 * from frame to frame, so reading the event buffers does not allocate
+	 */
+	private static final Pool<KeyEvent> keyEventPool = new Pool<KeyEvent>() {
+		@Override
+		protected KeyEvent newObject() {
+			return new KeyEvent();
+		}
+	};
+	private static final Pool<PointerEvent> pointerEventPool = new Pool<PointerEvent>() {
+		@Override
+		protected PointerEvent newObject() {
+			return new PointerEvent();
+		}
+	};
 
 	static class KeyEvent {
 		public KeyEvent() {
 		}
 
 		public KeyEvent(SyncProperty.KeyEvent event) {
+			set(event);
+		}
+
+		public void set(SyncProperty.KeyEvent event) {
 			keyChar = event.keyChar;
 			keyCode = event.keyCode;
 			type = event.type;
 		}
 
+		public void set(KeyEvent other) {
+			timeStamp = other.timeStamp;
+			type = other.type;
+			keyCode = other.keyCode;
+			keyChar = other.keyChar;
+		}
+
 		long timeStamp;
 		SyncProperty.KeyEvent.Type type;
 		int keyCode;
@@ -56,6 +86,10 @@ class EventBufferAccessHelper {
 		}
 
 		public PointerEvent(SyncProperty.PointerEvent event) {
+			set(event);
+		}
+
+		public void set(SyncProperty.PointerEvent event) {
 			button = event.button;
 			pointer = event.pointer;
 			scrollAmount = event.scrollAmount;
@@ -64,6 +98,16 @@ class EventBufferAccessHelper {
 			y = (int) event.y;
 		}
 
+		public void set(PointerEvent other) {
+			timeStamp = other.timeStamp;
+			type = other.type;
+			x = other.x;
+			y = other.y;
+			scrollAmount = other.scrollAmount;
+			button = other.button;
+			pointer = other.pointer;
+		}
+
 		long timeStamp;
 		SyncProperty.PointerEvent.Type type;
 		int x;
@@ -95,38 +139,44 @@ class EventBufferAccessHelper {
 		while (input instanceof InputProxy) {
 			input = ((InputProxy) input).getProxiedInput();
 		}
-		if (update && Gdx.app.getType() == ApplicationType.Desktop) {
-			callMethod("updateKeyboard", input, null, null);
+		if (input instanceof HeadlessInput) {
+			return accessKeyEvents((HeadlessInput) input);
+		}
+		BackendAccessor backend = getBackendAccessor(input);
+		if (update && backend.updateKeyboard != null) {
+			invoke(backend.updateKeyboard, input);
 		}
 		if (inputKeyEvents == null || keyEventsFrom != input) {
-			inputKeyEvents = (List<Object>) accessField(
-					getField(input.getClass(), "keyEvents"), input);
+			inputKeyEvents = (List<Object>) accessField(backend.keyEvents,
+					input);
 			keyEventsFrom = input;
 		}
 		synchronized (keyEvents) {
+			for (int i = 0; i < keyEvents.size(); i++) {
+				keyEventPool.free(keyEvents.get(i));
+			}
 			keyEvents.clear();
-			for (Object event : inputKeyEvents) {
-				KeyEvent e = new KeyEvent();
-				e.keyChar = (Character) accessField(
-						getField(event.getClass(), "keyChar"), event);
-				e.keyCode = (Integer) accessField(
-						getField(event.getClass(), "keyCode"), event);
-				e.timeStamp = (Long) accessField(
-						getField(event.getClass(), "timeStamp"), event);
-				if (Gdx.app.getType() == ApplicationType.Android) {
-					e.type = SyncProperty.KeyEvent.Type
-							.mapAndroid((Integer) accessField(
-									getField(event.getClass(), "type"), event));
-				} else if (Gdx.app.getType() == ApplicationType.Desktop) {
-					e.type = SyncProperty.KeyEvent.Type
-							.mapDesktop((Integer) accessField(
-									getField(event.getClass(), "type"), event));
-				} else {
-					throw new IllegalStateException(
-							"Recorder is not supporting backend "
-									+ Gdx.app.getType());
+			try {
+				for (int i = 0; i < inputKeyEvents.size(); i++) {
+					Object event = inputKeyEvents.get(i);
+					KeyEventAccessor fields = backend.getKeyEventAccessor(event
+							.getClass());
+					KeyEvent e = keyEventPool.obtain();
+					e.keyChar = fields.keyChar.getChar(event);
+					e.keyCode = fields.keyCode.getInt(event);
+					e.timeStamp = fields.timeStamp.getLong(event);
+					if (backend.type == ApplicationType.Android) {
+						e.type = SyncProperty.KeyEvent.Type.mapAndroid(fields.type
+								.getInt(event));
+					} else {
+						e.type = SyncProperty.KeyEvent.Type.mapDesktop(fields.type
+								.getInt(event));
+					}
+					keyEvents.add(e);
 				}
-				keyEvents.add(e);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("IllegalAccess: "
+						+ e.getLocalizedMessage());
 			}
 		}
 		return keyEvents;
@@ -151,62 +201,136 @@ class EventBufferAccessHelper {
 		while (input instanceof InputProxy) {
 			input = ((InputProxy) input).getProxiedInput();
 		}
-		if (update && Gdx.app.getType() == ApplicationType.Desktop) {
-			callMethod("updateMouse", input, null, null);
+		if (input instanceof HeadlessInput) {
+			return accessPointerEvents((HeadlessInput) input);
+		}
+		BackendAccessor backend = getBackendAccessor(input);
+		if (update && backend.updateMouse != null) {
+			invoke(backend.updateMouse, input);
 		}
 		if (inputPointerEvents == null || pointerEventsFrom != input) {
 			inputPointerEvents = (List<Object>) accessField(
-					getField(input.getClass(), "touchEvents"), input);
+					backend.touchEvents, input);
 			pointerEventsFrom = input;
 		}
 		synchronized (pointerEvents) {
+			for (int i = 0; i < pointerEvents.size(); i++) {
+				pointerEventPool.free(pointerEvents.get(i));
+			}
 			pointerEvents.clear();
-			for (Object event : inputPointerEvents) {
-				PointerEvent e = new PointerEvent();
-				e.x = (Integer) accessField(getField(event.getClass(), "x"),
-						event);
-				e.y = (Integer) accessField(getField(event.getClass(), "y"),
-						event);
-				e.timeStamp = (Long) accessField(
-						getField(event.getClass(), "timeStamp"), event);
-				e.pointer = (Integer) accessField(
-						getField(event.getClass(), "pointer"), event);
-				if (Gdx.app.getType() == ApplicationType.Desktop) {
-					e.scrollAmount = (Integer) accessField(
-							getField(event.getClass(), "scrollAmount"), event);
-					e.button = (Integer) accessField(
-							getField(event.getClass(), "button"), event);
-					e.type = SyncProperty.PointerEvent.Type
-							.mapDesktop((Integer) accessField(
-									getField(event.getClass(), "type"), event));
-				} else {
-					e.type = SyncProperty.PointerEvent.Type
-							.mapAndroid((Integer) accessField(
-									getField(event.getClass(), "type"), event));
+			try {
+				for (int i = 0; i < inputPointerEvents.size(); i++) {
+					Object event = inputPointerEvents.get(i);
+					PointerEventAccessor fields = backend
+							.getPointerEventAccessor(event.getClass());
+					PointerEvent e = pointerEventPool.obtain();
+					e.x = fields.x.getInt(event);
+					e.y = fields.y.getInt(event);
+					e.timeStamp = fields.timeStamp.getLong(event);
+					e.pointer = fields.pointer.getInt(event);
+					if (backend.type == ApplicationType.Desktop) {
+						e.scrollAmount = fields.scrollAmount.getInt(event);
+						e.button = fields.button.getInt(event);
+						e.type = SyncProperty.PointerEvent.Type
+								.mapDesktop(fields.type.getInt(event));
+					} else {
+						e.type = SyncProperty.PointerEvent.Type
+								.mapAndroid(fields.type.getInt(event));
+					}
+					pointerEvents.add(e);
 				}
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("IllegalAccess: "
+						+ e.getLocalizedMessage());
+			}
+		}
+		return pointerEvents;
+	}
+
+	private static List<KeyEvent> accessKeyEvents(HeadlessInput input) {
+		List<HeadlessInput.KeyEvent> inputEvents = input.getKeyEvents();
+		synchronized (keyEvents) {
+			for (int i = 0; i < keyEvents.size(); i++) {
+				keyEventPool.free(keyEvents.get(i));
+			}
+			keyEvents.clear();
+			for (int i = 0; i < inputEvents.size(); i++) {
+				HeadlessInput.KeyEvent event = inputEvents.get(i);
+				KeyEvent e = keyEventPool.obtain();
+				e.keyChar = event.keyChar;
+				e.keyCode = event.keyCode;
+				e.timeStamp = event.timeStamp;
+				e.type = event.type;
+				keyEvents.add(e);
+			}
+		}
+		return keyEvents;
+	}
+
+	private static List<PointerEvent> accessPointerEvents(HeadlessInput input) {
+		List<HeadlessInput.TouchEvent> inputEvents = input.getTouchEvents();
+		synchronized (pointerEvents) {
+			for (int i = 0; i < pointerEvents.size(); i++) {
+				pointerEventPool.free(pointerEvents.get(i));
+			}
+			pointerEvents.clear();
+			for (int i = 0; i < inputEvents.size(); i++) {
+				HeadlessInput.TouchEvent event = inputEvents.get(i);
+				PointerEvent e = pointerEventPool.obtain();
+				e.x = event.x;
+				e.y = event.y;
+				e.timeStamp = event.timeStamp;
+				e.pointer = event.pointer;
+				e.scrollAmount = event.scrollAmount;
+				e.button = event.button;
+				e.type = event.type;
 				pointerEvents.add(e);
 			}
 		}
 		return pointerEvents;
 	}
 
-	public static void copyKeyEvents(Input input, List<KeyEvent> copyInto,
+	/**
+	 * Copies the key events currently buffered by the given input into the
+	 * given {@link InputState}, replacing the events it stored before. The
+	 * events are copied by value into events owned by the state.
+	 * 
+	 * @param input
+	 * @param copyInto
+	 * @param update
+	 */
+	public static void copyKeyEvents(Input input, InputState copyInto,
 			boolean update) {
-		copyInto.clear();
+		copyInto.clearKeyEvents();
 		synchronized (keyEvents) {
-			copyInto.addAll(accessKeyEvents(input, update));
+			List<KeyEvent> events = accessKeyEvents(input, update);
+			for (int i = 0; i < events.size(); i++) {
+				copyInto.addKeyEvent().set(events.get(i));
+			}
 		}
 	}
 
-	public static void copyPointerEvents(Input input,
-			List<PointerEvent> copyInto, boolean update) {
-		copyInto.clear();
+	/**
+	 * Copies the pointer events currently buffered by the given input into the
+	 * given {@link InputState}, replacing the events it stored before. The
+	 * events are copied by value into events owned by the state.
+	 * 
+	 * @param input
+	 * @param copyInto
+	 * @param update
+	 */
+	public static void copyPointerEvents(Input input, InputState copyInto,
+			boolean update) {
+		copyInto.clearPointerEvents();
 		synchronized (pointerEvents) {
-			copyInto.addAll(accessPointerEvents(input, update));
+			List<PointerEvent> events = accessPointerEvents(input, update);
+			for (int i = 0; i < events.size(); i++) {
+				copyInto.addPointerEvent().set(events.get(i));
+			}
 		}
 	}
 
-	public static SparseArray<Boolean> accessPressedKeys(Input input) {
+	public static KeyBitSet accessPressedKeys(Input input) {
 		synchronized (pressedKeys) {
 			pressedKeys.clear();
 
@@ -224,7 +348,13 @@ class EventBufferAccessHelper {
 		while (input instanceof InputProxy) {
 			input = ((InputProxy) input).getProxiedInput();
 		}
-		if (Gdx.app.getType() == ApplicationType.Android) {
+		if (input instanceof HeadlessInput) {
+			for (int i = 0; i < HeadlessInput.KEY_COUNT; i++) {
+				if (input.isKeyPressed(i)) {
+					pressedKeys.set(i);
+				}
+			}
+		} else if (Gdx.app.getType() == ApplicationType.Android) {
 			if (keysPressedAndroid == null || keyPressedFrom != input) {
 				keysPressedAndroid = (IntMap<Object>) accessField(
 						getField(input.getClass(), "keys"), input);
@@ -232,7 +362,7 @@ class EventBufferAccessHelper {
 			}
 			Keys keysKeys = keysPressedAndroid.keys();
 			while (keysKeys.hasNext) {
-				pressedKeys.append(keysKeys.next(), Boolean.TRUE);
+				pressedKeys.set(keysKeys.next());
 			}
 		} else if (Gdx.app.getType() == ApplicationType.Desktop) {
 			if (keysPressedDesktop == null || keyPressedFrom != input) {
@@ -243,7 +373,7 @@ class EventBufferAccessHelper {
 			}
 			for (int i = 0; i < keysPressedDesktop.capacity(); i++) {
 				if (keysPressedDesktop.get(i) != 0) {
-					pressedKeys.put(i, Boolean.TRUE);
+					pressedKeys.set(i);
 				}
 			}
 		} else {
@@ -256,35 +386,156 @@ class EventBufferAccessHelper {
 		while (input instanceof InputProxy) {
 			input = ((InputProxy) input).getProxiedInput();
 		}
-		Object synchronizer = null;
-		if (Gdx.app.getType() == ApplicationType.Android) {
-			// Android: The AndroidInput itself
-			if (getClass("com.badlogic.gdx.backends.android.AndroidInput")
-					.isAssignableFrom(input.getClass())) {
-				synchronizer = input;
-			} else {
+		if (input instanceof HeadlessInput) {
+			// only read on the main thread, which is the only one changing it
+			return input;
+		}
+		BackendAccessor backend = getBackendAccessor(input);
+		return backend.keyLock != null ? backend.keyLock : input;
+	}
+
+	public static void copyPressedKeys(Input input, KeyBitSet copyInto) {
+		synchronized (pressedKeys) {
+			copyInto.set(accessPressedKeys(input));
+		}
+	}
+
+	/*
+	 * Cached reflection handles
+	 */
+
+	private static BackendAccessor getBackendAccessor(Input input) {
+		BackendAccessor accessor = backendAccessor;
+		if (accessor == null || accessor.inputClass != input.getClass()) {
+			accessor = new BackendAccessor(input.getClass());
+			backendAccessor = accessor;
+		}
+		return accessor;
+	}
+
+	/**
+	 * All the {@link Field}s and {@link Method}s needed to read the event
+	 * buffers of one concrete {@link Input} class. They are looked up and made
+	 * accessible only once, so reading the events each frame does not have to
+	 * pay for the reflective lookup again.
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	private static class BackendAccessor {
+		final Class<?> inputClass;
+		final ApplicationType type;
+		final Field keyEvents;
+		final Field touchEvents;
+		/**
+		 * only present for desktop backends, null otherwise
+		 */
+		final Method updateKeyboard;
+		final Method updateMouse;
+		/**
+		 * the lock guarding the pressed keys, LWJGL's
+		 * OpenGLPackageAccess.global_lock on desktop backends. Null for
+		 * Android, where the AndroidInput itself is the lock.
+		 */
+		final Object keyLock;
+
+		private KeyEventAccessor keyEventAccessor;
+		private PointerEventAccessor pointerEventAccessor;
+
+		public BackendAccessor(Class<?> inputClass) {
+			this.inputClass = inputClass;
+			type = Gdx.app.getType();
+			if (type != ApplicationType.Android
+					&& type != ApplicationType.Desktop) {
 				throw new IllegalStateException(
-						"Unsupported or unexpected input type: "
-								+ Gdx.input.getClass().getName());
+						"Recorder is not supporting backend " + type);
 			}
-		} else if (Gdx.app.getType() == ApplicationType.Desktop) {
-			// LWJGL: OpenGLPackageAccess.global_lock
-			Class<?> openGLPackageAccess = getClass("org.lwjgl.input.OpenGLPackageAccess");
-			Field global_lock = getField(openGLPackageAccess, "global_lock");
-			synchronizer = accessField(global_lock, null);
-		} else {
-			throw new IllegalStateException("Unsupported application type: "
-					+ Gdx.app.getType());
+			keyEvents = getAccessibleField(inputClass, "keyEvents");
+			touchEvents = getAccessibleField(inputClass, "touchEvents");
+			if (type == ApplicationType.Desktop) {
+				updateKeyboard = getAccessibleMethod(inputClass,
+						"updateKeyboard");
+				updateMouse = getAccessibleMethod(inputClass, "updateMouse");
+				keyLock = accessField(getField(EventBufferAccessHelper
+						.getClass("org.lwjgl.input.OpenGLPackageAccess"),
+						"global_lock"), null);
+			} else {
+				updateKeyboard = null;
+				updateMouse = null;
+				if (!EventBufferAccessHelper.getClass(
+						"com.badlogic.gdx.backends.android.AndroidInput")
+						.isAssignableFrom(inputClass)) {
+					throw new IllegalStateException(
+							"Unsupported or unexpected input type: "
+									+ inputClass.getName());
+				}
+				keyLock = null;
+			}
+		}
+
+		KeyEventAccessor getKeyEventAccessor(Class<?> eventClass) {
+			KeyEventAccessor accessor = keyEventAccessor;
+			if (accessor == null || accessor.eventClass != eventClass) {
+				accessor = new KeyEventAccessor(eventClass);
+				keyEventAccessor = accessor;
+			}
+			return accessor;
 		}
 
-		return synchronizer;
+		PointerEventAccessor getPointerEventAccessor(Class<?> eventClass) {
+			PointerEventAccessor accessor = pointerEventAccessor;
+			if (accessor == null || accessor.eventClass != eventClass) {
+				accessor = new PointerEventAccessor(eventClass, type);
+				pointerEventAccessor = accessor;
+			}
+			return accessor;
+		}
 	}
 
-	public static void copyPressedKeys(Input input,
-			SparseArray<Boolean> copyInto) {
-		copyInto.clear();
-		synchronized (pressedKeys) {
-			copyInto.putAll(accessPressedKeys(input));
+	private static class KeyEventAccessor {
+		final Class<?> eventClass;
+		final Field keyChar;
+		final Field keyCode;
+		final Field timeStamp;
+		final Field type;
+
+		public KeyEventAccessor(Class<?> eventClass) {
+			this.eventClass = eventClass;
+			keyChar = getAccessibleField(eventClass, "keyChar");
+			keyCode = getAccessibleField(eventClass, "keyCode");
+			timeStamp = getAccessibleField(eventClass, "timeStamp");
+			type = getAccessibleField(eventClass, "type");
+		}
+	}
+
+	private static class PointerEventAccessor {
+		final Class<?> eventClass;
+		final Field x;
+		final Field y;
+		final Field timeStamp;
+		final Field pointer;
+		final Field type;
+		/**
+		 * only present for desktop backends, null otherwise
+		 */
+		final Field scrollAmount;
+		final Field button;
+
+		public PointerEventAccessor(Class<?> eventClass,
+				ApplicationType appType) {
+			this.eventClass = eventClass;
+			x = getAccessibleField(eventClass, "x");
+			y = getAccessibleField(eventClass, "y");
+			timeStamp = getAccessibleField(eventClass, "timeStamp");
+			pointer = getAccessibleField(eventClass, "pointer");
+			type = getAccessibleField(eventClass, "type");
+			if (appType == ApplicationType.Desktop) {
+				scrollAmount = getAccessibleField(eventClass, "scrollAmount");
+				button = getAccessibleField(eventClass, "button");
+			} else {
+				scrollAmount = null;
+				button = null;
+			}
 		}
 	}
 
@@ -329,27 +580,34 @@ class EventBufferAccessHelper {
 		return field;
 	}
 
-	private static Object callMethod(String name, Object o,
-			Class<?>[] parameterTypes, Object[] args) {
+	private static Field getAccessibleField(Class<?> clazz, String name) {
+		Field field = getField(clazz, name);
+		field.setAccessible(true);
+		return field;
+	}
+
+	private static Method getAccessibleMethod(Class<?> clazz, String name) {
 		try {
-			Method method = o.getClass()
-					.getDeclaredMethod(name, parameterTypes);
+			Method method = clazz.getDeclaredMethod(name);
 			method.setAccessible(true);
-			return method.invoke(o, args);
+			return method;
 		} catch (NoSuchMethodException e) {
 			throw new IllegalStateException("No such method: " + name + " in "
-					+ o.getClass());
-		} catch (SecurityException e) {
-			throw e;
+					+ clazz);
+		}
+	}
+
+	private static Object invoke(Method method, Object o) {
+		try {
+			return method.invoke(o);
 		} catch (IllegalAccessException e) {
 			throw new IllegalStateException(
-					"Method enforces Java access control: " + name + " in "
-							+ o.getClass());
-		} catch (IllegalArgumentException e) {
-			throw e;
+					"Method enforces Java access control: " + method.getName()
+							+ " in " + o.getClass());
 		} catch (InvocationTargetException e) {
-			throw new IllegalStateException("Called method " + name + " in "
-					+ o.getClass() + " threw exception");
+			throw new IllegalStateException("Called method "
+					+ method.getName() + " in " + o.getClass()
+					+ " threw exception");
 		}
 	}
 }
@@ -3,6 +3,10 @@ package com.badlogic.gdx.automation.recorder;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
@@ -17,6 +21,11 @@ import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncPropertyVisitor;
 import com.badlogic.gdx.automation.recorder.io.InputRecordReader;
+import com.badlogic.gdx.automation.recorder.io.LiveIterator;
+import com.badlogic.gdx.automation.recorder.io.SeekableInputRecordReader;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.TimeUtils;
 
 /**
  * Standard implementation of a player playing back recorded or generated input.
@@ -29,14 +38,45 @@ public class InputPlayer {
 	private final MainThreadRunnable mainThread;
 	private final ReaderThreadRunnable readerThread;
 	private final RecordProperties properties;
+	private final InputRecordReader reader;
 	/**
 	 * the original input provided by the libGdx back end in use
 	 */
-	private final Iterator<SyncProperty> syncIterator;
+	private Iterator<SyncProperty> syncIterator;
+	private boolean playing = false;
+	private final PlaybackScheduler scheduler = new PlaybackScheduler();
+	private volatile boolean frameAligned = false;
+	private volatile boolean frameStepped = false;
+	private volatile float playbackSpeed = 1;
+	private volatile boolean paused = false;
+	/**
+	 * when {@link #pause()} has been called, on the {@link System#nanoTime()}
+	 * clock
+	 */
+	private volatile long pauseStartNanos;
+	/**
+	 * the time at which the record started to be played back, so events get
+	 * time stamps following the record's timeline
+	 */
+	private volatile long playbackStartTime;
+	private final FrameStepper stepper = new FrameStepper();
+	private final Pool<FrameBatch> batchPool = new Pool<FrameBatch>() {
+		@Override
+		protected FrameBatch newObject() {
+			return new FrameBatch();
+		}
+	};
 
 	public static final String LOG_TAG = "InputPlayer";
 
+	/**
+	 * Playback speed to apply all properties as soon as they are read, see
+	 * {@link #setPlaybackSpeed(float)}
+	 */
+	public static final float AS_FAST_AS_POSSIBLE = Float.POSITIVE_INFINITY;
+
 	public InputPlayer(InputRecordReader reader) {
+		this.reader = reader;
 		properties = reader.getRecordProperties();
 		playback = new PlaybackInput(reader.getTextIterator(),
 				reader.getPlaceholderTextIterator(), reader.getStaticValues());
@@ -55,11 +95,44 @@ public class InputPlayer {
 			playback.setInputProcessor(gdxInput.getInputProcessor());
 			gdxInput.setInputProcessor(null);
 		}
-		readerThread.start();
+		paused = false;
+		if (frameStepped) {
+			stepper.reset();
+		} else {
+			scheduler.resetJitter();
+			readerThread.start();
+		}
 		mainThread.start();
+		playing = true;
 		notifyStart();
 	}
 
+	/**
+	 * Starts the playback at the given point in time of the record, skipping
+	 * all input that was recorded before. Keys held, buttons down and pointer
+	 * positions are restored to what they were at that time, but no events
+	 * are played back for them. This requires the
+	 * {@link InputRecordReader} to be a {@link SeekableInputRecordReader}.
+	 * Calling this method on a running playback will restart it at the given
+	 * time.
+	 * 
+	 * @param startTime
+	 *            milliseconds since the beginning of the record
+	 */
+	public void startPlayback(long startTime) {
+		if (!(reader instanceof SeekableInputRecordReader)) {
+			throw new UnsupportedOperationException(
+					"Reader does not support seeking: "
+							+ reader.getClass().getName());
+		}
+		if (playing) {
+			stopPlayback();
+		}
+		syncIterator = ((SeekableInputRecordReader) reader)
+				.getSyncValueIterator(startTime);
+		startPlayback();
+	}
+
 	/**
 	 * Delays the playback of the recorded input by the given amount of time (in
 	 * seconds).
@@ -67,9 +140,40 @@ public class InputPlayer {
 	 * @param seconds
 	 */
 	public void playbackTimeout(float seconds) {
+		if (frameStepped) {
+			throw new IllegalStateException(
+					"Cannot delay a frame stepped playback by time");
+		}
 		readerThread.delay((int) (seconds * 1000));
 	}
 
+	/**
+	 * Holds the playback at the current point of the record until
+	 * {@link #resume()} is called. The time spent paused does not count as
+	 * record time, i.e. the playback continues where it has been paused.
+	 */
+	public void pause() {
+		if (!paused) {
+			pauseStartNanos = System.nanoTime();
+			paused = true;
+			// stop waiting for the next property right away
+			scheduler.wake();
+		}
+	}
+
+	public void resume() {
+		if (paused) {
+			readerThread.addPausedNanos(System.nanoTime() - pauseStartNanos);
+			paused = false;
+			readerThread.resume();
+			mainThread.wake();
+		}
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
 	public void stopPlayback() {
 		mainThread.stop();
 		readerThread.stop();
@@ -77,9 +181,93 @@ public class InputPlayer {
 			Gdx.app.log(LOG_TAG, "Could not remove player from Gdx.input");
 		}
 		Gdx.input.setInputProcessor(playback.getInputProcessor());
+		playing = false;
 		notifyStopped();
 	}
 
+	/**
+	 * If set to true, all properties that are due at the same time are
+	 * applied at once on the main thread (via
+	 * {@link com.badlogic.gdx.Application#postRunnable(Runnable) postRunnable}),
+	 * so the application never sees half of such a group within a frame.
+	 * Properties recorded in different frames are applied in different
+	 * batches. By default properties are applied on a separate thread as soon
+	 * as they are due. At {@link #AS_FAST_AS_POSSIBLE} the playback is always
+	 * frame aligned, and every frame of the record is applied in a frame of
+	 * its own.
+	 * 
+	 * @param frameAligned
+	 */
+	public void setFrameAligned(boolean frameAligned) {
+		this.frameAligned = frameAligned;
+	}
+
+	public boolean isFrameAligned() {
+		return frameAligned;
+	}
+
+	/**
+	 * Sets the factor by which the record is played back faster than it was
+	 * recorded, e.g. 10 to replay a 30 minute record in 3 minutes or 0.5 to
+	 * play it back in slow motion. {@link #AS_FAST_AS_POSSIBLE} applies every
+	 * frame of the record right after the one before, see
+	 * {@link #setFrameAligned(boolean)}. Can be changed while the playback
+	 * is running. The time stamps of the events played back (see
+	 * {@link Input#getCurrentEventTime()}) follow the record's timeline, i.e.
+	 * they are not scaled. Has no effect on
+	 * {@link #setFrameStepped(boolean) frame stepped} playback.
+	 * 
+	 * @param speed
+	 *            a factor greater than 0
+	 */
+	public void setPlaybackSpeed(float speed) {
+		if (!(speed > 0)) {
+			throw new IllegalArgumentException(
+					"Playback speed must be positive, was " + speed);
+		}
+		playbackSpeed = speed;
+	}
+
+	public float getPlaybackSpeed() {
+		return playbackSpeed;
+	}
+
+	/**
+	 * If set to true, the playback started next does not follow the clock, but
+	 * the frames (main loop cycles) of the application: every frame exactly
+	 * the properties that have been recorded in the corresponding frame of
+	 * the record are applied, right before the events are handed to the
+	 * {@link InputProcessor}. This makes a playback reproducible regardless of
+	 * how fast the machine is, and a headless application can replay a record
+	 * as fast as it can run its main loop. Requires a record with frame
+	 * indices ({@link SyncProperty#frameDelta}). A live record that has not
+	 * caught up with the playback does not hold up the frames, the playback
+	 * rather stays in the current frame of the record until more values
+	 * arrive.
+	 * 
+	 * @param frameStepped
+	 */
+	public void setFrameStepped(boolean frameStepped) {
+		this.frameStepped = frameStepped;
+	}
+
+	public boolean isFrameStepped() {
+		return frameStepped;
+	}
+
+	/**
+	 * Returns the longest time any property of the current playback has been
+	 * applied after the point in time it should have been according to the
+	 * record. If the playback is {@link #setFrameAligned(boolean) frame
+	 * aligned}, this includes the time until the main thread got to apply
+	 * it.
+	 * 
+	 * @return the maximum jitter in nanoseconds
+	 */
+	public long getMaxJitterNanos() {
+		return scheduler.getMaxJitterNanos();
+	}
+
 	public void addPlaybackListener(PlaybackListener listener) {
 		listeners.add(listener);
 	}
@@ -120,34 +308,176 @@ public class InputPlayer {
 	 * {@link InputProcessor} about key and touch events as any other backend
 	 * would do.
 	 * 
+	 * The hook is only posted to the main thread if there is something to do:
+	 * when properties have been applied, and once more in the frame after
+	 * events have been processed, so per-frame state like
+	 * {@link Input#justTouched()} is reset. An idle or paused playback does
+	 * not cost the main thread anything. Only a
+	 * {@link InputPlayer#setFrameStepped(boolean) frame stepped} playback
+	 * runs every frame.
+	 * 
 	 */
 	private class MainThreadRunnable implements Runnable {
-		private boolean interrupted = true;
-		private boolean stopped = true;
+		private volatile boolean running = false;
+		/**
+		 * whether this runnable has been posted and not run yet
+		 */
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
 
-		public synchronized void start() {
-			if (interrupted) {
-				// busy waiting
-				while (!stopped)
-					continue;
-				interrupted = false;
-				Gdx.app.postRunnable(this);
-				stopped = false;
-			}
+		public void start() {
+			running = true;
+			wake();
 		}
 
-		public synchronized void stop() {
-			interrupted = true;
+		public void stop() {
+			running = false;
+		}
+
+		/**
+		 * Makes sure the events applied to the playback's state are processed
+		 * in the next frame. May be called from any thread.
+		 */
+		public void wake() {
+			if (running && !paused && !scheduled.get()
+					&& scheduled.compareAndSet(false, true)) {
+				Gdx.app.postRunnable(this);
+			}
 		}
 
 		@Override
 		public void run() {
-			if (!interrupted) {
+			scheduled.set(false);
+			if (!running || paused) {
+				return;
+			}
+			if (frameStepped) {
+				stepper.step();
 				playback.processEvents();
-				Gdx.app.postRunnable(this);
+				wake();
 			} else {
-				stopped = true;
+				process();
+			}
+		}
+
+		/**
+		 * Processes the events applied so far, on the main thread
+		 */
+		public void process() {
+			if (playback.processEvents()) {
+				wake();
+			}
+		}
+	}
+
+	/**
+	 * @param iterator
+	 * @return false if {@link Iterator#hasNext()} of the given iterator would
+	 *         wait for a live record to go on
+	 */
+	private static boolean isReady(Iterator<?> iterator) {
+		return !(iterator instanceof LiveIterator)
+				|| ((LiveIterator<?>) iterator).isReady();
+	}
+
+	/**
+	 * Applies the properties of a record frame by frame, on the main thread,
+	 * for {@link InputPlayer#setFrameStepped(boolean) frame stepped} playback
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	private class FrameStepper {
+		/**
+		 * the next property, which has been read but belongs to a later frame
+		 */
+		private SyncProperty pending;
+		private long pendingFrame;
+		private long frame;
+		private long recordTime;
+		private long startTime;
+		private boolean finished;
+
+		public void reset() {
+			pending = null;
+			pendingFrame = 0;
+			frame = 0;
+			recordTime = 0;
+			startTime = TimeUtils.millis();
+			finished = false;
+		}
+
+		/**
+		 * Applies all properties recorded in the current frame and advances to
+		 * the next one
+		 */
+		public void step() {
+			InputState state = playback.getState();
+			synchronized (state) {
+				while (true) {
+					if (pending == null) {
+						if (!isReady(syncIterator)) {
+							// a live record has not gone on yet, so the
+							// playback waits in the current record frame
+							return;
+						}
+						if (!syncIterator.hasNext()) {
+							if (!finished) {
+								finished = true;
+								notifyFinished();
+							}
+							break;
+						}
+						pending = syncIterator.next();
+						if (!properties.absouluteCoords) {
+							PropertyDenormalizer.denormalize(pending);
+						}
+						pendingFrame += pending.frameDelta;
+						recordTime += pending.timeDelta;
+					}
+					if (pendingFrame > frame) {
+						break;
+					}
+					// events get the time they were recorded at
+					state.timeStamp = startTime + recordTime;
+					state.apply(pending);
+					pending = null;
+				}
 			}
+			frame++;
+		}
+	}
+
+	/**
+	 * A batch of properties that are due at the same time and have been
+	 * recorded in the same frame, to be applied on the main thread if the
+	 * playback is {@link InputPlayer#setFrameAligned(boolean) frame aligned}
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	private class FrameBatch implements Runnable {
+		final ArrayList<SyncProperty> values = new ArrayList<SyncProperty>();
+		final LongArray recordTimes = new LongArray();
+		long targetNanos;
+
+		@Override
+		public void run() {
+			scheduler.recordJitter(System.nanoTime() - targetNanos);
+			InputState state = playback.getState();
+			synchronized (state) {
+				for (int i = 0; i < values.size(); i++) {
+					state.timeStamp = playbackStartTime + recordTimes.get(i);
+					state.apply(values.get(i));
+				}
+			}
+			values.clear();
+			recordTimes.clear();
+			synchronized (batchPool) {
+				batchPool.free(this);
+			}
+			readerThread.batchApplied();
+			// the events are handed to the application in the same frame
+			mainThread.process();
 		}
 	}
 
@@ -159,17 +489,18 @@ public class InputPlayer {
 	 * 
 	 */
 	private class ReaderThreadRunnable implements Runnable {
+		private volatile Thread thread = null;
+		private int delayMs = 0;
 		/**
-		 * Defines how long the reader thread will at least sleep after a
-		 * sequence of events has been processed. It can also be interpreted as
-		 * the number of milliseconds that can lie between two events so that
-		 * those events are still considered as having happened at the same
-		 * time.
+		 * the time spent paused that has not been added to the scheduler's
+		 * target times yet
 		 */
-		private static final int MIN_SLEEP = 10;
-
-		private Thread thread = null;
-		private int delayMs = 0;
+		private final AtomicLong pausedNanos = new AtomicLong();
+		private FrameBatch batch = null;
+		/**
+		 * the number of batches posted to the main thread and not applied yet
+		 */
+		private final AtomicInteger postedBatches = new AtomicInteger();
 
 		public synchronized void start() {
 			if (thread != null && thread.isAlive()) {
@@ -195,6 +526,12 @@ public class InputPlayer {
 			}
 		}
 
+		public synchronized void resume() {
+			if (thread != null) {
+				LockSupport.unpark(thread);
+			}
+		}
+
 		public synchronized void stop() {
 			if (thread != null) {
 				thread.interrupt();
@@ -208,87 +545,172 @@ public class InputPlayer {
 
 		@Override
 		public void run() {
-			if (properties.absouluteCoords) {
-				denormalizedProcessing();
-			} else {
-				normalizedProcessing();
-			}
-		}
-
-		private void denormalizedProcessing() {
-			int sleep;
-			SyncProperty currentVal;
-			InputState state = playback.getState();
-			while (!Thread.currentThread().isInterrupted()) {
-				sleep = 0;
-				do {
-					if (delayMs != 0) {
-						break;
+			boolean normalized = !properties.absouluteCoords;
+			long recordTime = 0;
+			float speed = playbackSpeed;
+			playbackStartTime = TimeUtils.millis();
+			postedBatches.set(0);
+			pausedNanos.set(0);
+			scheduler.start();
+			scheduler.setSpeed(speed, 0);
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					if (speed != playbackSpeed) {
+						// the values collected at the old speed come first
+						postBatch();
+						awaitBatches();
+						speed = playbackSpeed;
+						scheduler.setSpeed(speed, recordTime);
+					}
+					if (!isReady(syncIterator)) {
+						// everything read so far is due before the values a
+						// live record has not received yet
+						awaitBatches();
+						postBatch();
 					}
 					if (!syncIterator.hasNext()) {
+						awaitBatches();
+						postBatch();
 						notifyFinished();
 						return;
 					}
-					currentVal = syncIterator.next();
-					sleep += currentVal.timeDelta;
-
-					synchronized (state) {
-						state.apply(currentVal);
+					SyncProperty currentVal = syncIterator.next();
+					if (normalized) {
+						PropertyDenormalizer.denormalize(currentVal);
+					}
+					recordTime += currentVal.timeDelta;
+					applyDelay();
+					if (batch != null && startsNewBatch(currentVal, recordTime)) {
+						awaitBatches();
+						postBatch();
 					}
-				} while (sleep <= MIN_SLEEP);
+					if (!scheduler.isDue(recordTime) || paused) {
+						// everything due until now can be applied
+						postBatch();
+						awaitRecordTime(recordTime);
+					} else if (!frameAligned) {
+						scheduler.recordJitter(System.nanoTime()
+								- scheduler.getTargetNanos(recordTime));
+					}
+					apply(currentVal, recordTime);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 
-				if (delayMs != 0) {
-					synchronized (thread) {
-						sleep += delayMs;
-						delayMs = 0;
+		/**
+		 * Waits until the given record time has been reached, holding the
+		 * playback while it is paused. The remaining record is shifted by the
+		 * time spent paused.
+		 */
+		private void awaitRecordTime(long recordTime)
+				throws InterruptedException {
+			while (true) {
+				while (paused) {
+					LockSupport.park(this);
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
 					}
 				}
+				applyDelay();
+				if (scheduler.awaitRecordTime(recordTime)) {
+					return;
+				}
+			}
+		}
 
-				try {
-					Thread.sleep(sleep);
-				} catch (InterruptedException ex) {
-					Thread.currentThread().interrupt();
-					break;
+		/**
+		 * Called by {@link InputPlayer#resume()} with the time the playback
+		 * has been paused
+		 */
+		public void addPausedNanos(long nanos) {
+			pausedNanos.addAndGet(nanos);
+		}
+
+		/**
+		 * @return whether the given property does not belong to the batch
+		 *         collected so far, because it is due later or has been
+		 *         recorded in a later frame
+		 */
+		private boolean startsNewBatch(SyncProperty value, long recordTime) {
+			return value.frameDelta > 0
+					|| recordTime != batch.recordTimes.peek();
+		}
+
+		/**
+		 * Without a timeline to follow at {@link #AS_FAST_AS_POSSIBLE}, waits
+		 * until the main thread has applied the batches posted before, so
+		 * every frame of the record gets a frame of its own instead of the
+		 * whole record being applied at once
+		 */
+		private void awaitBatches() throws InterruptedException {
+			if (scheduler.getSpeed() != AS_FAST_AS_POSSIBLE) {
+				return;
+			}
+			while (postedBatches.get() > 0) {
+				LockSupport.park(this);
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
 				}
 			}
 		}
 
-		private void normalizedProcessing() {
-			int sleep;
-			SyncProperty currentVal;
-			InputState state = playback.getState();
-			while (!Thread.currentThread().isInterrupted()) {
-				sleep = 0;
-				do {
-					if (delayMs != 0) {
-						break;
-					}
-					if (!syncIterator.hasNext()) {
-						notifyFinished();
-						return;
-					}
-					currentVal = syncIterator.next();
-					PropertyDenormalizer.denormalize(currentVal);
-					sleep += currentVal.timeDelta;
+		/**
+		 * Called on the main thread once a posted batch has been applied
+		 */
+		public void batchApplied() {
+			postedBatches.decrementAndGet();
+			Thread current = thread;
+			if (current != null) {
+				LockSupport.unpark(current);
+			}
+		}
 
-					synchronized (state) {
-						state.apply(currentVal);
-					}
-				} while (sleep <= MIN_SLEEP);
+		private void applyDelay() {
+			long pausedFor = pausedNanos.getAndSet(0);
+			if (pausedFor != 0) {
+				scheduler.delayNanos(pausedFor);
+			}
+			if (delayMs != 0) {
+				synchronized (thread) {
+					scheduler.delay(delayMs);
+					delayMs = 0;
+				}
+			}
+		}
 
-				if (delayMs != 0) {
-					synchronized (thread) {
-						sleep += delayMs;
-						delayMs = 0;
+		private void apply(SyncProperty value, long recordTime) {
+			// without waiting for the main thread, the whole record would be
+			// applied within a frame or two
+			if (frameAligned || scheduler.getSpeed() == AS_FAST_AS_POSSIBLE) {
+				if (batch == null) {
+					synchronized (batchPool) {
+						batch = batchPool.obtain();
 					}
+					batch.targetNanos = scheduler.getTargetNanos(recordTime);
 				}
-
-				try {
-					Thread.sleep(sleep);
-				} catch (InterruptedException ex) {
-					Thread.currentThread().interrupt();
-					break;
+				batch.values.add(value);
+				batch.recordTimes.add(recordTime);
+			} else {
+				InputState state = playback.getState();
+				synchronized (state) {
+					state.timeStamp = playbackStartTime + recordTime;
+					state.apply(value);
 				}
+				mainThread.wake();
+			}
+		}
+
+		/**
+		 * Hands the batch of properties collected so far over to the main
+		 * thread
+		 */
+		private void postBatch() {
+			if (batch != null) {
+				postedBatches.incrementAndGet();
+				Gdx.app.postRunnable(batch);
+				batch = null;
 			}
 		}
 	}
@@ -78,6 +78,12 @@ public abstract class InputProperty {
 		 */
 		public long timeDelta;
 
+		/**
+		 * Frames (main loop cycles) passed since the last
+		 * {@link InputProperty} changed
+		 */
+		public long frameDelta;
+
 		/**
 		 * A struct to store the three axis values of the accelerometer in.
 		 * 
@@ -89,6 +95,14 @@ public abstract class InputProperty {
 			public float accelerometerY;
 			public float accelerometerZ;
 
+			public void set(Accelerometer other) {
+				accelerometerX = other.accelerometerX;
+				accelerometerY = other.accelerometerY;
+				accelerometerZ = other.accelerometerZ;
+				timeDelta = other.timeDelta;
+				frameDelta = other.frameDelta;
+			}
+
 			@Override
 			public void accept(SyncPropertyVisitor visitor) {
 				visitor.visitAccelerometer(this);
@@ -110,6 +124,17 @@ public abstract class InputProperty {
 			public int orientation;
 			public float[] rotationMatrix = new float[16];
 
+			public void set(Orientation other) {
+				roll = other.roll;
+				pitch = other.pitch;
+				azimuth = other.azimuth;
+				orientation = other.orientation;
+				System.arraycopy(other.rotationMatrix, 0, rotationMatrix, 0,
+						16);
+				timeDelta = other.timeDelta;
+				frameDelta = other.frameDelta;
+			}
+
 			@Override
 			public void accept(SyncPropertyVisitor visitor) {
 				visitor.visitOrientation(this);
@@ -138,6 +163,13 @@ public abstract class InputProperty {
 			public Type type;
 			public int keyCode;
 
+			public void set(KeyPressed other) {
+				type = other.type;
+				keyCode = other.keyCode;
+				timeDelta = other.timeDelta;
+				frameDelta = other.frameDelta;
+			}
+
 			@Override
 			public void accept(SyncPropertyVisitor visitor) {
 				visitor.visitKeyPressed(this);
@@ -192,11 +224,24 @@ public abstract class InputProperty {
 
 			KeyEvent(
 					com.badlogic.gdx.automation.recorder.EventBufferAccessHelper.KeyEvent event) {
+				set(event);
+			}
+
+			void set(
+					com.badlogic.gdx.automation.recorder.EventBufferAccessHelper.KeyEvent event) {
 				type = event.type;
 				keyCode = event.keyCode;
 				keyChar = event.keyChar;
 			}
 
+			public void set(KeyEvent other) {
+				type = other.type;
+				keyCode = other.keyCode;
+				keyChar = other.keyChar;
+				timeDelta = other.timeDelta;
+				frameDelta = other.frameDelta;
+			}
+
 			@Override
 			public void accept(SyncPropertyVisitor visitor) {
 				visitor.visitKeyEvent(this);
@@ -266,6 +311,11 @@ public abstract class InputProperty {
 
 			PointerEvent(
 					com.badlogic.gdx.automation.recorder.EventBufferAccessHelper.PointerEvent event) {
+				set(event);
+			}
+
+			void set(
+					com.badlogic.gdx.automation.recorder.EventBufferAccessHelper.PointerEvent event) {
 				type = event.type;
 				x = event.x;
 				y = event.y;
@@ -274,6 +324,17 @@ public abstract class InputProperty {
 				pointer = event.pointer;
 			}
 
+			public void set(PointerEvent other) {
+				type = other.type;
+				x = other.x;
+				y = other.y;
+				scrollAmount = other.scrollAmount;
+				button = other.button;
+				pointer = other.pointer;
+				timeDelta = other.timeDelta;
+				frameDelta = other.frameDelta;
+			}
+
 			@Override
 			public void accept(SyncPropertyVisitor visitor) {
 				visitor.visitPointerEvent(this);
@@ -295,6 +356,16 @@ public abstract class InputProperty {
 			public float deltaX;
 			public float deltaY;
 
+			public void set(Pointer other) {
+				pointer = other.pointer;
+				x = other.x;
+				y = other.y;
+				deltaX = other.deltaX;
+				deltaY = other.deltaY;
+				timeDelta = other.timeDelta;
+				frameDelta = other.frameDelta;
+			}
+
 			@Override
 			public void accept(SyncPropertyVisitor visitor) {
 				visitor.visitPointer(this);
@@ -312,6 +383,14 @@ public abstract class InputProperty {
 			public boolean button1;
 			public boolean button2;
 
+			public void set(Button other) {
+				button0 = other.button0;
+				button1 = other.button1;
+				button2 = other.button2;
+				timeDelta = other.timeDelta;
+				frameDelta = other.frameDelta;
+			}
+
 			@Override
 			public void accept(SyncPropertyVisitor visitor) {
 				visitor.visitButton(this);
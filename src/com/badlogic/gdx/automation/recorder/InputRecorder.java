@@ -19,6 +19,7 @@ public class InputRecorder {
 	private final TextInputTracker textTracker;
 
 	private final InputRecorderConfiguration config;
+	private final RecorderMetrics metrics = new RecorderMetrics();
 
 	private final static FileType standardOutputLocation = FileType.Local;
 	private final static String standardOutputPath = "gdxInputRecording.json";
@@ -32,6 +33,7 @@ public class InputRecorder {
 	public InputRecorder(InputRecorderConfiguration config) {
 		this.config = new InputRecorderConfiguration();
 		init(config);
+		metrics.setWriter(this.config.writer);
 
 		valueTracker = new InputStateTracker(this);
 		textTracker = new TextInputTracker(this);
@@ -45,7 +47,8 @@ public class InputRecorder {
 						standardOutputLocation);
 			}
 			try {
-				config.writer = new JsonInputRecordWriter(config.outputFile);
+				config.writer = new JsonInputRecordWriter(config.outputFile,
+						config.compression);
 			} catch (IOException e) {
 				throw new IllegalStateException(
 						"Unable to create InputRecordWriter for file "
@@ -90,6 +93,7 @@ public class InputRecorder {
 						"Probable loss of recorded data (see exception trace)");
 			}
 			config.writer = writer;
+			metrics.setWriter(writer);
 		}
 
 		if (textTrackerRunning) {
@@ -100,6 +104,14 @@ public class InputRecorder {
 		}
 	}
 
+	/**
+	 * @return the metrics of this recorder, measured if
+	 *         {@link InputRecorderConfiguration#recordMetrics} is enabled
+	 */
+	public RecorderMetrics getMetrics() {
+		return metrics;
+	}
+
 	InputRecordWriter getRecordWriter() {
 		return config.writer;
 	}
@@ -1,7 +1,10 @@
 package com.badlogic.gdx.automation.recorder;
 
+import com.badlogic.gdx.Input;
 import com.badlogic.gdx.automation.recorder.io.InputRecordWriter;
 import com.badlogic.gdx.automation.recorder.io.JsonInputRecordWriter;
+import com.badlogic.gdx.automation.recorder.io.RecordCompression;
+import com.badlogic.gdx.automation.recorder.io.SocketInputRecordWriter;
 import com.badlogic.gdx.files.FileHandle;
 
 /**
@@ -10,6 +13,33 @@ import com.badlogic.gdx.files.FileHandle;
  * @author Lukas Böhm
  */
 public class InputRecorderConfiguration {
+	/**
+	 * Describes what the main thread does when it has tracked more input
+	 * states than the {@link InputRecorderConfiguration#stateBufferCapacity
+	 * state buffer} can hold, because the thread processing and writing them
+	 * falls behind.
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * wait until the processing thread has freed a slot. No input is
+		 * lost, but the main loop may stall.
+		 */
+		BLOCK,
+		/**
+		 * throw away the oldest state that has not been processed yet
+		 */
+		DROP_OLDEST,
+		/**
+		 * keep additional states outside the buffer until there is room
+		 * again. No input is lost and the main loop does not stall, but
+		 * memory is allocated.
+		 */
+		GROW
+	}
+
 	/**
 	 * 
 	 */
@@ -20,6 +50,12 @@ public class InputRecorderConfiguration {
 	 */
 	public FileHandle outputFile = null;
 
+	/**
+	 * The compression of the record written to {@link #outputFile}. Will be
+	 * ignored if you set a different InputRecordWriter later
+	 */
+	public RecordCompression compression = RecordCompression.NONE;
+
 	/**
 	 * 
 	 */
@@ -43,6 +79,17 @@ public class InputRecorderConfiguration {
 	 */
 	public int recordedPointerCount = 0;
 
+	/**
+	 * If enabled, only the pointers that are touched or have been touched in
+	 * the frame before are sampled and compared, plus pointer 0 (the mouse on
+	 * desktop). Idle pointers then cost a single {@link Input#isTouched(int)}
+	 * call per frame, so recording many pointers is about as cheap as
+	 * recording one. Positions of pointers other than 0 that change while
+	 * they are not touched are not recorded. Supports up to 64
+	 * {@link #recordedPointerCount pointers}.
+	 */
+	public boolean recordActivePointersOnly = false;
+
 	/**
 	 * 
 	 */
@@ -58,6 +105,45 @@ public class InputRecorderConfiguration {
 	 */
 	public boolean recordKeyEvents = true;
 
+	/**
+	 * The number of preallocated input states buffered between the main thread
+	 * and the thread processing them. Rounded up to the next power of two.
+	 */
+	public int stateBufferCapacity = 64;
+
+	/**
+	 * What to do if the state buffer is full, see {@link OverflowPolicy}
+	 */
+	public OverflowPolicy stateBufferOverflow = OverflowPolicy.GROW;
+
+	/**
+	 * If enabled, the thread processing the tracked states is woken up for
+	 * every state and flushes the {@link #writer} whenever it has caught up
+	 * with the main thread, i.e. about once per frame. This keeps the latency
+	 * low when the record is sent somewhere else while recording (see
+	 * {@link SocketInputRecordWriter}), but makes writers to files flush
+	 * often.
+	 */
+	public boolean flushEveryFrame = false;
+
+	/**
+	 * Whether the {@link InputRecorder#getMetrics() metrics} of the recorder
+	 * are measured. Measuring is cheap enough to be left enabled.
+	 */
+	public boolean recordMetrics = true;
+
+	/**
+	 * Receives the {@link RecorderMetrics} periodically while recording, if
+	 * {@link #recordMetrics} is enabled
+	 */
+	public RecorderMetrics.Sink metricsSink = null;
+
+	/**
+	 * The number of milliseconds between two reports to the
+	 * {@link #metricsSink}
+	 */
+	public long metricsReportInterval = 1000;
+
 	/**
 	 * The default value is null, meaning that the {@link InputRecorder} will
 	 * create a default {@link InputRecordWriter} (a
@@ -77,10 +163,18 @@ public class InputRecorderConfiguration {
 		copy.recordKeysPressed = original.recordKeysPressed;
 		copy.recordPointers = original.recordPointers;
 		copy.recordedPointerCount = original.recordedPointerCount;
+		copy.recordActivePointersOnly = original.recordActivePointersOnly;
 		copy.recordPointerEvents = original.recordPointerEvents;
 		copy.absoluteCoords = original.absoluteCoords;
 		copy.outputFile = original.outputFile;
+		copy.compression = original.compression;
 		copy.writer = original.writer;
+		copy.stateBufferCapacity = original.stateBufferCapacity;
+		copy.stateBufferOverflow = original.stateBufferOverflow;
+		copy.flushEveryFrame = original.flushEveryFrame;
+		copy.recordMetrics = original.recordMetrics;
+		copy.metricsSink = original.metricsSink;
+		copy.metricsReportInterval = original.metricsReportInterval;
 		return copy;
 	}
 }
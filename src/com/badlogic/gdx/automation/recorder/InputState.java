@@ -4,7 +4,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Map;
 
 import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
@@ -19,6 +18,7 @@ import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Type;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncPropertyVisitor;
+import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.TimeUtils;
 
 /**
@@ -26,10 +26,30 @@ import com.badlogic.gdx.utils.TimeUtils;
  * time. Especially the {@link #set(InputState, int)} method is useful to take a
  * snapshot of a configurable set of properties from a given {@link Input}
  * 
+ * The values of all pointers are stored interleaved in the single array
+ * {@link #pointers}, {@link #POINTER_STRIDE} ints per pointer, so sampling,
+ * comparing and copying them walks memory only once.
+ * 
  * @author Lukas Böhm
  */
 public class InputState {
 
+	/**
+	 * the number of ints stored per pointer in {@link #pointers}
+	 */
+	public static final int POINTER_STRIDE = 5;
+	/*
+	 * offsets of the values of a pointer in its POINTER_STRIDE ints
+	 */
+	public static final int POINTER_X = 0;
+	public static final int POINTER_Y = 1;
+	public static final int POINTER_DELTA_X = 2;
+	public static final int POINTER_DELTA_Y = 3;
+	/**
+	 * 1 if the pointer is touched, 0 otherwise
+	 */
+	public static final int POINTER_TOUCHED = 4;
+
 	private int MAX_POINTERS;
 
 	private final SyncValueApplier applier;
@@ -38,11 +58,21 @@ public class InputState {
 	public float accelerometerY;
 	public float accelerometerZ;
 
-	public int[] x;
-	public int[] y;
-	public int[] deltaX;
-	public int[] deltaY;
-	public boolean[] touched;
+	/**
+	 * x, y, delta x, delta y and touched of every pointer, see
+	 * {@link #POINTER_STRIDE}
+	 */
+	public int[] pointers;
+	/**
+	 * bit i is set if pointer i is touched. Only maintained by
+	 * {@link #setActivePointers(Input, long)}.
+	 */
+	public long touchedPointers;
+	/**
+	 * bit i is set if the values of pointer i have been sampled into this
+	 * state. Only maintained by {@link #setActivePointers(Input, long)}.
+	 */
+	public long activePointers;
 
 	public boolean justTouched;
 
@@ -50,10 +80,16 @@ public class InputState {
 	public boolean button1;
 	public boolean button2;
 
-	public final SparseArray<Boolean> pressedKeys;
+	public final KeyBitSet pressedKeys;
 
 	public final ArrayList<EventBufferAccessHelper.KeyEvent> keyEvents;
 	public final ArrayList<EventBufferAccessHelper.PointerEvent> pointerEvents;
+	/**
+	 * The events stored by a state are owned by it and reused once they are
+	 * cleared, so states can be recycled without allocating new events
+	 */
+	private final Pool<EventBufferAccessHelper.KeyEvent> keyEventPool;
+	private final Pool<EventBufferAccessHelper.PointerEvent> pointerEventPool;
 
 	public float pitch;
 	public float roll;
@@ -65,11 +101,28 @@ public class InputState {
 
 	public long timeStamp = TimeUtils.millis();
 
+	/**
+	 * index of the main loop cycle this state was tracked in
+	 */
+	public long frame;
+
 	public InputState() {
 		applier = new SyncValueApplier();
-		pressedKeys = new SparseArray<Boolean>();
+		pressedKeys = new KeyBitSet();
 		keyEvents = new ArrayList<EventBufferAccessHelper.KeyEvent>();
 		pointerEvents = new ArrayList<EventBufferAccessHelper.PointerEvent>();
+		keyEventPool = new Pool<EventBufferAccessHelper.KeyEvent>() {
+			@Override
+			protected EventBufferAccessHelper.KeyEvent newObject() {
+				return new EventBufferAccessHelper.KeyEvent();
+			}
+		};
+		pointerEventPool = new Pool<EventBufferAccessHelper.PointerEvent>() {
+			@Override
+			protected EventBufferAccessHelper.PointerEvent newObject() {
+				return new EventBufferAccessHelper.PointerEvent();
+			}
+		};
 	}
 
 	public InputState(int maxPointers) {
@@ -81,17 +134,13 @@ public class InputState {
 							+ maxPointers);
 		}
 		this.MAX_POINTERS = maxPointers;
-		x = new int[MAX_POINTERS];
-		y = new int[MAX_POINTERS];
-		deltaX = new int[MAX_POINTERS];
-		deltaY = new int[MAX_POINTERS];
-		touched = new boolean[MAX_POINTERS];
+		pointers = new int[MAX_POINTERS * POINTER_STRIDE];
 	}
 
 	public void initialize(int maxPointers) {
 		pressedKeys.clear();
-		keyEvents.clear();
-		pointerEvents.clear();
+		clearKeyEvents();
+		clearPointerEvents();
 		if (maxPointers != MAX_POINTERS) {
 			if (maxPointers > MAX_POINTERS) {
 				if (maxPointers > 20) {
@@ -100,17 +149,9 @@ public class InputState {
 							"Warning: Most of the libGDX backends only use 20 pointers internally. Trying to use "
 									+ maxPointers);
 				}
-				x = new int[maxPointers];
-				y = new int[maxPointers];
-				deltaX = new int[maxPointers];
-				deltaY = new int[maxPointers];
-				touched = new boolean[maxPointers];
+				pointers = new int[maxPointers * POINTER_STRIDE];
 			} else {
-				Arrays.fill(x, 0);
-				Arrays.fill(y, 0);
-				Arrays.fill(deltaX, 0);
-				Arrays.fill(deltaY, 0);
-				Arrays.fill(touched, false);
+				Arrays.fill(pointers, 0);
 			}
 			MAX_POINTERS = maxPointers;
 		}
@@ -123,8 +164,10 @@ public class InputState {
 			button2 = state.button2;
 		}
 		if ((copyFlags & Type.KEY_EVENTS.key) != 0) {
-			keyEvents.clear();
-			keyEvents.addAll(state.keyEvents);
+			clearKeyEvents();
+			for (int i = 0; i < state.keyEvents.size(); i++) {
+				addKeyEvent().set(state.keyEvents.get(i));
+			}
 		}
 		if ((copyFlags & Type.KEYS_PRESSED.key) != 0) {
 			setPressedKeys(state.pressedKeys);
@@ -140,26 +183,68 @@ public class InputState {
 			System.arraycopy(state.rotationMatrix, 0, rotationMatrix, 0, 16);
 		}
 		if ((copyFlags & Type.POINTERS.key) != 0) {
-			System.arraycopy(state.x, 0, x, 0, MAX_POINTERS);
-			System.arraycopy(state.y, 0, y, 0, MAX_POINTERS);
-			System.arraycopy(state.deltaX, 0, deltaX, 0, MAX_POINTERS);
-			System.arraycopy(state.deltaY, 0, deltaY, 0, MAX_POINTERS);
-			System.arraycopy(state.touched, 0, touched, 0, MAX_POINTERS);
+			System.arraycopy(state.pointers, 0, pointers, 0, MAX_POINTERS
+					* POINTER_STRIDE);
+			touchedPointers = state.touchedPointers;
+			activePointers = state.activePointers;
 			justTouched = state.justTouched;
 		}
 		if ((copyFlags & Type.POINTER_EVENTS.key) != 0) {
-			pointerEvents.clear();
-			pointerEvents.addAll(state.pointerEvents);
+			clearPointerEvents();
+			for (int i = 0; i < state.pointerEvents.size(); i++) {
+				addPointerEvent().set(state.pointerEvents.get(i));
+			}
 		}
 	}
 
-	public void setPressedKeys(SparseArray<Boolean> pressed) {
-		for (Map.Entry<Integer, Boolean> entry : pressedKeys.entrySet()) {
-			entry.setValue(false);
+	/**
+	 * Removes all {@link #keyEvents} from this state, keeping them for reuse by
+	 * {@link #addKeyEvent()}
+	 */
+	public void clearKeyEvents() {
+		for (int i = 0; i < keyEvents.size(); i++) {
+			keyEventPool.free(keyEvents.get(i));
 		}
-		for (Map.Entry<Integer, Boolean> entry : pressed.entrySet()) {
-			pressedKeys.put(entry.getKey(), Boolean.TRUE);
+		keyEvents.clear();
+	}
+
+	/**
+	 * Removes all {@link #pointerEvents} from this state, keeping them for
+	 * reuse by {@link #addPointerEvent()}
+	 */
+	public void clearPointerEvents() {
+		for (int i = 0; i < pointerEvents.size(); i++) {
+			pointerEventPool.free(pointerEvents.get(i));
 		}
+		pointerEvents.clear();
+	}
+
+	/**
+	 * Appends a (possibly recycled) key event to {@link #keyEvents}. The
+	 * returned event's values are undefined until they are set.
+	 * 
+	 * @return the added event
+	 */
+	EventBufferAccessHelper.KeyEvent addKeyEvent() {
+		EventBufferAccessHelper.KeyEvent event = keyEventPool.obtain();
+		keyEvents.add(event);
+		return event;
+	}
+
+	/**
+	 * Appends a (possibly recycled) pointer event to {@link #pointerEvents}.
+	 * The returned event's values are undefined until they are set.
+	 * 
+	 * @return the added event
+	 */
+	EventBufferAccessHelper.PointerEvent addPointerEvent() {
+		EventBufferAccessHelper.PointerEvent event = pointerEventPool.obtain();
+		pointerEvents.add(event);
+		return event;
+	}
+
+	public void setPressedKeys(KeyBitSet pressed) {
+		pressedKeys.set(pressed);
 	}
 
 	/**
@@ -187,11 +272,7 @@ public class InputState {
 		timeStamp = TimeUtils.millis(); // input in milliseconds should be
 										// sufficient
 		if ((InputProperty.SyncProperty.Type.POINTERS.key & properties) != 0) {
-			setX(input);
-			setY(input);
-			setDeltaX(input);
-			setDeltaY(input);
-			setTouched(input);
+			setPointers(input);
 		}
 		if ((InputProperty.SyncProperty.Type.BUTTONS.key & properties) != 0) {
 			setButtons(input);
@@ -210,34 +291,90 @@ public class InputState {
 		}
 	}
 
-	private void setX(Input input) {
-		for (int i = 0; i < MAX_POINTERS; i++) {
-			x[i] = input.getX(i);
+	private void setPointers(Input input) {
+		int offset = 0;
+		for (int i = 0; i < MAX_POINTERS; i++, offset += POINTER_STRIDE) {
+			setPointer(input, i, offset);
+			pointers[offset + POINTER_TOUCHED] = input.isTouched(i) ? 1 : 0;
 		}
+		justTouched = input.justTouched();
 	}
 
-	private void setY(Input input) {
-		for (int i = 0; i < MAX_POINTERS; i++) {
-			y[i] = input.getY(i);
-		}
+	private void setPointer(Input input, int i, int offset) {
+		pointers[offset + POINTER_X] = input.getX(i);
+		pointers[offset + POINTER_Y] = input.getY(i);
+		pointers[offset + POINTER_DELTA_X] = input.getDeltaX(i);
+		pointers[offset + POINTER_DELTA_Y] = input.getDeltaY(i);
 	}
 
-	private void setDeltaX(Input input) {
-		for (int i = 0; i < MAX_POINTERS; i++) {
-			deltaX[i] = input.getDeltaX(i);
-		}
+	/**
+	 * Sets all values of a pointer at once
+	 * 
+	 * @param pointer
+	 * @param x
+	 * @param y
+	 * @param deltaX
+	 * @param deltaY
+	 * @param touched
+	 */
+	public void setPointer(int pointer, int x, int y, int deltaX, int deltaY,
+			boolean touched) {
+		verifyPointer(pointer);
+		int offset = pointer * POINTER_STRIDE;
+		pointers[offset + POINTER_X] = x;
+		pointers[offset + POINTER_Y] = y;
+		pointers[offset + POINTER_DELTA_X] = deltaX;
+		pointers[offset + POINTER_DELTA_Y] = deltaY;
+		pointers[offset + POINTER_TOUCHED] = touched ? 1 : 0;
 	}
 
-	private void setDeltaY(Input input) {
-		for (int i = 0; i < MAX_POINTERS; i++) {
-			deltaY[i] = input.getDeltaY(i);
+	/**
+	 * Sets the deltas of all pointers to 0
+	 */
+	public void clearPointerDeltas() {
+		for (int offset = 0; offset < pointers.length; offset += POINTER_STRIDE) {
+			pointers[offset + POINTER_DELTA_X] = 0;
+			pointers[offset + POINTER_DELTA_Y] = 0;
 		}
 	}
 
-	private void setTouched(Input input) {
-		for (int i = 0; i < MAX_POINTERS; i++) {
-			touched[i] = input.isTouched(i);
+	/**
+	 * Samples the pointers of the given input like
+	 * {@link #set(Input, int, boolean)} does for {@link Type#POINTERS}, but
+	 * only reads all values of the pointers that are touched now or were
+	 * touched in the state before, plus pointer 0, which is moved by the mouse
+	 * on desktop without being touched. Only {@link Input#isTouched(int)} is
+	 * called for the other pointers; their values in this state are left as
+	 * they are. {@link #activePointers} tells which pointers have been
+	 * sampled.
+	 * 
+	 * @param input
+	 * @param lastTouchedPointers
+	 *            the {@link #touchedPointers} of the state before
+	 */
+	public void setActivePointers(Input input, long lastTouchedPointers) {
+		if (MAX_POINTERS > Long.SIZE) {
+			throw new IllegalStateException("Cannot track more than "
+					+ Long.SIZE + " active pointers");
+		}
+		long touchedNow = 0;
+		long active = 0;
+		int offset = 0;
+		for (int i = 0; i < MAX_POINTERS; i++, offset += POINTER_STRIDE) {
+			long bit = 1L << i;
+			if (input.isTouched(i)) {
+				pointers[offset + POINTER_TOUCHED] = 1;
+				touchedNow |= bit;
+			} else {
+				pointers[offset + POINTER_TOUCHED] = 0;
+			}
+			if (i == 0 || ((touchedNow | lastTouchedPointers) & bit) != 0) {
+				setPointer(input, i, offset);
+				active |= bit;
+			}
 		}
+		touchedPointers = touchedNow;
+		activePointers = active;
 		justTouched = input.justTouched();
 	}
 
@@ -252,11 +389,11 @@ public class InputState {
 	}
 
 	private void setKeyEvents(Input input, boolean update) {
-		EventBufferAccessHelper.copyKeyEvents(input, keyEvents, update);
+		EventBufferAccessHelper.copyKeyEvents(input, this, update);
 	}
 
 	private void setPointerEvents(Input input, boolean update) {
-		EventBufferAccessHelper.copyPointerEvents(input, pointerEvents, update);
+		EventBufferAccessHelper.copyPointerEvents(input, this, update);
 	}
 
 	private void setOrientation(Input input) {
@@ -334,39 +471,39 @@ public class InputState {
 	}
 
 	public int getX() {
-		return x[0];
+		return pointers[POINTER_X];
 	}
 
 	public int getX(int pointer) {
 		verifyPointer(pointer);
-		return x[pointer];
+		return pointers[pointer * POINTER_STRIDE + POINTER_X];
 	}
 
 	public int getDeltaX() {
-		return deltaX[0];
+		return pointers[POINTER_DELTA_X];
 	}
 
 	public int getDeltaX(int pointer) {
 		verifyPointer(pointer);
-		return deltaX[pointer];
+		return pointers[pointer * POINTER_STRIDE + POINTER_DELTA_X];
 	}
 
 	public int getY() {
-		return y[0];
+		return pointers[POINTER_Y];
 	}
 
 	public int getY(int pointer) {
 		verifyPointer(pointer);
-		return y[pointer];
+		return pointers[pointer * POINTER_STRIDE + POINTER_Y];
 	}
 
 	public int getDeltaY() {
-		return deltaY[0];
+		return pointers[POINTER_DELTA_Y];
 	}
 
 	public int getDeltaY(int pointer) {
 		verifyPointer(pointer);
-		return deltaY[pointer];
+		return pointers[pointer * POINTER_STRIDE + POINTER_DELTA_Y];
 	}
 
 	public boolean justTouched() {
@@ -374,12 +511,12 @@ public class InputState {
 	}
 
 	public boolean isTouched() {
-		return touched[0];
+		return pointers[POINTER_TOUCHED] != 0;
 	}
 
 	public boolean isTouched(int pointer) {
 		verifyPointer(pointer);
-		return touched[pointer];
+		return pointers[pointer * POINTER_STRIDE + POINTER_TOUCHED] != 0;
 	}
 
 	public boolean isButtonPressed(int button) {
@@ -397,10 +534,9 @@ public class InputState {
 
 	public boolean isKeyPressed(int key) {
 		if (key == Input.Keys.ANY_KEY) {
-			return pressedKeys.size() > 0;
+			return !pressedKeys.isEmpty();
 		} else {
-			return pressedKeys.containsKey(key) && pressedKeys.get(key) != null
-					&& pressedKeys.get(key);
+			return pressedKeys.get(key);
 		}
 	}
 
@@ -463,24 +599,25 @@ public class InputState {
 
 		@Override
 		public void visitKeyPressed(KeyPressed keyPressed) {
-			pressedKeys.put(keyPressed.keyCode, Boolean.TRUE);
-			// TODO where are the keys cleared?
+			if (keyPressed.type == KeyPressed.Type.PRESS) {
+				pressedKeys.set(keyPressed.keyCode);
+			} else {
+				pressedKeys.clear(keyPressed.keyCode);
+			}
 		}
 
 		@Override
 		public void visitPointerEvent(PointerEvent pointerEvent) {
-			EventBufferAccessHelper.PointerEvent addedEvent = new EventBufferAccessHelper.PointerEvent(
-					pointerEvent);
+			EventBufferAccessHelper.PointerEvent addedEvent = addPointerEvent();
+			addedEvent.set(pointerEvent);
 			addedEvent.timeStamp = timeStamp;
-			pointerEvents.add(addedEvent);
 		}
 
 		@Override
 		public void visitKeyEvent(KeyEvent keyEvent) {
-			EventBufferAccessHelper.KeyEvent addedEvent = new EventBufferAccessHelper.KeyEvent(
-					keyEvent);
+			EventBufferAccessHelper.KeyEvent addedEvent = addKeyEvent();
+			addedEvent.set(keyEvent);
 			addedEvent.timeStamp = timeStamp;
-			keyEvents.add(addedEvent);
 		}
 
 		@Override
@@ -495,10 +632,11 @@ public class InputState {
 
 		@Override
 		public void visitPointer(Pointer pointer) {
-			x[pointer.pointer] = (int) pointer.x;
-			y[pointer.pointer] = (int) pointer.y;
-			deltaX[pointer.pointer] = (int) pointer.deltaX;
-			deltaY[pointer.pointer] = (int) pointer.deltaY;
+			int offset = pointer.pointer * POINTER_STRIDE;
+			pointers[offset + POINTER_X] = (int) pointer.x;
+			pointers[offset + POINTER_Y] = (int) pointer.y;
+			pointers[offset + POINTER_DELTA_X] = (int) pointer.deltaX;
+			pointers[offset + POINTER_DELTA_Y] = (int) pointer.deltaY;
 		}
 
 		@Override
@@ -18,15 +18,42 @@ import com.badlogic.gdx.automation.recorder.io.InputRecordWriter;
  * A class to be fed InputStates via {@link #process(InputState)} so it can
  * process them and write it using {@link InputRecorder#getRecordWriter()}
  * 
+ * There is a single instance of each {@link SyncProperty} type which is filled
+ * and handed to the writer for every change detected, so processing does not
+ * allocate. This relies on {@link InputRecordWriter#writeSyncValues(SyncProperty)
+ * writers} not keeping the properties passed to them.
+ * 
  * @author Lukas Böhm
  */
 class InputStateProcessor {
 	private final InputRecorder recorder;
 	private InputState lastState = null;
 	private long timeDelta;
+	private long frameDelta;
+	/**
+	 * stands in for the pressed keys of the last state as long as there is
+	 * none
+	 */
+	private final KeyBitSet noKeys = new KeyBitSet();
+
+	private final Button button = new Button();
+	private final SyncProperty.KeyEvent keyEvent = new SyncProperty.KeyEvent();
+	private final KeyPressed keyPressed = new KeyPressed();
+	private final Accelerometer accelerometer = new Accelerometer();
+	private final Orientation orientation = new Orientation();
+	private final Pointer pointer = new Pointer();
+	private final SyncProperty.PointerEvent pointerEvent = new SyncProperty.PointerEvent();
 
 	private final int copiedValuesFlag;
 	private final int trackedValuesFlag;
+	/**
+	 * see {@link InputRecorderConfiguration#recordActivePointersOnly}
+	 */
+	private final boolean activePointersOnly;
+	/**
+	 * null if {@link InputRecorderConfiguration#recordMetrics} is disabled
+	 */
+	private final RecorderMetrics metrics;
 
 	public InputStateProcessor(InputRecorder recorder) {
 		this.recorder = recorder;
@@ -44,21 +71,41 @@ class InputStateProcessor {
 		if (config.recordPointerEvents) {
 			flags |= Type.POINTER_EVENTS.key;
 		}
+		if (config.recordKeysPressed) {
+			flags |= Type.KEYS_PRESSED.key;
+		}
 		copiedValuesFlag = flags;
 
 		if (config.recordKeyEvents) {
 			flags |= Type.KEY_EVENTS.key;
 		}
-		if (config.recordKeysPressed) {
-			flags |= Type.KEYS_PRESSED.key;
-		}
 		trackedValuesFlag = flags;
+		activePointersOnly = config.recordActivePointersOnly;
+		metrics = config.recordMetrics ? recorder.getMetrics() : null;
 	}
 
-	private long getTimeDelta() {
-		long delta = timeDelta;
+	/**
+	 * Hands the time and frames passed since the last written property to the
+	 * given one
+	 * 
+	 * @param property
+	 */
+	private void setDeltas(SyncProperty property) {
+		property.timeDelta = timeDelta;
+		property.frameDelta = frameDelta;
 		timeDelta = 0;
-		return delta;
+		frameDelta = 0;
+	}
+
+	private void write(SyncProperty property) throws IOException {
+		InputRecordWriter writer = recorder.getRecordWriter();
+		if (metrics == null) {
+			writer.writeSyncValues(property);
+			return;
+		}
+		long start = System.nanoTime();
+		writer.writeSyncValues(property);
+		metrics.writeNanos.record(System.nanoTime() - start);
 	}
 
 	/**
@@ -69,8 +116,11 @@ class InputStateProcessor {
 	 * @param state
 	 */
 	public void process(InputState state) throws IOException {
-		timeDelta = lastState == null ? 0 : state.timeStamp
-				- lastState.timeStamp;
+		// accumulated, since states without changes do not write anything
+		if (lastState != null) {
+			timeDelta += state.timeStamp - lastState.timeStamp;
+			frameDelta += state.frame - lastState.frame;
+		}
 		if ((trackedValuesFlag & Type.BUTTONS.key) != 0) {
 			processButtons(state);
 		}
@@ -95,142 +145,166 @@ class InputStateProcessor {
 		}
 		lastState.set(state, copiedValuesFlag);
 		lastState.timeStamp = state.timeStamp;
+		lastState.frame = state.frame;
 	}
 
 	private void processButtons(InputState state) throws IOException {
 		if (lastState == null || state.button0 != lastState.button0
 				|| state.button1 != lastState.button1
 				|| state.button2 != lastState.button2) {
-			Button buttonChange = new Button();
-			buttonChange.button0 = state.button0;
-			buttonChange.button1 = state.button1;
-			buttonChange.button2 = state.button2;
-			buttonChange.timeDelta = getTimeDelta();
-			recorder.getRecordWriter().writeSyncValues(buttonChange);
+			button.button0 = state.button0;
+			button.button1 = state.button1;
+			button.button2 = state.button2;
+			setDeltas(button);
+			write(button);
 		}
 	}
 
 	private void processKeyEvents(InputState state) throws IOException {
-		InputRecordWriter writer = recorder.getRecordWriter();
-		for (KeyEvent event : state.keyEvents) {
-			com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent valueEvent = new com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent(
-					event);
-			valueEvent.timeDelta = getTimeDelta();
-			writer.writeSyncValues(valueEvent);
+		for (int i = 0; i < state.keyEvents.size(); i++) {
+			KeyEvent event = state.keyEvents.get(i);
+			keyEvent.set(event);
+			setDeltas(keyEvent);
+			write(keyEvent);
 		}
 	}
 
 	private void processKeysPressed(InputState state) throws IOException {
-		InputRecordWriter writer = recorder.getRecordWriter();
+		KeyBitSet current = state.pressedKeys;
+		KeyBitSet last = lastState == null ? noKeys : lastState.pressedKeys;
+		int words = Math.max(current.wordCount(), last.wordCount());
 		// look for newly pressed keys
-		for (int key : state.pressedKeys.keySet()) {
-			if (state.pressedKeys.get(key) && !lastState.pressedKeys.get(key)) {
-				KeyPressed pressed = new KeyPressed();
-				pressed.keyCode = key;
-				pressed.type = KeyPressed.Type.PRESS;
-				pressed.timeDelta = getTimeDelta();
-				writer.writeSyncValues(pressed);
+		for (int i = 0; i < words; i++) {
+			long pressed = current.word(i) & ~last.word(i);
+			while (pressed != 0) {
+				int key = (i << 6) + Long.numberOfTrailingZeros(pressed);
+				writeKeyPressed(key, KeyPressed.Type.PRESS);
+				pressed &= pressed - 1;
 			}
 		}
 
 		// look for released keys
-		for (int key : lastState.pressedKeys.keySet()) {
-			if (lastState.pressedKeys.get(key) && !state.pressedKeys.get(key)) {
-				KeyPressed pressed = new KeyPressed();
-				pressed.keyCode = key;
-				pressed.type = KeyPressed.Type.RELEASE;
-				pressed.timeDelta = getTimeDelta();
-				writer.writeSyncValues(pressed);
+		for (int i = 0; i < words; i++) {
+			long released = last.word(i) & ~current.word(i);
+			while (released != 0) {
+				int key = (i << 6) + Long.numberOfTrailingZeros(released);
+				writeKeyPressed(key, KeyPressed.Type.RELEASE);
+				released &= released - 1;
 			}
 		}
 	}
 
+	private void writeKeyPressed(int key, KeyPressed.Type type)
+			throws IOException {
+		keyPressed.keyCode = key;
+		keyPressed.type = type;
+		setDeltas(keyPressed);
+		write(keyPressed);
+	}
+
 	private void processOrientation(InputState state) {
 		if (lastState == null
 				|| state.accelerometerX != lastState.accelerometerX
 				|| state.accelerometerY != lastState.accelerometerY
 				|| state.accelerometerZ != lastState.accelerometerZ) {
-			Accelerometer accelChange = new Accelerometer();
-			accelChange.accelerometerX = state.accelerometerX;
-			accelChange.accelerometerY = state.accelerometerY;
-			accelChange.accelerometerZ = state.accelerometerZ;
-			accelChange.timeDelta = getTimeDelta();
+			accelerometer.accelerometerX = state.accelerometerX;
+			accelerometer.accelerometerY = state.accelerometerY;
+			accelerometer.accelerometerZ = state.accelerometerZ;
+			// not written (yet), so the deltas are left to the next property
 		}
 		if (lastState == null || state.roll != lastState.roll
 				|| state.pitch != lastState.pitch
 				|| state.azimuth != lastState.azimuth
 				|| state.orientation != lastState.orientation) {
-			Orientation oChange = new Orientation();
-			oChange.pitch = state.pitch;
-			oChange.roll = state.roll;
-			oChange.azimuth = state.azimuth;
-			oChange.orientation = state.orientation;
-			System.arraycopy(state.rotationMatrix, 0, oChange.rotationMatrix,
-					0, 16);
-			oChange.timeDelta = getTimeDelta();
+			orientation.pitch = state.pitch;
+			orientation.roll = state.roll;
+			orientation.azimuth = state.azimuth;
+			orientation.orientation = state.orientation;
+			System.arraycopy(state.rotationMatrix, 0,
+					orientation.rotationMatrix, 0, 16);
 		}
 	}
 
 	private void processPointers(InputState state) throws IOException {
+		if (activePointersOnly) {
+			processActivePointers(state);
+			return;
+		}
 		int maxPtrs = recorder.getConfiguration().recordedPointerCount;
-		InputRecordWriter writer = recorder.getRecordWriter();
-		if (recorder.getConfiguration().absoluteCoords) {
-			for (int i = 0; i < maxPtrs; i++) {
-				// TODO are the deltas really dependent on the coordinates?
-				if (lastState == null
-						|| state.justTouched != lastState.justTouched
-						|| state.x[i] != lastState.x[i]
-						|| state.y[i] != lastState.y[i]) {
-					Pointer ptrChange = new Pointer();
-					ptrChange.x = state.x[i];
-					ptrChange.y = state.y[i];
-					ptrChange.deltaX = state.deltaX[i];
-					ptrChange.deltaY = state.deltaY[i];
-					ptrChange.pointer = i;
-					ptrChange.timeDelta = getTimeDelta();
-					writer.writeSyncValues(ptrChange);
-				}
+		for (int i = 0; i < maxPtrs; i++) {
+			// TODO are the deltas really dependent on the coordinates?
+			if (lastState == null || pointerChanged(state, i)) {
+				writePointer(state, i);
 			}
-		} else {
-			int w = Gdx.graphics.getWidth();
-			int h = Gdx.graphics.getHeight();
-			for (int i = 0; i < maxPtrs; i++) {
-				if (lastState == null
-						|| state.justTouched != lastState.justTouched
-						|| state.x[i] != lastState.x[i]
-						|| state.y[i] != lastState.y[i]) {
-					Pointer ptrChange = new Pointer();
-					ptrChange.x = state.x[i] / w;
-					ptrChange.y = state.y[i] / h;
-					ptrChange.deltaX = state.deltaX[i] / w;
-					ptrChange.deltaY = state.deltaY[i] / h;
-					ptrChange.pointer = i;
-					ptrChange.timeDelta = getTimeDelta();
-					writer.writeSyncValues(ptrChange);
-				}
+		}
+	}
+
+	/**
+	 * Only compares the pointers sampled into the given state. Pointers which
+	 * have not been sampled into the last state are always written, since the
+	 * last state's values of them are outdated.
+	 * 
+	 * @param state
+	 * @throws IOException
+	 */
+	private void processActivePointers(InputState state) throws IOException {
+		long active = state.activePointers;
+		long lastActive = lastState == null ? 0 : lastState.activePointers;
+		while (active != 0) {
+			int i = Long.numberOfTrailingZeros(active);
+			active &= active - 1;
+			if ((lastActive & (1L << i)) == 0 || pointerChanged(state, i)) {
+				writePointer(state, i);
 			}
 		}
 	}
 
+	private boolean pointerChanged(InputState state, int i) {
+		int x = i * InputState.POINTER_STRIDE + InputState.POINTER_X;
+		int y = i * InputState.POINTER_STRIDE + InputState.POINTER_Y;
+		return state.justTouched != lastState.justTouched
+				|| state.pointers[x] != lastState.pointers[x]
+				|| state.pointers[y] != lastState.pointers[y];
+	}
+
+	private void writePointer(InputState state, int i) throws IOException {
+		int offset = i * InputState.POINTER_STRIDE;
+		int[] values = state.pointers;
+		pointer.x = values[offset + InputState.POINTER_X];
+		pointer.y = values[offset + InputState.POINTER_Y];
+		pointer.deltaX = values[offset + InputState.POINTER_DELTA_X];
+		pointer.deltaY = values[offset + InputState.POINTER_DELTA_Y];
+		if (!recorder.getConfiguration().absoluteCoords) {
+			float w = Gdx.graphics.getWidth();
+			float h = Gdx.graphics.getHeight();
+			pointer.x /= w;
+			pointer.y /= h;
+			pointer.deltaX /= w;
+			pointer.deltaY /= h;
+		}
+		pointer.pointer = i;
+		setDeltas(pointer);
+		write(pointer);
+	}
+
 	private void processPointerEvents(InputState state) throws IOException {
-		InputRecordWriter writer = recorder.getRecordWriter();
 		if (recorder.getConfiguration().absoluteCoords) {
-			for (PointerEvent event : state.pointerEvents) {
-				SyncProperty.PointerEvent ptrEvent = new SyncProperty.PointerEvent(
-						event);
-				ptrEvent.timeDelta = getTimeDelta();
-				writer.writeSyncValues(ptrEvent);
+			for (int i = 0; i < state.pointerEvents.size(); i++) {
+				PointerEvent event = state.pointerEvents.get(i);
+				pointerEvent.set(event);
+				setDeltas(pointerEvent);
+				write(pointerEvent);
 			}
 		} else {
 			int w = Gdx.graphics.getWidth();
 			int h = Gdx.graphics.getHeight();
-			for (PointerEvent event : state.pointerEvents) {
-				SyncProperty.PointerEvent ptrEvent = new SyncProperty.PointerEvent(
-						event);
-				ptrEvent.x /= w;
-				ptrEvent.y /= h;
-				ptrEvent.timeDelta = getTimeDelta();
-				writer.writeSyncValues(ptrEvent);
+			for (int i = 0; i < state.pointerEvents.size(); i++) {
+				PointerEvent event = state.pointerEvents.get(i);
+				pointerEvent.set(event);
+				pointerEvent.x /= w;
+				pointerEvent.y /= h;
+				setDeltas(pointerEvent);
+				write(pointerEvent);
 			}
 		}
 	}
@@ -241,5 +315,7 @@ class InputStateProcessor {
 	 */
 	public void reset() {
 		lastState = null;
+		timeDelta = 0;
+		frameDelta = 0;
 	}
 }
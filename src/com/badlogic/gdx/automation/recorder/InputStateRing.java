@@ -0,0 +1,320 @@
+package com.badlogic.gdx.automation.recorder;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.badlogic.gdx.automation.recorder.InputRecorderConfiguration.OverflowPolicy;
+
+/**
+ * A bounded single-producer single-consumer ring of preallocated
+ * {@link InputState}s, used to hand over the states tracked on the main thread
+ * to the thread processing them without locking.
+ *
+ * Every slot carries a sequence number telling whether it is free to be filled
+ * by the producer or published to be taken by the consumer. The producer
+ * {@link #claim() claims} a state, fills it and {@link #publish() publishes}
+ * it, the consumer {@link #take() takes} published states in order and
+ * {@link #release() releases} them once they are processed. What happens if
+ * the producer finds the ring full is decided by the {@link OverflowPolicy}.
+ *
+ * @author Lukas Böhm
+ *
+ */
+class InputStateRing {
+	/**
+	 * how long a {@link OverflowPolicy#BLOCK blocked} producer parks before
+	 * looking for a free slot again
+	 */
+	private static final long BLOCK_PARK_NANOS = 100000;
+
+	private final int capacity;
+	private final int mask;
+	private final int pointerCount;
+	private final OverflowPolicy policy;
+	private final InputState[] states;
+	/**
+	 * A slot at position p is free to be filled if its sequence is p and
+	 * published if its sequence is p + 1. When released it gets p + capacity,
+	 * i.e. it is free for the next round.
+	 */
+	private final AtomicLongArray sequences;
+	/**
+	 * position of the oldest published state. Advanced by the consumer when
+	 * taking a state, and by the producer when dropping the oldest state.
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/*
+	 * producer side
+	 */
+	private long tail = 0;
+	private InputState claimed = null;
+	private boolean claimedInRing;
+	/**
+	 * filled and thrown away instead of a real slot when a frame is dropped
+	 */
+	private final InputState droppedState;
+	/**
+	 * states published while the ring was full, in order. Only used with
+	 * {@link OverflowPolicy#GROW}.
+	 */
+	private final ArrayList<InputState> overflow = new ArrayList<InputState>();
+	private int overflowHead = 0;
+	private final ArrayList<InputState> spareStates = new ArrayList<InputState>();
+	private volatile long droppedCount = 0;
+
+	/*
+	 * consumer side
+	 */
+	private long taken = -1;
+	private volatile Thread consumer;
+	private volatile boolean consumerWaiting = false;
+	private final int wakeThreshold;
+
+	/**
+	 * @param capacity
+	 *            the number of preallocated states, rounded up to the next
+	 *            power of two
+	 * @param policy
+	 *            what to do if the producer finds the ring full
+	 * @param pointerCount
+	 *            the pointer count of the states
+	 * @param wakeThreshold
+	 *            the number of pending states at which a waiting consumer is
+	 *            woken up
+	 */
+	public InputStateRing(int capacity, OverflowPolicy policy,
+			int pointerCount, int wakeThreshold) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"Capacity must be positive, was " + capacity);
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.capacity = size;
+		this.mask = size - 1;
+		this.policy = policy;
+		this.pointerCount = pointerCount;
+		this.wakeThreshold = Math.max(1, Math.min(wakeThreshold, size));
+		states = new InputState[size];
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			states[i] = new InputState(pointerCount);
+			sequences.set(i, i);
+		}
+		droppedState = new InputState(pointerCount);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return the number of states that have been thrown away because the ring
+	 *         was full
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/*
+	 * Producer methods
+	 */
+
+	/**
+	 * Claims a state to be filled by the producer. It does not become visible
+	 * to the consumer before {@link #publish()} is called.
+	 *
+	 * @return the state to be filled
+	 */
+	public InputState claim() {
+		if (claimed != null) {
+			throw new IllegalStateException(
+					"The last claimed state has not been published yet");
+		}
+		drainOverflow();
+		if (overflowHead == overflow.size() && isTailFree()) {
+			claimed = states[(int) (tail & mask)];
+			claimedInRing = true;
+			return claimed;
+		}
+		switch (policy) {
+		case BLOCK:
+			while (!isTailFree()) {
+				LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+			}
+			claimed = states[(int) (tail & mask)];
+			claimedInRing = true;
+			break;
+		case DROP_OLDEST:
+			if (dropOldest()) {
+				claimed = states[(int) (tail & mask)];
+				claimedInRing = true;
+			} else {
+				// the oldest state is being processed right now, so the
+				// newest one is dropped instead
+				droppedCount++;
+				claimed = droppedState;
+				claimedInRing = false;
+			}
+			break;
+		case GROW:
+			int spares = spareStates.size();
+			claimed = spares > 0 ? spareStates.remove(spares - 1)
+					: new InputState(pointerCount);
+			claimedInRing = false;
+			break;
+		}
+		return claimed;
+	}
+
+	/**
+	 * @return the number of published states that have not been taken by the
+	 *         consumer yet. Only to be called by the producer.
+	 */
+	public long getQueuedCount() {
+		return tail - head.get() + overflow.size() - overflowHead;
+	}
+
+	/**
+	 * Makes the state returned by the last call to {@link #claim()} visible to
+	 * the consumer
+	 */
+	public void publish() {
+		if (claimed == null) {
+			throw new IllegalStateException("No state has been claimed");
+		}
+		if (claimedInRing) {
+			sequences.set((int) (tail & mask), tail + 1);
+			tail++;
+		} else if (claimed != droppedState) {
+			overflow.add(claimed);
+			drainOverflow();
+		}
+		claimed = null;
+		if (consumerWaiting && tail - head.get() >= wakeThreshold) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * Moves all published states the producer still keeps outside the ring
+	 * because it was full into the ring, waiting for the consumer to free
+	 * slots if necessary. To be called by the producer once it is done, so
+	 * the consumer gets to see all states.
+	 */
+	public void drain() {
+		drainOverflow();
+		while (overflowHead < overflow.size()) {
+			LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+			drainOverflow();
+		}
+	}
+
+	private boolean isTailFree() {
+		return sequences.get((int) (tail & mask)) == tail;
+	}
+
+	/**
+	 * Tries to free the slot at the tail by throwing away the oldest published
+	 * state.
+	 *
+	 * @return whether the slot at the tail is free now
+	 */
+	private boolean dropOldest() {
+		long oldest = tail - capacity;
+		int index = (int) (oldest & mask);
+		if (sequences.get(index) == oldest + 1
+				&& head.compareAndSet(oldest, oldest + 1)) {
+			sequences.set(index, oldest + capacity);
+			droppedCount++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Moves states that overflowed into slots that have been released since,
+	 * by swapping them with the slots' states
+	 */
+	private void drainOverflow() {
+		while (overflowHead < overflow.size() && isTailFree()) {
+			int index = (int) (tail & mask);
+			spareStates.add(states[index]);
+			states[index] = overflow.get(overflowHead);
+			overflow.set(overflowHead, null);
+			overflowHead++;
+			sequences.set(index, tail + 1);
+			tail++;
+		}
+		if (overflowHead > 0 && overflowHead == overflow.size()) {
+			overflow.clear();
+			overflowHead = 0;
+		}
+	}
+
+	/*
+	 * Consumer methods
+	 */
+
+	/**
+	 * Takes the oldest published state. The state belongs to the consumer
+	 * until {@link #release()} is called.
+	 *
+	 * @return the oldest published state or null if there is none
+	 */
+	public InputState take() {
+		if (taken >= 0) {
+			throw new IllegalStateException(
+					"The last taken state has not been released yet");
+		}
+		while (true) {
+			long position = head.get();
+			int index = (int) (position & mask);
+			if (sequences.get(index) != position + 1) {
+				return null;
+			}
+			if (head.compareAndSet(position, position + 1)) {
+				taken = position;
+				return states[index];
+			}
+			// the producer dropped the state in the meantime
+		}
+	}
+
+	/**
+	 * Hands the state returned by the last call to {@link #take()} back to the
+	 * producer
+	 */
+	public void release() {
+		if (taken < 0) {
+			throw new IllegalStateException("No state has been taken");
+		}
+		sequences.set((int) (taken & mask), taken + capacity);
+		taken = -1;
+	}
+
+	/**
+	 * Parks the calling consumer thread until enough states have been
+	 * published, the timeout has passed or the thread has been interrupted.
+	 *
+	 * @param timeoutNanos
+	 */
+	public void await(long timeoutNanos) {
+		consumer = Thread.currentThread();
+		consumerWaiting = true;
+		long position = head.get();
+		if (sequences.get((int) (position & mask)) != position + 1) {
+			LockSupport.parkNanos(this, timeoutNanos);
+		}
+		consumerWaiting = false;
+	}
+}
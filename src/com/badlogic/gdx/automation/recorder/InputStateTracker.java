@@ -1,16 +1,12 @@
 package com.badlogic.gdx.automation.recorder;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.automation.recorder.io.InputRecordWriter;
-import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /**
  * Submodule of {@link InputRecorder} responsible for recording
@@ -25,12 +21,11 @@ class InputStateTracker {
 	private final Processor processor;
 
 	/**
-	 * Two arraylists: One to be filled by the grabber and one to be emptied by
-	 * the processor. Then a rapid switch between both can be performed.
+	 * Hands the states filled on the main thread over to the processor without
+	 * locking, so the main thread never waits for the processor (unless
+	 * configured to do so if the ring is full)
 	 */
-	private List<InputState> storedStates;
-	private List<InputState> processedStates;
-	private final Pool<InputState> statePool;
+	private final InputStateRing stateRing;
 
 	private final Tracker tracker;
 
@@ -50,10 +45,42 @@ class InputStateTracker {
 	 * buffers are filled the best
 	 */
 	private final int onProcessEventsTrackFlags;
+	/**
+	 * whether pointers are sampled using
+	 * {@link InputState#setActivePointers(Input, long)}
+	 */
+	private final boolean trackActivePointers;
+	/**
+	 * the pointers touched in the last tracked state. Only accessed on the
+	 * main thread.
+	 */
+	private long lastTouchedPointers = 0;
+	/**
+	 * see {@link InputRecorderConfiguration#flushEveryFrame}
+	 */
+	private final boolean flushEveryFrame;
+	/**
+	 * null if {@link InputRecorderConfiguration#recordMetrics} is disabled
+	 */
+	private final RecorderMetrics metrics;
 
 	private static final int STATES_UNTIL_PROCESS = 20;
+	/**
+	 * the longest time the processor waits before looking for new states,
+	 * even if less than {@link #STATES_UNTIL_PROCESS} have been published
+	 */
+	private static final long PROCESS_INTERVAL_NANOS = 100000000;
 
 	private boolean tracking = false;
+	/**
+	 * the index of the next main loop cycle to be tracked
+	 */
+	private long frame = 0;
+	/**
+	 * the state being filled during the current main loop cycle. Guarded by
+	 * the {@link Tracker}, as {@link Tracker#stop()} publishes it on the
+	 * thread stopping the tracker.
+	 */
 	InputState currentState;
 
 	public InputStateTracker(InputRecorder inputRecorder) {
@@ -69,7 +96,15 @@ class InputStateTracker {
 		if (recorder.getConfiguration().recordKeysPressed) {
 			toSet |= InputProperty.SyncProperty.Type.KEYS_PRESSED.key;
 		}
-		if (recorder.getConfiguration().recordPointers) {
+		InputRecorderConfiguration config = recorder.getConfiguration();
+		trackActivePointers = config.recordPointers
+				&& config.recordActivePointersOnly;
+		if (trackActivePointers && config.recordedPointerCount > Long.SIZE) {
+			throw new IllegalArgumentException(
+					"Active pointer tracking supports up to " + Long.SIZE
+							+ " pointers, not " + config.recordedPointerCount);
+		}
+		if (config.recordPointers && !trackActivePointers) {
 			toSet |= InputProperty.SyncProperty.Type.POINTERS.key;
 		}
 		beforePrcessEventsTrackFlags = toSet;
@@ -83,10 +118,11 @@ class InputStateTracker {
 		}
 		onProcessEventsTrackFlags = toSet;
 
-		storedStates = new ArrayList<InputState>();
-		processedStates = new ArrayList<InputState>();
-
-		statePool = new ReflectionPool<InputState>(InputState.class, 50);
+		flushEveryFrame = config.flushEveryFrame;
+		metrics = config.recordMetrics ? recorder.getMetrics() : null;
+		stateRing = new InputStateRing(config.stateBufferCapacity,
+				config.stateBufferOverflow, config.recordedPointerCount,
+				flushEveryFrame ? 1 : STATES_UNTIL_PROCESS);
 		processor = new Processor();
 
 		tracker = new Tracker();
@@ -103,6 +139,8 @@ class InputStateTracker {
 			return;
 		}
 		tracking = true;
+		frame = 0;
+		lastTouchedPointers = 0;
 		tracker.start();
 		processor.start();
 		synchronized (Gdx.input) {
@@ -118,9 +156,11 @@ class InputStateTracker {
 					"Stopping InputStateTracker more than once");
 			return;
 		}
-		processor.stop();
-		grabberArmer.stop();
 		tracker.stop();
+		grabberArmer.stop();
+		// stopped last, so the states published by the tracker are still
+		// processed
+		processor.stop();
 		InputProxy.removeProxyFromGdx(grabberKeeper);
 		InputProcessorProxy.removeProxyFromGdxInput(grabber);
 		tracking = false;
@@ -130,23 +170,38 @@ class InputStateTracker {
 		return tracking;
 	}
 
+	/**
+	 * Publishes the state of the last main loop cycle, whose events have been
+	 * grabbed by now, and starts filling a new one
+	 */
 	private void track() {
-		synchronized (processor) {
-			synchronized (storedStates) {
-				currentState = statePool.obtain();
-				currentState
-						.initialize(recorder.getConfiguration().recordedPointerCount);
-
-				currentState
-						.set(Gdx.input, beforePrcessEventsTrackFlags, false);
-				storedStates.add(currentState);
-				if (storedStates.size() >= STATES_UNTIL_PROCESS) {
-					processor.notify();
-				}
-			}
+		// the metrics are only written by the main thread, not by stop()
+		if (publishCurrentState() && metrics != null) {
+			metrics.queuedStates.record(stateRing.getQueuedCount());
+			metrics.statesDropped = stateRing.getDroppedCount();
+		}
+		currentState = stateRing.claim();
+		currentState.initialize(recorder.getConfiguration().recordedPointerCount);
+		currentState.frame = frame++;
+		currentState.set(Gdx.input, beforePrcessEventsTrackFlags, false);
+		if (trackActivePointers) {
+			currentState.setActivePointers(Gdx.input, lastTouchedPointers);
+			lastTouchedPointers = currentState.touchedPointers;
 		}
 	}
 
+	/**
+	 * @return whether there has been a state to publish
+	 */
+	private boolean publishCurrentState() {
+		if (currentState == null) {
+			return false;
+		}
+		currentState = null;
+		stateRing.publish();
+		return true;
+	}
+
 	/**
 	 * An input that will not allow the InputEventGrabber {@link InputProcessor}
 	 * to be overwritten via setInputProcessor
@@ -184,10 +239,15 @@ class InputStateTracker {
 		}
 
 		@Override
-		protected synchronized void onEvent() {
-			if (armed) {
-				armed = false;
-				currentState.set(Gdx.input, onProcessEventsTrackFlags, false);
+		protected void onEvent() {
+			// the tracker may publish the state on another thread while
+			// stopping
+			synchronized (tracker) {
+				if (armed && currentState != null) {
+					armed = false;
+					currentState.set(Gdx.input, onProcessEventsTrackFlags,
+							false);
+				}
 			}
 		}
 	}
@@ -229,6 +289,11 @@ class InputStateTracker {
 	private class Processor implements Runnable {
 		private Thread processorThread;
 		private final InputStateProcessor processor;
+		/**
+		 * when the metrics have last been reported, see
+		 * {@link System#nanoTime()}
+		 */
+		private long lastReport;
 
 		public Processor() {
 			processor = new InputStateProcessor(recorder);
@@ -266,40 +331,67 @@ class InputStateTracker {
 		}
 
 		/**
-		 * Processes all the InputStates that were collected for some main loop
-		 * cycle in one run. That is, creating diffs and writing them using the
+		 * Processes all the InputStates that have been published by the main
+		 * thread so far. That is, creating diffs and writing them using the
 		 * {@link InputRecorder}'s {@link InputRecordWriter}
 		 */
 		private void process() {
-			List<InputState> swap = storedStates;
-			synchronized (storedStates) {
-				storedStates = processedStates;
-			}
-			processedStates = swap;
-			for (InputState state : processedStates) {
+			InputState state;
+			boolean processed = false;
+			while ((state = stateRing.take()) != null) {
+				processed = true;
+				long start = metrics != null ? System.nanoTime() : 0;
 				try {
 					processor.process(state);
 				} catch (IOException e) {
 					recorder.notifyError(e);
+				} finally {
+					stateRing.release();
+				}
+				if (metrics != null) {
+					metrics.processNanos.record(System.nanoTime() - start);
+				}
+			}
+			if (processed && flushEveryFrame) {
+				try {
+					recorder.getRecordWriter().flush();
+				} catch (IOException e) {
+					recorder.notifyError(e);
 				}
-				statePool.free(state);
 			}
-			processedStates.clear();
+		}
+
+		/**
+		 * Hands the metrics to the configured sink if it is time to
+		 * 
+		 * @param force
+		 *            whether to report regardless of the time passed since
+		 *            the last report
+		 */
+		private void report(boolean force) {
+			InputRecorderConfiguration config = recorder.getConfiguration();
+			if (metrics == null || config.metricsSink == null) {
+				return;
+			}
+			long now = System.nanoTime();
+			if (force
+					|| now - lastReport >= config.metricsReportInterval * 1000000L) {
+				lastReport = now;
+				config.metricsSink.report(metrics);
+			}
 		}
 
 		@Override
 		public void run() {
+			lastReport = System.nanoTime();
 			while (!Thread.currentThread().isInterrupted()) {
-				synchronized (this) {
-					try {
-						wait();
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-					}
-				}
-				// need to finalize what is still in the queue
 				process();
+				report(false);
+				stateRing.await(PROCESS_INTERVAL_NANOS);
 			}
+			// need to finalize what is still in the queue
+			process();
+			report(true);
 		}
 	}
 
@@ -320,16 +412,34 @@ class InputStateTracker {
 			}
 		}
 
+		/**
+		 * Stops tracking and publishes the state of the current main loop
+		 * cycle, as well as all states that did not fit into the state ring
+		 * yet. Synchronized with {@link #run()} and the
+		 * {@link InputEventGrabber}, so the state is not published while
+		 * the main thread is filling it.
+		 */
 		public synchronized void stop() {
 			running = false;
+			publishCurrentState();
+			stateRing.drain();
 		}
 
 		@Override
 		public void run() {
-			track();
-			if (running) {
-				Gdx.app.postRunnable(this);
+			synchronized (this) {
+				if (!running) {
+					return;
+				}
+				if (metrics != null) {
+					long start = System.nanoTime();
+					track();
+					metrics.trackNanos.record(System.nanoTime() - start);
+				} else {
+					track();
+				}
 			}
+			Gdx.app.postRunnable(this);
 		}
 
 	}
@@ -0,0 +1,147 @@
+package com.badlogic.gdx.automation.recorder;
+
+/**
+ * A set of pressed keys, stored as one bit per key code. It starts with room
+ * for 256 key codes (which covers all of libGdx' {@link com.badlogic.gdx.Input.Keys
+ * Keys}) and grows if larger key codes are set. All operations work on whole
+ * 64 bit words and do not allocate, unless the set needs to grow.
+ *
+ * Comparing two sets is done word by word, e.g.
+ * <code>current.word(i) &amp; ~last.word(i)</code> yields the keys that have
+ * been pressed since last and <code>last.word(i) &amp; ~current.word(i)</code>
+ * the keys released since then.
+ *
+ * @author Lukas Böhm
+ *
+ */
+class KeyBitSet {
+	private static final int ADDRESS_BITS_PER_WORD = 6;
+	private static final int INITIAL_WORDS = 4;
+
+	private long[] words;
+
+	public KeyBitSet() {
+		words = new long[INITIAL_WORDS];
+	}
+
+	private void ensureWords(int wordCount) {
+		if (wordCount > words.length) {
+			long[] grown = new long[Math.max(wordCount, words.length * 2)];
+			System.arraycopy(words, 0, grown, 0, words.length);
+			words = grown;
+		}
+	}
+
+	/**
+	 * Marks the given key as pressed. Negative key codes (like
+	 * {@link com.badlogic.gdx.Input.Keys#ANY_KEY ANY_KEY}) are ignored.
+	 *
+	 * @param key
+	 */
+	public void set(int key) {
+		if (key < 0) {
+			return;
+		}
+		int word = key >>> ADDRESS_BITS_PER_WORD;
+		ensureWords(word + 1);
+		words[word] |= 1L << key;
+	}
+
+	/**
+	 * Marks the given key as not pressed
+	 *
+	 * @param key
+	 */
+	public void clear(int key) {
+		if (key < 0) {
+			return;
+		}
+		int word = key >>> ADDRESS_BITS_PER_WORD;
+		if (word < words.length) {
+			words[word] &= ~(1L << key);
+		}
+	}
+
+	public boolean get(int key) {
+		if (key < 0) {
+			return false;
+		}
+		int word = key >>> ADDRESS_BITS_PER_WORD;
+		return word < words.length && (words[word] & (1L << key)) != 0;
+	}
+
+	/**
+	 * Marks all keys as not pressed
+	 */
+	public void clear() {
+		for (int i = 0; i < words.length; i++) {
+			words[i] = 0;
+		}
+	}
+
+	public boolean isEmpty() {
+		for (int i = 0; i < words.length; i++) {
+			if (words[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Makes this set equal to the given one
+	 *
+	 * @param other
+	 */
+	public void set(KeyBitSet other) {
+		ensureWords(other.words.length);
+		System.arraycopy(other.words, 0, words, 0, other.words.length);
+		for (int i = other.words.length; i < words.length; i++) {
+			words[i] = 0;
+		}
+	}
+
+	/**
+	 * @return the number of words currently backing this set. Words beyond
+	 *         this count are implicitly zero.
+	 */
+	public int wordCount() {
+		return words.length;
+	}
+
+	/**
+	 * @param index
+	 * @return the 64 key bits starting at key code index * 64
+	 */
+	public long word(int index) {
+		return index < words.length ? words[index] : 0;
+	}
+
+	/**
+	 * @param from
+	 *            the key code to start searching at
+	 * @return the smallest pressed key code that is greater than or equal to
+	 *         from, or -1 if there is none
+	 */
+	public int nextSetKey(int from) {
+		if (from < 0) {
+			from = 0;
+		}
+		int word = from >>> ADDRESS_BITS_PER_WORD;
+		if (word >= words.length) {
+			return -1;
+		}
+		long bits = words[word] & (~0L << from);
+		while (true) {
+			if (bits != 0) {
+				return (word << ADDRESS_BITS_PER_WORD)
+						+ Long.numberOfTrailingZeros(bits);
+			}
+			word++;
+			if (word >= words.length) {
+				return -1;
+			}
+			bits = words[word];
+		}
+	}
+}
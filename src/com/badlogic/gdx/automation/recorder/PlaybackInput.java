@@ -224,10 +224,14 @@ class PlaybackInput extends InputProxy {
 	/**
 	 * Code mainly stolen from AndroidInput and LwjglInput, adapted to work with
 	 * the remaining recorder code.
+	 * 
+	 * @return whether there have been any events
 	 */
-	void processEvents() {
+	boolean processEvents() {
 		synchronized (state) {
 			state.justTouched = false;
+			boolean hadEvents = state.keyEvents.size() > 0
+					|| state.pointerEvents.size() > 0;
 
 			if (processor != null) {
 				final InputProcessor processor = this.processor;
@@ -290,14 +294,12 @@ class PlaybackInput extends InputProxy {
 			}
 
 			if (state.pointerEvents.size() == 0) {
-				for (int i = 0; i < state.deltaX.length; i++) {
-					state.deltaX[0] = 0;
-					state.deltaY[0] = 0;
-				}
+				state.clearPointerDeltas();
 			}
 
-			state.keyEvents.clear();
-			state.pointerEvents.clear();
+			state.clearKeyEvents();
+			state.clearPointerEvents();
+			return hadEvents;
 		}
 	}
 }
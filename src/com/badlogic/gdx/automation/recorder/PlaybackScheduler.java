@@ -0,0 +1,200 @@
+package com.badlogic.gdx.automation.recorder;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides when recorded properties are due during playback. Instead of
+ * sleeping for the time between two properties (which accumulates the error of
+ * every sleep), every property gets an absolute target time on the
+ * {@link System#nanoTime()} clock, relative to the start of the playback. If a
+ * sleep takes longer than requested the next wait is simply shorter, so the
+ * playback never drifts away from the recording.
+ *
+ * The record can be played back faster or slower than it was recorded by
+ * setting a {@link #setSpeed(float, long) speed} factor. With an infinite
+ * speed every property is due immediately.
+ *
+ * The scheduler keeps track of how late properties are applied, compared to
+ * their target time. The worst case is available as
+ * {@link #getMaxJitterNanos()}.
+ *
+ * @author Lukas Böhm
+ */
+class PlaybackScheduler {
+	/**
+	 * Parking is not precise enough to hit a target time, so the scheduler
+	 * only parks until this long before a target and yields for the rest of
+	 * the time
+	 */
+	static final long DEFAULT_SPIN_NANOS = 1000000;
+
+	private final long spinNanos;
+	/**
+	 * the point in time at which {@link #anchorRecordTime} is reached
+	 */
+	private long anchorNanos;
+	private long anchorRecordTime;
+	private float speed = 1;
+	private volatile long maxJitterNanos = 0;
+	/**
+	 * the thread in {@link #awaitRecordTime(long)}, if any
+	 */
+	private volatile Thread waiter;
+	private volatile boolean woken = false;
+
+	public PlaybackScheduler() {
+		this(DEFAULT_SPIN_NANOS);
+	}
+
+	public PlaybackScheduler(long spinNanos) {
+		this.spinNanos = spinNanos;
+	}
+
+	/**
+	 * Makes the current point in time the start of the record
+	 */
+	public void start() {
+		anchorNanos = System.nanoTime();
+		anchorRecordTime = 0;
+	}
+
+	/**
+	 * Changes how fast the record is played back. The record time given is
+	 * reached right now, later record times are scaled by the new speed.
+	 * 
+	 * @param speed
+	 *            the factor to play back the record faster (&gt; 1) or slower
+	 *            (&lt; 1) with. {@link Float#POSITIVE_INFINITY} makes every
+	 *            property due immediately.
+	 * @param recordTime
+	 *            the record time (in milliseconds) reached so far
+	 */
+	public void setSpeed(float speed, long recordTime) {
+		if (!(speed > 0)) {
+			throw new IllegalArgumentException("Speed must be positive, was "
+					+ speed);
+		}
+		this.speed = speed;
+		anchorNanos = System.nanoTime();
+		anchorRecordTime = recordTime;
+	}
+
+	public float getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Shifts all target times that lie ahead by the given amount of time
+	 *
+	 * @param ms
+	 */
+	public void delay(long ms) {
+		delayNanos(ms * 1000000L);
+	}
+
+	public void delayNanos(long nanos) {
+		anchorNanos += nanos;
+	}
+
+	/**
+	 * @param recordTime
+	 *            milliseconds since the start of the record
+	 * @return the {@link System#nanoTime()} at which the given record time is
+	 *         reached
+	 */
+	public long getTargetNanos(long recordTime) {
+		if (speed == Float.POSITIVE_INFINITY) {
+			return anchorNanos;
+		}
+		long recordNanos = (recordTime - anchorRecordTime) * 1000000L;
+		if (speed != 1) {
+			recordNanos = (long) (recordNanos / (double) speed);
+		}
+		return anchorNanos + recordNanos;
+	}
+
+	public boolean isDue(long recordTime) {
+		return System.nanoTime() - getTargetNanos(recordTime) >= 0;
+	}
+
+	/**
+	 * Waits until the given record time has been reached, or until
+	 * {@link #wake()} is called
+	 *
+	 * @param recordTime
+	 *            milliseconds since the start of the record
+	 * @return false if the wait has been cut short by {@link #wake()}
+	 * @throws InterruptedException
+	 */
+	public boolean awaitRecordTime(long recordTime)
+			throws InterruptedException {
+		waiter = Thread.currentThread();
+		try {
+			long target = getTargetNanos(recordTime);
+			long remaining = target - System.nanoTime();
+			while (remaining > spinNanos) {
+				if (woken) {
+					woken = false;
+					return false;
+				}
+				LockSupport.parkNanos(this, remaining - spinNanos);
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				remaining = target - System.nanoTime();
+			}
+			while (remaining > 0) {
+				Thread.yield();
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				remaining = target - System.nanoTime();
+			}
+			recordJitter(-remaining);
+			return true;
+		} finally {
+			waiter = null;
+		}
+	}
+
+	/**
+	 * Cuts the current or next {@link #awaitRecordTime(long) wait} short, so
+	 * the waiting thread can check what has changed. May be called from any
+	 * thread.
+	 */
+	public void wake() {
+		woken = true;
+		Thread waiter = this.waiter;
+		if (waiter != null) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+	/**
+	 * Notes down that a property has been applied the given time after its
+	 * target time
+	 *
+	 * @param lateNanos
+	 */
+	public void recordJitter(long lateNanos) {
+		if (speed == Float.POSITIVE_INFINITY) {
+			// there is no point in time a property should have been applied
+			return;
+		}
+		if (lateNanos > maxJitterNanos) {
+			maxJitterNanos = lateNanos;
+		}
+	}
+
+	/**
+	 * @return the longest time a property has been applied after its target
+	 *         time since the last call to {@link #resetJitter()}
+	 */
+	public long getMaxJitterNanos() {
+		return maxJitterNanos;
+	}
+
+	public void resetJitter() {
+		maxJitterNanos = 0;
+	}
+}
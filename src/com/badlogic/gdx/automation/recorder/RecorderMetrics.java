@@ -0,0 +1,230 @@
+package com.badlogic.gdx.automation.recorder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.badlogic.gdx.automation.recorder.io.CountingInputRecordWriter;
+import com.badlogic.gdx.automation.recorder.io.InputRecordWriter;
+
+/**
+ * Measures whether an {@link InputRecorder} keeps up with the application:
+ * how many input states have been tracked, processed or dropped, how long
+ * tracking a frame, processing a state and writing a property take, how many
+ * states wait to be processed and how many bytes have been written.
+ * 
+ * Every value is only updated by a single thread (the main thread for
+ * tracking, the processing thread for everything else), so measuring costs
+ * a few {@link System#nanoTime()} calls and lazy stores per frame and no
+ * locking. The values can be read from any thread at any time, but a reading
+ * thread may see the values of different histograms from slightly different
+ * points in time. All values add up from the creation of the recorder on.
+ * 
+ * The metrics are reported to a {@link Sink} periodically if one has been
+ * configured, see {@link InputRecorderConfiguration#metricsSink}.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class RecorderMetrics {
+	/**
+	 * Receives the metrics of an {@link InputRecorder} periodically, on the
+	 * thread processing the recorded states. Implementations should return
+	 * quickly, since states are not processed while reporting.
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	public interface Sink {
+		void report(RecorderMetrics metrics);
+	}
+
+	/**
+	 * A histogram of durations (or any other non-negative values) using
+	 * buckets of powers of two, so recording a value is a few instructions
+	 * and takes no memory. Only one thread may record values.
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	public static class Histogram {
+		private static final int COUNT = 0;
+		private static final int SUM = 1;
+		private static final int MAX = 2;
+
+		/**
+		 * bucket i holds the values v with 2^(i-1) &lt;= v &lt; 2^i, bucket 0
+		 * holds 0
+		 */
+		private final AtomicLongArray buckets = new AtomicLongArray(
+				Long.SIZE + 1);
+		private final AtomicLongArray totals = new AtomicLongArray(3);
+
+		public void record(long value) {
+			if (value < 0) {
+				value = 0;
+			}
+			int bucket = Long.SIZE - Long.numberOfLeadingZeros(value);
+			// single writer, so lazy sets instead of atomic increments are
+			// enough, which do not stall the writing thread
+			buckets.lazySet(bucket, buckets.get(bucket) + 1);
+			totals.lazySet(SUM, totals.get(SUM) + value);
+			if (value > totals.get(MAX)) {
+				totals.lazySet(MAX, value);
+			}
+			totals.lazySet(COUNT, totals.get(COUNT) + 1);
+		}
+
+		public long getCount() {
+			return totals.get(COUNT);
+		}
+
+		public long getSum() {
+			return totals.get(SUM);
+		}
+
+		public long getMax() {
+			return totals.get(MAX);
+		}
+
+		public double getMean() {
+			long count = getCount();
+			return count == 0 ? 0 : getSum() / (double) count;
+		}
+
+		/**
+		 * @param percentile
+		 *            between 0 and 1
+		 * @return an upper bound of the given percentile of all values
+		 *         recorded, which is at most twice as large as the percentile
+		 */
+		public long getPercentile(double percentile) {
+			if (percentile < 0 || percentile > 1) {
+				throw new IllegalArgumentException(
+						"Percentile must be between 0 and 1, was " + percentile);
+			}
+			long total = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				total += buckets.get(i);
+			}
+			long rank = (long) Math.ceil(percentile * total);
+			long seen = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				seen += buckets.get(i);
+				if (seen >= rank && seen > 0) {
+					return i == 0 ? 0 : Math.min(getMax(), (1L << i) - 1);
+				}
+			}
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getCount() + " mean=" + (long) getMean()
+					+ " p50=" + getPercentile(0.5) + " p99="
+					+ getPercentile(0.99) + " max=" + getMax();
+		}
+	}
+
+	/*
+	 * main thread
+	 */
+	volatile long statesDropped = 0;
+	final Histogram trackNanos = new Histogram();
+	final Histogram queuedStates = new Histogram();
+
+	/*
+	 * processing thread
+	 */
+	final Histogram processNanos = new Histogram();
+	final Histogram writeNanos = new Histogram();
+
+	private volatile InputRecordWriter writer;
+
+	void setWriter(InputRecordWriter writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * @return the number of main loop cycles whose input has been tracked
+	 */
+	public long getStatesTracked() {
+		return trackNanos.getCount();
+	}
+
+	/**
+	 * @return the number of tracked states thrown away because the processing
+	 *         thread fell behind, see
+	 *         {@link InputRecorderConfiguration.OverflowPolicy#DROP_OLDEST}
+	 */
+	public long getStatesDropped() {
+		return statesDropped;
+	}
+
+	/**
+	 * @return the number of tracked states that have been compared to their
+	 *         predecessor and written
+	 */
+	public long getStatesProcessed() {
+		return processNanos.getCount();
+	}
+
+	/**
+	 * @return the number of sync properties handed to the writer
+	 */
+	public long getSyncValuesWritten() {
+		return writeNanos.getCount();
+	}
+
+	/**
+	 * @return the time the main thread spends tracking the input of a frame,
+	 *         in nanoseconds
+	 */
+	public Histogram getTrackNanos() {
+		return trackNanos;
+	}
+
+	/**
+	 * @return the number of states waiting to be processed, sampled whenever
+	 *         a state is published
+	 */
+	public Histogram getQueuedStates() {
+		return queuedStates;
+	}
+
+	/**
+	 * @return the time it takes to process a state including writing its
+	 *         changes, in nanoseconds
+	 */
+	public Histogram getProcessNanos() {
+		return processNanos;
+	}
+
+	/**
+	 * @return the time the writer takes per sync property, in nanoseconds
+	 */
+	public Histogram getWriteNanos() {
+		return writeNanos;
+	}
+
+	/**
+	 * @return the number of bytes written by the current writer since it has
+	 *         been opened, or -1 if it does not count them (see
+	 *         {@link CountingInputRecordWriter})
+	 */
+	public long getBytesWritten() {
+		InputRecordWriter writer = this.writer;
+		if (writer instanceof CountingInputRecordWriter) {
+			return ((CountingInputRecordWriter) writer).getBytesWritten();
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return "tracked=" + getStatesTracked() + " dropped=" + statesDropped
+				+ " processed=" + getStatesProcessed() + " written="
+				+ getSyncValuesWritten() + " bytes=" + getBytesWritten()
+				+ "\ntrack ns: " + trackNanos + "\nqueued states: "
+				+ queuedStates + "\nprocess ns: " + processNanos
+				+ "\nwrite ns: " + writeNanos;
+	}
+}
@@ -0,0 +1,299 @@
+package com.badlogic.gdx.automation.recorder.headless;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Audio;
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.LifecycleListener;
+import com.badlogic.gdx.Net;
+import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Clipboard;
+
+/**
+ * An {@link Application} without display, audio or network, to run the
+ * recorder and player on machines without a GPU, e.g. in tests. Instead of
+ * running its own loop, the application advances one frame each time
+ * {@link #frame()} is called, so a test can script input on the
+ * {@link HeadlessInput} in between and run thousands of frames per second.
+ * 
+ * A frame goes through the same steps as on the LWJGL backend: the input
+ * events scripted since the last frame are made visible, posted runnables are
+ * executed, the events are handed to the InputProcessor and finally the
+ * {@link ApplicationListener} renders.
+ * 
+ * libGdx does not know a headless application type (yet), so
+ * {@link #getType()} claims to be a desktop application. The recorder
+ * recognizes the {@link HeadlessInput} nevertheless.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class HeadlessApplication implements Application {
+	public static final int DEFAULT_WIDTH = 640;
+	public static final int DEFAULT_HEIGHT = 480;
+
+	private final ApplicationListener listener;
+	private final HeadlessInput input;
+	private final HeadlessGraphics graphics;
+	private final HeadlessFiles files;
+	private final Array<Runnable> runnables = new Array<Runnable>();
+	private final Array<Runnable> executedRunnables = new Array<Runnable>();
+	private final Array<LifecycleListener> lifecycleListeners = new Array<LifecycleListener>();
+	private int logLevel = LOG_INFO;
+	private long frameId = 0;
+	private boolean running = true;
+
+	public HeadlessApplication(ApplicationListener listener) {
+		this(listener, new HeadlessInput(), DEFAULT_WIDTH, DEFAULT_HEIGHT);
+	}
+
+	/**
+	 * Creates the application, makes it the current one in {@link Gdx} and
+	 * creates the listener
+	 * 
+	 * @param listener
+	 * @param input
+	 *            the input to script the application's input with
+	 * @param width
+	 *            the width of the pretended screen
+	 * @param height
+	 *            the height of the pretended screen
+	 */
+	public HeadlessApplication(ApplicationListener listener,
+			HeadlessInput input, int width, int height) {
+		this.listener = listener;
+		this.input = input;
+		graphics = new HeadlessGraphics(width, height);
+		files = new HeadlessFiles();
+
+		Gdx.app = this;
+		Gdx.graphics = graphics;
+		Gdx.files = files;
+		Gdx.input = input;
+		Gdx.audio = null;
+		Gdx.net = null;
+
+		listener.create();
+		listener.resize(width, height);
+	}
+
+	/**
+	 * Runs a single frame of the application
+	 */
+	public void frame() {
+		if (!running) {
+			throw new IllegalStateException("Application has been exited");
+		}
+		graphics.updateTime();
+		input.update();
+		executeRunnables();
+		input.processEvents();
+		frameId++;
+		listener.render();
+	}
+
+	/**
+	 * Runs the given number of frames, stopping early if the application is
+	 * exited
+	 * 
+	 * @param count
+	 */
+	public void frames(int count) {
+		for (int i = 0; i < count && running; i++) {
+			frame();
+		}
+	}
+
+	/**
+	 * @return the number of frames run so far
+	 */
+	public long getFrameId() {
+		return frameId;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	public HeadlessInput getHeadlessInput() {
+		return input;
+	}
+
+	private void executeRunnables() {
+		synchronized (runnables) {
+			executedRunnables.addAll(runnables);
+			runnables.clear();
+		}
+		for (int i = 0; i < executedRunnables.size; i++) {
+			executedRunnables.get(i).run();
+		}
+		executedRunnables.clear();
+	}
+
+	@Override
+	public void postRunnable(Runnable runnable) {
+		synchronized (runnables) {
+			runnables.add(runnable);
+		}
+	}
+
+	@Override
+	public void exit() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		synchronized (lifecycleListeners) {
+			for (LifecycleListener lifecycleListener : lifecycleListeners) {
+				lifecycleListener.pause();
+				lifecycleListener.dispose();
+			}
+		}
+		listener.pause();
+		listener.dispose();
+	}
+
+	@Override
+	public ApplicationListener getApplicationListener() {
+		return listener;
+	}
+
+	@Override
+	public Graphics getGraphics() {
+		return graphics;
+	}
+
+	/**
+	 * @return null, there is no audio
+	 */
+	@Override
+	public Audio getAudio() {
+		return null;
+	}
+
+	@Override
+	public Input getInput() {
+		return Gdx.input;
+	}
+
+	@Override
+	public Files getFiles() {
+		return files;
+	}
+
+	/**
+	 * @return null, there is no network
+	 */
+	@Override
+	public Net getNet() {
+		return null;
+	}
+
+	@Override
+	public void log(String tag, String message) {
+		if (logLevel >= LOG_INFO) {
+			System.out.println(tag + ": " + message);
+		}
+	}
+
+	@Override
+	public void log(String tag, String message, Throwable exception) {
+		if (logLevel >= LOG_INFO) {
+			System.out.println(tag + ": " + message);
+			exception.printStackTrace(System.out);
+		}
+	}
+
+	@Override
+	public void error(String tag, String message) {
+		if (logLevel >= LOG_ERROR) {
+			System.err.println(tag + ": " + message);
+		}
+	}
+
+	@Override
+	public void error(String tag, String message, Throwable exception) {
+		if (logLevel >= LOG_ERROR) {
+			System.err.println(tag + ": " + message);
+			exception.printStackTrace(System.err);
+		}
+	}
+
+	@Override
+	public void debug(String tag, String message) {
+		if (logLevel >= LOG_DEBUG) {
+			System.out.println(tag + ": " + message);
+		}
+	}
+
+	@Override
+	public void debug(String tag, String message, Throwable exception) {
+		if (logLevel >= LOG_DEBUG) {
+			System.out.println(tag + ": " + message);
+			exception.printStackTrace(System.out);
+		}
+	}
+
+	@Override
+	public void setLogLevel(int logLevel) {
+		this.logLevel = logLevel;
+	}
+
+	@Override
+	public int getLogLevel() {
+		return logLevel;
+	}
+
+	@Override
+	public ApplicationType getType() {
+		return ApplicationType.Desktop;
+	}
+
+	@Override
+	public int getVersion() {
+		return 0;
+	}
+
+	@Override
+	public long getJavaHeap() {
+		return Runtime.getRuntime().totalMemory()
+				- Runtime.getRuntime().freeMemory();
+	}
+
+	@Override
+	public long getNativeHeap() {
+		return getJavaHeap();
+	}
+
+	@Override
+	public Preferences getPreferences(String name) {
+		throw new UnsupportedOperationException(
+				"Headless application has no preferences");
+	}
+
+	/**
+	 * @return null, there is no clipboard
+	 */
+	@Override
+	public Clipboard getClipboard() {
+		return null;
+	}
+
+	@Override
+	public void addLifecycleListener(LifecycleListener listener) {
+		synchronized (lifecycleListeners) {
+			lifecycleListeners.add(listener);
+		}
+	}
+
+	@Override
+	public void removeLifecycleListener(LifecycleListener listener) {
+		synchronized (lifecycleListeners) {
+			lifecycleListeners.removeValue(listener, true);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.badlogic.gdx.automation.recorder.headless;
+
+import java.io.File;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * {@link Files} of a {@link HeadlessApplication}, resolving files like the
+ * desktop backends do: internal and local files relative to the working
+ * directory, external files relative to the user's home directory.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class HeadlessFiles implements Files {
+	private final String externalPath = System.getProperty("user.home")
+			+ File.separator;
+
+	@Override
+	public FileHandle getFileHandle(String path, FileType type) {
+		return new HeadlessFileHandle(path, type);
+	}
+
+	@Override
+	public FileHandle classpath(String path) {
+		return new HeadlessFileHandle(path, FileType.Classpath);
+	}
+
+	@Override
+	public FileHandle internal(String path) {
+		return new HeadlessFileHandle(path, FileType.Internal);
+	}
+
+	@Override
+	public FileHandle external(String path) {
+		return new HeadlessFileHandle(path, FileType.External);
+	}
+
+	@Override
+	public FileHandle absolute(String path) {
+		return new HeadlessFileHandle(path, FileType.Absolute);
+	}
+
+	@Override
+	public FileHandle local(String path) {
+		return new HeadlessFileHandle(path, FileType.Local);
+	}
+
+	@Override
+	public String getExternalStoragePath() {
+		return externalPath;
+	}
+
+	@Override
+	public boolean isExternalStorageAvailable() {
+		return true;
+	}
+
+	@Override
+	public String getLocalStoragePath() {
+		return "";
+	}
+
+	@Override
+	public boolean isLocalStorageAvailable() {
+		return true;
+	}
+
+	private class HeadlessFileHandle extends FileHandle {
+		public HeadlessFileHandle(String path, FileType type) {
+			super(path, type);
+		}
+
+		public HeadlessFileHandle(File file, FileType type) {
+			super(file, type);
+		}
+
+		@Override
+		public FileHandle child(String name) {
+			if (file.getPath().length() == 0) {
+				return new HeadlessFileHandle(new File(name), type);
+			}
+			return new HeadlessFileHandle(new File(file, name), type);
+		}
+
+		@Override
+		public FileHandle sibling(String name) {
+			if (file.getPath().length() == 0) {
+				throw new IllegalStateException("Cannot get the sibling of the root.");
+			}
+			return new HeadlessFileHandle(new File(file.getParent(), name),
+					type);
+		}
+
+		@Override
+		public FileHandle parent() {
+			File parent = file.getParentFile();
+			if (parent == null) {
+				if (type == FileType.Absolute) {
+					parent = new File("/");
+				} else {
+					parent = new File("");
+				}
+			}
+			return new HeadlessFileHandle(parent, type);
+		}
+
+		@Override
+		public File file() {
+			if (type == FileType.External) {
+				return new File(externalPath, file.getPath());
+			}
+			return file;
+		}
+	}
+}
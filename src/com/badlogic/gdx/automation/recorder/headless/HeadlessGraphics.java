@@ -0,0 +1,194 @@
+package com.badlogic.gdx.automation.recorder.headless;
+
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.GL11;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GLCommon;
+
+/**
+ * {@link Graphics} of a {@link HeadlessApplication}: a screen of fixed size
+ * without any OpenGL behind it. Only keeps track of the frame timing.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class HeadlessGraphics implements Graphics {
+	private final int width;
+	private final int height;
+	private long lastFrameTime = -1;
+	private float deltaTime = 0;
+	private long frameStart = 0;
+	private int frames = 0;
+	private int fps = 0;
+
+	public HeadlessGraphics(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Updates the frame timing, to be called at the start of every frame
+	 */
+	void updateTime() {
+		long time = System.nanoTime();
+		if (lastFrameTime == -1) {
+			lastFrameTime = time;
+			frameStart = time;
+		}
+		deltaTime = (time - lastFrameTime) / 1000000000.0f;
+		lastFrameTime = time;
+		if (time - frameStart >= 1000000000L) {
+			fps = frames;
+			frames = 0;
+			frameStart = time;
+		}
+		frames++;
+	}
+
+	@Override
+	public boolean isGL11Available() {
+		return false;
+	}
+
+	@Override
+	public boolean isGL20Available() {
+		return false;
+	}
+
+	@Override
+	public GLCommon getGLCommon() {
+		return null;
+	}
+
+	@Override
+	public GL10 getGL10() {
+		return null;
+	}
+
+	@Override
+	public GL11 getGL11() {
+		return null;
+	}
+
+	@Override
+	public GL20 getGL20() {
+		return null;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public float getDeltaTime() {
+		return deltaTime;
+	}
+
+	@Override
+	public float getRawDeltaTime() {
+		return deltaTime;
+	}
+
+	@Override
+	public int getFramesPerSecond() {
+		return fps;
+	}
+
+	@Override
+	public GraphicsType getType() {
+		return null;
+	}
+
+	@Override
+	public float getPpiX() {
+		return 96;
+	}
+
+	@Override
+	public float getPpiY() {
+		return 96;
+	}
+
+	@Override
+	public float getPpcX() {
+		return 96 / 2.54f;
+	}
+
+	@Override
+	public float getPpcY() {
+		return 96 / 2.54f;
+	}
+
+	@Override
+	public float getDensity() {
+		return 1;
+	}
+
+	@Override
+	public boolean supportsDisplayModeChange() {
+		return false;
+	}
+
+	@Override
+	public DisplayMode[] getDisplayModes() {
+		return new DisplayMode[0];
+	}
+
+	@Override
+	public DisplayMode getDesktopDisplayMode() {
+		return null;
+	}
+
+	@Override
+	public boolean setDisplayMode(DisplayMode displayMode) {
+		return false;
+	}
+
+	@Override
+	public boolean setDisplayMode(int width, int height, boolean fullscreen) {
+		return false;
+	}
+
+	@Override
+	public void setTitle(String title) {
+	}
+
+	@Override
+	public void setVSync(boolean vsync) {
+	}
+
+	@Override
+	public BufferFormat getBufferFormat() {
+		return new BufferFormat(8, 8, 8, 8, 0, 0, 0, false);
+	}
+
+	@Override
+	public boolean supportsExtension(String extension) {
+		return false;
+	}
+
+	@Override
+	public void setContinuousRendering(boolean isContinuous) {
+	}
+
+	@Override
+	public boolean isContinuousRendering() {
+		return true;
+	}
+
+	@Override
+	public void requestRendering() {
+	}
+
+	@Override
+	public boolean isFullscreen() {
+		return false;
+	}
+}
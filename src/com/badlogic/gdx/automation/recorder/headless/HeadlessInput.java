@@ -0,0 +1,501 @@
+package com.badlogic.gdx.automation.recorder.headless;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * An {@link Input} without any device behind it. Input is scripted by calling
+ * methods like {@link #keyDown(int)} or {@link #touchDragged(int, int, int)}
+ * from any thread. Just like a real backend, the events are queued and only
+ * become visible at the start of the next frame, when the
+ * {@link HeadlessApplication} calls {@link #update()}. They are handed to the
+ * {@link InputProcessor} in {@link #processEvents()}.
+ * 
+ * The recorder reads the events of the current frame directly via
+ * {@link #getKeyEvents()} and {@link #getTouchEvents()}, so recording works
+ * without reflection on a machine without a display.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class HeadlessInput implements Input {
+	public static final int MAX_POINTERS = 20;
+	/**
+	 * the number of key codes tracked as pressed keys
+	 */
+	public static final int KEY_COUNT = 256;
+
+	public static class KeyEvent {
+		public long timeStamp;
+		public SyncProperty.KeyEvent.Type type;
+		public int keyCode;
+		public char keyChar;
+	}
+
+	public static class TouchEvent {
+		public long timeStamp;
+		public SyncProperty.PointerEvent.Type type;
+		public int x;
+		public int y;
+		public int scrollAmount;
+		public int button;
+		public int pointer;
+	}
+
+	private final Pool<KeyEvent> keyEventPool = new Pool<KeyEvent>() {
+		@Override
+		protected KeyEvent newObject() {
+			return new KeyEvent();
+		}
+	};
+	private final Pool<TouchEvent> touchEventPool = new Pool<TouchEvent>() {
+		@Override
+		protected TouchEvent newObject() {
+			return new TouchEvent();
+		}
+	};
+
+	/*
+	 * scripted events not visible yet, guarded by this
+	 */
+	private final ArrayList<KeyEvent> queuedKeyEvents = new ArrayList<KeyEvent>();
+	private final ArrayList<TouchEvent> queuedTouchEvents = new ArrayList<TouchEvent>();
+
+	/*
+	 * the current frame, only touched by the main thread
+	 */
+	private final ArrayList<KeyEvent> keyEvents = new ArrayList<KeyEvent>();
+	private final ArrayList<TouchEvent> touchEvents = new ArrayList<TouchEvent>();
+	private final boolean[] keys = new boolean[KEY_COUNT];
+	private int pressedKeyCount = 0;
+	private final int[] x = new int[MAX_POINTERS];
+	private final int[] y = new int[MAX_POINTERS];
+	private final int[] deltaX = new int[MAX_POINTERS];
+	private final int[] deltaY = new int[MAX_POINTERS];
+	private final boolean[] touched = new boolean[MAX_POINTERS];
+	private final boolean[] buttons = new boolean[3];
+	private boolean justTouched = false;
+	private long currentEventTimeStamp;
+
+	private volatile float accelerometerX;
+	private volatile float accelerometerY;
+	private volatile float accelerometerZ;
+	private InputProcessor processor;
+
+	/*
+	 * Scripting methods
+	 */
+
+	public synchronized void keyDown(int keyCode) {
+		queueKeyEvent(SyncProperty.KeyEvent.Type.KEY_DOWN, keyCode, (char) 0);
+	}
+
+	public synchronized void keyUp(int keyCode) {
+		queueKeyEvent(SyncProperty.KeyEvent.Type.KEY_UP, keyCode, (char) 0);
+	}
+
+	public synchronized void keyTyped(char character) {
+		queueKeyEvent(SyncProperty.KeyEvent.Type.KEY_TYPED, 0, character);
+	}
+
+	public synchronized void touchDown(int x, int y, int pointer, int button) {
+		queueTouchEvent(SyncProperty.PointerEvent.Type.TOUCH_DOWN, x, y,
+				pointer, button, 0);
+	}
+
+	public synchronized void touchUp(int x, int y, int pointer, int button) {
+		queueTouchEvent(SyncProperty.PointerEvent.Type.TOUCH_UP, x, y,
+				pointer, button, 0);
+	}
+
+	public synchronized void touchDragged(int x, int y, int pointer) {
+		queueTouchEvent(SyncProperty.PointerEvent.Type.TOUCH_DRAGGED, x, y,
+				pointer, 0, 0);
+	}
+
+	public synchronized void mouseMoved(int x, int y) {
+		queueTouchEvent(SyncProperty.PointerEvent.Type.TOUCH_MOVED, x, y, 0,
+				0, 0);
+	}
+
+	public synchronized void scrolled(int amount) {
+		queueTouchEvent(SyncProperty.PointerEvent.Type.TOUCH_SCROLLED, x[0],
+				y[0], 0, 0, amount);
+	}
+
+	public void setAccelerometer(float x, float y, float z) {
+		accelerometerX = x;
+		accelerometerY = y;
+		accelerometerZ = z;
+	}
+
+	private void queueKeyEvent(SyncProperty.KeyEvent.Type type, int keyCode,
+			char keyChar) {
+		KeyEvent event = keyEventPool.obtain();
+		event.timeStamp = TimeUtils.nanoTime();
+		event.type = type;
+		event.keyCode = keyCode;
+		event.keyChar = keyChar;
+		queuedKeyEvents.add(event);
+	}
+
+	private void queueTouchEvent(SyncProperty.PointerEvent.Type type, int x,
+			int y, int pointer, int button, int scrollAmount) {
+		if (pointer < 0 || pointer >= MAX_POINTERS) {
+			throw new IllegalArgumentException("Pointer out of range: "
+					+ pointer);
+		}
+		TouchEvent event = touchEventPool.obtain();
+		event.timeStamp = TimeUtils.nanoTime();
+		event.type = type;
+		event.x = x;
+		event.y = y;
+		event.pointer = pointer;
+		event.button = button;
+		event.scrollAmount = scrollAmount;
+		queuedTouchEvents.add(event);
+	}
+
+	/*
+	 * Frame methods, called on the main thread
+	 */
+
+	/**
+	 * Makes the events scripted since the last call the events of the current
+	 * frame and updates the polled state (pressed keys, pointer positions
+	 * etc.) accordingly
+	 */
+	public void update() {
+		justTouched = false;
+		for (int i = 0; i < MAX_POINTERS; i++) {
+			deltaX[i] = 0;
+			deltaY[i] = 0;
+		}
+		synchronized (this) {
+			keyEvents.addAll(queuedKeyEvents);
+			queuedKeyEvents.clear();
+			touchEvents.addAll(queuedTouchEvents);
+			queuedTouchEvents.clear();
+		}
+		for (int i = 0; i < keyEvents.size(); i++) {
+			KeyEvent event = keyEvents.get(i);
+			if (event.keyCode < 0 || event.keyCode >= KEY_COUNT) {
+				continue;
+			}
+			if (event.type == SyncProperty.KeyEvent.Type.KEY_DOWN
+					&& !keys[event.keyCode]) {
+				keys[event.keyCode] = true;
+				pressedKeyCount++;
+			} else if (event.type == SyncProperty.KeyEvent.Type.KEY_UP
+					&& keys[event.keyCode]) {
+				keys[event.keyCode] = false;
+				pressedKeyCount--;
+			}
+		}
+		for (int i = 0; i < touchEvents.size(); i++) {
+			TouchEvent event = touchEvents.get(i);
+			int pointer = event.pointer;
+			deltaX[pointer] += event.x - x[pointer];
+			deltaY[pointer] += event.y - y[pointer];
+			x[pointer] = event.x;
+			y[pointer] = event.y;
+			switch (event.type) {
+			case TOUCH_DOWN:
+				touched[pointer] = true;
+				justTouched = true;
+				if (event.button >= 0 && event.button < buttons.length) {
+					buttons[event.button] = true;
+				}
+				break;
+			case TOUCH_UP:
+				touched[pointer] = false;
+				if (event.button >= 0 && event.button < buttons.length) {
+					buttons[event.button] = false;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Hands the events of the current frame to the {@link InputProcessor} and
+	 * discards them
+	 */
+	public void processEvents() {
+		InputProcessor processor = this.processor;
+		if (processor != null) {
+			for (int i = 0; i < keyEvents.size(); i++) {
+				KeyEvent e = keyEvents.get(i);
+				currentEventTimeStamp = e.timeStamp;
+				switch (e.type) {
+				case KEY_DOWN:
+					processor.keyDown(e.keyCode);
+					break;
+				case KEY_UP:
+					processor.keyUp(e.keyCode);
+					break;
+				case KEY_TYPED:
+					processor.keyTyped(e.keyChar);
+					break;
+				}
+			}
+			for (int i = 0; i < touchEvents.size(); i++) {
+				TouchEvent e = touchEvents.get(i);
+				currentEventTimeStamp = e.timeStamp;
+				switch (e.type) {
+				case TOUCH_DOWN:
+					processor.touchDown(e.x, e.y, e.pointer, e.button);
+					break;
+				case TOUCH_UP:
+					processor.touchUp(e.x, e.y, e.pointer, e.button);
+					break;
+				case TOUCH_DRAGGED:
+					processor.touchDragged(e.x, e.y, e.pointer);
+					break;
+				case TOUCH_MOVED:
+					processor.mouseMoved(e.x, e.y);
+					break;
+				case TOUCH_SCROLLED:
+					processor.scrolled(e.scrollAmount);
+					break;
+				}
+			}
+		}
+		synchronized (this) {
+			for (int i = 0; i < keyEvents.size(); i++) {
+				keyEventPool.free(keyEvents.get(i));
+			}
+			for (int i = 0; i < touchEvents.size(); i++) {
+				touchEventPool.free(touchEvents.get(i));
+			}
+		}
+		keyEvents.clear();
+		touchEvents.clear();
+	}
+
+	/**
+	 * @return the key events of the current frame. Only valid on the main
+	 *         thread, until {@link #processEvents()} has been called.
+	 */
+	public List<KeyEvent> getKeyEvents() {
+		return keyEvents;
+	}
+
+	/**
+	 * @return the touch events of the current frame. Only valid on the main
+	 *         thread, until {@link #processEvents()} has been called.
+	 */
+	public List<TouchEvent> getTouchEvents() {
+		return touchEvents;
+	}
+
+	/*
+	 * Input implementation
+	 */
+
+	@Override
+	public float getAccelerometerX() {
+		return accelerometerX;
+	}
+
+	@Override
+	public float getAccelerometerY() {
+		return accelerometerY;
+	}
+
+	@Override
+	public float getAccelerometerZ() {
+		return accelerometerZ;
+	}
+
+	@Override
+	public int getX() {
+		return x[0];
+	}
+
+	@Override
+	public int getX(int pointer) {
+		return x[pointer];
+	}
+
+	@Override
+	public int getDeltaX() {
+		return deltaX[0];
+	}
+
+	@Override
+	public int getDeltaX(int pointer) {
+		return deltaX[pointer];
+	}
+
+	@Override
+	public int getY() {
+		return y[0];
+	}
+
+	@Override
+	public int getY(int pointer) {
+		return y[pointer];
+	}
+
+	@Override
+	public int getDeltaY() {
+		return deltaY[0];
+	}
+
+	@Override
+	public int getDeltaY(int pointer) {
+		return deltaY[pointer];
+	}
+
+	@Override
+	public boolean isTouched() {
+		for (int i = 0; i < MAX_POINTERS; i++) {
+			if (touched[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean justTouched() {
+		return justTouched;
+	}
+
+	@Override
+	public boolean isTouched(int pointer) {
+		return touched[pointer];
+	}
+
+	@Override
+	public boolean isButtonPressed(int button) {
+		return button >= 0 && button < buttons.length && buttons[button];
+	}
+
+	@Override
+	public boolean isKeyPressed(int key) {
+		if (key == Keys.ANY_KEY) {
+			return pressedKeyCount > 0;
+		}
+		return key >= 0 && key < KEY_COUNT && keys[key];
+	}
+
+	@Override
+	public void getTextInput(TextInputListener listener, String title,
+			String text) {
+		listener.canceled();
+	}
+
+	@Override
+	public void getPlaceholderTextInput(TextInputListener listener,
+			String title, String placeholder) {
+		listener.canceled();
+	}
+
+	@Override
+	public void setOnscreenKeyboardVisible(boolean visible) {
+	}
+
+	@Override
+	public void vibrate(int milliseconds) {
+	}
+
+	@Override
+	public void vibrate(long[] pattern, int repeat) {
+	}
+
+	@Override
+	public void cancelVibrate() {
+	}
+
+	@Override
+	public float getAzimuth() {
+		return 0;
+	}
+
+	@Override
+	public float getPitch() {
+		return 0;
+	}
+
+	@Override
+	public float getRoll() {
+		return 0;
+	}
+
+	@Override
+	public void getRotationMatrix(float[] matrix) {
+	}
+
+	@Override
+	public long getCurrentEventTime() {
+		return currentEventTimeStamp;
+	}
+
+	@Override
+	public void setCatchBackKey(boolean catchBack) {
+	}
+
+	@Override
+	public void setCatchMenuKey(boolean catchMenu) {
+	}
+
+	@Override
+	public void setInputProcessor(InputProcessor processor) {
+		this.processor = processor;
+	}
+
+	@Override
+	public InputProcessor getInputProcessor() {
+		return processor;
+	}
+
+	@Override
+	public boolean isPeripheralAvailable(Peripheral peripheral) {
+		switch (peripheral) {
+		case HardwareKeyboard:
+		case MultitouchScreen:
+		case Accelerometer:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	public int getRotation() {
+		return 0;
+	}
+
+	@Override
+	public Orientation getNativeOrientation() {
+		return Orientation.Landscape;
+	}
+
+	@Override
+	public void setCursorCatched(boolean catched) {
+	}
+
+	@Override
+	public boolean isCursorCatched() {
+		return false;
+	}
+
+	@Override
+	public void setCursorPosition(int x, int y) {
+	}
+
+	@Override
+	public void setCursorImage(Pixmap pixmap, int xHotspot, int yHotspot) {
+	}
+}
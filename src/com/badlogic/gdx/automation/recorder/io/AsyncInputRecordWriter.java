@@ -0,0 +1,348 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Decorator making any {@link InputRecordWriter} non-blocking for the threads
+ * recording input. Written values are copied into a bounded queue and written
+ * to the decorated writer in batches on a dedicated thread, in the order they
+ * were given to this writer. Only if the queue is full the writing thread has
+ * to wait for the I/O thread to catch up.
+ *
+ * {@link #flush()} and {@link #close()} act as barriers: they return once all
+ * values written before have been handed to the decorated writer and the
+ * decorated writer has been flushed or closed, respectively. Since the actual
+ * writing happens later, an {@link IOException} of the decorated writer is
+ * thrown by the next call to any method of this writer. Values that are
+ * written by another thread while the writer is being closed are discarded and
+ * never end up in the next record.
+ *
+ * @author Lukas Böhm
+ *
+ */
+public class AsyncInputRecordWriter implements InputRecordWriter {
+	public static final int DEFAULT_CAPACITY = 4096;
+	/**
+	 * the maximum number of entries written in one batch
+	 */
+	private static final int BATCH_SIZE = 256;
+	/**
+	 * how often a thread waiting for a full queue checks whether the writer
+	 * has been closed in the meantime
+	 */
+	private static final long CLOSE_CHECK_MILLIS = 10;
+
+	private enum EntryType {
+		RECORD_PROPERTIES, STATIC_VALUES, SYNC_VALUE, ASYNC_VALUE, FLUSH, CLOSE
+	}
+
+	private static class Entry {
+		EntryType type;
+		SyncProperty syncValue;
+		AsyncProperty asyncValue;
+		StaticProperties staticValues;
+		RecordProperties recordProperties;
+		CountDownLatch barrier;
+		/**
+		 * the drainer of the record the entry was written to
+		 */
+		Drainer drainer;
+
+		void reset() {
+			syncValue = null;
+			asyncValue = null;
+			staticValues = null;
+			recordProperties = null;
+			barrier = null;
+			drainer = null;
+		}
+	}
+
+	private final InputRecordWriter writer;
+	private final BlockingQueue<Entry> queue;
+	private final SyncPropertyPool syncValuePool = new SyncPropertyPool();
+	private final Pool<Entry> entryPool = new Pool<Entry>() {
+		@Override
+		protected Entry newObject() {
+			return new Entry();
+		}
+	};
+
+	private volatile Thread ioThread;
+	/**
+	 * the drainer of the open record, null once closing has started
+	 */
+	private volatile Drainer drainer;
+	private volatile IOException error;
+
+	public AsyncInputRecordWriter(InputRecordWriter writer) {
+		this(writer, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param writer
+	 *            the writer to write the values with
+	 * @param capacity
+	 *            the number of values that can be queued before writing
+	 *            threads have to wait
+	 */
+	public AsyncInputRecordWriter(InputRecordWriter writer, int capacity) {
+		this.writer = writer;
+		this.queue = new ArrayBlockingQueue<Entry>(capacity);
+	}
+
+	/**
+	 * @return the writer actually writing the values
+	 */
+	public InputRecordWriter getWriter() {
+		return writer;
+	}
+
+	@Override
+	public synchronized void open() throws IOException {
+		if (ioThread != null) {
+			close();
+		}
+		error = null;
+		writer.open();
+		drainer = new Drainer();
+		ioThread = new Thread(drainer, "AsyncInputRecordWriter");
+		ioThread.setDaemon(true);
+		ioThread.start();
+	}
+
+	@Override
+	public void writeRecordProperties(RecordProperties properties)
+			throws IOException {
+		RecordProperties copy = new RecordProperties();
+		copy.set(properties);
+		Entry entry = obtainEntry(EntryType.RECORD_PROPERTIES);
+		entry.recordProperties = copy;
+		enqueue(entry);
+	}
+
+	@Override
+	public void writeStaticValues(StaticProperties values) throws IOException {
+		StaticProperties copy = new StaticProperties();
+		copy.set(values);
+		Entry entry = obtainEntry(EntryType.STATIC_VALUES);
+		entry.staticValues = copy;
+		enqueue(entry);
+	}
+
+	@Override
+	public void writeSyncValues(SyncProperty values) throws IOException {
+		Entry entry = obtainEntry(EntryType.SYNC_VALUE);
+		entry.syncValue = syncValuePool.obtainCopy(values);
+		enqueue(entry);
+	}
+
+	@Override
+	public void writeAsyncValues(AsyncProperty values) throws IOException {
+		Entry entry = obtainEntry(EntryType.ASYNC_VALUE);
+		entry.asyncValue = values;
+		enqueue(entry);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		awaitBarrier(EntryType.FLUSH);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (ioThread == null) {
+			writer.close();
+			return;
+		}
+		try {
+			// the writer is closed even if there has been an error before
+			CountDownLatch barrier = new CountDownLatch(1);
+			Entry entry = newEntry(EntryType.CLOSE);
+			entry.barrier = barrier;
+			entry.drainer = drainer;
+			// rejects all writes from now on
+			drainer = null;
+			queue.put(entry);
+			barrier.await();
+			ioThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing writer");
+		} finally {
+			ioThread = null;
+		}
+		checkError();
+	}
+
+	private void awaitBarrier(EntryType type) throws IOException {
+		CountDownLatch barrier = new CountDownLatch(1);
+		Entry entry = obtainEntry(type);
+		entry.barrier = barrier;
+		enqueue(entry);
+		try {
+			barrier.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for writer");
+		}
+		checkError();
+	}
+
+	private Entry obtainEntry(EntryType type) throws IOException {
+		checkError();
+		Drainer current = drainer;
+		if (current == null) {
+			throw new IOException("Cannot write to closed writer");
+		}
+		Entry entry = newEntry(type);
+		entry.drainer = current;
+		return entry;
+	}
+
+	private Entry newEntry(EntryType type) {
+		Entry entry;
+		synchronized (entryPool) {
+			entry = entryPool.obtain();
+		}
+		entry.type = type;
+		return entry;
+	}
+
+	private void enqueue(Entry entry) throws IOException {
+		try {
+			// once closing has started the queue may never be drained again
+			while (!queue.offer(entry, CLOSE_CHECK_MILLIS,
+					TimeUnit.MILLISECONDS)) {
+				if (entry.drainer != drainer) {
+					if (entry.type == EntryType.SYNC_VALUE) {
+						syncValuePool.free(entry.syncValue);
+					}
+					entry.reset();
+					synchronized (entryPool) {
+						entryPool.free(entry);
+					}
+					throw new IOException("Cannot write to closed writer");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while queueing value");
+		}
+	}
+
+	/**
+	 * Throws the first exception that occurred on the I/O thread, if any
+	 */
+	private void checkError() throws IOException {
+		IOException e = error;
+		if (e != null) {
+			error = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Takes the queued entries in batches and writes them using the decorated
+	 * writer, until a {@link EntryType#CLOSE close} entry is taken. Entries
+	 * queued while the record was closed, which end up behind the close entry,
+	 * are dropped.
+	 *
+	 * @author Lukas Böhm
+	 *
+	 */
+	private class Drainer implements Runnable {
+		private final ArrayList<Entry> batch = new ArrayList<Entry>(BATCH_SIZE);
+
+		@Override
+		public void run() {
+			boolean closed = false;
+			while (!closed) {
+				try {
+					batch.add(queue.take());
+				} catch (InterruptedException e) {
+					// only close entries end this thread
+					continue;
+				}
+				queue.drainTo(batch, BATCH_SIZE - 1);
+				for (int i = 0; i < batch.size(); i++) {
+					Entry entry = batch.get(i);
+					if (entry.drainer == this && !closed) {
+						closed |= entry.type == EntryType.CLOSE;
+						write(entry);
+					} else {
+						discard(entry);
+					}
+					entry.reset();
+					synchronized (entryPool) {
+						entryPool.free(entry);
+					}
+				}
+				batch.clear();
+			}
+		}
+
+		private void write(Entry entry) {
+			try {
+				switch (entry.type) {
+				case RECORD_PROPERTIES:
+					writer.writeRecordProperties(entry.recordProperties);
+					break;
+				case STATIC_VALUES:
+					writer.writeStaticValues(entry.staticValues);
+					break;
+				case SYNC_VALUE:
+					try {
+						writer.writeSyncValues(entry.syncValue);
+					} finally {
+						syncValuePool.free(entry.syncValue);
+					}
+					break;
+				case ASYNC_VALUE:
+					writer.writeAsyncValues(entry.asyncValue);
+					break;
+				case FLUSH:
+					writer.flush();
+					break;
+				case CLOSE:
+					writer.close();
+					break;
+				}
+			} catch (IOException e) {
+				onError(e);
+			} catch (RuntimeException e) {
+				onError(new IOException(e));
+			} finally {
+				if (entry.barrier != null) {
+					entry.barrier.countDown();
+				}
+			}
+		}
+
+		private void discard(Entry entry) {
+			if (entry.type == EntryType.SYNC_VALUE) {
+				syncValuePool.free(entry.syncValue);
+			}
+			if (entry.barrier != null) {
+				entry.barrier.countDown();
+			}
+		}
+
+		private void onError(IOException e) {
+			if (error == null) {
+				error = e;
+			}
+		}
+	}
+}
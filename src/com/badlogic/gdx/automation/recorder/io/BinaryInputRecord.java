@@ -0,0 +1,43 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Defines a set of files that make up a BinaryInputRecord
+ *
+ * @author Lukas Böhm
+ *
+ */
+class BinaryInputRecord {
+	protected final FileHandle outputFile;
+	protected final FileHandle syncPropertiesFile;
+	protected final FileHandle asyncPropertiesFile;
+	protected final FileHandle staticPropertiesFile;
+	protected final FileHandle recordPropertiesFile;
+	protected final FileHandle indexFile;
+
+	/**
+	 * The number of sync properties that make up a block of the index written
+	 * alongside the sync values
+	 */
+	static final int INDEX_BLOCK_SIZE = 256;
+
+	public BinaryInputRecord(FileHandle binaryBaseFile) {
+		this.outputFile = binaryBaseFile;
+		syncPropertiesFile = Gdx.files.getFileHandle(
+				outputFile.pathWithoutExtension() + "-sync.bin",
+				outputFile.type());
+		asyncPropertiesFile = Gdx.files.getFileHandle(
+				outputFile.pathWithoutExtension() + "-async.bin",
+				outputFile.type());
+		staticPropertiesFile = Gdx.files.getFileHandle(
+				outputFile.pathWithoutExtension() + "-static.bin",
+				outputFile.type());
+		recordPropertiesFile = Gdx.files.getFileHandle(
+				outputFile.pathWithoutExtension() + "-properties.bin",
+				outputFile.type());
+		indexFile = Gdx.files.getFileHandle(outputFile.pathWithoutExtension()
+				+ "-index.bin", outputFile.type());
+	}
+}
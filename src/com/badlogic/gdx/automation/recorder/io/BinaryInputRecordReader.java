@@ -0,0 +1,207 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncPropertyVisitor;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Implementation of a {@link InputRecordReader} reading input data from the
+ * binary files written by a {@link BinaryInputRecordWriter}. Sync values are
+ * decoded one at a time while iterating, so the memory needed does not grow
+ * with the length of the record. Compressed files are detected and
+ * decompressed transparently.
+ *
+ * @author Lukas Böhm
+ */
+public class BinaryInputRecordReader extends BinaryInputRecord implements
+		InputRecordReader {
+	private final BinaryPropertyCodec codec = new BinaryPropertyCodec();
+	private final RecordProperties recordProperties;
+	private final StaticProperties staticProperties;
+	private final List<Text> textValues;
+	private final List<PlaceholderText> placeholderTextValues;
+	private final List<DataInputStream> openStreams;
+
+	public BinaryInputRecordReader(FileHandle input) throws IOException {
+		super(input);
+		recordProperties = new RecordProperties();
+		staticProperties = new StaticProperties();
+		textValues = new ArrayList<Text>();
+		placeholderTextValues = new ArrayList<PlaceholderText>();
+		openStreams = new ArrayList<DataInputStream>();
+		readRecordProperties();
+		readStaticValues();
+		readAsyncProperties();
+	}
+
+	private void readRecordProperties() throws IOException {
+		DataInputStream in = open(recordPropertiesFile);
+		try {
+			codec.readRecordProperties(in, recordProperties);
+		} finally {
+			in.close();
+		}
+	}
+
+	private void readStaticValues() throws IOException {
+		DataInputStream in = open(staticPropertiesFile);
+		try {
+			codec.readStaticValues(in, staticProperties);
+		} finally {
+			in.close();
+		}
+	}
+
+	private void readAsyncProperties() throws IOException {
+		AsyncValueSorter sorter = new AsyncValueSorter();
+		DataInputStream in = open(asyncPropertiesFile);
+		try {
+			AsyncProperty property;
+			while ((property = codec.readAsync(in)) != null) {
+				property.accept(sorter);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private static DataInputStream open(FileHandle file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				RecordCompression.decompress(file.read())));
+		try {
+			BinaryPropertyCodec.readHeader(in);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+		return in;
+	}
+
+	private class AsyncValueSorter implements AsyncPropertyVisitor {
+		@Override
+		public void visitText(Text text) {
+			textValues.add(text);
+		}
+
+		@Override
+		public void visitPlaceholderText(PlaceholderText text) {
+			placeholderTextValues.add(text);
+		}
+	}
+
+	@Override
+	public RecordProperties getRecordProperties() {
+		return recordProperties;
+	}
+
+	@Override
+	public Iterator<Text> getTextIterator() {
+		return textValues.iterator();
+	}
+
+	@Override
+	public Iterator<PlaceholderText> getPlaceholderTextIterator() {
+		return placeholderTextValues.iterator();
+	}
+
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator() {
+		try {
+			return new SyncIterator(syncPropertiesFile);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public StaticProperties getStaticValues() {
+		return staticProperties;
+	}
+
+	@Override
+	public synchronized void close() {
+		for (DataInputStream in : openStreams) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		openStreams.clear();
+	}
+
+	private synchronized void closeStream(DataInputStream in) {
+		openStreams.remove(in);
+		try {
+			in.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private class SyncIterator implements Iterator<SyncProperty> {
+		private final BinaryPropertyCodec codec;
+		private final DataInputStream in;
+		private SyncProperty next;
+		private boolean finished = false;
+
+		public SyncIterator(FileHandle file) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(
+					RecordCompression.decompress(file.read())));
+			try {
+				codec = new BinaryPropertyCodec(
+						BinaryPropertyCodec.readHeader(in));
+			} catch (IOException e) {
+				in.close();
+				throw e;
+			}
+			synchronized (BinaryInputRecordReader.this) {
+				openStreams.add(in);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null && !finished) {
+				try {
+					next = codec.readSync(in);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				if (next == null) {
+					finished = true;
+					closeStream(in);
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public SyncProperty next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			SyncProperty current = next;
+			next = null;
+			return current;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongArray;
+
+/**
+ * Implementation of an {@link InputRecordWriter} that writes given user input
+ * data to a set of files (one each for record properties, static, sync and
+ * async values) using a compact binary format. Compared to the
+ * {@link JsonInputRecordWriter} there are no repeated class and field names,
+ * so long recordings stay small and can be read back quickly by a
+ * {@link BinaryInputRecordReader}.
+ * 
+ * Every {@link BinaryInputRecord#INDEX_BLOCK_SIZE} sync values the record time,
+ * byte offset and {@link SyncStateSnapshot state} are noted down and written
+ * to an index file when the writer is closed, so a
+ * {@link MappedInputRecordReader} can start reading at any point in time.
+ * 
+ * With {@link #setQuantizePointers(boolean)} pointer positions are stored as
+ * rounded differences to the previous sample, which makes pointer-heavy
+ * records a lot smaller.
+ *
+ * @author Lukas Böhm
+ */
+public class BinaryInputRecordWriter extends BinaryInputRecord implements
+		CountingInputRecordWriter {
+	/**
+	 * precision of quantized pointers with absolute coordinates, i.e. whole
+	 * pixels
+	 */
+	public static final int PIXEL_PRECISION = 1;
+	/**
+	 * precision of quantized pointers with normalized coordinates, i.e. 1/65536
+	 * of the screen size
+	 */
+	public static final int NORMALIZED_PRECISION = 1 << 16;
+
+	private final BinaryPropertyCodec codec = new BinaryPropertyCodec();
+	private final RecordCompression compression;
+	private boolean quantizePointers = false;
+	private boolean absoluteCoords = false;
+	private DataOutputStream syncOut;
+	private DataOutputStream asyncOut;
+
+	/**
+	 * pairs of record time and sync file offset, one for each block
+	 */
+	private final LongArray index = new LongArray();
+	/**
+	 * the encoded state at the start of each block
+	 */
+	private final Array<byte[]> snapshots = new Array<byte[]>();
+	private final SyncStateSnapshot state = new SyncStateSnapshot();
+	private long syncCount;
+	private long syncTime;
+	/**
+	 * updated once per block and on every flush
+	 */
+	private volatile long bytesWritten;
+
+	public BinaryInputRecordWriter(FileHandle output) {
+		this(output, RecordCompression.NONE);
+	}
+
+	/**
+	 * @param output
+	 * @param compression
+	 *            the compression of the sync and async values. The block
+	 *            index refers to offsets in the uncompressed sync values.
+	 */
+	public BinaryInputRecordWriter(FileHandle output,
+			RecordCompression compression) {
+		super(output);
+		this.compression = compression;
+	}
+
+	/**
+	 * Sets whether pointers are written as quantized differences to the
+	 * previous sample instead of floats. The precision depends on the
+	 * {@link RecordProperties#absouluteCoords coordinates} of the record:
+	 * {@link #PIXEL_PRECISION} for absolute ones, which is lossless, and
+	 * {@link #NORMALIZED_PRECISION} otherwise.
+	 * 
+	 * @param quantizePointers
+	 */
+	public void setQuantizePointers(boolean quantizePointers) {
+		this.quantizePointers = quantizePointers;
+		updatePointerPrecision();
+	}
+
+	public boolean isQuantizingPointers() {
+		return quantizePointers;
+	}
+
+	private void updatePointerPrecision() {
+		if (!quantizePointers) {
+			codec.setPointerPrecision(0);
+		} else if (absoluteCoords) {
+			codec.setPointerPrecision(PIXEL_PRECISION);
+		} else {
+			codec.setPointerPrecision(NORMALIZED_PRECISION);
+		}
+	}
+
+	@Override
+	public void writeRecordProperties(RecordProperties properties)
+			throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				recordPropertiesFile.write(false)));
+		try {
+			BinaryPropertyCodec.writeHeader(out);
+			codec.writeRecordProperties(out, properties);
+		} finally {
+			out.close();
+		}
+		absoluteCoords = properties.absouluteCoords;
+		updatePointerPrecision();
+	}
+
+	@Override
+	public void writeStaticValues(StaticProperties values) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				staticPropertiesFile.write(false)));
+		try {
+			BinaryPropertyCodec.writeHeader(out);
+			codec.writeStaticValues(out, values);
+		} finally {
+			out.close();
+		}
+	}
+
+	@Override
+	public void writeSyncValues(SyncProperty values) throws IOException {
+		if (syncOut == null) {
+			throw new IOException("Cannot write to closed writer");
+		}
+		if (syncCount % INDEX_BLOCK_SIZE == 0) {
+			index.add(syncTime);
+			index.add(syncOut.size());
+			snapshots.add(state.toBytes());
+			countBytes();
+		}
+		syncCount++;
+		syncTime += values.timeDelta;
+		codec.writeSync(syncOut, values);
+		state.update(values);
+	}
+
+	@Override
+	public void writeAsyncValues(AsyncProperty values) throws IOException {
+		if (asyncOut == null) {
+			throw new IOException("Cannot write to closed writer");
+		}
+		codec.writeAsync(asyncOut, values);
+	}
+
+	private void countBytes() {
+		bytesWritten = syncOut.size() + asyncOut.size();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (syncOut != null && asyncOut != null) {
+			countBytes();
+		}
+		if (syncOut != null) {
+			syncOut.flush();
+		}
+		if (asyncOut != null) {
+			asyncOut.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (syncOut != null && asyncOut != null) {
+			countBytes();
+		}
+		if (syncOut != null) {
+			writeIndex();
+			syncOut.close();
+			syncOut = null;
+		}
+		if (asyncOut != null) {
+			asyncOut.close();
+			asyncOut = null;
+		}
+	}
+
+	@Override
+	public void open() throws IOException {
+		close();
+		syncOut = new DataOutputStream(new BufferedOutputStream(
+				compression.compress(syncPropertiesFile.write(false))));
+		asyncOut = new DataOutputStream(new BufferedOutputStream(
+				compression.compress(asyncPropertiesFile.write(false))));
+		BinaryPropertyCodec.writeHeader(syncOut);
+		BinaryPropertyCodec.writeHeader(asyncOut);
+		index.clear();
+		snapshots.clear();
+		state.clear();
+		syncCount = 0;
+		syncTime = 0;
+		codec.reset();
+	}
+
+	private void writeIndex() throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				indexFile.write(false)));
+		try {
+			BinaryPropertyCodec.writeHeader(out);
+			out.writeInt(index.size / 2);
+			for (int i = 0; i < snapshots.size; i++) {
+				out.writeLong(index.get(2 * i));
+				out.writeLong(index.get(2 * i + 1));
+				out.writeInt(snapshots.get(i).length);
+				out.write(snapshots.get(i));
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,661 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.badlogic.gdx.Input.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncPropertyVisitor;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Accelerometer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Button;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyPressed;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncPropertyVisitor;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+
+/**
+ * Encodes and decodes {@link SyncProperty SyncProperties},
+ * {@link AsyncProperty AsyncProperties} and the static parts of a record into
+ * a compact binary representation. Every property starts with a one-byte type
+ * tag, followed by its fields. Integral values that are usually small
+ * (timeDelta, frameDelta, key codes, pointer indices) are stored as variable-length
+ * integers, floats are stored with their fixed 4 byte width.
+ *
+ * Optionally, {@link Pointer Pointers} are written quantized: coordinates are
+ * multiplied by a precision (steps per unit) and rounded, and only their
+ * difference to the previous sample of the same pointer is written as a
+ * variable-length integer. A drag then takes a few bytes per frame instead of
+ * 17. The precision is written into the stream before the first quantized
+ * pointer of every index block, and the differences start over with it, so
+ * reading can start at any block (see
+ * {@link BinaryInputRecord#INDEX_BLOCK_SIZE}). This makes codecs stateful:
+ * one codec must be used per stream, read from the beginning of a block.
+ *
+ * @author Lukas Böhm
+ *
+ */
+class BinaryPropertyCodec {
+	/**
+	 * Written at the beginning of every binary stream to be able to tell
+	 * binary records from arbitrary files
+	 */
+	static final int MAGIC = 0x47445852; // "GDXR"
+	private static final String UTF_8 = "UTF-8";
+	/**
+	 * Version 2 added the frameDelta of sync properties, version 3 quantized
+	 * pointers, version 4 async texts of any length, version 5 a
+	 * {@link SyncStateSnapshot} for every block of an index
+	 */
+	static final int VERSION = 5;
+
+	static final int TAG_ACCELEROMETER = 1;
+	static final int TAG_KEY_PRESSED = 2;
+	static final int TAG_POINTER_EVENT = 3;
+	static final int TAG_KEY_EVENT = 4;
+	static final int TAG_ORIENTATION = 5;
+	static final int TAG_POINTER = 6;
+	static final int TAG_BUTTON = 7;
+	static final int TAG_QUANTIZED_POINTER = 8;
+	/**
+	 * not a property, but the precision of the quantized pointers following
+	 */
+	static final int TAG_POINTER_PRECISION = 9;
+
+	static final int TAG_TEXT = 32;
+	static final int TAG_PLACEHOLDER_TEXT = 33;
+
+	private final SyncEncoder syncEncoder = new SyncEncoder();
+	/**
+	 * the version of the streams read by this codec
+	 */
+	private final int version;
+	/**
+	 * steps per unit pointers are quantized with when written, 0 if they are
+	 * written as floats. When reading, the precision last read from the
+	 * stream.
+	 */
+	private int pointerPrecision = 0;
+	private boolean precisionWritten = false;
+	/**
+	 * the number of sync properties written, to know where index blocks start
+	 */
+	private long syncCount = 0;
+	/**
+	 * the last quantized coordinates of each pointer
+	 */
+	private int[] lastX = new int[0];
+	private int[] lastY = new int[0];
+	private final AsyncEncoder asyncEncoder = new AsyncEncoder();
+
+	private static final KeyPressed.Type[] keyPressedTypes = KeyPressed.Type
+			.values();
+	private static final KeyEvent.Type[] keyEventTypes = KeyEvent.Type
+			.values();
+	private static final PointerEvent.Type[] pointerEventTypes = PointerEvent.Type
+			.values();
+	private static final Orientation[] orientations = Orientation.values();
+
+	/**
+	 * Creates a codec reading and writing the current {@link #VERSION}
+	 */
+	BinaryPropertyCodec() {
+		this(VERSION);
+	}
+
+	/**
+	 * @param version
+	 *            the version of the streams to be read, as returned by
+	 *            {@link #readHeader(DataInput)}. Streams are always written
+	 *            in the current {@link #VERSION}.
+	 */
+	BinaryPropertyCodec(int version) {
+		this.version = version;
+	}
+
+	/**
+	 * Makes {@link #writeSync(DataOutput, SyncProperty)} write
+	 * {@link Pointer Pointers} quantized with the given precision
+	 * 
+	 * @param stepsPerUnit
+	 *            the number of steps a unit (a pixel for absolute
+	 *            coordinates, the screen size for normalized ones) is divided
+	 *            into, or 0 to write pointers as floats
+	 */
+	void setPointerPrecision(int stepsPerUnit) {
+		if (stepsPerUnit < 0) {
+			throw new IllegalArgumentException(
+					"Precision must not be negative, was " + stepsPerUnit);
+		}
+		pointerPrecision = stepsPerUnit;
+		precisionWritten = false;
+	}
+
+	/**
+	 * Prepares the codec for writing a new stream
+	 */
+	void reset() {
+		syncCount = 0;
+		precisionWritten = false;
+		resetPointers();
+	}
+
+	/**
+	 * Called before every sync property written. Makes the pointer differences
+	 * start over at every index block.
+	 */
+	private void nextSyncProperty() {
+		if (syncCount % BinaryInputRecord.INDEX_BLOCK_SIZE == 0) {
+			precisionWritten = false;
+		}
+		syncCount++;
+	}
+
+	private void resetPointers() {
+		for (int i = 0; i < lastX.length; i++) {
+			lastX[i] = 0;
+			lastY[i] = 0;
+		}
+	}
+
+	private void ensurePointerCapacity(int pointer) throws IOException {
+		if (pointer < 0) {
+			throw new IOException("Invalid pointer index " + pointer);
+		}
+		if (pointer >= lastX.length) {
+			int[] x = new int[pointer + 1];
+			int[] y = new int[pointer + 1];
+			System.arraycopy(lastX, 0, x, 0, lastX.length);
+			System.arraycopy(lastY, 0, y, 0, lastY.length);
+			lastX = x;
+			lastY = y;
+		}
+	}
+
+	/*
+	 * Stream header
+	 */
+
+	static void writeHeader(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+	}
+
+	static int readHeader(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a binary input record");
+		}
+		int version = in.readUnsignedByte();
+		if (version > VERSION) {
+			throw new IOException("Unsupported binary record version "
+					+ version);
+		}
+		return version;
+	}
+
+	/*
+	 * Static parts of a record
+	 */
+
+	void writeRecordProperties(DataOutput out, RecordProperties properties)
+			throws IOException {
+		out.writeBoolean(properties.absouluteCoords);
+	}
+
+	RecordProperties readRecordProperties(DataInput in,
+			RecordProperties properties) throws IOException {
+		properties.absouluteCoords = in.readBoolean();
+		return properties;
+	}
+
+	void writeStaticValues(DataOutput out, StaticProperties values)
+			throws IOException {
+		int flags = 0;
+		flags |= values.accelerometerAvailable ? 1 : 0;
+		flags |= values.compassAvailable ? 2 : 0;
+		flags |= values.keyboardAvailable ? 4 : 0;
+		flags |= values.onscreenKeyboard ? 8 : 0;
+		flags |= values.vibrator ? 16 : 0;
+		flags |= values.hasMultitouch ? 32 : 0;
+		out.writeByte(flags);
+		writeVarInt(out, values.nativeOrientation == null ? -1
+				: values.nativeOrientation.ordinal());
+	}
+
+	StaticProperties readStaticValues(DataInput in, StaticProperties values)
+			throws IOException {
+		int flags = in.readUnsignedByte();
+		values.accelerometerAvailable = (flags & 1) != 0;
+		values.compassAvailable = (flags & 2) != 0;
+		values.keyboardAvailable = (flags & 4) != 0;
+		values.onscreenKeyboard = (flags & 8) != 0;
+		values.vibrator = (flags & 16) != 0;
+		values.hasMultitouch = (flags & 32) != 0;
+		int orientation = readVarInt(in);
+		values.nativeOrientation = orientation < 0 ? null
+				: orientations[orientation];
+		return values;
+	}
+
+	/*
+	 * Sync properties
+	 */
+
+	void writeSync(DataOutput out, SyncProperty property) throws IOException {
+		nextSyncProperty();
+		syncEncoder.encode(out, property);
+	}
+
+	/**
+	 * Reads the next {@link SyncProperty} from the given stream.
+	 *
+	 * @param in
+	 * @return the decoded property or null if the stream ended regularly
+	 * @throws IOException
+	 *             if the stream ended in the middle of a property or contains
+	 *             an unknown type tag
+	 */
+	SyncProperty readSync(DataInputStream in) throws IOException {
+		int tag = in.read();
+		if (tag < 0) {
+			return null;
+		}
+		if (tag == TAG_POINTER_PRECISION) {
+			pointerPrecision = readVarInt(in);
+			resetPointers();
+			tag = in.readUnsignedByte();
+		}
+		SyncProperty result;
+		switch (tag) {
+		case TAG_ACCELEROMETER: {
+			Accelerometer accelerometer = new Accelerometer();
+			accelerometer.accelerometerX = in.readFloat();
+			accelerometer.accelerometerY = in.readFloat();
+			accelerometer.accelerometerZ = in.readFloat();
+			result = accelerometer;
+			break;
+		}
+		case TAG_KEY_PRESSED: {
+			KeyPressed keyPressed = new KeyPressed();
+			keyPressed.type = readType(in, keyPressedTypes, "key pressed");
+			keyPressed.keyCode = readVarInt(in);
+			result = keyPressed;
+			break;
+		}
+		case TAG_POINTER_EVENT: {
+			PointerEvent pointerEvent = new PointerEvent();
+			pointerEvent.type = readType(in, pointerEventTypes,
+					"pointer event");
+			pointerEvent.x = in.readFloat();
+			pointerEvent.y = in.readFloat();
+			pointerEvent.scrollAmount = readVarInt(in);
+			pointerEvent.button = readVarInt(in);
+			pointerEvent.pointer = readVarInt(in);
+			result = pointerEvent;
+			break;
+		}
+		case TAG_KEY_EVENT: {
+			KeyEvent keyEvent = new KeyEvent();
+			keyEvent.type = readType(in, keyEventTypes, "key event");
+			keyEvent.keyCode = readVarInt(in);
+			keyEvent.keyChar = (char) readVarLong(in);
+			result = keyEvent;
+			break;
+		}
+		case TAG_ORIENTATION: {
+			SyncProperty.Orientation orientation = new SyncProperty.Orientation();
+			orientation.roll = in.readFloat();
+			orientation.pitch = in.readFloat();
+			orientation.azimuth = in.readFloat();
+			orientation.orientation = readVarInt(in);
+			for (int i = 0; i < 16; i++) {
+				orientation.rotationMatrix[i] = in.readFloat();
+			}
+			result = orientation;
+			break;
+		}
+		case TAG_POINTER: {
+			Pointer pointer = new Pointer();
+			pointer.pointer = readVarInt(in);
+			pointer.x = in.readFloat();
+			pointer.y = in.readFloat();
+			pointer.deltaX = in.readFloat();
+			pointer.deltaY = in.readFloat();
+			result = pointer;
+			break;
+		}
+		case TAG_QUANTIZED_POINTER: {
+			if (pointerPrecision <= 0) {
+				throw new IOException(
+						"Quantized pointer without preceding precision");
+			}
+			Pointer pointer = new Pointer();
+			int index = readVarInt(in);
+			ensurePointerCapacity(index);
+			lastX[index] += readVarInt(in);
+			lastY[index] += readVarInt(in);
+			pointer.pointer = index;
+			pointer.x = lastX[index] / (float) pointerPrecision;
+			pointer.y = lastY[index] / (float) pointerPrecision;
+			pointer.deltaX = readVarInt(in) / (float) pointerPrecision;
+			pointer.deltaY = readVarInt(in) / (float) pointerPrecision;
+			result = pointer;
+			break;
+		}
+		case TAG_BUTTON: {
+			Button button = new Button();
+			int buttons = in.readUnsignedByte();
+			button.button0 = (buttons & 1) != 0;
+			button.button1 = (buttons & 2) != 0;
+			button.button2 = (buttons & 4) != 0;
+			result = button;
+			break;
+		}
+		default:
+			throw new IOException("Unknown sync property tag " + tag);
+		}
+		result.timeDelta = readVarLong(in);
+		if (version >= 2) {
+			result.frameDelta = readVarLong(in);
+		}
+		return result;
+	}
+
+	private class SyncEncoder implements SyncPropertyVisitor {
+		private DataOutput out;
+		private IOException error;
+
+		public void encode(DataOutput out, SyncProperty property)
+				throws IOException {
+			this.out = out;
+			property.accept(this);
+			this.out = null;
+			if (error != null) {
+				IOException e = error;
+				error = null;
+				throw e;
+			}
+			writeVarLong(out, property.timeDelta);
+			writeVarLong(out, property.frameDelta);
+		}
+
+		@Override
+		public void visitAccelerometer(Accelerometer accelerometer) {
+			try {
+				out.writeByte(TAG_ACCELEROMETER);
+				out.writeFloat(accelerometer.accelerometerX);
+				out.writeFloat(accelerometer.accelerometerY);
+				out.writeFloat(accelerometer.accelerometerZ);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		@Override
+		public void visitKeyPressed(KeyPressed keyPressed) {
+			try {
+				out.writeByte(TAG_KEY_PRESSED);
+				out.writeByte(keyPressed.type.ordinal());
+				writeVarInt(out, keyPressed.keyCode);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		@Override
+		public void visitPointerEvent(PointerEvent pointerEvent) {
+			try {
+				out.writeByte(TAG_POINTER_EVENT);
+				out.writeByte(pointerEvent.type.ordinal());
+				out.writeFloat(pointerEvent.x);
+				out.writeFloat(pointerEvent.y);
+				writeVarInt(out, pointerEvent.scrollAmount);
+				writeVarInt(out, pointerEvent.button);
+				writeVarInt(out, pointerEvent.pointer);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		@Override
+		public void visitKeyEvent(KeyEvent keyEvent) {
+			try {
+				out.writeByte(TAG_KEY_EVENT);
+				out.writeByte(keyEvent.type.ordinal());
+				writeVarInt(out, keyEvent.keyCode);
+				writeVarLong(out, keyEvent.keyChar);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		@Override
+		public void visitOrientation(SyncProperty.Orientation orientation) {
+			try {
+				out.writeByte(TAG_ORIENTATION);
+				out.writeFloat(orientation.roll);
+				out.writeFloat(orientation.pitch);
+				out.writeFloat(orientation.azimuth);
+				writeVarInt(out, orientation.orientation);
+				for (int i = 0; i < 16; i++) {
+					out.writeFloat(orientation.rotationMatrix[i]);
+				}
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		@Override
+		public void visitPointer(Pointer pointer) {
+			if (pointerPrecision > 0) {
+				writeQuantized(pointer);
+				return;
+			}
+			try {
+				out.writeByte(TAG_POINTER);
+				writeVarInt(out, pointer.pointer);
+				out.writeFloat(pointer.x);
+				out.writeFloat(pointer.y);
+				out.writeFloat(pointer.deltaX);
+				out.writeFloat(pointer.deltaY);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		private void writeQuantized(Pointer pointer) {
+			try {
+				if (!precisionWritten) {
+					out.writeByte(TAG_POINTER_PRECISION);
+					writeVarInt(out, pointerPrecision);
+					resetPointers();
+					precisionWritten = true;
+				}
+				int index = pointer.pointer;
+				ensurePointerCapacity(index);
+				int x = Math.round(pointer.x * pointerPrecision);
+				int y = Math.round(pointer.y * pointerPrecision);
+				out.writeByte(TAG_QUANTIZED_POINTER);
+				writeVarInt(out, index);
+				writeVarInt(out, x - lastX[index]);
+				writeVarInt(out, y - lastY[index]);
+				writeVarInt(out, Math.round(pointer.deltaX * pointerPrecision));
+				writeVarInt(out, Math.round(pointer.deltaY * pointerPrecision));
+				lastX[index] = x;
+				lastY[index] = y;
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		@Override
+		public void visitButton(Button button) {
+			try {
+				out.writeByte(TAG_BUTTON);
+				int buttons = 0;
+				buttons |= button.button0 ? 1 : 0;
+				buttons |= button.button1 ? 2 : 0;
+				buttons |= button.button2 ? 4 : 0;
+				out.writeByte(buttons);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+	}
+
+	/*
+	 * Async properties
+	 */
+
+	void writeAsync(DataOutput out, AsyncProperty property)
+			throws IOException {
+		asyncEncoder.encode(out, property);
+	}
+
+	/**
+	 * Reads the next {@link AsyncProperty} from the given stream.
+	 *
+	 * @param in
+	 * @return the decoded property or null if the stream ended regularly
+	 * @throws IOException
+	 */
+	AsyncProperty readAsync(DataInputStream in) throws IOException {
+		int tag = in.read();
+		if (tag < 0) {
+			return null;
+		}
+		String input = null;
+		if (in.readBoolean()) {
+			input = version >= 4 ? readString(in) : in.readUTF();
+		}
+		switch (tag) {
+		case TAG_TEXT:
+			return new Text(input);
+		case TAG_PLACEHOLDER_TEXT:
+			return new PlaceholderText(input);
+		default:
+			throw new IOException("Unknown async property tag " + tag);
+		}
+	}
+
+	private static class AsyncEncoder implements AsyncPropertyVisitor {
+		private DataOutput out;
+		private IOException error;
+
+		public void encode(DataOutput out, AsyncProperty property)
+				throws IOException {
+			this.out = out;
+			property.accept(this);
+			this.out = null;
+			if (error != null) {
+				IOException e = error;
+				error = null;
+				throw e;
+			}
+		}
+
+		private void write(int tag, String input) {
+			try {
+				out.writeByte(tag);
+				out.writeBoolean(input != null);
+				if (input != null) {
+					writeString(out, input);
+				}
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		@Override
+		public void visitText(Text text) {
+			write(TAG_TEXT, text.input);
+		}
+
+		@Override
+		public void visitPlaceholderText(PlaceholderText text) {
+			write(TAG_PLACEHOLDER_TEXT, text.input);
+		}
+	}
+
+	/**
+	 * Writes the given string as its length in UTF-8 bytes, followed by the
+	 * bytes. Unlike {@link DataOutput#writeUTF(String)}, this is not limited
+	 * to 65535 bytes.
+	 */
+	static void writeString(DataOutput out, String value) throws IOException {
+		byte[] bytes = value.getBytes(UTF_8);
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInput in) throws IOException {
+		long length = readVarLong(in);
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("String too long: " + length + " bytes");
+		}
+		byte[] bytes = new byte[(int) length];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * Reads the ordinal of an enum constant written as a single byte
+	 * 
+	 * @param in
+	 * @param types
+	 *            the values of the enum
+	 * @param name
+	 *            the name of the enum used in the error message
+	 * @return the constant read
+	 * @throws IOException
+	 *             if the ordinal is not one of the given values
+	 */
+	private static <T> T readType(DataInput in, T[] types, String name)
+			throws IOException {
+		int ordinal = in.readUnsignedByte();
+		if (ordinal >= types.length) {
+			throw new IOException("Unknown " + name + " type " + ordinal);
+		}
+		return types[ordinal];
+	}
+
+	/*
+	 * Variable-length integers (LEB128 with zigzag encoding for signed values)
+	 */
+
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	static long readVarLong(DataInput in) throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		writeVarLong(out, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+	}
+
+	static int readVarInt(DataInput in) throws IOException {
+		int zigzag = (int) readVarLong(in);
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+}
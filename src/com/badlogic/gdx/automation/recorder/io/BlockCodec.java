@@ -0,0 +1,56 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.IOException;
+
+/**
+ * Compresses and decompresses single blocks of a stream written by a
+ * {@link BlockCompressedOutputStream}. A codec is only used by a single stream
+ * and thus needs not be thread safe.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public interface BlockCodec {
+	/**
+	 * @param src
+	 * @param length
+	 *            the number of bytes in src
+	 * @param dst
+	 *            as large as src
+	 * @return the number of bytes written to dst or -1 if the block does not
+	 *         get smaller by compressing it
+	 */
+	int compress(byte[] src, int length, byte[] dst);
+
+	/**
+	 * @param src
+	 * @param length
+	 *            the number of bytes in src
+	 * @param dst
+	 * @param uncompressedLength
+	 *            the number of bytes to be written to dst
+	 * @throws IOException
+	 *             if src is corrupt
+	 */
+	void decompress(byte[] src, int length, byte[] dst, int uncompressedLength)
+			throws IOException;
+
+	/**
+	 * Releases the native resources of the codec
+	 */
+	void end();
+
+	/**
+	 * Creates the codecs of a {@link RecordCompression}
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	public interface Factory {
+		/**
+		 * @return a new codec to compress or decompress the blocks of a
+		 *         single stream with
+		 */
+		BlockCodec newCodec();
+	}
+}
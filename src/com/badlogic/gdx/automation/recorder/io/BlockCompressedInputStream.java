@@ -0,0 +1,173 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads streams written by a {@link BlockCompressedOutputStream}, one block at
+ * a time. {@link #skip(long)} only reads the headers of the blocks it skips
+ * completely, so getting to an offset of the uncompressed content costs
+ * little more than reading the block containing it.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class BlockCompressedInputStream extends InputStream {
+	private final DataInputStream in;
+	private final BlockCodec codec;
+	private byte[] block = new byte[BlockCompressedOutputStream.BLOCK_SIZE];
+	private byte[] compressed = new byte[BlockCompressedOutputStream.BLOCK_SIZE];
+	private int length = 0;
+	private int position = 0;
+	/**
+	 * uncompressed offset of the current block's start
+	 */
+	private long blockOffset = 0;
+	private boolean finished = false;
+
+	public BlockCompressedInputStream(InputStream in) throws IOException {
+		this.in = new DataInputStream(in);
+		if (this.in.readInt() != BlockCompressedOutputStream.MAGIC) {
+			throw new IOException("Not a compressed record stream");
+		}
+		codec = RecordCompression.newCodec(this.in.readUnsignedByte());
+	}
+
+	/**
+	 * @return the offset of the next byte read in the uncompressed content
+	 */
+	public long getPosition() {
+		return blockOffset + position;
+	}
+
+	/**
+	 * Reads the header of the next block
+	 * 
+	 * @return the header's uncompressed and stored length (in this order) in
+	 *         a long or -1 if the stream ended
+	 */
+	private long readBlockHeader() throws IOException {
+		if (finished) {
+			return -1;
+		}
+		int first = in.read();
+		if (first < 0) {
+			finished = true;
+			return -1;
+		}
+		int uncompressed = first << 24 | in.readUnsignedByte() << 16
+				| in.readUnsignedByte() << 8 | in.readUnsignedByte();
+		int stored = in.readInt();
+		if (uncompressed <= 0 || stored <= 0 || stored > uncompressed) {
+			throw new IOException("Corrupt compressed block header");
+		}
+		return (long) uncompressed << 32 | stored;
+	}
+
+	private boolean nextBlock() throws IOException {
+		long header = readBlockHeader();
+		if (header < 0) {
+			return false;
+		}
+		blockOffset += length;
+		position = 0;
+		length = 0;
+		readBlock((int) (header >>> 32), (int) header);
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position == length && !nextBlock()) {
+			return -1;
+		}
+		return block[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (position == length && !nextBlock()) {
+			return -1;
+		}
+		int read = Math.min(len, length - position);
+		System.arraycopy(block, position, b, off, read);
+		position += read;
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long skipped = Math.min(n, length - position);
+		position += skipped;
+		while (skipped < n) {
+			long header = readBlockHeader();
+			if (header < 0) {
+				break;
+			}
+			int uncompressed = (int) (header >>> 32);
+			int stored = (int) header;
+			blockOffset += length;
+			position = 0;
+			length = 0;
+			if (skipped + uncompressed <= n) {
+				skipFully(stored);
+				blockOffset += uncompressed;
+				skipped += uncompressed;
+			} else {
+				// the target lies within this block, so it has to be read
+				readBlock(uncompressed, stored);
+				position = (int) (n - skipped);
+				skipped = n;
+			}
+		}
+		return skipped;
+	}
+
+	private void readBlock(int uncompressed, int stored) throws IOException {
+		if (block.length < uncompressed) {
+			block = new byte[uncompressed];
+		}
+		if (stored == uncompressed) {
+			in.readFully(block, 0, stored);
+		} else {
+			if (compressed.length < stored) {
+				compressed = new byte[stored];
+			}
+			in.readFully(compressed, 0, stored);
+			codec.decompress(compressed, stored, block, uncompressed);
+		}
+		length = uncompressed;
+	}
+
+	private void skipFully(int n) throws IOException {
+		while (n > 0) {
+			int skipped = (int) in.skip(n);
+			if (skipped <= 0) {
+				if (in.read() < 0) {
+					throw new EOFException("Truncated compressed block");
+				}
+				skipped = 1;
+			}
+			n -= skipped;
+		}
+	}
+
+	@Override
+	public int available() {
+		return length - position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		codec.end();
+		in.close();
+	}
+}
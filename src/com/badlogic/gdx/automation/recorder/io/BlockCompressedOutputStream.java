@@ -0,0 +1,119 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses everything written to it in blocks of up to {@link #BLOCK_SIZE}
+ * bytes. Every block is compressed on its own and written with its
+ * uncompressed and stored length in front of it, so a reader can skip blocks
+ * without decompressing them. {@link #flush()} writes the current block even
+ * if it is not full, which makes everything written so far readable.
+ * 
+ * The stream starts with {@link #MAGIC} and the
+ * {@link RecordCompression#id id} of the compression used. Blocks which do
+ * not get smaller by compressing them are stored as they are, indicated by a
+ * stored length equal to the uncompressed length.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class BlockCompressedOutputStream extends OutputStream {
+	static final int MAGIC = 0x4744585A; // "GDXZ"
+	static final int BLOCK_SIZE = 64 * 1024;
+
+	private final OutputStream out;
+	private final BlockCodec codec;
+	private final byte[] block = new byte[BLOCK_SIZE];
+	private final byte[] compressed = new byte[BLOCK_SIZE];
+	private final byte[] header = new byte[8];
+	private int length = 0;
+	private boolean closed = false;
+
+	/**
+	 * @param out
+	 * @param id
+	 *            the {@link RecordCompression#id id} of the compression the
+	 *            codec belongs to
+	 * @param codec
+	 * @throws IOException
+	 */
+	public BlockCompressedOutputStream(OutputStream out, int id,
+			BlockCodec codec) throws IOException {
+		this.out = out;
+		this.codec = codec;
+		writeInt(header, 0, MAGIC);
+		out.write(header, 0, 4);
+		out.write(id);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (length == BLOCK_SIZE) {
+			writeBlock();
+		}
+		block[length++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (length == BLOCK_SIZE) {
+				writeBlock();
+			}
+			int copied = Math.min(len, BLOCK_SIZE - length);
+			System.arraycopy(b, off, block, length, copied);
+			length += copied;
+			off += copied;
+			len -= copied;
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (length == 0) {
+			return;
+		}
+		int stored = codec.compress(block, length, compressed);
+		writeInt(header, 0, length);
+		if (stored < 0) {
+			writeInt(header, 4, length);
+			out.write(header);
+			out.write(block, 0, length);
+		} else {
+			writeInt(header, 4, stored);
+			out.write(header);
+			out.write(compressed, 0, stored);
+		}
+		length = 0;
+	}
+
+	private static void writeInt(byte[] b, int off, int value) {
+		b[off] = (byte) (value >>> 24);
+		b[off + 1] = (byte) (value >>> 16);
+		b[off + 2] = (byte) (value >>> 8);
+		b[off + 3] = (byte) value;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writeBlock();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			writeBlock();
+		} finally {
+			closed = true;
+			codec.end();
+			out.close();
+		}
+	}
+}
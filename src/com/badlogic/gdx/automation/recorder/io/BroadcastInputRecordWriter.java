@@ -0,0 +1,525 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.badlogic.gdx.automation.recorder.InputPlayer;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputRecorderConfiguration;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+
+/**
+ * An {@link InputRecordWriter} handing a single record to many
+ * {@link InputPlayer InputPlayers} while it is being recorded, e.g. to drive a
+ * large number of clients with the input of one session.
+ * 
+ * In-process players use the reader returned by {@link #getReader()}. All of
+ * them read the same values, which are stored only once. Values are only
+ * kept for them once the reader has been asked for, and only the last
+ * {@link #READER_SYNC_VALUES} sync values: players starting later begin with
+ * these, and players falling further behind skip ahead.
+ * 
+ * Players in other processes use a {@link SocketInputRecordReader} each,
+ * which is connected to using {@link #addSubscriber(InetSocketAddress)}. The
+ * properties are encoded only once per batch, see {@link SocketInputRecord},
+ * and the same bytes are queued for every subscriber. A single thread sends
+ * the queued bytes to all subscribers using non-blocking channels. Subscribers
+ * joining late receive the header, record properties and static values first,
+ * followed by the properties written from then on.
+ * 
+ * Every subscriber may have at most a given number of bytes queued. If a
+ * subscriber falls further behind, the {@link SlowSubscriberPolicy} decides
+ * whether the writer waits for it or disconnects it. Batches are sent once
+ * they hold {@link SocketInputRecord#BATCH_SIZE} bytes and on every
+ * {@link #flush()} (see {@link InputRecorderConfiguration#flushEveryFrame}).
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class BroadcastInputRecordWriter extends SocketInputRecord implements
+		CountingInputRecordWriter {
+	/**
+	 * Describes what the writer does when a subscriber has more than the
+	 * maximum number of bytes queued
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	public enum SlowSubscriberPolicy {
+		/**
+		 * wait until the subscriber has caught up. No subscriber misses any
+		 * input, but a single slow subscriber slows down all others and the
+		 * recording.
+		 */
+		BLOCK,
+		/**
+		 * close the connection to the subscriber, which then sees the end of
+		 * the record
+		 */
+		DISCONNECT
+	}
+
+	public static final int DEFAULT_MAX_QUEUED_BYTES = 1024 * 1024;
+	/**
+	 * how long {@link #close()} waits for subscribers to receive the rest of
+	 * the record if they may be disconnected
+	 */
+	static final long CLOSE_TIMEOUT_MILLIS = 10000;
+	/**
+	 * the number of sync values kept for in-process readers
+	 */
+	static final int READER_SYNC_VALUES = 256 * 1024;
+
+	private final int maxQueuedBytes;
+	private final SlowSubscriberPolicy policy;
+	private boolean open = false;
+
+	private LiveInputRecord record = new LiveInputRecord(READER_SYNC_VALUES);
+	/**
+	 * whether the record has been handed out by {@link #getReader()}, so
+	 * values have to be added to it
+	 */
+	private boolean recordRead = false;
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+	private Selector selector;
+	private Thread sender;
+	private volatile boolean sending;
+	/**
+	 * the error that stopped the sender thread, if any
+	 */
+	private volatile IOException sendError;
+
+	private final FrameEncoder encoder = new FrameEncoder();
+	/**
+	 * header, record properties and static values, for late subscribers
+	 */
+	private final ByteArrayOutputStream preambleBytes = new ByteArrayOutputStream();
+	private volatile long bytesWritten;
+
+	public BroadcastInputRecordWriter() {
+		this(DEFAULT_MAX_QUEUED_BYTES, SlowSubscriberPolicy.DISCONNECT);
+	}
+
+	/**
+	 * @param maxQueuedBytes
+	 *            the number of bytes that may be queued for a single
+	 *            subscriber
+	 * @param policy
+	 *            what to do with subscribers having more bytes queued
+	 */
+	public BroadcastInputRecordWriter(int maxQueuedBytes,
+			SlowSubscriberPolicy policy) {
+		if (maxQueuedBytes < 1) {
+			throw new IllegalArgumentException(
+					"The number of queued bytes must be positive, was "
+							+ maxQueuedBytes);
+		}
+		this.maxQueuedBytes = maxQueuedBytes;
+		this.policy = policy;
+	}
+
+	/**
+	 * @return a reader of the current record for players in this process. It
+	 *         can be shared by any number of players, and holds the values
+	 *         written from the first call on.
+	 */
+	public synchronized InputRecordReader getReader() {
+		recordRead = true;
+		return record;
+	}
+
+	/**
+	 * Connects to a {@link SocketInputRecordReader} and sends it the current
+	 * record, starting with the properties written next
+	 * 
+	 * @param address
+	 * @throws IOException
+	 *             if the writer is not open or the connection failed
+	 */
+	public void addSubscriber(InetSocketAddress address) throws IOException {
+		SocketChannel channel = SocketChannel.open();
+		try {
+			channel.socket().setTcpNoDelay(true);
+			channel.connect(address);
+			channel.configureBlocking(false);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		Subscriber subscriber = new Subscriber(channel);
+		synchronized (this) {
+			if (!open) {
+				channel.close();
+				throw new IOException("Cannot subscribe to closed writer");
+			}
+			subscriber.offer(preambleBytes.toByteArray());
+			subscribers.add(subscriber);
+			// the sender thread disconnects the subscribers it knows of when
+			// it fails
+			if (sendError != null) {
+				disconnect(subscriber);
+				ensureOpen();
+			}
+		}
+		selector.wakeup();
+	}
+
+	public void addSubscriber(String host, int port) throws IOException {
+		addSubscriber(new InetSocketAddress(host, port));
+	}
+
+	/**
+	 * @return the number of subscribers that are connected
+	 */
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	@Override
+	public synchronized void open() throws IOException {
+		close();
+		if (record.isFinished()) {
+			// readers of the previous record keep it
+			record = new LiveInputRecord(READER_SYNC_VALUES);
+			recordRead = false;
+		}
+		encoder.reset();
+		preambleBytes.reset();
+		// only sent to subscribers as part of the preamble
+		preambleBytes.write(encoder.takeFrames());
+		bytesWritten = 0;
+		sendError = null;
+		selector = Selector.open();
+		sending = true;
+		sender = new Thread(new Sender(selector),
+				"BroadcastInputRecordWriter");
+		sender.setDaemon(true);
+		sender.start();
+		open = true;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (!open) {
+			throw new IOException("Cannot write to closed writer");
+		}
+		if (sendError != null) {
+			throw new IOException("Sending to the subscribers failed",
+					sendError);
+		}
+	}
+
+	@Override
+	public synchronized void writeRecordProperties(RecordProperties properties)
+			throws IOException {
+		ensureOpen();
+		record.setRecordProperties(properties);
+		encoder.writeRecordProperties(properties);
+		sendPreamble();
+	}
+
+	@Override
+	public synchronized void writeStaticValues(StaticProperties values)
+			throws IOException {
+		ensureOpen();
+		record.setStaticValues(values);
+		encoder.writeStaticValues(values);
+		sendPreamble();
+	}
+
+	@Override
+	public synchronized void writeSyncValues(SyncProperty values)
+			throws IOException {
+		ensureOpen();
+		if (recordRead) {
+			record.addSyncValue(values);
+		}
+		if (subscribers.isEmpty()) {
+			// late subscribers start with the properties written after
+			// they have joined
+			return;
+		}
+		if (encoder.writeSyncValues(values)) {
+			sendFrames();
+		}
+	}
+
+	@Override
+	public synchronized void writeAsyncValues(AsyncProperty values)
+			throws IOException {
+		ensureOpen();
+		if (recordRead) {
+			record.addAsyncValue(values);
+		}
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		if (encoder.writeAsyncValues(values)) {
+			sendFrames();
+		}
+	}
+
+	/**
+	 * @return the number of bytes encoded for the subscribers, counted once
+	 *         no matter how many subscribers there are
+	 */
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		if (open) {
+			ensureOpen();
+			sendFrames();
+		}
+	}
+
+	/**
+	 * Sends everything written so far to all subscribers, waits until they
+	 * have received it and disconnects them. In-process readers see the end
+	 * of the record. Subscribers that may be
+	 * {@link SlowSubscriberPolicy#DISCONNECT disconnected} are only waited for
+	 * up to {@link #CLOSE_TIMEOUT_MILLIS}.
+	 * 
+	 * @throws IOException
+	 *             if sending to the subscribers has failed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!open) {
+			return;
+		}
+		open = false;
+		try {
+			sendFrames();
+			long deadline = policy == SlowSubscriberPolicy.DISCONNECT ? System
+					.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS : Long.MAX_VALUE;
+			for (Subscriber subscriber : subscribers) {
+				subscriber.awaitSent(deadline);
+			}
+		} finally {
+			sending = false;
+			selector.wakeup();
+			try {
+				sender.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			for (Subscriber subscriber : subscribers) {
+				disconnect(subscriber);
+			}
+			selector.close();
+			record.finish(null);
+		}
+		if (sendError != null) {
+			throw new IOException("Sending to the subscribers failed",
+					sendError);
+		}
+	}
+
+	private void sendFrames() {
+		encoder.endBatch();
+		if (encoder.size() > 0) {
+			send(encoder.takeFrames());
+		}
+	}
+
+	/**
+	 * Queues the frame encoded last for all subscribers, and keeps it for
+	 * late subscribers
+	 */
+	private void sendPreamble() {
+		byte[] frame = encoder.takeFrames();
+		preambleBytes.write(frame, 0, frame.length);
+		send(frame);
+	}
+
+	/**
+	 * Queues the given frames for all subscribers
+	 * 
+	 * @param batch
+	 *            shared by all subscribers, must not be changed afterwards
+	 */
+	private void send(byte[] batch) {
+		bytesWritten += batch.length;
+		for (Subscriber subscriber : subscribers) {
+			if (!subscriber.offer(batch)) {
+				disconnect(subscriber);
+			}
+		}
+		selector.wakeup();
+	}
+
+	private void disconnect(Subscriber subscriber) {
+		subscribers.remove(subscriber);
+		subscriber.close();
+	}
+
+	/**
+	 * Writes the bytes queued for the subscribers whenever their sockets can
+	 * take more
+	 */
+	private class Sender implements Runnable {
+		private final Selector selector;
+
+		public Sender(Selector selector) {
+			this.selector = selector;
+		}
+
+		/**
+		 * Nothing is sent anymore, so all subscribers are disconnected. This
+		 * also releases a writer waiting for a
+		 * {@link SlowSubscriberPolicy#BLOCK blocking} subscriber, and the
+		 * error is thrown by the next call to the writer.
+		 */
+		private void fail(IOException e) {
+			sendError = e;
+			for (Subscriber subscriber : subscribers) {
+				disconnect(subscriber);
+			}
+		}
+
+		@Override
+		public void run() {
+			while (sending) {
+				try {
+					selector.select();
+				} catch (IOException e) {
+					fail(e);
+					return;
+				}
+				selector.selectedKeys().clear();
+				for (Subscriber subscriber : subscribers) {
+					try {
+						subscriber.send(selector);
+					} catch (IOException e) {
+						// e.g. the subscriber has closed the connection
+						disconnect(subscriber);
+					}
+				}
+			}
+		}
+	}
+
+	private class Subscriber {
+		private final SocketChannel channel;
+		private SelectionKey key;
+		/*
+		 * guarded by this
+		 */
+		private final LinkedList<ByteBuffer> queue = new LinkedList<ByteBuffer>();
+		private int queuedBytes = 0;
+		private boolean closed = false;
+
+		public Subscriber(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Queues the given bytes, which must not be changed afterwards
+		 * 
+		 * @param bytes
+		 * @return false if the subscriber is too slow to take them or has
+		 *         been closed
+		 */
+		public synchronized boolean offer(byte[] bytes) {
+			if (closed) {
+				return false;
+			}
+			// a batch larger than allowed is accepted if nothing else is
+			// queued
+			while (queuedBytes > 0
+					&& queuedBytes + bytes.length > maxQueuedBytes) {
+				if (policy == SlowSubscriberPolicy.DISCONNECT) {
+					return false;
+				}
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+				if (closed) {
+					return false;
+				}
+			}
+			queue.add(ByteBuffer.wrap(bytes));
+			queuedBytes += bytes.length;
+			return true;
+		}
+
+		/**
+		 * Writes as many queued bytes as the socket takes without blocking.
+		 * Only called by the sender thread.
+		 * 
+		 * @param selector
+		 * @throws IOException
+		 */
+		public synchronized void send(Selector selector) throws IOException {
+			if (closed) {
+				return;
+			}
+			if (key == null) {
+				key = channel.register(selector, 0);
+			}
+			while (!queue.isEmpty()) {
+				ByteBuffer head = queue.getFirst();
+				queuedBytes -= channel.write(head);
+				if (head.hasRemaining()) {
+					break;
+				}
+				queue.removeFirst();
+			}
+			// only wake up the sender for this subscriber once its socket can
+			// take more
+			key.interestOps(queue.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+			notifyAll();
+		}
+
+		/**
+		 * Waits until all queued bytes have been sent, the subscriber has
+		 * been closed or the given point in time has been reached
+		 * 
+		 * @param deadline
+		 *            in milliseconds, see {@link System#currentTimeMillis()}
+		 */
+		public synchronized void awaitSent(long deadline) {
+			while (queuedBytes > 0 && !closed) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return;
+				}
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		public synchronized void close() {
+			closed = true;
+			queue.clear();
+			queuedBytes = 0;
+			try {
+				channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			notifyAll();
+		}
+	}
+}
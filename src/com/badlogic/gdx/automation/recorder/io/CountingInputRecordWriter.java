@@ -0,0 +1,19 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import com.badlogic.gdx.automation.recorder.RecorderMetrics;
+
+/**
+ * An {@link InputRecordWriter} that knows how many bytes it has written, to be
+ * reported by the {@link RecorderMetrics}
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public interface CountingInputRecordWriter extends InputRecordWriter {
+	/**
+	 * @return the number of bytes written since the writer has been opened,
+	 *         before compressing them. May be called from any thread, and may
+	 *         lag behind a little if called while writing.
+	 */
+	long getBytesWritten();
+}
@@ -19,6 +19,16 @@ public interface InputRecordWriter extends java.io.Flushable, java.io.Closeable
 
 	void writeStaticValues(StaticProperties values) throws IOException;
 
+	/**
+	 * Writes the given sync property. The property is only valid for the
+	 * duration of this call, since the {@link InputRecorder} reuses a single
+	 * instance per property type to record without allocating. Implementations
+	 * that need to keep the property beyond this call have to copy it, e.g.
+	 * using a {@link SyncPropertyCopier}.
+	 * 
+	 * @param values
+	 * @throws IOException
+	 */
 	void writeSyncValues(SyncProperty values) throws IOException;
 
 	void writeAsyncValues(AsyncProperty values) throws IOException;
@@ -0,0 +1,119 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+/**
+ * Reads the elements of a top-level json array one by one from a
+ * {@link Reader}, so that only the element currently being decoded has to be
+ * kept in memory. Each element is cut out of the character stream by tracking
+ * brackets and quotes and then handed to a {@link JsonReader}. A missing
+ * closing bracket or a partially written last element (e.g. from a recording
+ * that was not closed properly) is treated like the end of the array.
+ *
+ * @author Lukas Böhm
+ *
+ */
+class JsonArrayStreamer {
+	private final Reader reader;
+	private final JsonReader json = new JsonReader();
+	private char[] element = new char[256];
+	private boolean started = false;
+	private boolean finished = false;
+
+	public JsonArrayStreamer(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * @return the next element of the array or null if there are no more
+	 *         elements
+	 * @throws IOException
+	 */
+	public JsonValue next() throws IOException {
+		if (finished) {
+			return null;
+		}
+		int c = skipSeparators();
+		if (!started) {
+			if (c != '[') {
+				throw new IOException("Expected json array, found "
+						+ (c < 0 ? "end of stream" : "'" + (char) c + "'"));
+			}
+			started = true;
+			c = skipSeparators();
+		}
+		if (c < 0 || c == ']') {
+			finished = true;
+			return null;
+		}
+		if (c != '{' && c != '[') {
+			throw new IOException("Expected json object or array, found '"
+					+ (char) c + "'");
+		}
+		int length = readElement(c);
+		if (length < 0) {
+			finished = true;
+			return null;
+		}
+		return json.parse(element, 0, length);
+	}
+
+	private int skipSeparators() throws IOException {
+		int c;
+		do {
+			c = reader.read();
+		} while (c == ',' || Character.isWhitespace(c));
+		return c;
+	}
+
+	/**
+	 * Copies the element starting with the given character into
+	 * {@link #element}, stopping right after its closing bracket.
+	 *
+	 * @return the number of characters of the element or -1 if the stream
+	 *         ended before the element was complete
+	 */
+	private int readElement(int c) throws IOException {
+		int length = 0;
+		int depth = 0;
+		boolean quoted = false;
+		boolean escaped = false;
+		while (c >= 0) {
+			if (length == element.length) {
+				char[] grown = new char[element.length * 2];
+				System.arraycopy(element, 0, grown, 0, length);
+				element = grown;
+			}
+			element[length++] = (char) c;
+			if (quoted) {
+				if (escaped) {
+					escaped = false;
+				} else if (c == '\\') {
+					escaped = true;
+				} else if (c == '"') {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				depth--;
+				if (depth == 0) {
+					return length;
+				}
+			}
+			c = reader.read();
+		}
+		return -1;
+	}
+
+	public void close() throws IOException {
+		finished = true;
+		reader.close();
+	}
+}
@@ -1,5 +1,12 @@
 package com.badlogic.gdx.automation.recorder.io;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 
@@ -33,4 +40,33 @@ class JsonInputRecord {
 				outputFile.pathWithoutExtension() + "-properties.json",
 				outputFile.type());
 	}
+
+	/**
+	 * @param file
+	 * @param compression
+	 * @return a writer writing the given file using the given compression
+	 * @throws IOException
+	 */
+	static Writer writer(FileHandle file, RecordCompression compression)
+			throws IOException {
+		if (compression == RecordCompression.NONE) {
+			return file.writer(false);
+		}
+		return new OutputStreamWriter(compression.compress(file.write(false)));
+	}
+
+	/**
+	 * @param file
+	 * @param bufferSize
+	 * @return a reader reading the given file, which is decompressed if it has
+	 *         been written compressed
+	 */
+	static Reader reader(FileHandle file, int bufferSize) {
+		try {
+			return new BufferedReader(new InputStreamReader(
+					RecordCompression.decompress(file.read())), bufferSize);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
 }
@@ -1,13 +1,14 @@
 package com.badlogic.gdx.automation.recorder.io;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import com.badlogic.gdx.Input.Orientation;
-import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
 import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
 import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
-import com.badlogic.gdx.automation.recorder.InputProperty.AsyncPropertyVisitor;
 import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
 import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Accelerometer;
@@ -28,6 +29,13 @@ import com.badlogic.gdx.utils.JsonValue.JsonIterator;
  * a json formatted file, most likely generated using
  * {@link JsonInputRecordWriter}.
  * 
+ * In streaming mode the sync values are not parsed up front, but read and
+ * decoded one json object at a time while iterating. This keeps memory usage
+ * constant and the reader ready instantly, no matter how long the record is.
+ * 
+ * Files written with a {@link RecordCompression} are decompressed
+ * transparently.
+ * 
  * @author Lukas Böhm
  */
 public class JsonInputRecordReader extends JsonInputRecord implements
@@ -35,21 +43,45 @@ public class JsonInputRecordReader extends JsonInputRecord implements
 	private final RecordProperties recordProperties;
 	private final StaticProperties staticProperties;
 	private final JsonReader reader;
+	private final boolean streaming;
+	private final List<JsonArrayStreamer> openStreamers;
 
 	private JsonValue syncValues;
-	private JsonValue asyncValues;
+	private final List<Text> textValues;
+	private final List<PlaceholderText> placeholderTextValues;
+
+	private static final int STREAM_BUFFER_SIZE = 8192;
 
 	public JsonInputRecordReader(FileHandle input) {
+		this(input, false);
+	}
+
+	/**
+	 * @param input
+	 *            the base file the record was written to
+	 * @param streaming
+	 *            whether to read sync values incrementally while iterating
+	 *            instead of parsing them all at once
+	 */
+	public JsonInputRecordReader(FileHandle input, boolean streaming) {
 		super(input);
+		this.streaming = streaming;
 		reader = new JsonReader();
+		openStreamers = new ArrayList<JsonArrayStreamer>();
+		textValues = new ArrayList<Text>();
+		placeholderTextValues = new ArrayList<PlaceholderText>();
 		recordProperties = readRecordProperties(new RecordProperties());
 		staticProperties = readStaticValues(new StaticProperties());
 		readSyncProperties();
 		readAsyncProperties();
 	}
 
+	public boolean isStreaming() {
+		return streaming;
+	}
+
 	private StaticProperties readStaticValues(StaticProperties values) {
-		JsonValue json = reader.parse(staticPropertiesFile.reader());
+		JsonValue json = reader.parse(reader(staticPropertiesFile, STREAM_BUFFER_SIZE));
 		values.accelerometerAvailable = json
 				.getBoolean("accelerometerAvailable");
 		values.compassAvailable = json.getBoolean("compassAvailable");
@@ -63,130 +95,149 @@ public class JsonInputRecordReader extends JsonInputRecord implements
 	}
 
 	private RecordProperties readRecordProperties(RecordProperties properties) {
-		JsonValue json = reader.parse(recordPropertiesFile.reader());
+		JsonValue json = reader.parse(reader(recordPropertiesFile, STREAM_BUFFER_SIZE));
 		properties.absouluteCoords = json.getBoolean("absouluteCoords");
-		return recordProperties;
+		return properties;
 	}
 
 	private void readSyncProperties() {
-		syncValues = reader.parse(syncPropertiesFile.reader());
+		if (streaming) {
+			syncValues = null;
+		} else {
+			syncValues = reader.parse(reader(syncPropertiesFile, STREAM_BUFFER_SIZE));
+		}
 	}
 
+	/**
+	 * Sorts the async values by type once, so the iterators over them do not
+	 * have to search for the values of their type. They are streamed as well,
+	 * so that the async values of a record that was not closed properly can
+	 * still be read.
+	 */
 	private void readAsyncProperties() {
-		asyncValues = reader.parse(asyncPropertiesFile.reader());
+		JsonArrayStreamer streamer = new JsonArrayStreamer(reader(
+				asyncPropertiesFile, STREAM_BUFFER_SIZE));
+		textValues.clear();
+		placeholderTextValues.clear();
+		try {
+			for (JsonValue value = streamer.next(); value != null; value = streamer
+					.next()) {
+				String type = value.getString("class");
+				if (type.equals("Text")) {
+					textValues.add(new Text(value.getString("input", null)));
+				} else if (type.equals("PlaceholderText")) {
+					placeholderTextValues.add(new PlaceholderText(value
+							.getString("input", null)));
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			try {
+				streamer.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 	}
 
 	@Override
 	public Iterator<Text> getTextIterator() {
-		return new AsyncFilterIterator<Text>(Text.class, "Text");
+		return textValues.iterator();
 	}
 
 	@Override
 	public Iterator<PlaceholderText> getPlaceholderTextIterator() {
-		return new AsyncFilterIterator<PlaceholderText>(PlaceholderText.class,
-				"PlaceholderText");
+		return placeholderTextValues.iterator();
 	}
 
-	private class AsyncFilterIterator<T extends AsyncProperty> implements
-			Iterator<T> {
-		private final Class<?> filter;
-		private final String name;
-		private final JsonIterator it;
-		private final ValueBuilder builder;
-		private T next;
-
-		public AsyncFilterIterator(Class<?> classFilter, String namefilter) {
-			builder = new ValueBuilder();
-			filter = classFilter;
-			name = namefilter;
-			it = asyncValues.iterator();
-			findNext();
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator() {
+		if (streaming) {
+			JsonArrayStreamer streamer = new JsonArrayStreamer(reader(
+					syncPropertiesFile, STREAM_BUFFER_SIZE));
+			synchronized (openStreamers) {
+				openStreamers.add(streamer);
+			}
+			return new StreamingSyncIterator(streamer);
 		}
+		return new SyncIterator(syncValues.iterator());
+	}
 
-		@Override
-		public boolean hasNext() {
-			return next != null;
+	/**
+	 * Iterates over sync values that are read from the sync file on demand
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	private class StreamingSyncIterator extends SyncIterator {
+		private final JsonArrayStreamer streamer;
+		private JsonValue next;
+		private boolean finished = false;
+
+		public StreamingSyncIterator(JsonArrayStreamer streamer) {
+			super(null);
+			this.streamer = streamer;
 		}
 
 		@Override
-		public T next() {
-			if (next == null) {
-				throw new NoSuchElementException();
-			}
-			T current = next;
-			findNext();
-			return current;
-		}
-
-		@SuppressWarnings("unchecked")
-		private void findNext() {
-			JsonValue nextJson = null;
-			JsonValue testedJson;
-			while (it.hasNext()) {
-				testedJson = it.next();
-				if (testedJson.getString("class").equals(name)) {
-					nextJson = testedJson;
-					break;
-				}
-			}
-
-			if (nextJson == null) {
-				next = null;
-			} else {
+		public boolean hasNext() {
+			if (next == null && !finished) {
 				try {
-					next = (T) filter.newInstance();
-					builder.build(next, nextJson);
-				} catch (InstantiationException e) {
-					e.printStackTrace();
-				} catch (IllegalAccessException e) {
-					e.printStackTrace();
+					next = streamer.next();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				if (next == null) {
+					finished = true;
+					closeStreamer(streamer);
 				}
 			}
+			return next != null;
 		}
 
 		@Override
-		public void remove() {
-			throw new UnsupportedOperationException();
-		}
-
-		private class ValueBuilder implements AsyncPropertyVisitor {
-			private JsonValue json;
-
-			public void build(AsyncProperty val, JsonValue json) {
-				this.json = json;
-				val.accept(this);
-			}
-
-			@Override
-			public void visitText(Text text) {
-				text.input = json.getString("input");
-			}
-
-			@Override
-			public void visitPlaceholderText(PlaceholderText text) {
-				text.input = json.getString("input");
+		protected JsonValue nextJson() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
 			}
-
+			JsonValue current = next;
+			next = null;
+			return current;
 		}
 	}
 
-	@Override
-	public Iterator<SyncProperty> getSyncValueIterator() {
-		return new SyncIterator();
+	private void closeStreamer(JsonArrayStreamer streamer) {
+		synchronized (openStreamers) {
+			openStreamers.remove(streamer);
+		}
+		try {
+			streamer.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	private class SyncIterator implements Iterator<SyncProperty> {
-		private final JsonIterator it = syncValues.iterator();
+		private final JsonIterator it;
 		private final ValueBuilder builder = new ValueBuilder();
 
+		public SyncIterator(JsonIterator it) {
+			this.it = it;
+		}
+
 		@Override
 		public boolean hasNext() {
 			return it.hasNext();
 		}
 
+		protected JsonValue nextJson() {
+			return it.next();
+		}
+
 		@Override
 		public SyncProperty next() {
-			JsonValue val = it.next();
+			JsonValue val = nextJson();
 			String clazz = val.getString("class");
 			SyncProperty result = null;
 			if (clazz.equals("Accelerometer")) {
@@ -222,6 +273,8 @@ public class JsonInputRecordReader extends JsonInputRecord implements
 				}
 				this.json = json;
 				val.timeDelta = json.getLong("timeDelta");
+				// not present in records written before frames were counted
+				val.frameDelta = json.getLong("frameDelta", 0);
 				val.accept(this);
 			}
 
@@ -305,6 +358,16 @@ public class JsonInputRecordReader extends JsonInputRecord implements
 
 	@Override
 	public void close() {
+		synchronized (openStreamers) {
+			for (JsonArrayStreamer streamer : openStreamers) {
+				try {
+					streamer.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			openStreamers.clear();
+		}
 	}
 
 	@Override
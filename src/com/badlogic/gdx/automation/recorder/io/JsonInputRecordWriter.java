@@ -1,5 +1,6 @@
 package com.badlogic.gdx.automation.recorder.io;
 
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.Writer;
 
@@ -27,18 +28,33 @@ import com.badlogic.gdx.utils.JsonWriter.OutputType;
  * input data to a set of three files (one each for static, sync and async
  * values) using the {@link JsonWriter json} format.
  * 
+ * The sync and async values can be compressed using a
+ * {@link RecordCompression}, which usually shrinks them to a small fraction of
+ * their size, as json records are very repetitive.
+ * 
+ * The characters written to the sync and async files are counted as
+ * {@link #getBytesWritten() bytes}, which they are apart from non-ASCII
+ * characters of text input.
+ * 
  */
 public class JsonInputRecordWriter extends JsonInputRecord implements
-		InputRecordWriter {
+		CountingInputRecordWriter {
 	private final SyncValuesHandler syncHandler = new SyncValuesHandler();
 	private final AsyncValuesHandler asyncHandler = new AsyncValuesHandler();
-	private Writer syncFileWriter;
+	private volatile CountingWriter syncFileWriter;
 	private JsonWriter syncJsonWriter;
-	private Writer asyncFileWriter;
+	private volatile CountingWriter asyncFileWriter;
 	private JsonWriter asyncJsonWriter;
+	private final RecordCompression compression;
 
 	public JsonInputRecordWriter(FileHandle output) throws IOException {
+		this(output, RecordCompression.NONE);
+	}
+
+	public JsonInputRecordWriter(FileHandle output,
+			RecordCompression compression) throws IOException {
 		super(output);
+		this.compression = compression;
 	}
 
 	@Override
@@ -88,6 +104,7 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 				syncJsonWriter.set("accelerometerZ",
 						accelerometer.accelerometerZ);
 				syncJsonWriter.set("timeDelta", accelerometer.timeDelta);
+				syncJsonWriter.set("frameDelta", accelerometer.frameDelta);
 				syncJsonWriter.pop();
 			} catch (IOException e) {
 				throw new RuntimeException(e);
@@ -102,6 +119,7 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 				syncJsonWriter.set("type", keyPressed.type);
 				syncJsonWriter.set("keyCode", keyPressed.keyCode);
 				syncJsonWriter.set("timeDelta", keyPressed.timeDelta);
+				syncJsonWriter.set("frameDelta", keyPressed.frameDelta);
 				syncJsonWriter.pop();
 			} catch (IOException e) {
 				throw new RuntimeException(e);
@@ -120,6 +138,7 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 				syncJsonWriter.set("x", pointerEvent.x);
 				syncJsonWriter.set("y", pointerEvent.y);
 				syncJsonWriter.set("timeDelta", pointerEvent.timeDelta);
+				syncJsonWriter.set("frameDelta", pointerEvent.frameDelta);
 				syncJsonWriter.pop();
 			} catch (IOException e) {
 				throw new RuntimeException(e);
@@ -135,6 +154,7 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 				syncJsonWriter.set("keyCode", keyEvent.keyCode);
 				syncJsonWriter.set("type", keyEvent.type);
 				syncJsonWriter.set("timeDelta", keyEvent.timeDelta);
+				syncJsonWriter.set("frameDelta", keyEvent.frameDelta);
 				syncJsonWriter.pop();
 			} catch (IOException e) {
 				throw new RuntimeException(e);
@@ -158,6 +178,7 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 				syncJsonWriter.pop();
 
 				syncJsonWriter.set("timeDelta", orientation.timeDelta);
+				syncJsonWriter.set("frameDelta", orientation.frameDelta);
 				syncJsonWriter.pop();
 			} catch (IOException e) {
 				throw new RuntimeException(e);
@@ -175,6 +196,7 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 				syncJsonWriter.set("x", pointer.x);
 				syncJsonWriter.set("y", pointer.y);
 				syncJsonWriter.set("timeDelta", pointer.timeDelta);
+				syncJsonWriter.set("frameDelta", pointer.frameDelta);
 				syncJsonWriter.pop();
 			} catch (IOException e) {
 				throw new RuntimeException(e);
@@ -190,6 +212,7 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 				syncJsonWriter.set("button1", button.button1);
 				syncJsonWriter.set("button2", button.button2);
 				syncJsonWriter.set("timeDelta", button.timeDelta);
+				syncJsonWriter.set("frameDelta", button.frameDelta);
 				syncJsonWriter.pop();
 			} catch (IOException e) {
 				throw new RuntimeException(e);
@@ -243,8 +266,10 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 	@Override
 	public void open() throws IOException {
 		close();
-		syncFileWriter = syncPropertiesFile.writer(false);
-		asyncFileWriter = asyncPropertiesFile.writer(false);
+		syncFileWriter = new CountingWriter(writer(syncPropertiesFile,
+				compression));
+		asyncFileWriter = new CountingWriter(writer(asyncPropertiesFile,
+				compression));
 
 		syncJsonWriter = new JsonWriter(syncFileWriter);
 		asyncJsonWriter = new JsonWriter(asyncFileWriter);
@@ -256,6 +281,20 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 		asyncJsonWriter.array();
 	}
 
+	/**
+	 * @return the number of characters written to the sync and async files,
+	 *         before compressing them
+	 */
+	@Override
+	public long getBytesWritten() {
+		CountingWriter sync = syncFileWriter;
+		CountingWriter async = asyncFileWriter;
+		if (sync == null || async == null) {
+			return 0;
+		}
+		return sync.count + async.count;
+	}
+
 	@Override
 	public void writeRecordProperties(RecordProperties properties)
 			throws IOException {
@@ -268,4 +307,36 @@ public class JsonInputRecordWriter extends JsonInputRecord implements
 
 		writer.close();
 	}
+
+	/**
+	 * Counts the characters written through it
+	 */
+	private static class CountingWriter extends FilterWriter {
+		/**
+		 * only written by the writing thread
+		 */
+		volatile long count = 0;
+
+		public CountingWriter(Writer out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			out.write(c);
+			count++;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			out.write(cbuf, off, len);
+			count += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			out.write(str, off, len);
+			count += len;
+		}
+	}
 }
@@ -0,0 +1,407 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncPropertyVisitor;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+
+/**
+ * A record that is played back while it is still being recorded. A single
+ * thread adds the values of the record, while any number of threads read
+ * them concurrently, each using iterators of its own. Sync values are kept in
+ * segments of {@link SyncPropertyStore SyncPropertyStores}, so they are
+ * stored once for all readers. Async values are appended to arrays which are
+ * shared the same way.
+ * 
+ * The record may be limited to a number of sync values. Once it holds more,
+ * the oldest segment is dropped: iterators created later start after it, and
+ * iterators that have fallen behind skip ahead to the oldest values kept.
+ * 
+ * The iterators follow the values added so far: {@link Iterator#hasNext()} of
+ * the sync value iterator waits until the next value has been added, and
+ * only returns false once the record has been {@link #finish(IOException)
+ * finished} (or the waiting thread is interrupted). It is a
+ * {@link LiveIterator}, so callers can check whether it would wait.
+ * {@link #getRecordProperties()} and {@link #getStaticValues()} wait until
+ * they have been set.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class LiveInputRecord implements InputRecordReader, AsyncPropertyVisitor {
+	/**
+	 * the number of sync values every segment holds
+	 */
+	static final int SEGMENT_SIZE = 4096;
+
+	private final int maxSyncValues;
+	/**
+	 * the oldest segment kept, where new iterators start
+	 */
+	private volatile Segment first = new Segment();
+	/**
+	 * the segment values are added to, only used by the writing thread
+	 */
+	private Segment last = first;
+	private int segmentCount = 1;
+	private final AsyncValues<Text> textValues = new AsyncValues<Text>();
+	private final AsyncValues<PlaceholderText> placeholderTextValues = new AsyncValues<PlaceholderText>();
+	private final RecordProperties recordProperties = new RecordProperties();
+	private final StaticProperties staticValues = new StaticProperties();
+
+	/*
+	 * guarded by this
+	 */
+	private boolean recordPropertiesSet = false;
+	private boolean staticValuesSet = false;
+	/**
+	 * whether no more values will be added
+	 */
+	private boolean finished = false;
+	private IOException error;
+	/**
+	 * the number of threads waiting for sync values, so adding a value only
+	 * has to notify if there are any
+	 */
+	private volatile int waiting = 0;
+
+	/**
+	 * Creates a record keeping all sync values
+	 */
+	public LiveInputRecord() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxSyncValues
+	 *            the number of sync values kept at least. Fewer than two
+	 *            {@link #SEGMENT_SIZE segments} more are kept.
+	 */
+	public LiveInputRecord(int maxSyncValues) {
+		if (maxSyncValues < 1) {
+			throw new IllegalArgumentException(
+					"The number of sync values must be positive, was "
+							+ maxSyncValues);
+		}
+		this.maxSyncValues = maxSyncValues;
+	}
+
+	/*
+	 * Writing side, to be used by a single thread
+	 */
+
+	public synchronized void setRecordProperties(RecordProperties properties) {
+		recordProperties.set(properties);
+		recordPropertiesSet = true;
+		notifyAll();
+	}
+
+	public synchronized void setStaticValues(StaticProperties values) {
+		staticValues.set(values);
+		staticValuesSet = true;
+		notifyAll();
+	}
+
+	/**
+	 * Adds a copy of the given property
+	 * 
+	 * @param property
+	 */
+	public void addSyncValue(SyncProperty property) {
+		if (last.values.size() == SEGMENT_SIZE) {
+			Segment segment = new Segment();
+			last.next = segment;
+			last = segment;
+			segmentCount++;
+			// the full segments after the first one are enough
+			if ((long) (segmentCount - 2) * SEGMENT_SIZE >= maxSyncValues) {
+				Segment dropped = first;
+				first = dropped.next;
+				// set before unlinking, see WaitingSyncIterator
+				dropped.dropped = true;
+				dropped.next = null;
+				segmentCount--;
+			}
+		}
+		last.values.add(property);
+		if (waiting > 0) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	public void addAsyncValue(AsyncProperty property) {
+		property.accept(this);
+	}
+
+	@Override
+	public void visitText(Text text) {
+		textValues.add(text);
+	}
+
+	@Override
+	public void visitPlaceholderText(PlaceholderText text) {
+		placeholderTextValues.add(text);
+	}
+
+	/**
+	 * Marks the end of the record
+	 * 
+	 * @param failure
+	 *            the error that ended the record, or null if it has ended
+	 *            regularly
+	 */
+	public synchronized void finish(IOException failure) {
+		if (!finished) {
+			error = failure;
+			finished = true;
+		}
+		notifyAll();
+	}
+
+	/*
+	 * Reading side
+	 */
+
+	@Override
+	public synchronized RecordProperties getRecordProperties() {
+		while (!recordPropertiesSet && !finished) {
+			if (!await()) {
+				break;
+			}
+		}
+		if (!recordPropertiesSet) {
+			throw new IllegalStateException(
+					"No record properties have been received", error);
+		}
+		return recordProperties;
+	}
+
+	@Override
+	public synchronized StaticProperties getStaticValues() {
+		while (!staticValuesSet && !finished) {
+			if (!await()) {
+				break;
+			}
+		}
+		if (!staticValuesSet) {
+			throw new IllegalStateException(
+					"No static values have been received", error);
+		}
+		return staticValues;
+	}
+
+	@Override
+	public Iterator<Text> getTextIterator() {
+		return new FollowingIterator<Text>(textValues);
+	}
+
+	@Override
+	public Iterator<PlaceholderText> getPlaceholderTextIterator() {
+		return new FollowingIterator<PlaceholderText>(placeholderTextValues);
+	}
+
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator() {
+		return new WaitingSyncIterator();
+	}
+
+	/**
+	 * @return the error that ended the record, or null if it has not ended or
+	 *         has ended regularly
+	 */
+	public synchronized IOException getError() {
+		return error;
+	}
+
+	public synchronized boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Readers share the record, so there is nothing to close
+	 */
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * Waits for something to be added. Must be called while holding the lock
+	 * of this record.
+	 * 
+	 * @return false if the current thread has been interrupted while waiting
+	 */
+	private boolean await() {
+		try {
+			wait();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Sync values added one after another, followed by the next segment once
+	 * it is full
+	 */
+	private static class Segment {
+		final SyncPropertyStore values = new SyncPropertyStore();
+		volatile Segment next;
+		/**
+		 * whether the record does not keep this segment anymore
+		 */
+		volatile boolean dropped;
+	}
+
+	private class WaitingSyncIterator implements LiveIterator<SyncProperty> {
+		private Segment segment = first;
+		private Iterator<SyncProperty> values = segment.values
+				.followingIterator();
+
+		/**
+		 * @return whether the next value has been added, moving on to the
+		 *         segment holding it
+		 */
+		private boolean available() {
+			if (segment.dropped) {
+				// fallen behind the values kept
+				segment = first;
+				values = segment.values.followingIterator();
+			}
+			while (!values.hasNext()) {
+				Segment next = segment.next;
+				boolean dropped = segment.dropped;
+				if (values.hasNext()) {
+					// added before the segment got its successor
+					return true;
+				}
+				if (next == null) {
+					if (!dropped) {
+						return false;
+					}
+					// fallen behind the values kept
+					next = first;
+				}
+				segment = next;
+				values = next.values.followingIterator();
+			}
+			return true;
+		}
+
+		@Override
+		public boolean isReady() {
+			return available() || isFinished();
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (available()) {
+				return true;
+			}
+			synchronized (LiveInputRecord.this) {
+				waiting++;
+				try {
+					// the writer checks for waiting threads after adding, so
+					// this sees the value or gets notified
+					while (!available() && !finished) {
+						if (!await()) {
+							return false;
+						}
+					}
+				} finally {
+					waiting--;
+				}
+			}
+			return available();
+		}
+
+		@Override
+		public SyncProperty next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return values.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Async values appended by a single thread. Like a
+	 * {@link SyncPropertyStore}, a value only becomes visible to other threads
+	 * once the new size has been published, and the array is replaced by a
+	 * larger copy when it is full instead of being copied on every append.
+	 */
+	private static class AsyncValues<T> {
+		private volatile Object[] values = new Object[16];
+		private volatile int size = 0;
+
+		public void add(T value) {
+			if (size == values.length) {
+				Object[] grown = new Object[size * 2];
+				System.arraycopy(values, 0, grown, 0, size);
+				values = grown;
+			}
+			values[size] = value;
+			// publishes the value to readers
+			size = size + 1;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @param index
+		 *            less than a {@link #size()} read before
+		 */
+		@SuppressWarnings("unchecked")
+		public T get(int index) {
+			return (T) values[index];
+		}
+	}
+
+	/**
+	 * Iterates over async values that are appended to while iterating.
+	 * Reaching the end of the values does not end the iteration,
+	 * {@link #hasNext()} returns true again once another value has been added.
+	 */
+	private static class FollowingIterator<T> implements Iterator<T> {
+		private final AsyncValues<T> values;
+		private int index = 0;
+
+		public FollowingIterator(AsyncValues<T> values) {
+			this.values = values;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < values.size();
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return values.get(index++);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.util.Iterator;
+
+import com.badlogic.gdx.automation.recorder.InputPlayer;
+
+/**
+ * An iterator over a record that is still being written. Its
+ * {@link #hasNext()} may wait for the next value to arrive, so threads that
+ * must not block, like the main thread of an {@link InputPlayer}, ask
+ * {@link #isReady()} first.
+ *
+ * @author Lukas Böhm
+ *
+ * @param <T>
+ */
+public interface LiveIterator<T> extends Iterator<T> {
+	/**
+	 * @return true if {@link #hasNext()} returns without waiting, because the
+	 *         next value has arrived or the record has ended
+	 */
+	boolean isReady();
+}
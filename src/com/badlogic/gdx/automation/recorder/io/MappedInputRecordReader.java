@@ -0,0 +1,369 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongArray;
+
+/**
+ * A {@link SeekableInputRecordReader} for records written by a
+ * {@link BinaryInputRecordWriter}. The sync file is memory mapped and the
+ * writer's block index is used to find the block containing a given point in
+ * time using binary search, so only the properties of that single block have
+ * to be skipped. If the index file is missing (e.g. because the writer was
+ * not closed properly) it is rebuilt by scanning the sync values once. The
+ * index also holds the {@link SyncStateSnapshot state} at the start of every
+ * block, which is handed out first when iterating from a point in time after
+ * the beginning.
+ *
+ * Since the sync file has to be mapped, the record must be stored on the file
+ * system (i.e. not as an internal or classpath file) and may not be larger
+ * than 2 GB.
+ *
+ * Compressed sync files are supported, too. The blocks of the compression in
+ * front of the index block sought are skipped without decompressing them, so
+ * seeking only costs decompressing a single block in addition.
+ *
+ * @author Lukas Böhm
+ */
+public class MappedInputRecordReader extends BinaryInputRecordReader implements
+		SeekableInputRecordReader {
+	private ByteBuffer syncBuffer;
+	/**
+	 * record time before the first property of each block
+	 */
+	private long[] blockTimes;
+	/**
+	 * offset of the first property of each block in the sync file
+	 */
+	private long[] blockOffsets;
+	/**
+	 * encoded state at the start of each block
+	 */
+	private byte[][] blockStates;
+	/**
+	 * the version of the codec the states have been encoded with
+	 */
+	private int stateVersion;
+	private long duration;
+	/**
+	 * the version of the sync file
+	 */
+	private final int version;
+	/**
+	 * whether the sync file has been written with a {@link RecordCompression}
+	 */
+	private final boolean compressed;
+	/**
+	 * the length of the uncompressed sync values
+	 */
+	private final long syncLength;
+
+	public MappedInputRecordReader(FileHandle input) throws IOException {
+		super(input);
+		syncBuffer = map(syncPropertiesFile);
+		compressed = syncBuffer.limit() >= 4
+				&& syncBuffer.getInt(0) == BlockCompressedOutputStream.MAGIC;
+		syncLength = compressed ? openStream(0).skip(Long.MAX_VALUE)
+				: syncBuffer.limit();
+		version = BinaryPropertyCodec.readHeader(open(0));
+		if (!readIndex()) {
+			buildIndex();
+		}
+		duration = computeDuration();
+	}
+
+	private static ByteBuffer map(FileHandle file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file.file(), "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Record too large to be mapped: "
+						+ file.path());
+			}
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return buffer;
+		} finally {
+			// the mapping stays valid after closing the file
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return false if there is no usable index file
+	 */
+	private boolean readIndex() {
+		if (!indexFile.exists()) {
+			return false;
+		}
+		try {
+			DataInputStream in = new DataInputStream(
+					new ByteBufferInputStream(map(indexFile)));
+			int indexVersion = BinaryPropertyCodec.readHeader(in);
+			if (indexVersion < 5) {
+				// without the states of the blocks
+				return false;
+			}
+			int blocks = in.readInt();
+			long[] times = new long[blocks];
+			long[] offsets = new long[blocks];
+			byte[][] states = new byte[blocks][];
+			for (int i = 0; i < blocks; i++) {
+				times[i] = in.readLong();
+				offsets[i] = in.readLong();
+				if (offsets[i] >= syncLength) {
+					// index does not belong to this sync file
+					return false;
+				}
+				states[i] = new byte[in.readInt()];
+				in.readFully(states[i]);
+			}
+			blockTimes = times;
+			blockOffsets = offsets;
+			blockStates = states;
+			stateVersion = indexVersion;
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void buildIndex() throws IOException {
+		BinaryPropertyCodec codec = new BinaryPropertyCodec(version);
+		InputStream stream = openStream(0);
+		DataInputStream in = new DataInputStream(stream);
+		BinaryPropertyCodec.readHeader(in);
+		LongArray index = new LongArray();
+		Array<byte[]> states = new Array<byte[]>();
+		SyncStateSnapshot state = new SyncStateSnapshot();
+		long time = 0;
+		long count = 0;
+		long offset = position(stream);
+		SyncProperty property;
+		while ((property = codec.readSync(in)) != null) {
+			if (count % INDEX_BLOCK_SIZE == 0) {
+				index.add(time);
+				index.add(offset);
+				states.add(state.toBytes());
+			}
+			count++;
+			time += property.timeDelta;
+			state.update(property);
+			offset = position(stream);
+		}
+		int blocks = index.size / 2;
+		blockTimes = new long[blocks];
+		blockOffsets = new long[blocks];
+		blockStates = new byte[blocks][];
+		for (int i = 0; i < blocks; i++) {
+			blockTimes[i] = index.get(2 * i);
+			blockOffsets[i] = index.get(2 * i + 1);
+			blockStates[i] = states.get(i);
+		}
+		stateVersion = BinaryPropertyCodec.VERSION;
+	}
+
+	private long computeDuration() throws IOException {
+		if (blockTimes.length == 0) {
+			return 0;
+		}
+		int last = blockTimes.length - 1;
+		long time = blockTimes[last];
+		BinaryPropertyCodec codec = new BinaryPropertyCodec(version);
+		DataInputStream in = open(blockOffsets[last]);
+		SyncProperty property;
+		while ((property = codec.readSync(in)) != null) {
+			time += property.timeDelta;
+		}
+		return time;
+	}
+
+	private DataInputStream open(long offset) throws IOException {
+		return new DataInputStream(openStream(offset));
+	}
+
+	/**
+	 * @param offset
+	 *            in the uncompressed sync values
+	 * @return a stream reading the sync values from the given offset on
+	 * @throws IOException
+	 */
+	private InputStream openStream(long offset) throws IOException {
+		ByteBuffer buffer = syncBuffer.duplicate();
+		if (!compressed) {
+			buffer.position((int) offset);
+			return new ByteBufferInputStream(buffer);
+		}
+		InputStream in = new BlockCompressedInputStream(
+				new ByteBufferInputStream(buffer));
+		if (in.skip(offset) != offset) {
+			throw new IOException("Offset " + offset
+					+ " lies behind the end of the sync values");
+		}
+		return in;
+	}
+
+	/**
+	 * @param stream
+	 *            a stream returned by {@link #openStream(long)}
+	 * @return the offset in the uncompressed sync values the stream is at
+	 */
+	private static long position(InputStream stream) {
+		if (stream instanceof BlockCompressedInputStream) {
+			return ((BlockCompressedInputStream) stream).getPosition();
+		}
+		return ((ByteBufferInputStream) stream).getBuffer().position();
+	}
+
+	/**
+	 * @return the index of the last block starting at or before the given
+	 *         time
+	 */
+	private int findBlock(long time) {
+		int low = 0;
+		int high = blockTimes.length - 1;
+		int result = 0;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (blockTimes[mid] < time) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator() {
+		return getSyncValueIterator(0);
+	}
+
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator(long startTime) {
+		if (syncBuffer == null) {
+			throw new IllegalStateException("Reader has been closed");
+		}
+		try {
+			if (blockTimes.length == 0) {
+				return new MappedSyncIterator(syncLength, 0, null, startTime);
+			}
+			int block = findBlock(startTime);
+			return new MappedSyncIterator(blockOffsets[block],
+					blockTimes[block], blockStates[block], startTime);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public long getDuration() {
+		return duration;
+	}
+
+	@Override
+	public synchronized void close() {
+		super.close();
+		// mapped buffers are unmapped as soon as they are garbage collected
+		syncBuffer = null;
+	}
+
+	private class MappedSyncIterator implements Iterator<SyncProperty> {
+		private final BinaryPropertyCodec codec = new BinaryPropertyCodec(
+				version);
+		private final DataInputStream in;
+		private final long startTime;
+		private final byte[] startState;
+		private long time;
+		/**
+		 * properties to be returned before reading on
+		 */
+		private final List<SyncProperty> pending = new ArrayList<SyncProperty>();
+		private SyncProperty next;
+		private boolean finished = false;
+		private boolean started = false;
+
+		public MappedSyncIterator(long offset, long time, byte[] startState,
+				long startTime) throws IOException {
+			this.in = open(offset);
+			this.time = time;
+			this.startTime = startTime;
+			this.startState = startState;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null && !finished) {
+				try {
+					next = readNext();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				if (next == null) {
+					finished = true;
+				}
+			}
+			return next != null;
+		}
+
+		private SyncProperty readNext() throws IOException {
+			if (pending.size() > 0) {
+				return pending.remove(0);
+			}
+			SyncProperty property = codec.readSync(in);
+			if (started) {
+				return property;
+			}
+			SyncStateSnapshot state = new SyncStateSnapshot();
+			if (startState != null) {
+				state.read(startState, stateVersion);
+			}
+			while (property != null) {
+				time += property.timeDelta;
+				if (time >= startTime) {
+					property.timeDelta = time - startTime;
+					started = true;
+					// the state left behind by everything skipped comes first
+					pending.addAll(state.toProperties());
+					pending.add(property);
+					return pending.remove(0);
+				}
+				state.update(property);
+				property = codec.readSync(in);
+			}
+			// the record ends before startTime, but its state still applies
+			started = true;
+			pending.addAll(state.toProperties());
+			return pending.isEmpty() ? null : pending.remove(0);
+		}
+
+		@Override
+		public SyncProperty next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			SyncProperty current = next;
+			next = null;
+			return current;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -1,8 +1,6 @@
 package com.badlogic.gdx.automation.recorder.io;
 
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 
 import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
 import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
@@ -11,18 +9,28 @@ import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
 import com.badlogic.gdx.automation.recorder.RecordProperties;
 import com.badlogic.gdx.automation.recorder.io.MemoryInputRecordWriter.AsyncValueQueues;
 
+/**
+ * Reads the record of a {@link MemoryInputRecordWriter}. The sync values are
+ * not copied, the reader only remembers how many of them had been written when
+ * it was created or {@link #reset()}, so creating readers is cheap.
+ * 
+ * Readers can be used concurrently to the writer, and to each other. The
+ * {@link #getLiveSyncValueIterator() live iterator} keeps up with the sync
+ * values written after the reader has been created, while async values are
+ * always read as far as they have been written.
+ * 
+ */
 public class MemoryInputRecordReader implements InputRecordReader {
 
-	private final AsyncValueQueues asyncValues;
-	private final List<SyncProperty> syncValues;
+	private AsyncValueQueues asyncValues;
+	private SyncPropertyStore syncValues;
+	private int syncValueCount;
 	private final StaticProperties staticValues;
 	private final RecordProperties recordProperties;
 	private final MemoryInputRecordWriter writer;
 
 	public MemoryInputRecordReader(MemoryInputRecordWriter writer) {
 		this.writer = writer;
-		asyncValues = writer.getAsyncValueQueues().copy();
-		syncValues = new LinkedList<SyncProperty>();
 		staticValues = new StaticProperties();
 		recordProperties = new RecordProperties();
 		reset();
@@ -40,7 +48,17 @@ public class MemoryInputRecordReader implements InputRecordReader {
 
 	@Override
 	public Iterator<SyncProperty> getSyncValueIterator() {
-		return syncValues.iterator();
+		return syncValues.iterator(syncValueCount);
+	}
+
+	/**
+	 * @return an iterator over all sync values of the record, including the
+	 *         ones written while iterating. {@link Iterator#hasNext()} returns
+	 *         false when all values written so far have been read, but may
+	 *         return true again once the writer has written more.
+	 */
+	public Iterator<SyncProperty> getLiveSyncValueIterator() {
+		return syncValues.followingIterator();
 	}
 
 	@Override
@@ -49,11 +67,11 @@ public class MemoryInputRecordReader implements InputRecordReader {
 	}
 
 	public void reset() {
-		syncValues.clear();
-		syncValues.addAll(writer.getSyncValues());
-		asyncValues.set(writer.getAsyncValueQueues());
-		staticValues.set(writer.getStaticValues());
-		recordProperties.set(writer.getRecordProperties());
+		syncValues = writer.getSyncValues();
+		syncValueCount = syncValues.size();
+		asyncValues = writer.getAsyncValueQueues();
+		writer.getStaticValues(staticValues);
+		writer.getRecordProperties(recordProperties);
 	}
 
 	@Override
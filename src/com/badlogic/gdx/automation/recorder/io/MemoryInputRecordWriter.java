@@ -1,8 +1,8 @@
 package com.badlogic.gdx.automation.recorder.io;
 
 import java.io.IOException;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.automation.recorder.InputProperty;
@@ -15,21 +15,28 @@ import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
 import com.badlogic.gdx.automation.recorder.RecordProperties;
 
 /**
- * Simple writer backend primarily designed for testing
+ * Simple writer backend primarily designed for testing. Sync values are kept
+ * in a {@link SyncPropertyStore}, so the record only takes a few primitive
+ * arrays instead of an object per property, and any number of
+ * {@link MemoryInputRecordReader readers} can read it without copying it.
+ * 
+ * Readers may be used on other threads while the record is still being
+ * written, e.g. to visualize the input recorded so far. Only one thread may
+ * write to the writer at a time, though.
  * 
  */
-public class MemoryInputRecordWriter implements InputRecordWriter {
+public class MemoryInputRecordWriter implements CountingInputRecordWriter {
 	private static final String LOG_TAG = "MemoryInputRecordWriter";
 
 	private boolean open = false;
 
-	private final LinkedList<SyncProperty> syncValues;
-	private final AsyncValueQueues asyncValueQueues;
+	private volatile SyncPropertyStore syncValues;
+	private volatile AsyncValueQueues asyncValueQueues;
 	private final StaticProperties staticValues;
 	private final RecordProperties recordProperties;
 
 	public MemoryInputRecordWriter() {
-		syncValues = new LinkedList<InputProperty.SyncProperty>();
+		syncValues = new SyncPropertyStore();
 		asyncValueQueues = new AsyncValueQueues();
 		staticValues = new StaticProperties();
 		recordProperties = new RecordProperties();
@@ -55,7 +62,9 @@ public class MemoryInputRecordWriter implements InputRecordWriter {
 		if (!open) {
 			throw new IOException("Cannot write to closed writer");
 		}
-		staticValues.set(values);
+		synchronized (staticValues) {
+			staticValues.set(values);
+		}
 	}
 
 	@Override
@@ -63,6 +72,7 @@ public class MemoryInputRecordWriter implements InputRecordWriter {
 		if (!open) {
 			throw new IOException("Cannot write to closed writer");
 		}
+		// the store copies the values, so the recorder may reuse the property
 		syncValues.add(values);
 	}
 
@@ -80,8 +90,19 @@ public class MemoryInputRecordWriter implements InputRecordWriter {
 			Gdx.app.log(LOG_TAG, "Reopening an already open writer");
 		}
 		open = true;
-		syncValues.clear();
-		asyncValueQueues.clear();
+		// readers of the previous record keep the old values
+		syncValues = new SyncPropertyStore();
+		asyncValueQueues = new AsyncValueQueues();
+	}
+
+	/**
+	 * @return the number of bytes taken by the sync values, see
+	 *         {@link SyncPropertyStore#byteSize()}. Async values are not
+	 *         counted.
+	 */
+	@Override
+	public long getBytesWritten() {
+		return syncValues.byteSize();
 	}
 
 	public MemoryInputRecordReader getReader() {
@@ -92,18 +113,17 @@ public class MemoryInputRecordWriter implements InputRecordWriter {
 		return open;
 	}
 
+	/**
+	 * Async values are rare, so they are simply kept in lists which can be
+	 * iterated while values are added
+	 */
 	static class AsyncValueQueues implements AsyncPropertyVisitor {
 		final List<AsyncProperty.Text> textValues;
 		final List<AsyncProperty.PlaceholderText> placeholderTextValues;
 
 		AsyncValueQueues() {
-			textValues = new LinkedList<InputProperty.AsyncProperty.Text>();
-			placeholderTextValues = new LinkedList<InputProperty.AsyncProperty.PlaceholderText>();
-		}
-
-		public void clear() {
-			textValues.clear();
-			placeholderTextValues.clear();
+			textValues = new CopyOnWriteArrayList<InputProperty.AsyncProperty.Text>();
+			placeholderTextValues = new CopyOnWriteArrayList<InputProperty.AsyncProperty.PlaceholderText>();
 		}
 
 		@Override
@@ -119,24 +139,9 @@ public class MemoryInputRecordWriter implements InputRecordWriter {
 		public void storeValue(AsyncProperty value) {
 			value.accept(this);
 		}
-
-		public AsyncValueQueues copy() {
-			AsyncValueQueues copy = new AsyncValueQueues();
-			copy.textValues.addAll(textValues);
-			copy.placeholderTextValues.addAll(placeholderTextValues);
-			return copy;
-		}
-
-		public AsyncValueQueues set(AsyncValueQueues original) {
-			textValues.clear();
-			textValues.addAll(original.textValues);
-			placeholderTextValues.clear();
-			placeholderTextValues.addAll(original.placeholderTextValues);
-			return this;
-		}
 	}
 
-	List<SyncProperty> getSyncValues() {
+	SyncPropertyStore getSyncValues() {
 		return syncValues;
 	}
 
@@ -144,16 +149,22 @@ public class MemoryInputRecordWriter implements InputRecordWriter {
 		return asyncValueQueues;
 	}
 
-	StaticProperties getStaticValues() {
-		return staticValues;
+	void getStaticValues(StaticProperties values) {
+		synchronized (staticValues) {
+			values.set(staticValues);
+		}
 	}
 
-	RecordProperties getRecordProperties() {
-		return recordProperties;
+	void getRecordProperties(RecordProperties properties) {
+		synchronized (recordProperties) {
+			properties.set(recordProperties);
+		}
 	}
 
 	@Override
 	public void writeRecordProperties(RecordProperties properties) {
-		recordProperties.set(properties);
+		synchronized (recordProperties) {
+			recordProperties.set(properties);
+		}
 	}
 }
@@ -0,0 +1,164 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The compression applied to the files of a record by the file based
+ * {@link InputRecordWriter}s. Compressed files are split into blocks which are
+ * compressed independently (see {@link BlockCompressedOutputStream}), so they
+ * can still be read while they are written and readers can skip whole blocks
+ * without decompressing them. Readers detect compressed files on their own.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public enum RecordCompression {
+	/**
+	 * files are written as they are
+	 */
+	NONE(0, null),
+	/**
+	 * blocks are compressed using {@link Deflater} at its fastest level,
+	 * which is available on every platform
+	 */
+	DEFLATE(1, new BlockCodec.Factory() {
+		@Override
+		public BlockCodec newCodec() {
+			return new DeflateCodec();
+		}
+	});
+
+	/**
+	 * the id written into compressed files to identify the compression
+	 */
+	final int id;
+	/**
+	 * null if the files are not compressed at all
+	 */
+	private final BlockCodec.Factory codecs;
+
+	private RecordCompression(int id, BlockCodec.Factory codecs) {
+		this.id = id;
+		this.codecs = codecs;
+	}
+
+	/**
+	 * @param out
+	 * @return a stream compressing everything written to it into the given
+	 *         one, or the given stream itself for {@link #NONE}
+	 * @throws IOException
+	 */
+	OutputStream compress(OutputStream out) throws IOException {
+		if (codecs == null) {
+			return out;
+		}
+		return new BlockCompressedOutputStream(out, id, codecs.newCodec());
+	}
+
+	/**
+	 * @param id
+	 *            the {@link #id} read from a compressed file
+	 * @return a new codec to decompress the blocks of that file with
+	 * @throws IOException
+	 *             if no compression with that id is known
+	 */
+	static BlockCodec newCodec(int id) throws IOException {
+		for (RecordCompression compression : values()) {
+			if (compression.id == id && compression.codecs != null) {
+				return compression.codecs.newCodec();
+			}
+		}
+		throw new IOException("Unknown record compression " + id);
+	}
+
+	/**
+	 * Detects whether the given stream has been written using a compression
+	 * other than {@link #NONE} and decompresses it if so
+	 * 
+	 * @param in
+	 * @return a stream reading the uncompressed content of the given one
+	 * @throws IOException
+	 */
+	static InputStream decompress(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			in = new BufferedInputStream(in);
+		}
+		in.mark(4);
+		int magic = 0;
+		int read = 0;
+		for (; read < 4; read++) {
+			int b = in.read();
+			if (b < 0) {
+				break;
+			}
+			magic = magic << 8 | b;
+		}
+		in.reset();
+		if (read == 4 && magic == BlockCompressedOutputStream.MAGIC) {
+			return new BlockCompressedInputStream(in);
+		}
+		return in;
+	}
+
+	private static class DeflateCodec implements BlockCodec {
+		// created on demand, as streams either compress or decompress
+		private Deflater deflater;
+		private Inflater inflater;
+
+		@Override
+		public int compress(byte[] src, int length, byte[] dst) {
+			if (deflater == null) {
+				deflater = new Deflater(Deflater.BEST_SPEED, true);
+			}
+			deflater.reset();
+			deflater.setInput(src, 0, length);
+			deflater.finish();
+			int written = 0;
+			while (!deflater.finished() && written < length) {
+				written += deflater.deflate(dst, written, length - written);
+			}
+			return deflater.finished() ? written : -1;
+		}
+
+		@Override
+		public void decompress(byte[] src, int length, byte[] dst,
+				int uncompressedLength) throws IOException {
+			if (inflater == null) {
+				inflater = new Inflater(true);
+			}
+			inflater.reset();
+			inflater.setInput(src, 0, length);
+			try {
+				int read = 0;
+				while (read < uncompressedLength) {
+					int inflated = inflater.inflate(dst, read,
+							uncompressedLength - read);
+					if (inflated == 0
+							&& (inflater.finished() || inflater.needsInput())) {
+						throw new IOException("Truncated compressed block");
+					}
+					read += inflated;
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupt compressed block: "
+						+ e.getMessage());
+			}
+		}
+
+		@Override
+		public void end() {
+			if (deflater != null) {
+				deflater.end();
+			}
+			if (inflater != null) {
+				inflater.end();
+			}
+		}
+	}
+}
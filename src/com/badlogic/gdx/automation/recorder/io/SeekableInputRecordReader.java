@@ -0,0 +1,44 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.util.Iterator;
+
+import com.badlogic.gdx.automation.recorder.InputPlayer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+
+/**
+ * An {@link InputRecordReader} that is able to start iterating over its
+ * {@link SyncProperty SyncProperties} at an arbitrary point in time, without
+ * having to read everything that was recorded before. This is what an
+ * {@link InputPlayer} needs to start or resume a playback in the middle of a
+ * record.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public interface SeekableInputRecordReader extends InputRecordReader {
+	/**
+	 * Returns an iterator over all sync values recorded at or after the given
+	 * time. The first value recorded at or after startTime has its
+	 * {@link SyncProperty#timeDelta timeDelta} adjusted to be relative to
+	 * startTime.
+	 * 
+	 * The values recorded before startTime are not returned, but the state
+	 * they leave behind is: the iterator starts with the last accelerometer,
+	 * orientation and button values, the last values of every pointer and a
+	 * press of every key held at startTime, all with a timeDelta of 0. Applied
+	 * to an {@link com.badlogic.gdx.automation.recorder.InputState InputState}
+	 * they restore the state as if the record had been played back from the
+	 * beginning. Events recorded before startTime are dropped.
+	 * 
+	 * @param startTime
+	 *            milliseconds since the beginning of the record
+	 * @return the iterator
+	 */
+	Iterator<SyncProperty> getSyncValueIterator(long startTime);
+
+	/**
+	 * @return the total time in milliseconds covered by the record's sync
+	 *         values
+	 */
+	long getDuration();
+}
@@ -0,0 +1,50 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Defines the layout of a record stored in a single file, written by a
+ * {@link SingleFileInputRecordWriter}. After a header of {@link #MAGIC},
+ * {@link #VERSION} and the version of the {@link BinaryPropertyCodec} used to
+ * encode the properties, the file is a sequence of chunks. Every chunk starts
+ * with its tag and the length of its payload (an int):
+ * <ul>
+ * <li>{@link #CHUNK_RECORD_PROPERTIES} and {@link #CHUNK_STATIC} come first</li>
+ * <li>{@link #CHUNK_SYNC} holds up to {@link BinaryInputRecord#INDEX_BLOCK_SIZE}
+ * sync properties, encoded independently of the chunks before</li>
+ * <li>{@link #CHUNK_ASYNC} holds async properties, interleaved with the sync
+ * chunks in the order they have been written</li>
+ * <li>{@link #CHUNK_INDEX} comes last and holds the record time at the start,
+ * the file offset and (since version 5 of the codec) the
+ * {@link SyncStateSnapshot state} at the start of every sync chunk, followed
+ * by the duration of the record</li>
+ * </ul>
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class SingleFileInputRecord {
+	static final int MAGIC = 0x47445846; // "GDXF"
+	static final int VERSION = 1;
+
+	static final int CHUNK_RECORD_PROPERTIES = 1;
+	static final int CHUNK_STATIC = 2;
+	static final int CHUNK_SYNC = 3;
+	static final int CHUNK_ASYNC = 4;
+	static final int CHUNK_INDEX = 5;
+
+	/**
+	 * the size of the header in front of the first chunk
+	 */
+	static final int HEADER_SIZE = 6;
+	/**
+	 * the size of the tag and length in front of every chunk's payload
+	 */
+	static final int CHUNK_HEADER_SIZE = 5;
+
+	protected final FileHandle file;
+
+	public SingleFileInputRecord(FileHandle file) {
+		this.file = file;
+	}
+}
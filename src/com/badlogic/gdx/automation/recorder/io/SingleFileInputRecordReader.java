@@ -0,0 +1,522 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncPropertyVisitor;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.LongArray;
+
+/**
+ * A {@link SeekableInputRecordReader} for records written by a
+ * {@link SingleFileInputRecordWriter}. The file is read once, from front to
+ * back, when the reader is created: the record and static properties as well
+ * as the async properties are decoded right away, while the sync chunks are
+ * only skipped. The index at the end of the file tells where the sync chunks
+ * start, so iterating over the sync values from an arbitrary point in time
+ * only decodes the chunks from there on. If the file has no index (e.g.
+ * because the writer has not been closed), it is rebuilt from the sync chunks.
+ * A chunk cut off by the end of the file is treated like the end of the record.
+ * The index also holds the {@link SyncStateSnapshot state} at the start of
+ * every sync chunk, which is handed out first when iterating from a point in
+ * time after the beginning.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class SingleFileInputRecordReader extends SingleFileInputRecord
+		implements SeekableInputRecordReader {
+	private final RecordProperties recordProperties = new RecordProperties();
+	private final StaticProperties staticProperties = new StaticProperties();
+	private final List<Text> textValues = new ArrayList<Text>();
+	private final List<PlaceholderText> placeholderTextValues = new ArrayList<PlaceholderText>();
+	private final List<DataInputStream> openStreams = new ArrayList<DataInputStream>();
+	/**
+	 * the version of the properties' encoding
+	 */
+	private int codecVersion;
+	/**
+	 * record time before the first property of each sync chunk
+	 */
+	private long[] chunkTimes;
+	/**
+	 * offset of each sync chunk in the file
+	 */
+	private long[] chunkOffsets;
+	/**
+	 * encoded state at the start of each sync chunk
+	 */
+	private byte[][] chunkStates;
+	/**
+	 * the version of the codec the states have been encoded with
+	 */
+	private int stateVersion;
+	private long duration;
+
+	public SingleFileInputRecordReader(FileHandle input) throws IOException {
+		super(input);
+		ChunkReader chunks = new ChunkReader(open());
+		try {
+			readChunks(chunks);
+		} finally {
+			chunks.close();
+		}
+	}
+
+	private DataInputStream open() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				RecordCompression.decompress(file.read())));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a single file input record: "
+						+ file.path());
+			}
+			int version = in.readUnsignedByte();
+			if (version > VERSION) {
+				throw new IOException("Unsupported single file record version "
+						+ version);
+			}
+			codecVersion = in.readUnsignedByte();
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+		return in;
+	}
+
+	private void readChunks(ChunkReader chunks) throws IOException {
+		BinaryPropertyCodec codec = new BinaryPropertyCodec(codecVersion);
+		AsyncValueSorter sorter = new AsyncValueSorter();
+		LongArray syncOffsets = new LongArray();
+		boolean indexed = false;
+		int tag;
+		while ((tag = chunks.next()) >= 0) {
+			if (tag == CHUNK_SYNC) {
+				long offset = chunks.getChunkOffset();
+				if (!chunks.skipPayload()) {
+					break;
+				}
+				syncOffsets.add(offset);
+				continue;
+			}
+			DataInputStream payload = chunks.payload();
+			if (payload == null) {
+				break;
+			}
+			switch (tag) {
+			case CHUNK_RECORD_PROPERTIES:
+				codec.readRecordProperties(payload, recordProperties);
+				break;
+			case CHUNK_STATIC:
+				codec.readStaticValues(payload, staticProperties);
+				break;
+			case CHUNK_ASYNC:
+				AsyncProperty property;
+				while ((property = codec.readAsync(payload)) != null) {
+					property.accept(sorter);
+				}
+				break;
+			case CHUNK_INDEX:
+				indexed = readIndex(payload);
+				break;
+			default:
+				// written by a later version
+			}
+		}
+		if (!indexed) {
+			buildIndex(syncOffsets);
+		}
+	}
+
+	/**
+	 * @return false if the index is too old to hold the states of the chunks
+	 */
+	private boolean readIndex(DataInputStream in) throws IOException {
+		if (codecVersion < 5) {
+			return false;
+		}
+		int count = in.readInt();
+		chunkTimes = new long[count];
+		chunkOffsets = new long[count];
+		chunkStates = new byte[count][];
+		for (int i = 0; i < count; i++) {
+			chunkTimes[i] = in.readLong();
+			chunkOffsets[i] = in.readLong();
+			chunkStates[i] = new byte[in.readInt()];
+			in.readFully(chunkStates[i]);
+		}
+		duration = in.readLong();
+		stateVersion = codecVersion;
+		return true;
+	}
+
+	private void buildIndex(LongArray syncOffsets) throws IOException {
+		chunkTimes = new long[syncOffsets.size];
+		chunkOffsets = syncOffsets.toArray();
+		chunkStates = new byte[syncOffsets.size][];
+		stateVersion = BinaryPropertyCodec.VERSION;
+		SyncStateSnapshot state = new SyncStateSnapshot();
+		long time = 0;
+		if (syncOffsets.size > 0) {
+			ChunkReader chunks = new ChunkReader(open());
+			try {
+				chunks.skipTo(chunkOffsets[0]);
+				int chunk = 0;
+				int tag;
+				while (chunk < chunkOffsets.length
+						&& (tag = chunks.next()) >= 0) {
+					if (tag != CHUNK_SYNC) {
+						if (!chunks.skipPayload()) {
+							break;
+						}
+						continue;
+					}
+					DataInputStream payload = chunks.payload();
+					if (payload == null) {
+						break;
+					}
+					chunkTimes[chunk] = time;
+					chunkStates[chunk++] = state.toBytes();
+					BinaryPropertyCodec codec = new BinaryPropertyCodec(
+							codecVersion);
+					SyncProperty property;
+					while ((property = codec.readSync(payload)) != null) {
+						time += property.timeDelta;
+						state.update(property);
+					}
+				}
+			} finally {
+				chunks.close();
+			}
+		}
+		duration = time;
+	}
+
+	/**
+	 * @return the index of the last sync chunk starting at or before the given
+	 *         time
+	 */
+	private int findChunk(long time) {
+		int low = 0;
+		int high = chunkTimes.length - 1;
+		int result = 0;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (chunkTimes[mid] < time) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	private class AsyncValueSorter implements AsyncPropertyVisitor {
+		@Override
+		public void visitText(Text text) {
+			textValues.add(text);
+		}
+
+		@Override
+		public void visitPlaceholderText(PlaceholderText text) {
+			placeholderTextValues.add(text);
+		}
+	}
+
+	@Override
+	public RecordProperties getRecordProperties() {
+		return recordProperties;
+	}
+
+	@Override
+	public StaticProperties getStaticValues() {
+		return staticProperties;
+	}
+
+	@Override
+	public Iterator<Text> getTextIterator() {
+		return textValues.iterator();
+	}
+
+	@Override
+	public Iterator<PlaceholderText> getPlaceholderTextIterator() {
+		return placeholderTextValues.iterator();
+	}
+
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator() {
+		return getSyncValueIterator(0);
+	}
+
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator(long startTime) {
+		try {
+			if (chunkOffsets.length == 0) {
+				return new SyncIterator(-1, 0, null, startTime);
+			}
+			int chunk = findChunk(startTime);
+			return new SyncIterator(chunkOffsets[chunk], chunkTimes[chunk],
+					chunkStates[chunk], startTime);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public long getDuration() {
+		return duration;
+	}
+
+	@Override
+	public synchronized void close() {
+		for (DataInputStream in : openStreams) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		openStreams.clear();
+	}
+
+	/**
+	 * Reads the chunks of a file one after the other
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	private static class ChunkReader {
+		private final DataInputStream in;
+		private byte[] buffer = new byte[1024];
+		private long offset = HEADER_SIZE;
+		private long chunkOffset;
+		private int length;
+
+		public ChunkReader(DataInputStream in) {
+			this.in = in;
+		}
+
+		/**
+		 * @return the tag of the next chunk or -1 if the file ends. A chunk
+		 *         cut off by the end of the file is treated like the end.
+		 */
+		public int next() throws IOException {
+			int tag = in.read();
+			if (tag < 0) {
+				return -1;
+			}
+			try {
+				length = in.readInt();
+			} catch (EOFException e) {
+				return -1;
+			}
+			chunkOffset = offset;
+			offset += CHUNK_HEADER_SIZE + length;
+			return tag;
+		}
+
+		public long getChunkOffset() {
+			return chunkOffset;
+		}
+
+		/**
+		 * @return a stream over the current chunk's payload, which ends with
+		 *         it, or null if the payload is cut off by the end of the file
+		 */
+		public DataInputStream payload() throws IOException {
+			if (buffer.length < length) {
+				buffer = new byte[Math.max(length, buffer.length * 2)];
+			}
+			try {
+				in.readFully(buffer, 0, length);
+			} catch (EOFException e) {
+				return null;
+			}
+			return new DataInputStream(new ByteArrayInputStream(buffer, 0,
+					length));
+		}
+
+		/**
+		 * @return false if the payload is cut off by the end of the file
+		 */
+		public boolean skipPayload() throws IOException {
+			try {
+				skipFully(length);
+			} catch (EOFException e) {
+				return false;
+			}
+			return true;
+		}
+
+		/**
+		 * @param chunkOffset
+		 *            the offset of a chunk after the current position
+		 */
+		public void skipTo(long chunkOffset) throws IOException {
+			skipFully(chunkOffset - offset);
+			offset = chunkOffset;
+		}
+
+		private void skipFully(long n) throws IOException {
+			while (n > 0) {
+				int skipped = in.skipBytes((int) Math.min(n,
+						Integer.MAX_VALUE));
+				if (skipped <= 0) {
+					if (in.read() < 0) {
+						throw new EOFException();
+					}
+					skipped = 1;
+				}
+				n -= skipped;
+			}
+		}
+
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	private class SyncIterator implements Iterator<SyncProperty> {
+		private final ChunkReader chunks;
+		private final DataInputStream in;
+		private final long startTime;
+		private final byte[] startState;
+		private BinaryPropertyCodec codec;
+		private DataInputStream payload;
+		private long time;
+		/**
+		 * properties to be returned before reading on
+		 */
+		private final List<SyncProperty> pending = new ArrayList<SyncProperty>();
+		private SyncProperty next;
+		private boolean finished = false;
+		private boolean started = false;
+
+		public SyncIterator(long offset, long time, byte[] startState,
+				long startTime) throws IOException {
+			this.time = time;
+			this.startTime = startTime;
+			this.startState = startState;
+			if (offset < 0) {
+				in = null;
+				chunks = null;
+				finished = true;
+				return;
+			}
+			in = open();
+			chunks = new ChunkReader(in);
+			synchronized (SingleFileInputRecordReader.this) {
+				openStreams.add(in);
+			}
+			chunks.skipTo(offset);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null && !finished) {
+				try {
+					next = readNext();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				if (next == null) {
+					finished = true;
+					synchronized (SingleFileInputRecordReader.this) {
+						openStreams.remove(in);
+					}
+					try {
+						in.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+			return next != null;
+		}
+
+		private SyncProperty readSync() throws IOException {
+			while (true) {
+				if (payload != null) {
+					SyncProperty property = codec.readSync(payload);
+					if (property != null) {
+						return property;
+					}
+					payload = null;
+				}
+				int tag = chunks.next();
+				if (tag < 0) {
+					return null;
+				}
+				if (tag == CHUNK_SYNC) {
+					codec = new BinaryPropertyCodec(codecVersion);
+					payload = chunks.payload();
+					if (payload == null) {
+						return null;
+					}
+				} else if (!chunks.skipPayload()) {
+					return null;
+				}
+			}
+		}
+
+		private SyncProperty readNext() throws IOException {
+			if (pending.size() > 0) {
+				return pending.remove(0);
+			}
+			SyncProperty property = readSync();
+			if (started) {
+				return property;
+			}
+			SyncStateSnapshot state = new SyncStateSnapshot();
+			if (startState != null) {
+				state.read(startState, stateVersion);
+			}
+			while (property != null) {
+				time += property.timeDelta;
+				if (time >= startTime) {
+					property.timeDelta = time - startTime;
+					started = true;
+					// the state left behind by everything skipped comes first
+					pending.addAll(state.toProperties());
+					pending.add(property);
+					return pending.remove(0);
+				}
+				state.update(property);
+				property = readSync();
+			}
+			// the record ends before startTime, but its state still applies
+			started = true;
+			pending.addAll(state.toProperties());
+			return pending.isEmpty() ? null : pending.remove(0);
+		}
+
+		@Override
+		public SyncProperty next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			SyncProperty current = next;
+			next = null;
+			return current;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
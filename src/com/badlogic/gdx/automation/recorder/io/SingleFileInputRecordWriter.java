@@ -0,0 +1,192 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongArray;
+
+/**
+ * An {@link InputRecordWriter} writing a whole record into a single file
+ * instead of one file per kind of property, using the binary encoding of the
+ * {@link BinaryInputRecordWriter}. See {@link SingleFileInputRecord} for the
+ * layout of the file.
+ * 
+ * Sync and async properties are collected into chunks which are written once
+ * they are full and on every {@link #flush()}, so everything flushed can be
+ * read even if the writer is never closed. The index at the end of the file
+ * is written by {@link #close()}.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class SingleFileInputRecordWriter extends SingleFileInputRecord
+		implements CountingInputRecordWriter {
+	private final RecordCompression compression;
+	private final BinaryPropertyCodec codec = new BinaryPropertyCodec();
+	private DataOutputStream out;
+	/**
+	 * the offset of the next chunk in the (uncompressed) file
+	 */
+	private volatile long offset;
+
+	private final ByteArrayOutputStream syncBytes = new ByteArrayOutputStream();
+	private final DataOutputStream syncChunk = new DataOutputStream(syncBytes);
+	private final ByteArrayOutputStream asyncBytes = new ByteArrayOutputStream();
+	private final DataOutputStream asyncChunk = new DataOutputStream(asyncBytes);
+	private final ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream();
+	private final DataOutputStream chunk = new DataOutputStream(chunkBytes);
+	private int syncCount;
+	private long syncTime;
+	/**
+	 * pairs of record time and file offset, one for each sync chunk
+	 */
+	private final LongArray index = new LongArray();
+	/**
+	 * the encoded state at the start of each sync chunk
+	 */
+	private final Array<byte[]> snapshots = new Array<byte[]>();
+	private final SyncStateSnapshot state = new SyncStateSnapshot();
+
+	public SingleFileInputRecordWriter(FileHandle output) {
+		this(output, RecordCompression.NONE);
+	}
+
+	public SingleFileInputRecordWriter(FileHandle output,
+			RecordCompression compression) {
+		super(output);
+		this.compression = compression;
+	}
+
+	@Override
+	public void open() throws IOException {
+		close();
+		out = new DataOutputStream(new BufferedOutputStream(
+				compression.compress(file.write(false))));
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(BinaryPropertyCodec.VERSION);
+		offset = HEADER_SIZE;
+		syncBytes.reset();
+		asyncBytes.reset();
+		syncCount = 0;
+		syncTime = 0;
+		index.clear();
+		snapshots.clear();
+		state.clear();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (out == null) {
+			throw new IOException("Cannot write to closed writer");
+		}
+	}
+
+	@Override
+	public void writeRecordProperties(RecordProperties properties)
+			throws IOException {
+		ensureOpen();
+		chunkBytes.reset();
+		codec.writeRecordProperties(chunk, properties);
+		writeChunk(CHUNK_RECORD_PROPERTIES, chunkBytes);
+	}
+
+	@Override
+	public void writeStaticValues(StaticProperties values) throws IOException {
+		ensureOpen();
+		chunkBytes.reset();
+		codec.writeStaticValues(chunk, values);
+		writeChunk(CHUNK_STATIC, chunkBytes);
+	}
+
+	@Override
+	public void writeSyncValues(SyncProperty values) throws IOException {
+		ensureOpen();
+		if (syncCount == 0) {
+			// every chunk can be decoded on its own
+			codec.reset();
+			index.add(syncTime);
+			snapshots.add(state.toBytes());
+		}
+		codec.writeSync(syncChunk, values);
+		syncTime += values.timeDelta;
+		state.update(values);
+		if (++syncCount == BinaryInputRecord.INDEX_BLOCK_SIZE) {
+			writeSyncChunk();
+		}
+	}
+
+	@Override
+	public void writeAsyncValues(AsyncProperty values) throws IOException {
+		ensureOpen();
+		codec.writeAsync(asyncChunk, values);
+	}
+
+	private void writeSyncChunk() throws IOException {
+		if (syncCount > 0) {
+			index.add(offset);
+			writeChunk(CHUNK_SYNC, syncBytes);
+			syncBytes.reset();
+			syncCount = 0;
+		}
+		if (asyncBytes.size() > 0) {
+			writeChunk(CHUNK_ASYNC, asyncBytes);
+			asyncBytes.reset();
+		}
+	}
+
+	private void writeChunk(int tag, ByteArrayOutputStream payload)
+			throws IOException {
+		out.writeByte(tag);
+		out.writeInt(payload.size());
+		payload.writeTo(out);
+		offset += CHUNK_HEADER_SIZE + payload.size();
+	}
+
+	/**
+	 * @return the size of the chunks written so far, which does not include
+	 *         the properties collected for the current chunk
+	 */
+	@Override
+	public long getBytesWritten() {
+		return offset;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (out != null) {
+			writeSyncChunk();
+			out.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (out == null) {
+			return;
+		}
+		try {
+			writeSyncChunk();
+			chunkBytes.reset();
+			chunk.writeInt(index.size / 2);
+			for (int i = 0; i < index.size / 2; i++) {
+				chunk.writeLong(index.get(2 * i));
+				chunk.writeLong(index.get(2 * i + 1));
+				chunk.writeInt(snapshots.get(i).length);
+				chunk.write(snapshots.get(i));
+			}
+			chunk.writeLong(syncTime);
+			writeChunk(CHUNK_INDEX, chunkBytes);
+		} finally {
+			out.close();
+			out = null;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+
+/**
+ * Defines the protocol used to stream a record over a TCP connection from a
+ * {@link SocketInputRecordWriter} to a {@link SocketInputRecordReader}. After
+ * a header of {@link #MAGIC}, {@link #VERSION} and the version of the
+ * {@link BinaryPropertyCodec} used to encode the properties, the stream is a
+ * sequence of frames. Every frame starts with the length of its payload (an
+ * int) and its type:
+ * <ul>
+ * <li>{@link #FRAME_RECORD_PROPERTIES} and {@link #FRAME_STATIC} come first</li>
+ * <li>{@link #FRAME_SYNC} holds a batch of sync properties, decoded with a
+ * single codec over all frames</li>
+ * <li>{@link #FRAME_ASYNC} holds a batch of async properties</li>
+ * </ul>
+ * No frame is larger than {@link #MAX_FRAME_SIZE}, so an async property
+ * taking more bytes cannot be streamed.
+ * The record ends when the writer closes the connection. Writers encode the
+ * stream using a {@link FrameEncoder}.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class SocketInputRecord {
+	static final int MAGIC = 0x4744584E; // "GDXN"
+	static final int VERSION = 1;
+
+	static final int FRAME_RECORD_PROPERTIES = 1;
+	static final int FRAME_STATIC = 2;
+	static final int FRAME_SYNC = 3;
+	static final int FRAME_ASYNC = 4;
+
+	/**
+	 * the size of the header in front of the first frame
+	 */
+	static final int HEADER_SIZE = 6;
+	/**
+	 * the size of the length and type in front of every frame's payload
+	 */
+	static final int FRAME_HEADER_SIZE = 5;
+	/**
+	 * the number of payload bytes after which a writer sends a frame even if
+	 * it has not been flushed
+	 */
+	static final int BATCH_SIZE = 8 * 1024;
+	/**
+	 * the largest payload a reader accepts, to not run out of memory on
+	 * garbage
+	 */
+	static final int MAX_FRAME_SIZE = 1024 * 1024;
+
+	/**
+	 * Encodes the properties written to a writer into frames. Sync and async
+	 * properties are collected until {@link #endBatch()}, while record
+	 * properties and static values get a frame of their own right away. The
+	 * frames are kept until they are taken by the writer.
+	 * 
+	 * @author Lukas Böhm
+	 * 
+	 */
+	static class FrameEncoder {
+		private final BinaryPropertyCodec codec = new BinaryPropertyCodec();
+		private final FrameBytes syncBytes = new FrameBytes();
+		private final DataOutputStream syncFrame = new DataOutputStream(
+				syncBytes);
+		private final FrameBytes asyncBytes = new FrameBytes();
+		private final FrameBytes frameBytes = new FrameBytes();
+		private final DataOutputStream frame = new DataOutputStream(
+				frameBytes);
+		/**
+		 * a single async property, which is only added to the batch if the
+		 * frame does not get too large
+		 */
+		private final FrameBytes asyncValueBytes = new FrameBytes();
+		private final DataOutputStream asyncValue = new DataOutputStream(
+				asyncValueBytes);
+		/**
+		 * the frames that have not been taken yet
+		 */
+		private final FrameBytes frames = new FrameBytes();
+
+		/**
+		 * Starts a new stream, beginning with the header
+		 */
+		public void reset() {
+			codec.reset();
+			syncBytes.reset();
+			asyncBytes.reset();
+			frames.reset();
+			frames.write(MAGIC >>> 24);
+			frames.write(MAGIC >>> 16);
+			frames.write(MAGIC >>> 8);
+			frames.write(MAGIC);
+			frames.write(VERSION);
+			frames.write(BinaryPropertyCodec.VERSION);
+		}
+
+		public void writeRecordProperties(RecordProperties properties)
+				throws IOException {
+			frameBytes.reset();
+			codec.writeRecordProperties(frame, properties);
+			writeFrame(FRAME_RECORD_PROPERTIES, frameBytes);
+		}
+
+		public void writeStaticValues(StaticProperties values)
+				throws IOException {
+			frameBytes.reset();
+			codec.writeStaticValues(frame, values);
+			writeFrame(FRAME_STATIC, frameBytes);
+		}
+
+		/**
+		 * @param values
+		 * @return whether the batch holds {@link SocketInputRecord#BATCH_SIZE}
+		 *         bytes and should be ended
+		 * @throws IOException
+		 */
+		public boolean writeSyncValues(SyncProperty values) throws IOException {
+			codec.writeSync(syncFrame, values);
+			return syncBytes.size() >= BATCH_SIZE;
+		}
+
+		/**
+		 * @param values
+		 * @return whether the batch holds {@link SocketInputRecord#BATCH_SIZE}
+		 *         bytes and should be ended
+		 * @throws IOException
+		 *             if the property takes more than
+		 *             {@link SocketInputRecord#MAX_FRAME_SIZE} bytes
+		 */
+		public boolean writeAsyncValues(AsyncProperty values)
+				throws IOException {
+			asyncValueBytes.reset();
+			codec.writeAsync(asyncValue, values);
+			if (asyncValueBytes.size() > MAX_FRAME_SIZE) {
+				throw new IOException("Async property of "
+						+ asyncValueBytes.size()
+						+ " bytes exceeds the maximum frame size of "
+						+ MAX_FRAME_SIZE + " bytes");
+			}
+			if (asyncBytes.size() + asyncValueBytes.size() > MAX_FRAME_SIZE) {
+				endBatch();
+			}
+			asyncValueBytes.writeTo(asyncBytes);
+			return asyncBytes.size() >= BATCH_SIZE;
+		}
+
+		/**
+		 * Turns the sync and async properties written since the last batch
+		 * into frames
+		 */
+		public void endBatch() {
+			// async values first, so they are there once the sync values
+			// requesting them are played back
+			writeFrame(FRAME_ASYNC, asyncBytes);
+			writeFrame(FRAME_SYNC, syncBytes);
+			asyncBytes.reset();
+			syncBytes.reset();
+		}
+
+		/**
+		 * @return the number of bytes of the frames not taken yet
+		 */
+		public int size() {
+			return frames.size();
+		}
+
+		/**
+		 * @return the frames not taken yet, which are removed from the encoder
+		 */
+		public byte[] takeFrames() {
+			byte[] bytes = frames.toByteArray();
+			frames.reset();
+			return bytes;
+		}
+
+		/**
+		 * Puts the frames not taken yet into the given buffer and removes them
+		 * from the encoder
+		 * 
+		 * @param buffer
+		 * @return the given buffer, or a larger direct buffer holding its
+		 *         contents followed by the frames if they did not fit
+		 */
+		public ByteBuffer takeFrames(ByteBuffer buffer) {
+			if (buffer.remaining() < frames.size()) {
+				ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(
+						buffer.capacity() * 2, buffer.position()
+								+ frames.size()));
+				buffer.flip();
+				grown.put(buffer);
+				buffer = grown;
+			}
+			frames.writeTo(buffer);
+			frames.reset();
+			return buffer;
+		}
+
+		private void writeFrame(int type, FrameBytes payload) {
+			if (payload.size() == 0) {
+				return;
+			}
+			int length = payload.size();
+			frames.write(length >>> 24);
+			frames.write(length >>> 16);
+			frames.write(length >>> 8);
+			frames.write(length);
+			frames.write(type);
+			payload.writeTo(frames);
+		}
+	}
+
+	/**
+	 * Gives access to the bytes written so far without copying them
+	 */
+	private static class FrameBytes extends ByteArrayOutputStream {
+		public void writeTo(FrameBytes out) {
+			out.write(buf, 0, count);
+		}
+
+		public void writeTo(ByteBuffer buffer) {
+			buffer.put(buf, 0, count);
+		}
+	}
+}
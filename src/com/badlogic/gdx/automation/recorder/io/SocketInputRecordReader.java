@@ -0,0 +1,271 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+import com.badlogic.gdx.automation.recorder.InputPlayer;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+
+/**
+ * An {@link InputRecordReader} receiving a record from a
+ * {@link SocketInputRecordWriter}, so an {@link InputPlayer} can play back
+ * input while it is being recorded somewhere else. See
+ * {@link SocketInputRecord} for the protocol.
+ * 
+ * The reader listens on the given port and accepts a single writer. The
+ * connection is served by a thread of its own using non-blocking channels,
+ * which stores the received values in a {@link LiveInputRecord}. The
+ * iterators of the reader follow the values received so far:
+ * {@link Iterator#hasNext()} of the sync value iterator waits until the next
+ * value has been received, and only returns false once the writer has closed
+ * the connection (or the waiting thread is interrupted).
+ * {@link #getRecordProperties()} and {@link #getStaticValues()} wait until the
+ * writer has sent them.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class SocketInputRecordReader extends SocketInputRecord implements
+		InputRecordReader {
+	private final ServerSocketChannel server;
+	private final Selector selector;
+	private final Thread receiver;
+
+	private final LiveInputRecord record = new LiveInputRecord();
+
+	private volatile boolean closed = false;
+
+	/**
+	 * @param port
+	 *            the port to listen on, or 0 to use any free port (see
+	 *            {@link #getPort()})
+	 * @throws IOException
+	 */
+	public SocketInputRecordReader(int port) throws IOException {
+		server = ServerSocketChannel.open();
+		try {
+			server.socket().bind(new InetSocketAddress(port));
+			server.configureBlocking(false);
+			selector = Selector.open();
+			server.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			server.close();
+			throw e;
+		}
+		receiver = new Thread(new Receiver(), "SocketInputRecordReader");
+		receiver.setDaemon(true);
+		receiver.start();
+	}
+
+	/**
+	 * @return the port the reader listens on
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	@Override
+	public RecordProperties getRecordProperties() {
+		return record.getRecordProperties();
+	}
+
+	@Override
+	public StaticProperties getStaticValues() {
+		return record.getStaticValues();
+	}
+
+	@Override
+	public Iterator<Text> getTextIterator() {
+		return record.getTextIterator();
+	}
+
+	@Override
+	public Iterator<PlaceholderText> getPlaceholderTextIterator() {
+		return record.getPlaceholderTextIterator();
+	}
+
+	@Override
+	public Iterator<SyncProperty> getSyncValueIterator() {
+		return record.getSyncValueIterator();
+	}
+
+	/**
+	 * @return the error that ended the connection, or null if it has not ended
+	 *         or has been closed regularly
+	 */
+	public IOException getError() {
+		return record.getError();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		selector.wakeup();
+	}
+
+	private class Receiver implements Runnable {
+		private BinaryPropertyCodec codec;
+		private SocketChannel client;
+		private ByteBuffer buffer = ByteBuffer.allocate(2 * BATCH_SIZE);
+
+		@Override
+		public void run() {
+			IOException failure = null;
+			try {
+				while (!closed) {
+					selector.select();
+					Iterator<SelectionKey> keys = selector.selectedKeys()
+							.iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						if (key.isAcceptable()) {
+							accept();
+						} else if (key.isReadable() && !receive()) {
+							return;
+						}
+					}
+				}
+			} catch (IOException e) {
+				failure = e;
+			} finally {
+				finish(failure);
+			}
+		}
+
+		private void accept() throws IOException {
+			SocketChannel channel = server.accept();
+			if (channel == null) {
+				return;
+			}
+			if (client != null) {
+				// only a single writer can be played back
+				channel.close();
+				return;
+			}
+			client = channel;
+			client.socket().setTcpNoDelay(true);
+			client.configureBlocking(false);
+			client.register(selector, SelectionKey.OP_READ);
+		}
+
+		/**
+		 * @return false if the writer has closed the connection
+		 */
+		private boolean receive() throws IOException {
+			if (!buffer.hasRemaining()) {
+				ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+				buffer.flip();
+				grown.put(buffer);
+				buffer = grown;
+			}
+			int read = client.read(buffer);
+			if (read < 0) {
+				if (buffer.position() > 0) {
+					throw new IOException("Connection closed within a frame");
+				}
+				return false;
+			}
+			buffer.flip();
+			try {
+				if (codec == null) {
+					if (buffer.remaining() < HEADER_SIZE) {
+						return true;
+					}
+					readHeader();
+				}
+				while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+					int length = buffer.getInt(buffer.position());
+					if (length < 0 || length > MAX_FRAME_SIZE) {
+						throw new IOException("Invalid frame length " + length);
+					}
+					if (buffer.remaining() < FRAME_HEADER_SIZE + length) {
+						break;
+					}
+					buffer.getInt();
+					int type = buffer.get();
+					DataInputStream in = new DataInputStream(
+							new ByteArrayInputStream(buffer.array(),
+									buffer.arrayOffset() + buffer.position(),
+									length));
+					buffer.position(buffer.position() + length);
+					readFrame(type, in);
+				}
+			} finally {
+				buffer.compact();
+			}
+			return true;
+		}
+
+		private void readHeader() throws IOException {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Not a socket input record");
+			}
+			int version = buffer.get();
+			if (version > VERSION) {
+				throw new IOException("Unsupported socket record version "
+						+ version);
+			}
+			int codecVersion = buffer.get();
+			if (codecVersion > BinaryPropertyCodec.VERSION) {
+				throw new IOException("Unsupported binary record version "
+						+ codecVersion);
+			}
+			codec = new BinaryPropertyCodec(codecVersion);
+		}
+
+		private void readFrame(int type, DataInputStream in)
+				throws IOException {
+			switch (type) {
+			case FRAME_RECORD_PROPERTIES:
+				record.setRecordProperties(codec.readRecordProperties(in,
+						new RecordProperties()));
+				break;
+			case FRAME_STATIC:
+				record.setStaticValues(codec.readStaticValues(in,
+						new StaticProperties()));
+				break;
+			case FRAME_SYNC:
+				SyncProperty property;
+				while ((property = codec.readSync(in)) != null) {
+					record.addSyncValue(property);
+				}
+				break;
+			case FRAME_ASYNC:
+				AsyncProperty asyncProperty;
+				while ((asyncProperty = codec.readAsync(in)) != null) {
+					record.addAsyncValue(asyncProperty);
+				}
+				break;
+			default:
+				throw new IOException("Unknown frame type " + type);
+			}
+		}
+
+		private void finish(IOException failure) {
+			try {
+				if (client != null) {
+					client.close();
+				}
+				server.close();
+				selector.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			record.finish(failure);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputRecorderConfiguration;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+
+/**
+ * An {@link InputRecordWriter} sending the record to a
+ * {@link SocketInputRecordReader}, e.g. in another process or on another
+ * device, which can play it back while it is being recorded. See
+ * {@link SocketInputRecord} for the protocol.
+ * 
+ * The connection is established by {@link #open()}. Properties are collected
+ * into frames which are sent once they hold {@link #BATCH_SIZE} bytes and on
+ * every {@link #flush()}. Nagle's algorithm is disabled, so flushed frames are
+ * sent right away. To send the input of every frame as soon as it has been
+ * recorded, enable {@link InputRecorderConfiguration#flushEveryFrame}.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class SocketInputRecordWriter extends SocketInputRecord implements
+		CountingInputRecordWriter {
+	private final InetSocketAddress address;
+	private SocketChannel channel;
+	private Selector selector;
+
+	private final FrameEncoder encoder = new FrameEncoder();
+	/**
+	 * the frames to be sent next
+	 */
+	private ByteBuffer sendBuffer = ByteBuffer.allocateDirect(2 * BATCH_SIZE);
+	private volatile long bytesWritten;
+
+	public SocketInputRecordWriter(String host, int port) {
+		this(new InetSocketAddress(host, port));
+	}
+
+	public SocketInputRecordWriter(InetSocketAddress address) {
+		this.address = address;
+	}
+
+	@Override
+	public synchronized void open() throws IOException {
+		close();
+		SocketChannel channel = SocketChannel.open();
+		try {
+			channel.socket().setTcpNoDelay(true);
+			channel.connect(address);
+			channel.configureBlocking(false);
+			selector = Selector.open();
+			channel.register(selector, SelectionKey.OP_WRITE);
+		} catch (IOException e) {
+			channel.close();
+			if (selector != null) {
+				selector.close();
+				selector = null;
+			}
+			throw e;
+		}
+		this.channel = channel;
+		encoder.reset();
+		bytesWritten = 0;
+		sendBuffer.clear();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (channel == null) {
+			throw new IOException("Cannot write to closed writer");
+		}
+	}
+
+	@Override
+	public synchronized void writeRecordProperties(RecordProperties properties)
+			throws IOException {
+		ensureOpen();
+		encoder.writeRecordProperties(properties);
+		send();
+	}
+
+	@Override
+	public synchronized void writeStaticValues(StaticProperties values)
+			throws IOException {
+		ensureOpen();
+		encoder.writeStaticValues(values);
+		send();
+	}
+
+	@Override
+	public synchronized void writeSyncValues(SyncProperty values)
+			throws IOException {
+		ensureOpen();
+		if (encoder.writeSyncValues(values)) {
+			sendFrames();
+		}
+	}
+
+	@Override
+	public synchronized void writeAsyncValues(AsyncProperty values)
+			throws IOException {
+		ensureOpen();
+		if (encoder.writeAsyncValues(values)) {
+			sendFrames();
+		}
+	}
+
+	/**
+	 * @return the number of bytes sent so far
+	 */
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		if (channel != null) {
+			sendFrames();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		try {
+			sendFrames();
+		} finally {
+			selector.close();
+			selector = null;
+			// the reader sees the end of the record
+			channel.close();
+			channel = null;
+		}
+	}
+
+	private void sendFrames() throws IOException {
+		encoder.endBatch();
+		send();
+	}
+
+	private void send() throws IOException {
+		sendBuffer = encoder.takeFrames(sendBuffer);
+		sendBuffer.flip();
+		try {
+			while (sendBuffer.hasRemaining()) {
+				int written = channel.write(sendBuffer);
+				bytesWritten += written;
+				if (written == 0) {
+					// the socket's send buffer is full, wait until the reader
+					// has caught up
+					selector.select();
+					selector.selectedKeys().clear();
+				}
+			}
+		} finally {
+			sendBuffer.compact();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Accelerometer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Button;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyPressed;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncPropertyVisitor;
+
+/**
+ * Creates copies of {@link SyncProperty}s, for {@link InputRecordWriter}s that
+ * need to keep the properties given to
+ * {@link InputRecordWriter#writeSyncValues(SyncProperty) writeSyncValues}.
+ * Not thread safe, so every writer should have its own instance.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+public class SyncPropertyCopier implements SyncPropertyVisitor {
+	private SyncProperty copy;
+
+	/**
+	 * @param property
+	 * @return a new {@link SyncProperty} of the same type and with the same
+	 *         values as the given one
+	 */
+	public SyncProperty copy(SyncProperty property) {
+		property.accept(this);
+		SyncProperty result = copy;
+		copy = null;
+		return result;
+	}
+
+	@Override
+	public void visitAccelerometer(Accelerometer accelerometer) {
+		Accelerometer result = new Accelerometer();
+		result.set(accelerometer);
+		copy = result;
+	}
+
+	@Override
+	public void visitKeyPressed(KeyPressed keyPressed) {
+		KeyPressed result = new KeyPressed();
+		result.set(keyPressed);
+		copy = result;
+	}
+
+	@Override
+	public void visitPointerEvent(PointerEvent pointerEvent) {
+		PointerEvent result = new PointerEvent();
+		result.set(pointerEvent);
+		copy = result;
+	}
+
+	@Override
+	public void visitKeyEvent(KeyEvent keyEvent) {
+		KeyEvent result = new KeyEvent();
+		result.set(keyEvent);
+		copy = result;
+	}
+
+	@Override
+	public void visitOrientation(Orientation orientation) {
+		Orientation result = new Orientation();
+		result.set(orientation);
+		copy = result;
+	}
+
+	@Override
+	public void visitPointer(Pointer pointer) {
+		Pointer result = new Pointer();
+		result.set(pointer);
+		copy = result;
+	}
+
+	@Override
+	public void visitButton(Button button) {
+		Button result = new Button();
+		result.set(button);
+		copy = result;
+	}
+}
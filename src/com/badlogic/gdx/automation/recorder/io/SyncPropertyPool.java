@@ -0,0 +1,180 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Accelerometer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Button;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyPressed;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncPropertyVisitor;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Keeps a {@link Pool} per {@link SyncProperty} type, so writers that need to
+ * hold on to the properties given to them can copy them without allocating in
+ * the long run. All methods are synchronized, so copies can be obtained and
+ * freed on different threads.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class SyncPropertyPool {
+	private final Pool<Accelerometer> accelerometers = new Pool<Accelerometer>() {
+		@Override
+		protected Accelerometer newObject() {
+			return new Accelerometer();
+		}
+	};
+	private final Pool<KeyPressed> keysPressed = new Pool<KeyPressed>() {
+		@Override
+		protected KeyPressed newObject() {
+			return new KeyPressed();
+		}
+	};
+	private final Pool<PointerEvent> pointerEvents = new Pool<PointerEvent>() {
+		@Override
+		protected PointerEvent newObject() {
+			return new PointerEvent();
+		}
+	};
+	private final Pool<KeyEvent> keyEvents = new Pool<KeyEvent>() {
+		@Override
+		protected KeyEvent newObject() {
+			return new KeyEvent();
+		}
+	};
+	private final Pool<Orientation> orientations = new Pool<Orientation>() {
+		@Override
+		protected Orientation newObject() {
+			return new Orientation();
+		}
+	};
+	private final Pool<Pointer> pointers = new Pool<Pointer>() {
+		@Override
+		protected Pointer newObject() {
+			return new Pointer();
+		}
+	};
+	private final Pool<Button> buttons = new Pool<Button>() {
+		@Override
+		protected Button newObject() {
+			return new Button();
+		}
+	};
+
+	private final Copier copier = new Copier();
+	private final Freer freer = new Freer();
+
+	/**
+	 * @param property
+	 * @return a pooled {@link SyncProperty} of the same type and with the same
+	 *         values as the given one
+	 */
+	public synchronized SyncProperty obtainCopy(SyncProperty property) {
+		property.accept(copier);
+		SyncProperty copy = copier.copy;
+		copier.copy = null;
+		return copy;
+	}
+
+	/**
+	 * Returns a copy obtained by {@link #obtainCopy(SyncProperty)} to its pool
+	 * 
+	 * @param copy
+	 */
+	public synchronized void free(SyncProperty copy) {
+		copy.accept(freer);
+	}
+
+	private class Copier implements SyncPropertyVisitor {
+		SyncProperty copy;
+
+		@Override
+		public void visitAccelerometer(Accelerometer accelerometer) {
+			Accelerometer result = accelerometers.obtain();
+			result.set(accelerometer);
+			copy = result;
+		}
+
+		@Override
+		public void visitKeyPressed(KeyPressed keyPressed) {
+			KeyPressed result = keysPressed.obtain();
+			result.set(keyPressed);
+			copy = result;
+		}
+
+		@Override
+		public void visitPointerEvent(PointerEvent pointerEvent) {
+			PointerEvent result = pointerEvents.obtain();
+			result.set(pointerEvent);
+			copy = result;
+		}
+
+		@Override
+		public void visitKeyEvent(KeyEvent keyEvent) {
+			KeyEvent result = keyEvents.obtain();
+			result.set(keyEvent);
+			copy = result;
+		}
+
+		@Override
+		public void visitOrientation(Orientation orientation) {
+			Orientation result = orientations.obtain();
+			result.set(orientation);
+			copy = result;
+		}
+
+		@Override
+		public void visitPointer(Pointer pointer) {
+			Pointer result = pointers.obtain();
+			result.set(pointer);
+			copy = result;
+		}
+
+		@Override
+		public void visitButton(Button button) {
+			Button result = buttons.obtain();
+			result.set(button);
+			copy = result;
+		}
+	}
+
+	private class Freer implements SyncPropertyVisitor {
+		@Override
+		public void visitAccelerometer(Accelerometer accelerometer) {
+			accelerometers.free(accelerometer);
+		}
+
+		@Override
+		public void visitKeyPressed(KeyPressed keyPressed) {
+			keysPressed.free(keyPressed);
+		}
+
+		@Override
+		public void visitPointerEvent(PointerEvent pointerEvent) {
+			pointerEvents.free(pointerEvent);
+		}
+
+		@Override
+		public void visitKeyEvent(KeyEvent keyEvent) {
+			keyEvents.free(keyEvent);
+		}
+
+		@Override
+		public void visitOrientation(Orientation orientation) {
+			orientations.free(orientation);
+		}
+
+		@Override
+		public void visitPointer(Pointer pointer) {
+			pointers.free(pointer);
+		}
+
+		@Override
+		public void visitButton(Button button) {
+			buttons.free(button);
+		}
+	}
+}
@@ -0,0 +1,325 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Accelerometer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Button;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyPressed;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncPropertyVisitor;
+
+/**
+ * Stores {@link SyncProperty SyncProperties} in a few primitive arrays instead
+ * of one object per property: the type (one of the
+ * {@link BinaryPropertyCodec} tags), time delta and frame delta of every
+ * property are kept in arrays of their own, while the values of all
+ * properties are appended to one int and one float array. Every type has a
+ * fixed number of ints and floats, so iterating only needs to know where it
+ * started.
+ * 
+ * Properties can only be appended, by a single thread at a time. Any number of
+ * iterators can read the store concurrently without copying it, either up to
+ * the size the store had when they were created or
+ * {@link #followingIterator() following} the properties appended while
+ * iterating. A property only becomes visible to other threads once it has
+ * been written completely, by publishing the new size through a volatile
+ * field. The arrays themselves are volatile, too, so a reader picking up an
+ * array replaced by a larger one sees the values copied into it.
+ * 
+ * @author Lukas Böhm
+ * 
+ */
+class SyncPropertyStore {
+	private static final KeyPressed.Type[] keyPressedTypes = KeyPressed.Type
+			.values();
+	private static final KeyEvent.Type[] keyEventTypes = KeyEvent.Type
+			.values();
+	private static final PointerEvent.Type[] pointerEventTypes = PointerEvent.Type
+			.values();
+
+	private volatile byte[] types = new byte[64];
+	private volatile long[] timeDeltas = new long[64];
+	private volatile long[] frameDeltas = new long[64];
+	private volatile int[] ints = new int[256];
+	private volatile float[] floats = new float[256];
+	/**
+	 * the number of properties visible to readers, only written after all
+	 * values of the last property
+	 */
+	private volatile int size = 0;
+	private int intCount = 0;
+	private int floatCount = 0;
+
+	private final Appender appender = new Appender();
+
+	public void add(SyncProperty property) {
+		if (size == types.length) {
+			int capacity = size * 2;
+			types = copyOf(types, capacity);
+			timeDeltas = copyOf(timeDeltas, capacity);
+			frameDeltas = copyOf(frameDeltas, capacity);
+		}
+		// no property needs more than 4 ints or 19 floats
+		ensureValueCapacity(4, 19);
+		property.accept(appender);
+		timeDeltas[size] = property.timeDelta;
+		frameDeltas[size] = property.frameDelta;
+		// publishes the property to readers
+		size = size + 1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of bytes taken by the values of the properties added
+	 *         so far: type, time and frame delta plus 4 bytes per int and
+	 *         float. May lag behind if called while a property is added.
+	 */
+	public long byteSize() {
+		// read first, so the counts are at least those of the size
+		int size = this.size;
+		return size * 17L + (intCount + floatCount) * 4L;
+	}
+
+	/**
+	 * @return an iterator over the properties added so far, each returned as a
+	 *         new object
+	 */
+	public Iterator<SyncProperty> iterator() {
+		return iterator(size);
+	}
+
+	/**
+	 * @param end
+	 *            the number of properties to iterate over, as returned by
+	 *            {@link #size()} earlier
+	 * @return an iterator over the first end properties, each returned as a new
+	 *         object
+	 */
+	public Iterator<SyncProperty> iterator(int end) {
+		if (end < 0 || end > size) {
+			throw new IllegalArgumentException("Store only contains " + size
+					+ " properties, not " + end);
+		}
+		return new StoreIterator(end, false);
+	}
+
+	/**
+	 * @return an iterator over all properties of this store, including the
+	 *         ones added while iterating. {@link Iterator#hasNext()} returns
+	 *         false when the iterator has caught up with the properties added
+	 *         so far, but may return true again later on.
+	 */
+	public Iterator<SyncProperty> followingIterator() {
+		return new StoreIterator(0, true);
+	}
+
+	private void ensureValueCapacity(int moreInts, int moreFloats) {
+		if (intCount + moreInts > ints.length) {
+			int[] grown = new int[Math.max(ints.length * 2, intCount
+					+ moreInts)];
+			System.arraycopy(ints, 0, grown, 0, intCount);
+			ints = grown;
+		}
+		if (floatCount + moreFloats > floats.length) {
+			float[] grown = new float[Math.max(floats.length * 2, floatCount
+					+ moreFloats)];
+			System.arraycopy(floats, 0, grown, 0, floatCount);
+			floats = grown;
+		}
+	}
+
+	private static byte[] copyOf(byte[] array, int length) {
+		byte[] copy = new byte[length];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static long[] copyOf(long[] array, int length) {
+		long[] copy = new long[length];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private class Appender implements SyncPropertyVisitor {
+		@Override
+		public void visitAccelerometer(Accelerometer accelerometer) {
+			types[size] = BinaryPropertyCodec.TAG_ACCELEROMETER;
+			floats[floatCount++] = accelerometer.accelerometerX;
+			floats[floatCount++] = accelerometer.accelerometerY;
+			floats[floatCount++] = accelerometer.accelerometerZ;
+		}
+
+		@Override
+		public void visitKeyPressed(KeyPressed keyPressed) {
+			types[size] = BinaryPropertyCodec.TAG_KEY_PRESSED;
+			ints[intCount++] = keyPressed.type.ordinal();
+			ints[intCount++] = keyPressed.keyCode;
+		}
+
+		@Override
+		public void visitPointerEvent(PointerEvent pointerEvent) {
+			types[size] = BinaryPropertyCodec.TAG_POINTER_EVENT;
+			ints[intCount++] = pointerEvent.type.ordinal();
+			ints[intCount++] = pointerEvent.scrollAmount;
+			ints[intCount++] = pointerEvent.button;
+			ints[intCount++] = pointerEvent.pointer;
+			floats[floatCount++] = pointerEvent.x;
+			floats[floatCount++] = pointerEvent.y;
+		}
+
+		@Override
+		public void visitKeyEvent(KeyEvent keyEvent) {
+			types[size] = BinaryPropertyCodec.TAG_KEY_EVENT;
+			ints[intCount++] = keyEvent.type.ordinal();
+			ints[intCount++] = keyEvent.keyCode;
+			ints[intCount++] = keyEvent.keyChar;
+		}
+
+		@Override
+		public void visitOrientation(Orientation orientation) {
+			types[size] = BinaryPropertyCodec.TAG_ORIENTATION;
+			ints[intCount++] = orientation.orientation;
+			floats[floatCount++] = orientation.roll;
+			floats[floatCount++] = orientation.pitch;
+			floats[floatCount++] = orientation.azimuth;
+			System.arraycopy(orientation.rotationMatrix, 0, floats,
+					floatCount, 16);
+			floatCount += 16;
+		}
+
+		@Override
+		public void visitPointer(Pointer pointer) {
+			types[size] = BinaryPropertyCodec.TAG_POINTER;
+			ints[intCount++] = pointer.pointer;
+			floats[floatCount++] = pointer.x;
+			floats[floatCount++] = pointer.y;
+			floats[floatCount++] = pointer.deltaX;
+			floats[floatCount++] = pointer.deltaY;
+		}
+
+		@Override
+		public void visitButton(Button button) {
+			types[size] = BinaryPropertyCodec.TAG_BUTTON;
+			ints[intCount++] = (button.button0 ? 1 : 0)
+					| (button.button1 ? 2 : 0) | (button.button2 ? 4 : 0);
+		}
+	}
+
+	private class StoreIterator implements Iterator<SyncProperty> {
+		private final int end;
+		private final boolean following;
+		private int index = 0;
+		private int intIndex = 0;
+		private int floatIndex = 0;
+
+		public StoreIterator(int end, boolean following) {
+			this.end = end;
+			this.following = following;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < (following ? size : end);
+		}
+
+		@Override
+		public SyncProperty next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// the arrays may have been replaced by larger ones in the
+			// meantime, which contain the same values up to the size read in
+			// hasNext()
+			int[] ints = SyncPropertyStore.this.ints;
+			float[] floats = SyncPropertyStore.this.floats;
+			SyncProperty result;
+			switch (types[index]) {
+			case BinaryPropertyCodec.TAG_ACCELEROMETER: {
+				Accelerometer accelerometer = new Accelerometer();
+				accelerometer.accelerometerX = floats[floatIndex++];
+				accelerometer.accelerometerY = floats[floatIndex++];
+				accelerometer.accelerometerZ = floats[floatIndex++];
+				result = accelerometer;
+				break;
+			}
+			case BinaryPropertyCodec.TAG_KEY_PRESSED: {
+				KeyPressed keyPressed = new KeyPressed();
+				keyPressed.type = keyPressedTypes[ints[intIndex++]];
+				keyPressed.keyCode = ints[intIndex++];
+				result = keyPressed;
+				break;
+			}
+			case BinaryPropertyCodec.TAG_POINTER_EVENT: {
+				PointerEvent pointerEvent = new PointerEvent();
+				pointerEvent.type = pointerEventTypes[ints[intIndex++]];
+				pointerEvent.scrollAmount = ints[intIndex++];
+				pointerEvent.button = ints[intIndex++];
+				pointerEvent.pointer = ints[intIndex++];
+				pointerEvent.x = floats[floatIndex++];
+				pointerEvent.y = floats[floatIndex++];
+				result = pointerEvent;
+				break;
+			}
+			case BinaryPropertyCodec.TAG_KEY_EVENT: {
+				KeyEvent keyEvent = new KeyEvent();
+				keyEvent.type = keyEventTypes[ints[intIndex++]];
+				keyEvent.keyCode = ints[intIndex++];
+				keyEvent.keyChar = (char) ints[intIndex++];
+				result = keyEvent;
+				break;
+			}
+			case BinaryPropertyCodec.TAG_ORIENTATION: {
+				Orientation orientation = new Orientation();
+				orientation.orientation = ints[intIndex++];
+				orientation.roll = floats[floatIndex++];
+				orientation.pitch = floats[floatIndex++];
+				orientation.azimuth = floats[floatIndex++];
+				System.arraycopy(floats, floatIndex,
+						orientation.rotationMatrix, 0, 16);
+				floatIndex += 16;
+				result = orientation;
+				break;
+			}
+			case BinaryPropertyCodec.TAG_POINTER: {
+				Pointer pointer = new Pointer();
+				pointer.pointer = ints[intIndex++];
+				pointer.x = floats[floatIndex++];
+				pointer.y = floats[floatIndex++];
+				pointer.deltaX = floats[floatIndex++];
+				pointer.deltaY = floats[floatIndex++];
+				result = pointer;
+				break;
+			}
+			case BinaryPropertyCodec.TAG_BUTTON: {
+				Button button = new Button();
+				int buttons = ints[intIndex++];
+				button.button0 = (buttons & 1) != 0;
+				button.button1 = (buttons & 2) != 0;
+				button.button2 = (buttons & 4) != 0;
+				result = button;
+				break;
+			}
+			default:
+				throw new IllegalStateException("Unknown property type "
+						+ types[index]);
+			}
+			result.timeDelta = timeDeltas[index];
+			result.frameDelta = frameDeltas[index];
+			index++;
+			return result;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Accelerometer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Button;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyPressed;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncPropertyVisitor;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * The input state left behind by the sync properties of a record up to some
+ * point in time: the last {@link Accelerometer}, {@link Orientation} and
+ * {@link Button} values, the last {@link Pointer} of every pointer and the
+ * keys held according to {@link KeyPressed}. Events only happen once and are
+ * not part of the state.
+ *
+ * Writers note down a snapshot at the start of every index block, so a
+ * {@link SeekableInputRecordReader} starting in the middle of a record only
+ * has to update the snapshot of a single block to know the state reached at
+ * the start time.
+ *
+ * @author Lukas Böhm
+ *
+ */
+class SyncStateSnapshot implements SyncPropertyVisitor {
+	private final Accelerometer accelerometer = new Accelerometer();
+	private final Orientation orientation = new Orientation();
+	private final Button button = new Button();
+	private boolean hasAccelerometer;
+	private boolean hasOrientation;
+	private boolean hasButton;
+	/**
+	 * the last values of every pointer, null for pointers not seen yet
+	 */
+	private final Array<Pointer> pointers = new Array<Pointer>();
+	private final IntArray pressedKeys = new IntArray();
+
+	public void clear() {
+		hasAccelerometer = false;
+		hasOrientation = false;
+		hasButton = false;
+		pointers.clear();
+		pressedKeys.clear();
+	}
+
+	public boolean isEmpty() {
+		return !hasAccelerometer && !hasOrientation && !hasButton
+				&& pointers.size == 0 && pressedKeys.size == 0;
+	}
+
+	/**
+	 * Updates the state with the given property, which follows the ones
+	 * given before
+	 *
+	 * @param property
+	 */
+	public void update(SyncProperty property) {
+		property.accept(this);
+	}
+
+	/**
+	 * @return new properties that restore this state when applied, with a
+	 *         time and frame delta of 0
+	 */
+	public List<SyncProperty> toProperties() {
+		List<SyncProperty> properties = new ArrayList<SyncProperty>();
+		if (hasAccelerometer) {
+			Accelerometer copy = new Accelerometer();
+			copy.set(accelerometer);
+			properties.add(copy);
+		}
+		if (hasOrientation) {
+			Orientation copy = new Orientation();
+			copy.set(orientation);
+			properties.add(copy);
+		}
+		if (hasButton) {
+			Button copy = new Button();
+			copy.set(button);
+			properties.add(copy);
+		}
+		for (int i = 0; i < pointers.size; i++) {
+			if (pointers.get(i) != null) {
+				Pointer copy = new Pointer();
+				copy.set(pointers.get(i));
+				properties.add(copy);
+			}
+		}
+		for (int i = 0; i < pressedKeys.size; i++) {
+			KeyPressed pressed = new KeyPressed();
+			pressed.type = KeyPressed.Type.PRESS;
+			pressed.keyCode = pressedKeys.get(i);
+			properties.add(pressed);
+		}
+		for (int i = 0; i < properties.size(); i++) {
+			properties.get(i).timeDelta = 0;
+			properties.get(i).frameDelta = 0;
+		}
+		return properties;
+	}
+
+	/**
+	 * @return the state encoded as a count followed by the properties of
+	 *         {@link #toProperties()}
+	 * @throws IOException
+	 */
+	public byte[] toBytes() throws IOException {
+		List<SyncProperty> properties = toProperties();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		BinaryPropertyCodec codec = new BinaryPropertyCodec();
+		BinaryPropertyCodec.writeVarInt(out, properties.size());
+		for (int i = 0; i < properties.size(); i++) {
+			codec.writeSync(out, properties.get(i));
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Replaces this state with one encoded by {@link #toBytes()}
+	 *
+	 * @param bytes
+	 * @param version
+	 *            the version of the {@link BinaryPropertyCodec} the state has
+	 *            been encoded with
+	 * @throws IOException
+	 */
+	public void read(byte[] bytes, int version) throws IOException {
+		clear();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				bytes));
+		BinaryPropertyCodec codec = new BinaryPropertyCodec(version);
+		int count = BinaryPropertyCodec.readVarInt(in);
+		for (int i = 0; i < count; i++) {
+			SyncProperty property = codec.readSync(in);
+			if (property == null) {
+				throw new IOException("Truncated state snapshot");
+			}
+			update(property);
+		}
+	}
+
+	@Override
+	public void visitAccelerometer(Accelerometer accelerometer) {
+		this.accelerometer.set(accelerometer);
+		hasAccelerometer = true;
+	}
+
+	@Override
+	public void visitKeyPressed(KeyPressed keyPressed) {
+		if (keyPressed.type == KeyPressed.Type.PRESS) {
+			if (!pressedKeys.contains(keyPressed.keyCode)) {
+				pressedKeys.add(keyPressed.keyCode);
+			}
+		} else {
+			pressedKeys.removeValue(keyPressed.keyCode);
+		}
+	}
+
+	@Override
+	public void visitPointerEvent(PointerEvent pointerEvent) {
+	}
+
+	@Override
+	public void visitKeyEvent(KeyEvent keyEvent) {
+	}
+
+	@Override
+	public void visitOrientation(Orientation orientation) {
+		this.orientation.set(orientation);
+		hasOrientation = true;
+	}
+
+	@Override
+	public void visitPointer(Pointer pointer) {
+		while (pointers.size <= pointer.pointer) {
+			pointers.add(null);
+		}
+		Pointer last = pointers.get(pointer.pointer);
+		if (last == null) {
+			last = new Pointer();
+			pointers.set(pointer.pointer, last);
+		}
+		last.set(pointer);
+	}
+
+	@Override
+	public void visitButton(Button button) {
+		this.button.set(button);
+		hasButton = true;
+	}
+}
@@ -0,0 +1,166 @@
+package com.badlogic.gdx.automation.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.io.InputRecordWriter;
+
+public class InputStateProcessorTest {
+	private static final int POINTERS = 2;
+	private static final int WARMUP_FRAMES = 20000;
+	private static final int FRAMES = 10000;
+
+	private static class CountingWriter implements InputRecordWriter {
+		int syncValues = 0;
+
+		@Override
+		public void flush() throws IOException {
+		}
+
+		@Override
+		public void close() throws IOException {
+		}
+
+		@Override
+		public void writeRecordProperties(RecordProperties properties)
+				throws IOException {
+		}
+
+		@Override
+		public void writeStaticValues(StaticProperties values)
+				throws IOException {
+		}
+
+		@Override
+		public void writeSyncValues(SyncProperty values) throws IOException {
+			syncValues++;
+		}
+
+		@Override
+		public void writeAsyncValues(AsyncProperty values) throws IOException {
+		}
+
+		@Override
+		public void open() throws IOException {
+		}
+	}
+
+	@Test
+	public void testNoAllocationPerFrame() throws IOException {
+		java.lang.management.ThreadMXBean bean = ManagementFactory
+				.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported()
+				&& threads.isThreadAllocatedMemoryEnabled());
+
+		CountingWriter writer = new CountingWriter();
+		InputRecorderConfiguration config = new InputRecorderConfiguration();
+		config.absoluteCoords = true;
+		config.recordButtons = true;
+		config.recordPointers = true;
+		config.recordedPointerCount = POINTERS;
+		config.recordKeysPressed = true;
+		config.recordKeyEvents = true;
+		config.recordPointerEvents = true;
+		config.writer = writer;
+		InputRecorder recorder = new InputRecorder(config);
+		InputStateProcessor processor = new InputStateProcessor(recorder);
+		InputState[] states = new InputState[] { new InputState(POINTERS),
+				new InputState(POINTERS) };
+
+		runFrames(processor, states, 0, WARMUP_FRAMES);
+		long thread = Thread.currentThread().getId();
+		int written = writer.syncValues;
+		long before = threads.getThreadAllocatedBytes(thread);
+		runFrames(processor, states, WARMUP_FRAMES, FRAMES);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertTrue(writer.syncValues - written >= FRAMES * 4);
+		assertTrue("Allocated " + allocated + " bytes in " + FRAMES
+				+ " frames", allocated < FRAMES);
+		// measuring is part of the frames above
+		assertEquals(writer.syncValues, recorder.getMetrics()
+				.getSyncValuesWritten());
+	}
+
+	@Test
+	public void testActivePointersOnly() throws IOException {
+		CountingWriter writer = new CountingWriter();
+		InputRecorderConfiguration config = new InputRecorderConfiguration();
+		config.absoluteCoords = true;
+		config.recordPointers = true;
+		config.recordActivePointersOnly = true;
+		config.recordedPointerCount = 20;
+		config.recordKeyEvents = false;
+		config.recordPointerEvents = false;
+		config.writer = writer;
+		InputStateProcessor processor = new InputStateProcessor(
+				new InputRecorder(config));
+		InputState state = new InputState(20);
+
+		// only the sampled pointer is written, not all 20
+		state.activePointers = 1;
+		processor.process(state);
+		assertEquals(1, writer.syncValues);
+		processor.process(state);
+		assertEquals(1, writer.syncValues);
+
+		// a pointer becoming active is written even if its values are the same
+		state.activePointers = 1 | 1 << 5;
+		processor.process(state);
+		assertEquals(2, writer.syncValues);
+		state.setPointer(5, 10, 0, 0, 0, true);
+		processor.process(state);
+		assertEquals(3, writer.syncValues);
+
+		// released pointers are not compared anymore
+		state.activePointers = 1;
+		state.setPointer(5, 20, 0, 0, 0, false);
+		processor.process(state);
+		assertEquals(3, writer.syncValues);
+	}
+
+	/**
+	 * Feeds the processor states in which every tracked value changes every
+	 * frame
+	 */
+	private static void runFrames(InputStateProcessor processor,
+			InputState[] states, int start, int count) throws IOException {
+		for (int frame = start; frame < start + count; frame++) {
+			InputState state = states[frame % states.length];
+			state.initialize(POINTERS);
+			state.timeStamp = frame * 16L;
+			state.setPointer(0, frame % 640, frame % 480, 1, 1, true);
+			state.button0 = frame % 2 == 0;
+			if (frame % 2 == 0) {
+				state.pressedKeys.set(Keys.A);
+			}
+
+			EventBufferAccessHelper.KeyEvent keyEvent = state.addKeyEvent();
+			keyEvent.timeStamp = state.timeStamp;
+			keyEvent.type = SyncProperty.KeyEvent.Type.KEY_TYPED;
+			keyEvent.keyChar = 'a';
+			keyEvent.keyCode = Keys.A;
+
+			EventBufferAccessHelper.PointerEvent pointerEvent = state
+					.addPointerEvent();
+			pointerEvent.timeStamp = state.timeStamp;
+			pointerEvent.type = SyncProperty.PointerEvent.Type.TOUCH_DRAGGED;
+			pointerEvent.x = state.getX(0);
+			pointerEvent.y = state.getY(0);
+
+			processor.process(state);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.badlogic.gdx.automation.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.automation.recorder.InputRecorderConfiguration.OverflowPolicy;
+
+public class InputStateRingTest {
+
+	private static void publish(InputStateRing ring, long timeStamp) {
+		ring.claim().timeStamp = timeStamp;
+		ring.publish();
+	}
+
+	private static long take(InputStateRing ring) {
+		InputState state = ring.take();
+		long timeStamp = state.timeStamp;
+		ring.release();
+		return timeStamp;
+	}
+
+	@Test
+	public void testOrder() {
+		InputStateRing ring = new InputStateRing(3, OverflowPolicy.BLOCK, 1,
+				1);
+		assertEquals(4, ring.getCapacity());
+		assertNull(ring.take());
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 4; i++) {
+				publish(ring, round * 4 + i);
+			}
+			for (int i = 0; i < 4; i++) {
+				assertEquals(round * 4 + i, take(ring));
+			}
+			assertNull(ring.take());
+		}
+	}
+
+	@Test
+	public void testDropOldest() {
+		InputStateRing ring = new InputStateRing(2, OverflowPolicy.DROP_OLDEST,
+				1, 1);
+		publish(ring, 0);
+		publish(ring, 1);
+		publish(ring, 2);
+		assertEquals(1, ring.getDroppedCount());
+		assertEquals(1, take(ring));
+
+		// the oldest state is being processed, so the newest one is dropped
+		InputState processed = ring.take();
+		publish(ring, 3);
+		publish(ring, 4);
+		assertEquals(2, ring.getDroppedCount());
+		assertEquals(2, processed.timeStamp);
+		ring.release();
+		assertEquals(3, take(ring));
+		assertNull(ring.take());
+	}
+
+	@Test
+	public void testGrow() {
+		InputStateRing ring = new InputStateRing(2, OverflowPolicy.GROW, 1, 1);
+		for (int i = 0; i < 5; i++) {
+			publish(ring, i);
+		}
+		assertEquals(0, take(ring));
+		assertEquals(1, take(ring));
+		// overflowing states move into the ring as the producer continues
+		publish(ring, 5);
+		assertEquals(2, take(ring));
+		assertEquals(3, take(ring));
+		publish(ring, 6);
+		assertEquals(4, take(ring));
+		assertEquals(5, take(ring));
+		ring.drain();
+		assertEquals(6, take(ring));
+		assertNull(ring.take());
+		assertEquals(0, ring.getDroppedCount());
+	}
+
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		final int count = 200000;
+		final InputStateRing ring = new InputStateRing(16,
+				OverflowPolicy.BLOCK, 1, 4);
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < count; i++) {
+					publish(ring, i);
+				}
+			}
+		});
+		producer.start();
+		long expected = 0;
+		while (expected < count) {
+			InputState state = ring.take();
+			if (state == null) {
+				ring.await(1000000);
+				continue;
+			}
+			assertEquals(expected, state.timeStamp);
+			ring.release();
+			expected++;
+		}
+		producer.join();
+		assertNull(ring.take());
+	}
+}
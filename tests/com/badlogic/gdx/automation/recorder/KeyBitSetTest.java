@@ -0,0 +1,71 @@
+package com.badlogic.gdx.automation.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.Input.Keys;
+
+public class KeyBitSetTest {
+
+	@Test
+	public void testSetClear() {
+		KeyBitSet keys = new KeyBitSet();
+		assertTrue(keys.isEmpty());
+		keys.set(Keys.A);
+		keys.set(255);
+		keys.set(Keys.ANY_KEY);
+		assertTrue(keys.get(Keys.A));
+		assertTrue(keys.get(255));
+		assertFalse(keys.get(Keys.B));
+		assertFalse(keys.get(Keys.ANY_KEY));
+		keys.clear(Keys.A);
+		assertFalse(keys.get(Keys.A));
+		keys.clear();
+		assertTrue(keys.isEmpty());
+	}
+
+	@Test
+	public void testGrow() {
+		KeyBitSet keys = new KeyBitSet();
+		keys.set(1000);
+		assertTrue(keys.get(1000));
+		assertFalse(keys.get(999));
+
+		KeyBitSet copy = new KeyBitSet();
+		copy.set(3);
+		copy.set(keys);
+		assertTrue(copy.get(1000));
+		assertFalse(copy.get(3));
+	}
+
+	@Test
+	public void testNextSetKey() {
+		KeyBitSet keys = new KeyBitSet();
+		keys.set(0);
+		keys.set(63);
+		keys.set(64);
+		keys.set(200);
+		assertEquals(0, keys.nextSetKey(0));
+		assertEquals(63, keys.nextSetKey(1));
+		assertEquals(64, keys.nextSetKey(64));
+		assertEquals(200, keys.nextSetKey(65));
+		assertEquals(-1, keys.nextSetKey(201));
+	}
+
+	@Test
+	public void testWordDiff() {
+		KeyBitSet last = new KeyBitSet();
+		KeyBitSet current = new KeyBitSet();
+		last.set(Keys.A);
+		last.set(Keys.B);
+		current.set(Keys.B);
+		current.set(Keys.C);
+		// A, B and C all share the first word
+		assertEquals(1L << Keys.C, current.word(0) & ~last.word(0));
+		assertEquals(1L << Keys.A, last.word(0) & ~current.word(0));
+		assertEquals(0, last.word(100));
+	}
+}
@@ -0,0 +1,61 @@
+package com.badlogic.gdx.automation.recorder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PlaybackSchedulerTest {
+
+	@Test
+	public void testNoDrift() throws InterruptedException {
+		PlaybackScheduler scheduler = new PlaybackScheduler();
+		long start = System.nanoTime();
+		scheduler.start();
+		long recordTime = 0;
+		// many small deltas, each of which would add its sleep error if the
+		// deltas were slept one after another
+		for (int i = 0; i < 200; i++) {
+			recordTime += 1;
+			scheduler.awaitRecordTime(recordTime);
+			assertTrue(System.nanoTime() >= scheduler
+					.getTargetNanos(recordTime));
+		}
+		long elapsedMs = (System.nanoTime() - start) / 1000000;
+		assertTrue("Playback took " + elapsedMs + "ms", elapsedMs >= 200);
+		assertTrue("Playback took " + elapsedMs + "ms", elapsedMs < 250);
+		assertTrue(scheduler.getMaxJitterNanos() >= 0);
+	}
+
+	@Test
+	public void testDelay() {
+		PlaybackScheduler scheduler = new PlaybackScheduler();
+		scheduler.start();
+		assertTrue(scheduler.isDue(0));
+		scheduler.delay(10000);
+		assertFalse(scheduler.isDue(0));
+		scheduler.recordJitter(5);
+		scheduler.recordJitter(3);
+		assertTrue(scheduler.getMaxJitterNanos() == 5);
+		scheduler.resetJitter();
+		assertTrue(scheduler.getMaxJitterNanos() == 0);
+	}
+
+	@Test
+	public void testSpeed() {
+		PlaybackScheduler scheduler = new PlaybackScheduler();
+		scheduler.start();
+		scheduler.setSpeed(10, 0);
+		long anchor = scheduler.getTargetNanos(0);
+		assertTrue(scheduler.getTargetNanos(1000) - anchor == 100000000L);
+		// changing the speed keeps the record time reached so far
+		scheduler.setSpeed(2, 1000);
+		anchor = scheduler.getTargetNanos(1000);
+		assertTrue(scheduler.getTargetNanos(2000) - anchor == 500000000L);
+		assertFalse(scheduler.isDue(2000));
+		scheduler.setSpeed(Float.POSITIVE_INFINITY, 2000);
+		assertTrue(scheduler.isDue(Long.MAX_VALUE / 1000000));
+		scheduler.recordJitter(5);
+		assertTrue(scheduler.getMaxJitterNanos() == 0);
+	}
+}
@@ -0,0 +1,92 @@
+package com.badlogic.gdx.automation.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.automation.recorder.RecorderMetrics.Histogram;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessApplication;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessInput;
+import com.badlogic.gdx.automation.recorder.io.MemoryInputRecordWriter;
+
+public class RecorderMetricsTest {
+
+	@Test
+	public void testHistogram() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getPercentile(0.5));
+		assertEquals(0, histogram.getMean(), 0);
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+		histogram.record(0);
+		assertEquals(1001, histogram.getCount());
+		assertEquals(500500, histogram.getSum());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(500, histogram.getMean(), 1);
+		// buckets are powers of two, so percentiles are at most twice as large
+		long median = histogram.getPercentile(0.5);
+		assertTrue("median " + median, median >= 500 && median < 1000);
+		assertEquals(1000, histogram.getPercentile(1));
+		assertEquals(0, histogram.getPercentile(0));
+	}
+
+	@Test
+	public void testReportsToSink() throws IOException, InterruptedException {
+		HeadlessApplication app = new HeadlessApplication(
+				new ApplicationAdapter() {
+				});
+		HeadlessInput input = app.getHeadlessInput();
+		final List<Long> written = new ArrayList<Long>();
+		final List<Long> bytes = new ArrayList<Long>();
+		MemoryInputRecordWriter writer = new MemoryInputRecordWriter();
+		InputRecorderConfiguration config = new InputRecorderConfiguration();
+		config.recordKeysPressed = true;
+		config.writer = writer;
+		config.metricsReportInterval = 10;
+		config.metricsSink = new RecorderMetrics.Sink() {
+			@Override
+			public void report(RecorderMetrics metrics) {
+				// only called on the processing thread
+				written.add(metrics.getSyncValuesWritten());
+				bytes.add(metrics.getBytesWritten());
+			}
+		};
+		InputRecorder recorder = new InputRecorder(config);
+		recorder.startRecording();
+		for (int frame = 0; frame < 100; frame++) {
+			input.keyDown(Keys.A + frame % 26);
+			app.frame();
+			input.keyUp(Keys.A + frame % 26);
+			app.frame();
+			Thread.sleep(2);
+		}
+		recorder.stopRecording();
+
+		// periodic reports followed by a final one with all values written
+		assertTrue("reports " + written.size(), written.size() > 2);
+		assertEquals(writer.getBytesWritten(),
+				(long) bytes.get(bytes.size() - 1));
+		assertEquals(recorder.getMetrics().getSyncValuesWritten(),
+				(long) written.get(written.size() - 1));
+		assertTrue(written.get(written.size() - 1) >= 200);
+		for (int i = 1; i < written.size(); i++) {
+			assertTrue(written.get(i) >= written.get(i - 1));
+			assertTrue(bytes.get(i) >= bytes.get(i - 1));
+		}
+		assertTrue(bytes.get(bytes.size() - 1) > 0);
+	}
+
+	@Test
+	public void testBytesWrittenOfOtherWriters() {
+		RecorderMetrics metrics = new RecorderMetrics();
+		assertEquals(-1, metrics.getBytesWritten());
+	}
+}
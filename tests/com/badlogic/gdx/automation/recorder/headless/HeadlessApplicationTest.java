@@ -0,0 +1,339 @@
+package com.badlogic.gdx.automation.recorder.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.automation.recorder.InputPlayer;
+import com.badlogic.gdx.automation.recorder.InputRecorder;
+import com.badlogic.gdx.automation.recorder.InputRecorderConfiguration;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.PlaybackListener;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.automation.recorder.io.BroadcastInputRecordWriter;
+import com.badlogic.gdx.automation.recorder.io.InputRecordReader;
+import com.badlogic.gdx.automation.recorder.io.MemoryInputRecordReader;
+import com.badlogic.gdx.automation.recorder.io.MemoryInputRecordWriter;
+
+public class HeadlessApplicationTest {
+	private static final int FRAMES = 2000;
+
+	/**
+	 * Logs the events it gets, together with the frame they arrived in
+	 */
+	private static class LoggingProcessor extends InputAdapter {
+		final List<String> events = new ArrayList<String>();
+		final HeadlessApplication app;
+
+		LoggingProcessor(HeadlessApplication app) {
+			this.app = app;
+		}
+
+		private void log(String event) {
+			events.add(app.getFrameId() + " " + event);
+		}
+
+		@Override
+		public boolean keyDown(int keycode) {
+			log("down " + keycode);
+			return true;
+		}
+
+		@Override
+		public boolean keyTyped(char character) {
+			log("typed " + character);
+			return true;
+		}
+
+		@Override
+		public boolean touchDown(int screenX, int screenY, int pointer,
+				int button) {
+			log("touch " + screenX + "," + screenY);
+			return true;
+		}
+
+		@Override
+		public boolean touchDragged(int screenX, int screenY, int pointer) {
+			log("drag " + screenX + "," + screenY);
+			return true;
+		}
+	}
+
+	@Test
+	public void testEventsAndPolling() {
+		HeadlessApplication app = new HeadlessApplication(
+				new ApplicationAdapter() {
+				});
+		HeadlessInput input = app.getHeadlessInput();
+		LoggingProcessor processor = new LoggingProcessor(app);
+		input.setInputProcessor(processor);
+
+		input.keyDown(Keys.A);
+		input.touchDown(10, 20, 0, 0);
+		// scripted events become visible with the next frame
+		assertTrue(!Gdx.input.isKeyPressed(Keys.A));
+		app.frame();
+		assertTrue(Gdx.input.isKeyPressed(Keys.A));
+		assertTrue(Gdx.input.isKeyPressed(Keys.ANY_KEY));
+		assertTrue(Gdx.input.justTouched());
+		assertEquals(10, Gdx.input.getX());
+		assertEquals(20, Gdx.input.getY());
+		assertEquals(2, processor.events.size());
+
+		app.frame();
+		assertTrue(!Gdx.input.justTouched());
+		assertTrue(Gdx.input.isTouched(0));
+
+		final boolean[] ran = new boolean[1];
+		Gdx.app.postRunnable(new Runnable() {
+			@Override
+			public void run() {
+				ran[0] = true;
+			}
+		});
+		app.frame();
+		assertTrue(ran[0]);
+	}
+
+	@Test
+	public void testRecordAndPlayback() throws IOException {
+		HeadlessApplication app = new HeadlessApplication(
+				new ApplicationAdapter() {
+				});
+		HeadlessInput input = app.getHeadlessInput();
+		LoggingProcessor recorded = new LoggingProcessor(app);
+		input.setInputProcessor(recorded);
+
+		MemoryInputRecordWriter writer = new MemoryInputRecordWriter();
+		InputRecorderConfiguration config = new InputRecorderConfiguration();
+		config.absoluteCoords = true;
+		config.recordPointers = true;
+		config.recordedPointerCount = 1;
+		config.recordKeysPressed = true;
+		config.writer = writer;
+		InputRecorder recorder = new InputRecorder(config);
+		recorder.startRecording();
+		for (int frame = 0; frame < FRAMES; frame++) {
+			if (frame % 7 == 0) {
+				input.keyDown(Keys.A + frame % 26);
+				input.keyTyped((char) ('a' + frame % 26));
+			}
+			if (frame % 3 == 0) {
+				input.touchDragged(frame % 640, frame % 480, 0);
+			}
+			app.frame();
+		}
+		recorder.stopRecording();
+		assertTrue(recorded.events.size() > FRAMES / 2);
+
+		LoggingProcessor played = new LoggingProcessor(app);
+		input.setInputProcessor(played);
+		InputPlayer player = new InputPlayer(new MemoryInputRecordReader(
+				writer));
+		player.setFrameStepped(true);
+		player.startPlayback();
+		app.frames(FRAMES + 10);
+		player.stopPlayback();
+
+		// same events, with the same number of frames in between
+		assertEquals(recorded.events.size(), played.events.size());
+		long recordedStart = frameOf(recorded.events.get(0));
+		long playedStart = frameOf(played.events.get(0));
+		for (int i = 0; i < recorded.events.size(); i++) {
+			String expected = recorded.events.get(i);
+			String actual = played.events.get(i);
+			assertEquals(frameOf(expected) - recordedStart, frameOf(actual)
+					- playedStart);
+			assertEquals(eventOf(expected), eventOf(actual));
+		}
+	}
+
+	@Test
+	public void testFrameAlignedAsFastAsPossible() throws IOException,
+			InterruptedException {
+		assertFastForward(true);
+	}
+
+	@Test
+	public void testAsFastAsPossible() throws IOException,
+			InterruptedException {
+		assertFastForward(false);
+	}
+
+	/**
+	 * Plays back a record at {@link InputPlayer#AS_FAST_AS_POSSIBLE} and
+	 * asserts that every recorded frame is played back in a frame of its own
+	 */
+	private static void assertFastForward(boolean frameAligned)
+			throws IOException, InterruptedException {
+		HeadlessApplication app = new HeadlessApplication(
+				new ApplicationAdapter() {
+				});
+		HeadlessInput input = app.getHeadlessInput();
+		LoggingProcessor recorded = new LoggingProcessor(app);
+		input.setInputProcessor(recorded);
+
+		MemoryInputRecordWriter writer = new MemoryInputRecordWriter();
+		InputRecorderConfiguration config = new InputRecorderConfiguration();
+		config.absoluteCoords = true;
+		config.recordKeysPressed = true;
+		config.writer = writer;
+		InputRecorder recorder = new InputRecorder(config);
+		recorder.startRecording();
+		for (int frame = 0; frame < 200; frame++) {
+			if (frame % 2 == 0) {
+				input.keyDown(Keys.A + frame % 26);
+			}
+			app.frame();
+		}
+		recorder.stopRecording();
+
+		LoggingProcessor played = new LoggingProcessor(app);
+		input.setInputProcessor(played);
+		InputPlayer player = new InputPlayer(new MemoryInputRecordReader(
+				writer));
+		final boolean[] finished = new boolean[1];
+		player.addPlaybackListener(new PlaybackListener() {
+			@Override
+			public void onStart() {
+			}
+
+			@Override
+			public void onSyncPropertiesFinish() {
+				finished[0] = true;
+			}
+
+			@Override
+			public void onStop() {
+			}
+		});
+		player.setFrameAligned(frameAligned);
+		player.setPlaybackSpeed(InputPlayer.AS_FAST_AS_POSSIBLE);
+		player.startPlayback();
+		for (int frame = 0; frame < 10000 && !finished[0]; frame++) {
+			app.frame();
+			Thread.sleep(1);
+		}
+		app.frames(2);
+		player.stopPlayback();
+
+		assertEquals(recorded.events.size(), played.events.size());
+		for (int i = 1; i < recorded.events.size(); i++) {
+			assertTrue(frameOf(played.events.get(i)) > frameOf(played.events
+					.get(i - 1)));
+			assertEquals(eventOf(recorded.events.get(i)),
+					eventOf(played.events.get(i)));
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testFrameSteppedLiveRecord() throws IOException {
+		HeadlessApplication app = new HeadlessApplication(
+				new ApplicationAdapter() {
+				});
+		LoggingProcessor played = new LoggingProcessor(app);
+		app.getHeadlessInput().setInputProcessor(played);
+
+		BroadcastInputRecordWriter writer = new BroadcastInputRecordWriter();
+		writer.open();
+		InputRecordReader reader = writer.getReader();
+		RecordProperties properties = new RecordProperties();
+		properties.absouluteCoords = true;
+		writer.writeRecordProperties(properties);
+		writer.writeStaticValues(new StaticProperties());
+		InputPlayer player = new InputPlayer(reader);
+		player.setFrameStepped(true);
+		player.startPlayback();
+		// the record has not gone on yet, which must not hold up the frames
+		app.frames(10);
+		assertEquals(0, played.events.size());
+
+		writer.writeSyncValues(keyDown(Keys.A, 0));
+		writer.writeSyncValues(keyDown(Keys.B, 1));
+		app.frames(3);
+		assertEquals(2, played.events.size());
+		assertEquals("down " + Keys.A, eventOf(played.events.get(0)));
+		assertEquals("down " + Keys.B, eventOf(played.events.get(1)));
+		assertTrue(frameOf(played.events.get(1)) > frameOf(played.events
+				.get(0)));
+		writer.close();
+		app.frames(2);
+		player.stopPlayback();
+	}
+
+	@Test
+	public void testPauseHoldsRecordTime() throws IOException,
+			InterruptedException {
+		HeadlessApplication app = new HeadlessApplication(
+				new ApplicationAdapter() {
+				});
+		LoggingProcessor played = new LoggingProcessor(app);
+		app.getHeadlessInput().setInputProcessor(played);
+
+		MemoryInputRecordWriter writer = new MemoryInputRecordWriter();
+		writer.open();
+		RecordProperties properties = new RecordProperties();
+		properties.absouluteCoords = true;
+		writer.writeRecordProperties(properties);
+		writer.writeStaticValues(new StaticProperties());
+		writer.writeSyncValues(keyDown(Keys.A, 0));
+		// far in the future, the player waits for it while being paused
+		KeyEvent late = keyDown(Keys.B, 1);
+		late.timeDelta = 1000;
+		writer.writeSyncValues(late);
+		writer.close();
+
+		InputPlayer player = new InputPlayer(new MemoryInputRecordReader(
+				writer));
+		long start = System.currentTimeMillis();
+		player.startPlayback();
+		long paused = 0;
+		long applied = 0;
+		while (played.events.size() < 2
+				&& System.currentTimeMillis() - start < 5000) {
+			long now = System.currentTimeMillis() - start;
+			if (now >= 100 && paused == 0) {
+				player.pause();
+				paused = now;
+			}
+			if (player.isPaused() && now - paused >= 600) {
+				player.resume();
+			}
+			app.frame();
+			applied = System.currentTimeMillis() - start;
+			Thread.sleep(5);
+		}
+		player.stopPlayback();
+
+		assertEquals(2, played.events.size());
+		assertEquals("down " + Keys.B, eventOf(played.events.get(1)));
+		// the 600ms spent paused do not count as record time
+		assertTrue("applied after " + applied + "ms", applied >= 1550);
+	}
+
+	private static KeyEvent keyDown(int keyCode, long frameDelta) {
+		KeyEvent event = new KeyEvent();
+		event.type = KeyEvent.Type.KEY_DOWN;
+		event.keyCode = keyCode;
+		event.frameDelta = frameDelta;
+		return event;
+	}
+
+	private static long frameOf(String event) {
+		return Long.parseLong(event.substring(0, event.indexOf(' ')));
+	}
+
+	private static String eventOf(String event) {
+		return event.substring(event.indexOf(' ') + 1);
+	}
+}
@@ -0,0 +1,116 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+
+public class AsyncInputRecordWriterTest {
+
+	@Test
+	public void testOrderAndCopies() throws IOException {
+		MemoryInputRecordWriter memory = new MemoryInputRecordWriter();
+		AsyncInputRecordWriter writer = new AsyncInputRecordWriter(memory, 16);
+		writer.open();
+		// the same instance is reused, like the recorder does
+		Pointer pointer = new Pointer();
+		for (int i = 0; i < 1000; i++) {
+			pointer.x = i;
+			pointer.timeDelta = i;
+			writer.writeSyncValues(pointer);
+		}
+		writer.writeAsyncValues(new Text("text"));
+		writer.flush();
+
+		MemoryInputRecordReader reader = memory.getReader();
+		Iterator<SyncProperty> values = reader.getSyncValueIterator();
+		for (int i = 0; i < 1000; i++) {
+			Pointer value = (Pointer) values.next();
+			assertEquals(i, value.x, 0);
+			assertEquals(i, value.timeDelta);
+		}
+		assertTrue(!values.hasNext());
+		assertEquals("text", reader.getTextIterator().next().input);
+		writer.close();
+		assertTrue(!memory.isOpen());
+	}
+
+	@Test
+	public void testErrorIsRethrown() throws IOException {
+		MemoryInputRecordWriter memory = new MemoryInputRecordWriter() {
+			@Override
+			public void writeSyncValues(SyncProperty values)
+					throws IOException {
+				throw new IOException("failed");
+			}
+		};
+		AsyncInputRecordWriter writer = new AsyncInputRecordWriter(memory);
+		writer.open();
+		writer.writeSyncValues(new Pointer());
+		try {
+			writer.flush();
+			fail();
+		} catch (IOException e) {
+			assertEquals("failed", e.getMessage());
+		}
+		writer.close();
+		assertTrue(!memory.isOpen());
+		try {
+			writer.writeSyncValues(new Pointer());
+			fail();
+		} catch (IOException e) {
+			// closed
+		}
+	}
+
+	@Test
+	public void testLateWritesDoNotLeakIntoNextRecord() throws Exception {
+		MemoryInputRecordWriter memory = new MemoryInputRecordWriter() {
+			@Override
+			public void writeSyncValues(SyncProperty values)
+					throws IOException {
+				// slow enough that writing threads wait for the queue
+				Thread.yield();
+				super.writeSyncValues(values);
+			}
+		};
+		final AsyncInputRecordWriter writer = new AsyncInputRecordWriter(
+				memory, 2);
+		for (int run = 0; run < 50; run++) {
+			writer.open();
+			Thread[] threads = new Thread[4];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							while (true) {
+								writer.writeSyncValues(new Pointer());
+							}
+						} catch (IOException e) {
+							// closed
+						}
+					}
+				};
+				threads[i].start();
+			}
+			Thread.sleep(1);
+			writer.close();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			writer.open();
+			writer.flush();
+			assertTrue(!memory.getReader().getSyncValueIterator().hasNext());
+			writer.close();
+		}
+	}
+}
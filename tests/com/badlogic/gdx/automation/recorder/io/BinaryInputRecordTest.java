@@ -0,0 +1,102 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+
+public class BinaryInputRecordTest {
+	private File dir;
+	private FileHandle file;
+
+	@Before
+	public void setUp() throws IOException {
+		new HeadlessApplication(new ApplicationAdapter() {
+		});
+		dir = File.createTempFile("record", "");
+		dir.delete();
+		dir.mkdir();
+		file = Gdx.files.absolute(new File(dir, "record.bin").getPath());
+	}
+
+	@After
+	public void tearDown() {
+		Gdx.files.absolute(dir.getPath()).deleteDirectory();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		StringBuilder pasted = new StringBuilder();
+		while (pasted.length() < 100000) {
+			// multi-byte characters, so the text is far above 65535 bytes
+			pasted.append("päste ");
+		}
+		BinaryInputRecordWriter writer = new BinaryInputRecordWriter(file);
+		writer.open();
+		RecordProperties properties = new RecordProperties();
+		properties.absouluteCoords = true;
+		writer.writeRecordProperties(properties);
+		StaticProperties values = new StaticProperties();
+		values.keyboardAvailable = true;
+		values.nativeOrientation = Orientation.Landscape;
+		writer.writeStaticValues(values);
+		Pointer pointer = new Pointer();
+		pointer.pointer = 1;
+		pointer.x = 12.5f;
+		pointer.timeDelta = 16;
+		pointer.frameDelta = 1;
+		writer.writeSyncValues(pointer);
+		KeyEvent keyEvent = new KeyEvent();
+		keyEvent.type = KeyEvent.Type.KEY_TYPED;
+		keyEvent.keyChar = 'x';
+		writer.writeSyncValues(keyEvent);
+		writer.writeAsyncValues(new Text(pasted.toString()));
+		writer.writeAsyncValues(new Text(null));
+		writer.writeAsyncValues(new PlaceholderText("placeholder"));
+		writer.close();
+
+		BinaryInputRecordReader reader = new BinaryInputRecordReader(file);
+		assertTrue(reader.getRecordProperties().absouluteCoords);
+		assertTrue(reader.getStaticValues().keyboardAvailable);
+		assertEquals(Orientation.Landscape,
+				reader.getStaticValues().nativeOrientation);
+		Iterator<SyncProperty> sync = reader.getSyncValueIterator();
+		Pointer readPointer = (Pointer) sync.next();
+		assertEquals(1, readPointer.pointer);
+		assertEquals(12.5f, readPointer.x, 0);
+		assertEquals(16, readPointer.timeDelta);
+		assertEquals(1, readPointer.frameDelta);
+		KeyEvent readKeyEvent = (KeyEvent) sync.next();
+		assertEquals(KeyEvent.Type.KEY_TYPED, readKeyEvent.type);
+		assertEquals('x', readKeyEvent.keyChar);
+		assertFalse(sync.hasNext());
+		Iterator<Text> texts = reader.getTextIterator();
+		assertEquals(pasted.toString(), texts.next().input);
+		assertNull(texts.next().input);
+		assertFalse(texts.hasNext());
+		assertEquals("placeholder",
+				reader.getPlaceholderTextIterator().next().input);
+		reader.close();
+	}
+}
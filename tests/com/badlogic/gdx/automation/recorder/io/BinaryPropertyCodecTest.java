@@ -0,0 +1,103 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+
+public class BinaryPropertyCodecTest {
+	private static final int COUNT = 3 * BinaryInputRecord.INDEX_BLOCK_SIZE + 7;
+
+	@Test
+	public void testQuantizedPointers() throws IOException {
+		byte[] floats = writeDrag(0);
+		byte[] quantized = writeDrag(BinaryInputRecordWriter.NORMALIZED_PRECISION);
+		assertTrue(quantized.length < floats.length * 2 / 3);
+
+		BinaryPropertyCodec codec = new BinaryPropertyCodec();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				quantized));
+		BinaryPropertyCodec.readHeader(in);
+		float epsilon = 1f / BinaryInputRecordWriter.NORMALIZED_PRECISION;
+		for (int i = 0; i < COUNT; i++) {
+			Pointer pointer = (Pointer) codec.readSync(in);
+			Pointer expected = drag(i);
+			assertEquals(expected.pointer, pointer.pointer);
+			assertEquals(expected.x, pointer.x, epsilon);
+			assertEquals(expected.y, pointer.y, epsilon);
+			assertEquals(expected.deltaX, pointer.deltaX, epsilon);
+			assertEquals(expected.deltaY, pointer.deltaY, epsilon);
+			assertEquals(expected.timeDelta, pointer.timeDelta);
+		}
+		assertNull(codec.readSync(in));
+	}
+
+	@Test
+	public void testQuantizedPointersFromBlock() throws IOException {
+		byte[] quantized = writeDrag(BinaryInputRecordWriter.PIXEL_PRECISION);
+		// find the start of the second block like the mapped reader does
+		BinaryPropertyCodec codec = new BinaryPropertyCodec();
+		ByteArrayInputStream bytes = new ByteArrayInputStream(quantized);
+		DataInputStream in = new DataInputStream(bytes);
+		BinaryPropertyCodec.readHeader(in);
+		for (int i = 0; i < BinaryInputRecord.INDEX_BLOCK_SIZE; i++) {
+			codec.readSync(in);
+		}
+		int offset = quantized.length - bytes.available();
+
+		codec = new BinaryPropertyCodec();
+		in = new DataInputStream(new ByteArrayInputStream(quantized, offset,
+				quantized.length - offset));
+		Pointer pointer = (Pointer) codec.readSync(in);
+		Pointer expected = drag(BinaryInputRecord.INDEX_BLOCK_SIZE);
+		assertEquals(Math.round(expected.x), pointer.x, 0);
+		assertEquals(Math.round(expected.y), pointer.y, 0);
+	}
+
+	@Test
+	public void testUnknownType() throws IOException {
+		byte[] bytes = { BinaryPropertyCodec.TAG_KEY_PRESSED, 100, 0, 0, 0 };
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				bytes));
+		try {
+			new BinaryPropertyCodec().readSync(in);
+			fail("Read a key pressed property of an unknown type");
+		} catch (IOException e) {
+			assertEquals("Unknown key pressed type 100", e.getMessage());
+		}
+	}
+
+	private static byte[] writeDrag(int precision) throws IOException {
+		BinaryPropertyCodec codec = new BinaryPropertyCodec();
+		codec.setPointerPrecision(precision);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		BinaryPropertyCodec.writeHeader(out);
+		for (int i = 0; i < COUNT; i++) {
+			codec.writeSync(out, drag(i));
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static Pointer drag(int i) {
+		Pointer pointer = new Pointer();
+		pointer.pointer = i % 2;
+		pointer.x = 0.25f + i * 0.001f;
+		pointer.y = 0.75f - i * 0.0005f;
+		pointer.deltaX = 0.001f;
+		pointer.deltaY = -0.0005f;
+		pointer.timeDelta = 16;
+		return pointer;
+	}
+}
@@ -0,0 +1,138 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.automation.recorder.io.BroadcastInputRecordWriter.SlowSubscriberPolicy;
+
+public class BroadcastInputRecordWriterTest {
+
+	@Test
+	public void testAllSubscribersReceiveRecord() throws IOException {
+		BroadcastInputRecordWriter writer = new BroadcastInputRecordWriter();
+		writer.open();
+		SocketInputRecordReader[] readers = new SocketInputRecordReader[3];
+		for (int i = 0; i < readers.length; i++) {
+			readers[i] = new SocketInputRecordReader(0);
+			writer.addSubscriber("localhost", readers[i].getPort());
+		}
+		assertEquals(readers.length, writer.getSubscriberCount());
+		RecordProperties properties = new RecordProperties();
+		properties.absouluteCoords = true;
+		writer.writeRecordProperties(properties);
+		writer.writeStaticValues(new StaticProperties());
+		// joins late
+		SocketInputRecordReader late = new SocketInputRecordReader(0);
+		writer.addSubscriber("localhost", late.getPort());
+
+		Iterator<SyncProperty> first = writer.getReader()
+				.getSyncValueIterator();
+		Iterator<SyncProperty> second = writer.getReader()
+				.getSyncValueIterator();
+		Pointer pointer = new Pointer();
+		int count = 10000;
+		for (int i = 0; i < count; i++) {
+			pointer.x = i;
+			writer.writeSyncValues(pointer);
+		}
+		writer.close();
+		assertEquals(0, writer.getSubscriberCount());
+
+		assertTrue(late.getRecordProperties().absouluteCoords);
+		assertEquals(count, read(late.getSyncValueIterator()));
+		late.close();
+		for (SocketInputRecordReader reader : readers) {
+			assertTrue(reader.getRecordProperties().absouluteCoords);
+			assertEquals(count, read(reader.getSyncValueIterator()));
+			reader.close();
+		}
+		assertEquals(count, read(first));
+		assertEquals(count, read(second));
+	}
+
+	@Test
+	public void testSlowSubscriberIsDisconnected() throws IOException {
+		BroadcastInputRecordWriter writer = new BroadcastInputRecordWriter(
+				64 * 1024, SlowSubscriberPolicy.DISCONNECT);
+		writer.open();
+		// accepts the connection, but never reads from it
+		ServerSocket server = new ServerSocket(0);
+		writer.addSubscriber(new InetSocketAddress("localhost", server
+				.getLocalPort()));
+		Socket stalled = server.accept();
+		writer.writeRecordProperties(new RecordProperties());
+		writer.writeStaticValues(new StaticProperties());
+		Pointer pointer = new Pointer();
+		for (int i = 0; i < 10000000 && writer.getSubscriberCount() > 0; i++) {
+			pointer.x = i;
+			writer.writeSyncValues(pointer);
+		}
+		assertEquals(0, writer.getSubscriberCount());
+		writer.close();
+		stalled.close();
+		server.close();
+	}
+
+	@Test
+	public void testReaderKeepsBoundedRecord() throws IOException {
+		BroadcastInputRecordWriter writer = new BroadcastInputRecordWriter();
+		writer.open();
+		writer.writeRecordProperties(new RecordProperties());
+		writer.writeStaticValues(new StaticProperties());
+		Pointer pointer = new Pointer();
+		// nobody reads these
+		pointer.x = -1;
+		for (int i = 0; i < 100; i++) {
+			writer.writeSyncValues(pointer);
+		}
+		Iterator<SyncProperty> behind = writer.getReader()
+				.getSyncValueIterator();
+		int count = 2 * BroadcastInputRecordWriter.READER_SYNC_VALUES;
+		for (int i = 0; i < count; i++) {
+			pointer.x = i;
+			writer.writeSyncValues(pointer);
+		}
+		Iterator<SyncProperty> late = writer.getReader()
+				.getSyncValueIterator();
+		writer.close();
+
+		// both start with the oldest values kept
+		int kept = count - (int) ((Pointer) late.next()).x;
+		assertTrue(kept >= BroadcastInputRecordWriter.READER_SYNC_VALUES);
+		assertTrue(kept < BroadcastInputRecordWriter.READER_SYNC_VALUES + 2
+				* LiveInputRecord.SEGMENT_SIZE);
+		assertEquals(count - kept, ((Pointer) behind.next()).x, 0);
+		int last = count - kept;
+		while (behind.hasNext()) {
+			assertEquals(++last, ((Pointer) behind.next()).x, 0);
+		}
+		assertEquals(count - 1, last);
+	}
+
+	/**
+	 * @return the number of values read, which have to be the pointers
+	 *         written by the tests
+	 */
+	private static int read(Iterator<SyncProperty> iterator) {
+		int count = 0;
+		while (iterator.hasNext()) {
+			assertEquals(count, ((Pointer) iterator.next()).x, 0);
+			count++;
+		}
+		assertFalse(iterator.hasNext());
+		return count;
+	}
+}
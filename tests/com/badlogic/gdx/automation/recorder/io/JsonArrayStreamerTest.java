@@ -0,0 +1,44 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.JsonValue;
+
+public class JsonArrayStreamerTest {
+
+	@Test
+	public void testElements() throws IOException {
+		JsonArrayStreamer streamer = new JsonArrayStreamer(new StringReader(
+				"[ {\"a\":1}, {\"b\":[1,{\"c\":2}]},\n{\"s\":\"}]\\\"{\"} ]"));
+		assertEquals(1, streamer.next().getInt("a"));
+		JsonValue nested = streamer.next().get("b");
+		assertEquals(2, nested.get(1).getInt("c"));
+		assertEquals("}]\"{", streamer.next().getString("s"));
+		assertNull(streamer.next());
+		assertNull(streamer.next());
+	}
+
+	@Test
+	public void testMissingClosingBracket() throws IOException {
+		JsonArrayStreamer streamer = new JsonArrayStreamer(new StringReader(
+				"[{\"a\":1},{\"a\":2},"));
+		assertEquals(1, streamer.next().getInt("a"));
+		assertEquals(2, streamer.next().getInt("a"));
+		assertNull(streamer.next());
+	}
+
+	@Test
+	public void testTruncatedElement() throws IOException {
+		JsonArrayStreamer streamer = new JsonArrayStreamer(new StringReader(
+				"[{\"a\":1},{\"a\":2,\"s\":\"}"));
+		assertEquals(1, streamer.next().getInt("a"));
+		assertNull(streamer.next());
+		assertNull(streamer.next());
+	}
+}
@@ -0,0 +1,145 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.PlaceholderText;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+
+public class JsonInputRecordReaderTest {
+	private static final int PROPERTIES = 100;
+	private File dir;
+	private FileHandle file;
+
+	@Before
+	public void setUp() throws IOException {
+		new HeadlessApplication(new ApplicationAdapter() {
+		});
+		dir = File.createTempFile("record", "");
+		dir.delete();
+		dir.mkdir();
+		file = Gdx.files.absolute(new File(dir, "record.json").getPath());
+	}
+
+	@After
+	public void tearDown() {
+		Gdx.files.absolute(dir.getPath()).deleteDirectory();
+	}
+
+	@Test
+	public void testAsyncValuesByType() throws IOException {
+		JsonInputRecordWriter writer = new JsonInputRecordWriter(file);
+		writer.open();
+		writer.writeRecordProperties(new RecordProperties());
+		StaticProperties values = new StaticProperties();
+		values.nativeOrientation = Orientation.Landscape;
+		writer.writeStaticValues(values);
+		for (int i = 0; i < 10; i++) {
+			writer.writeAsyncValues(new Text("text " + i));
+			if (i % 2 == 0) {
+				writer.writeAsyncValues(new PlaceholderText("placeholder " + i));
+			}
+		}
+		writer.close();
+
+		JsonInputRecordReader reader = new JsonInputRecordReader(file);
+		Iterator<Text> texts = reader.getTextIterator();
+		for (int i = 0; i < 10; i++) {
+			assertEquals("text " + i, texts.next().input);
+		}
+		assertFalse(texts.hasNext());
+		Iterator<PlaceholderText> placeholders = reader
+				.getPlaceholderTextIterator();
+		for (int i = 0; i < 10; i += 2) {
+			assertEquals("placeholder " + i, placeholders.next().input);
+		}
+		assertFalse(placeholders.hasNext());
+		reader.close();
+	}
+
+	@Test
+	public void testStreaming() throws IOException {
+		JsonInputRecordWriter writer = write();
+		writer.close();
+		assertSyncValues(new JsonInputRecordReader(file, false));
+		assertSyncValues(new JsonInputRecordReader(file, true));
+	}
+
+	@Test
+	public void testUnclosedRecord() throws IOException {
+		JsonInputRecordWriter writer = write();
+		writer.flush();
+		// simulate a record that was cut off while writing the next value
+		Writer sync = syncFile().writer(true);
+		sync.write(",{\"class\":\"Pointer\",\"x\":");
+		sync.close();
+		JsonInputRecordReader reader = new JsonInputRecordReader(file, true);
+		assertSyncValues(reader);
+		assertEquals("text", reader.getTextIterator().next().input);
+		writer.close();
+	}
+
+	@Test
+	public void testBytesWritten() throws IOException {
+		JsonInputRecordWriter writer = write();
+		assertTrue(writer.getBytesWritten() > PROPERTIES);
+		writer.close();
+		// minimal json only consists of ASCII characters
+		FileHandle async = Gdx.files.absolute(new File(dir,
+				"record-async.json").getPath());
+		assertEquals(syncFile().length() + async.length(),
+				writer.getBytesWritten());
+		writer.open();
+		assertEquals(2, writer.getBytesWritten());
+		writer.close();
+	}
+
+	private JsonInputRecordWriter write() throws IOException {
+		JsonInputRecordWriter writer = new JsonInputRecordWriter(file);
+		writer.open();
+		writer.writeRecordProperties(new RecordProperties());
+		StaticProperties values = new StaticProperties();
+		values.nativeOrientation = Orientation.Landscape;
+		writer.writeStaticValues(values);
+		Pointer pointer = new Pointer();
+		for (int i = 0; i < PROPERTIES; i++) {
+			pointer.x = i;
+			pointer.timeDelta = 1;
+			writer.writeSyncValues(pointer);
+		}
+		writer.writeAsyncValues(new Text("text"));
+		return writer;
+	}
+
+	private FileHandle syncFile() {
+		return Gdx.files.absolute(new File(dir, "record-sync.json").getPath());
+	}
+
+	private static void assertSyncValues(JsonInputRecordReader reader) {
+		Iterator<SyncProperty> it = reader.getSyncValueIterator();
+		for (int i = 0; i < PROPERTIES; i++) {
+			assertEquals(i, ((Pointer) it.next()).x, 0);
+		}
+		assertFalse(it.hasNext());
+		reader.close();
+	}
+}
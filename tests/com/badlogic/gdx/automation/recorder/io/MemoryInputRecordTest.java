@@ -0,0 +1,217 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Accelerometer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Button;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyPressed;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.PointerEvent;
+
+public class MemoryInputRecordTest {
+
+	@Test
+	public void testAllPropertyTypes() throws IOException {
+		MemoryInputRecordWriter writer = new MemoryInputRecordWriter();
+		writer.open();
+		Accelerometer accelerometer = new Accelerometer();
+		accelerometer.accelerometerX = 1.5f;
+		accelerometer.accelerometerY = -2;
+		accelerometer.accelerometerZ = 9.81f;
+		accelerometer.timeDelta = 1;
+		writer.writeSyncValues(accelerometer);
+		KeyPressed keyPressed = new KeyPressed();
+		keyPressed.type = KeyPressed.Type.PRESS;
+		keyPressed.keyCode = 42;
+		keyPressed.frameDelta = 2;
+		writer.writeSyncValues(keyPressed);
+		PointerEvent pointerEvent = new PointerEvent();
+		pointerEvent.type = PointerEvent.Type.TOUCH_SCROLLED;
+		pointerEvent.scrollAmount = -3;
+		pointerEvent.button = 1;
+		pointerEvent.pointer = 2;
+		pointerEvent.x = 10;
+		pointerEvent.y = 20;
+		writer.writeSyncValues(pointerEvent);
+		KeyEvent keyEvent = new KeyEvent();
+		keyEvent.type = KeyEvent.Type.KEY_TYPED;
+		keyEvent.keyCode = 7;
+		keyEvent.keyChar = 'ö';
+		writer.writeSyncValues(keyEvent);
+		Orientation orientation = new Orientation();
+		orientation.orientation = 90;
+		orientation.roll = 1;
+		orientation.pitch = 2;
+		orientation.azimuth = 3;
+		for (int i = 0; i < 16; i++) {
+			orientation.rotationMatrix[i] = i * 0.5f;
+		}
+		writer.writeSyncValues(orientation);
+		Pointer pointer = new Pointer();
+		pointer.pointer = 3;
+		pointer.x = 100;
+		pointer.y = 200;
+		pointer.deltaX = -1;
+		pointer.deltaY = 1;
+		pointer.timeDelta = 16;
+		pointer.frameDelta = 1;
+		writer.writeSyncValues(pointer);
+		Button button = new Button();
+		button.button0 = true;
+		button.button2 = true;
+		writer.writeSyncValues(button);
+		writer.close();
+
+		Iterator<SyncProperty> iterator = writer.getReader()
+				.getSyncValueIterator();
+		Accelerometer readAccelerometer = (Accelerometer) iterator.next();
+		assertEquals(1.5f, readAccelerometer.accelerometerX, 0);
+		assertEquals(-2, readAccelerometer.accelerometerY, 0);
+		assertEquals(9.81f, readAccelerometer.accelerometerZ, 0);
+		assertEquals(1, readAccelerometer.timeDelta);
+		KeyPressed readKeyPressed = (KeyPressed) iterator.next();
+		assertEquals(KeyPressed.Type.PRESS, readKeyPressed.type);
+		assertEquals(42, readKeyPressed.keyCode);
+		assertEquals(2, readKeyPressed.frameDelta);
+		PointerEvent readPointerEvent = (PointerEvent) iterator.next();
+		assertEquals(PointerEvent.Type.TOUCH_SCROLLED, readPointerEvent.type);
+		assertEquals(-3, readPointerEvent.scrollAmount);
+		assertEquals(1, readPointerEvent.button);
+		assertEquals(2, readPointerEvent.pointer);
+		assertEquals(10, readPointerEvent.x, 0);
+		assertEquals(20, readPointerEvent.y, 0);
+		KeyEvent readKeyEvent = (KeyEvent) iterator.next();
+		assertEquals(KeyEvent.Type.KEY_TYPED, readKeyEvent.type);
+		assertEquals(7, readKeyEvent.keyCode);
+		assertEquals('ö', readKeyEvent.keyChar);
+		Orientation readOrientation = (Orientation) iterator.next();
+		assertEquals(90, readOrientation.orientation);
+		assertEquals(1, readOrientation.roll, 0);
+		assertEquals(2, readOrientation.pitch, 0);
+		assertEquals(3, readOrientation.azimuth, 0);
+		assertArrayEquals(orientation.rotationMatrix,
+				readOrientation.rotationMatrix, 0);
+		Pointer readPointer = (Pointer) iterator.next();
+		assertEquals(3, readPointer.pointer);
+		assertEquals(100, readPointer.x, 0);
+		assertEquals(200, readPointer.y, 0);
+		assertEquals(-1, readPointer.deltaX, 0);
+		assertEquals(1, readPointer.deltaY, 0);
+		assertEquals(16, readPointer.timeDelta);
+		assertEquals(1, readPointer.frameDelta);
+		Button readButton = (Button) iterator.next();
+		assertTrue(readButton.button0);
+		assertFalse(readButton.button1);
+		assertTrue(readButton.button2);
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testReadersDoNotSeeLaterValues() throws IOException {
+		MemoryInputRecordWriter writer = new MemoryInputRecordWriter();
+		writer.open();
+		// the recorder reuses its properties
+		Pointer pointer = new Pointer();
+		for (int i = 0; i < 1000; i++) {
+			pointer.x = i;
+			writer.writeSyncValues(pointer);
+		}
+		MemoryInputRecordReader first = writer.getReader();
+		for (int i = 1000; i < 2000; i++) {
+			pointer.x = i;
+			writer.writeSyncValues(pointer);
+		}
+		MemoryInputRecordReader second = writer.getReader();
+		assertEquals(1000, count(first.getSyncValueIterator()));
+		assertEquals(2000, count(second.getSyncValueIterator()));
+		first.reset();
+		assertEquals(2000, count(first.getSyncValueIterator()));
+
+		Iterator<SyncProperty> iterator = second.getSyncValueIterator();
+		for (int i = 0; i < 2000; i++) {
+			assertEquals(i, ((Pointer) iterator.next()).x, 0);
+		}
+
+		// a new record does not change what existing readers see
+		writer.close();
+		writer.open();
+		writer.writeSyncValues(pointer);
+		assertEquals(2000, count(second.getSyncValueIterator()));
+		assertEquals(1, count(writer.getReader().getSyncValueIterator()));
+	}
+
+	@Test
+	public void testConcurrentReaders() throws Exception {
+		final int count = 200000;
+		final MemoryInputRecordWriter writer = new MemoryInputRecordWriter();
+		writer.open();
+		final MemoryInputRecordReader reader = writer.getReader();
+		final Throwable[] failures = new Throwable[4];
+		Thread[] readers = new Thread[failures.length];
+		for (int i = 0; i < readers.length; i++) {
+			final int index = i;
+			readers[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						Iterator<SyncProperty> iterator = reader
+								.getLiveSyncValueIterator();
+						int read = 0;
+						while (read < count) {
+							if (!iterator.hasNext()) {
+								Thread.yield();
+								continue;
+							}
+							Orientation orientation = (Orientation) iterator
+									.next();
+							assertEquals(read, orientation.timeDelta);
+							assertEquals(read, orientation.rotationMatrix[15],
+									0);
+							read++;
+						}
+					} catch (Throwable t) {
+						failures[index] = t;
+					}
+				}
+			};
+			readers[i].start();
+		}
+		// the largest property, to make the store grow often
+		Orientation orientation = new Orientation();
+		for (int i = 0; i < count; i++) {
+			orientation.timeDelta = i;
+			orientation.rotationMatrix[15] = i;
+			writer.writeSyncValues(orientation);
+		}
+		writer.close();
+		for (int i = 0; i < readers.length; i++) {
+			readers[i].join(10000);
+			assertFalse(readers[i].isAlive());
+			if (failures[i] != null) {
+				throw new AssertionError(failures[i]);
+			}
+		}
+		// the reader was created before anything was written
+		assertFalse(reader.getSyncValueIterator().hasNext());
+	}
+
+	private static int count(Iterator<SyncProperty> iterator) {
+		int count = 0;
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,133 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+
+public class RecordCompressionTest {
+	private static final int PROPERTIES = 5000;
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		new HeadlessApplication(new ApplicationAdapter() {
+		});
+		dir = File.createTempFile("record", "");
+		dir.delete();
+		dir.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		Gdx.files.absolute(dir.getPath()).deleteDirectory();
+	}
+
+	@Test
+	public void testStreams() throws IOException {
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		for (int i = 0; plain.size() < 300000; i++) {
+			plain.write(("{class:Pointer,x:" + i % 640 + ",y:" + i % 480
+					+ ",timeDelta:16},").getBytes("UTF-8"));
+		}
+		byte[] content = plain.toByteArray();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		OutputStream out = RecordCompression.DEFLATE.compress(bytes);
+		out.write(content, 0, 1000);
+		// flushing makes a block of its own
+		out.flush();
+		out.write(content, 1000, content.length - 1000);
+		out.close();
+		byte[] compressed = bytes.toByteArray();
+		assertTrue(compressed.length < content.length / 4);
+
+		assertArrayEquals(content, readFully(RecordCompression
+				.decompress(new ByteArrayInputStream(compressed))));
+		// uncompressed streams are passed through
+		assertArrayEquals(content, readFully(RecordCompression
+				.decompress(new ByteArrayInputStream(content))));
+
+		InputStream in = RecordCompression.decompress(new ByteArrayInputStream(
+				compressed));
+		assertEquals(200000, in.skip(200000));
+		assertEquals(content[200000], (byte) in.read());
+	}
+
+	@Test
+	public void testSeekCompressedRecord() throws IOException {
+		FileHandle file = Gdx.files.absolute(new File(dir, "record.bin")
+				.getPath());
+		BinaryInputRecordWriter writer = new BinaryInputRecordWriter(file,
+				RecordCompression.DEFLATE);
+		writer.open();
+		writer.writeRecordProperties(new RecordProperties());
+		writer.writeStaticValues(new StaticProperties());
+		Pointer pointer = new Pointer();
+		for (int i = 0; i < PROPERTIES; i++) {
+			pointer.x = i;
+			pointer.timeDelta = 1;
+			writer.writeSyncValues(pointer);
+		}
+		writer.close();
+
+		assertSeek(file);
+		// without index file, it has to be rebuilt from the compressed values
+		writer.indexFile.delete();
+		assertSeek(file);
+	}
+
+	private static void assertSeek(FileHandle file) throws IOException {
+		MappedInputRecordReader reader = new MappedInputRecordReader(file);
+		try {
+			assertSeek(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static void assertSeek(MappedInputRecordReader reader) {
+		assertEquals(PROPERTIES, reader.getDuration());
+		Iterator<SyncProperty> values = reader.getSyncValueIterator(4000);
+		// the pointer position reached before comes first
+		assertEquals(3998, ((Pointer) values.next()).x, 0);
+		assertEquals(3999, ((Pointer) values.next()).x, 0);
+		int count = 1;
+		while (values.hasNext()) {
+			values.next();
+			count++;
+		}
+		assertEquals(PROPERTIES - 3999, count);
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,172 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Button;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyEvent;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.KeyPressed;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.InputState;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.automation.recorder.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+
+public class SeekableInputRecordReaderTest {
+	private static final int PROPERTIES = 1000;
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		new HeadlessApplication(new ApplicationAdapter() {
+		});
+		dir = File.createTempFile("record", "");
+		dir.delete();
+		dir.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		Gdx.files.absolute(dir.getPath()).deleteDirectory();
+	}
+
+	private FileHandle file(String name) {
+		return Gdx.files.absolute(new File(dir, name).getPath());
+	}
+
+	/**
+	 * Writes a pointer moving one pixel per millisecond, while keys are
+	 * pressed and released and a button is pressed
+	 */
+	private static void write(InputRecordWriter writer) throws IOException {
+		writer.writeRecordProperties(new RecordProperties());
+		writer.writeStaticValues(new StaticProperties());
+		Pointer pointer = new Pointer();
+		for (int i = 0; i < PROPERTIES; i++) {
+			pointer.pointer = 0;
+			pointer.x = i;
+			pointer.timeDelta = 1;
+			writer.writeSyncValues(pointer);
+			if (i == 10) {
+				writer.writeSyncValues(keyPressed(Keys.A,
+						KeyPressed.Type.PRESS));
+				KeyEvent typed = new KeyEvent();
+				typed.type = KeyEvent.Type.KEY_TYPED;
+				typed.keyChar = 'a';
+				writer.writeSyncValues(typed);
+			} else if (i == 20) {
+				writer.writeSyncValues(keyPressed(Keys.B,
+						KeyPressed.Type.PRESS));
+			} else if (i == 300) {
+				pointer.pointer = 1;
+				pointer.x = 5;
+				pointer.timeDelta = 0;
+				writer.writeSyncValues(pointer);
+			} else if (i == 500) {
+				writer.writeSyncValues(keyPressed(Keys.B,
+						KeyPressed.Type.RELEASE));
+			} else if (i == 600) {
+				Button button = new Button();
+				button.button0 = true;
+				writer.writeSyncValues(button);
+			}
+		}
+	}
+
+	private static KeyPressed keyPressed(int keyCode, KeyPressed.Type type) {
+		KeyPressed pressed = new KeyPressed();
+		pressed.keyCode = keyCode;
+		pressed.type = type;
+		return pressed;
+	}
+
+	@Test
+	public void testSingleFileRecord() throws IOException {
+		FileHandle file = file("record.rec");
+		SingleFileInputRecordWriter writer = new SingleFileInputRecordWriter(
+				file);
+		writer.open();
+		write(writer);
+		writer.flush();
+		// without index, the states are rebuilt
+		assertSeek(new SingleFileInputRecordReader(file));
+		writer.close();
+		assertSeek(new SingleFileInputRecordReader(file));
+	}
+
+	@Test
+	public void testMappedRecord() throws IOException {
+		FileHandle file = file("record.bin");
+		BinaryInputRecordWriter writer = new BinaryInputRecordWriter(file);
+		writer.open();
+		write(writer);
+		writer.close();
+		assertSeek(new MappedInputRecordReader(file));
+		writer.indexFile.delete();
+		assertSeek(new MappedInputRecordReader(file));
+	}
+
+	private static void assertSeek(SeekableInputRecordReader reader) {
+		// in different blocks, before and after key B has been released
+		assertSeek(reader, 400);
+		assertSeek(reader, 700);
+		assertSeekPastEnd(reader);
+		reader.close();
+	}
+
+	private static void assertSeekPastEnd(SeekableInputRecordReader reader) {
+		InputState state = new InputState(2);
+		Iterator<SyncProperty> values = reader
+				.getSyncValueIterator(PROPERTIES * 5);
+		// only the state left behind by the whole record is returned
+		assertTrue(values.hasNext());
+		while (values.hasNext()) {
+			SyncProperty value = values.next();
+			assertEquals(0, value.timeDelta);
+			assertFalse(value instanceof KeyEvent);
+			state.apply(value);
+		}
+		assertEquals(PROPERTIES - 1, state.getX(0));
+		assertEquals(5, state.getX(1));
+		assertTrue(state.isKeyPressed(Keys.A));
+		assertFalse(state.isKeyPressed(Keys.B));
+		assertTrue(state.isButtonPressed(0));
+	}
+
+	private static void assertSeek(SeekableInputRecordReader reader,
+			long startTime) {
+		InputState state = new InputState(2);
+		Iterator<SyncProperty> values = reader.getSyncValueIterator(startTime);
+		SyncProperty value = values.next();
+		int restored = 0;
+		// the first value recorded at startTime is the pointer at startTime - 1
+		while (!(value instanceof Pointer && ((Pointer) value).x == startTime
+				- 1)) {
+			assertEquals(0, value.timeDelta);
+			assertFalse(value instanceof KeyEvent);
+			state.apply(value);
+			restored++;
+			value = values.next();
+		}
+		assertTrue(restored > 0);
+		assertEquals(startTime - 2, state.getX(0));
+		assertEquals(5, state.getX(1));
+		assertTrue(state.isKeyPressed(Keys.A));
+		assertEquals(startTime > 500, !state.isKeyPressed(Keys.B));
+		assertEquals(startTime > 600, state.isButtonPressed(0));
+	}
+}
@@ -0,0 +1,127 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+import com.badlogic.gdx.files.FileHandle;
+
+public class SingleFileInputRecordTest {
+	private static final int PROPERTIES = 1000;
+	private FileHandle file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = new FileHandle(File.createTempFile("record", ".rec"));
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	private SingleFileInputRecordWriter write(RecordCompression compression)
+			throws IOException {
+		return write(compression, PROPERTIES);
+	}
+
+	private SingleFileInputRecordWriter write(RecordCompression compression,
+			int count) throws IOException {
+		SingleFileInputRecordWriter writer = new SingleFileInputRecordWriter(
+				file, compression);
+		writer.open();
+		RecordProperties properties = new RecordProperties();
+		properties.absouluteCoords = true;
+		writer.writeRecordProperties(properties);
+		StaticProperties values = new StaticProperties();
+		values.hasMultitouch = true;
+		writer.writeStaticValues(values);
+		Pointer pointer = new Pointer();
+		for (int i = 0; i < count; i++) {
+			pointer.x = i;
+			pointer.timeDelta = 1;
+			writer.writeSyncValues(pointer);
+			if (i % 300 == 0) {
+				writer.writeAsyncValues(new Text("text " + i));
+			}
+		}
+		return writer;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		write(RecordCompression.NONE).close();
+		assertRecord(new SingleFileInputRecordReader(file));
+		write(RecordCompression.DEFLATE).close();
+		assertRecord(new SingleFileInputRecordReader(file));
+	}
+
+	@Test
+	public void testUnclosedWriter() throws IOException {
+		SingleFileInputRecordWriter writer = write(RecordCompression.NONE);
+		writer.flush();
+		// the index is missing and has to be rebuilt
+		assertRecord(new SingleFileInputRecordReader(file));
+		writer.close();
+	}
+
+	@Test
+	public void testUnflushedWriter() throws IOException {
+		for (RecordCompression compression : RecordCompression.values()) {
+			SingleFileInputRecordWriter writer = write(compression, 5000);
+			// the file ends wherever the output buffer was last written out,
+			// most likely in the middle of a chunk
+			SingleFileInputRecordReader reader = new SingleFileInputRecordReader(
+					file);
+			assertTrue(reader.getRecordProperties().absouluteCoords);
+			Iterator<SyncProperty> values = reader.getSyncValueIterator();
+			int count = 0;
+			while (values.hasNext()) {
+				assertEquals(count++, ((Pointer) values.next()).x, 0);
+			}
+			assertTrue(count > 0 && count < 5000);
+			assertEquals(count, reader.getDuration());
+			reader.close();
+			writer.close();
+		}
+	}
+
+	private static void assertRecord(SingleFileInputRecordReader reader) {
+		assertTrue(reader.getRecordProperties().absouluteCoords);
+		assertTrue(reader.getStaticValues().hasMultitouch);
+		Iterator<Text> texts = reader.getTextIterator();
+		for (int i = 0; i < PROPERTIES; i += 300) {
+			assertEquals("text " + i, texts.next().input);
+		}
+		assertFalse(texts.hasNext());
+
+		assertEquals(PROPERTIES, reader.getDuration());
+		Iterator<SyncProperty> values = reader.getSyncValueIterator();
+		for (int i = 0; i < PROPERTIES; i++) {
+			assertEquals(i, ((Pointer) values.next()).x, 0);
+		}
+		assertFalse(values.hasNext());
+
+		values = reader.getSyncValueIterator(700);
+		Pointer restored = (Pointer) values.next();
+		assertEquals(698, restored.x, 0);
+		assertEquals(0, restored.timeDelta);
+		Pointer first = (Pointer) values.next();
+		assertEquals(699, first.x, 0);
+		assertEquals(0, first.timeDelta);
+		reader.close();
+	}
+}
@@ -0,0 +1,111 @@
+package com.badlogic.gdx.automation.recorder.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.Input.Orientation;
+import com.badlogic.gdx.automation.recorder.InputProperty.AsyncProperty.Text;
+import com.badlogic.gdx.automation.recorder.InputProperty.StaticProperties;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty;
+import com.badlogic.gdx.automation.recorder.InputProperty.SyncProperty.Pointer;
+import com.badlogic.gdx.automation.recorder.RecordProperties;
+
+public class SocketInputRecordTest {
+
+	@Test
+	public void testStreamOverLocalhost() throws IOException {
+		SocketInputRecordReader reader = new SocketInputRecordReader(0);
+		SocketInputRecordWriter writer = new SocketInputRecordWriter(
+				"localhost", reader.getPort());
+		writer.open();
+		RecordProperties properties = new RecordProperties();
+		properties.absouluteCoords = true;
+		writer.writeRecordProperties(properties);
+		StaticProperties values = new StaticProperties();
+		values.hasMultitouch = true;
+		values.nativeOrientation = Orientation.Portrait;
+		writer.writeStaticValues(values);
+
+		assertTrue(reader.getRecordProperties().absouluteCoords);
+		assertTrue(reader.getStaticValues().hasMultitouch);
+		assertEquals(Orientation.Portrait,
+				reader.getStaticValues().nativeOrientation);
+
+		Iterator<SyncProperty> iterator = reader.getSyncValueIterator();
+		Iterator<Text> texts = reader.getTextIterator();
+		Pointer pointer = new Pointer();
+		// the first batch is sent by flushing, the following ones because
+		// they are full
+		int count = 5000;
+		for (int i = 0; i < count; i++) {
+			pointer.x = i;
+			pointer.timeDelta = i % 17;
+			writer.writeSyncValues(pointer);
+			if (i == 0) {
+				writer.writeAsyncValues(new Text("text"));
+				writer.flush();
+				Pointer read = (Pointer) iterator.next();
+				assertEquals(0, read.x, 0);
+				assertEquals("text", texts.next().input);
+			}
+		}
+		writer.close();
+		for (int i = 1; i < count; i++) {
+			Pointer read = (Pointer) iterator.next();
+			assertEquals(i, read.x, 0);
+			assertEquals(i % 17, read.timeDelta);
+		}
+		assertFalse(iterator.hasNext());
+		assertFalse(texts.hasNext());
+		assertNull(reader.getError());
+		reader.close();
+	}
+
+	@Test
+	public void testLargeTexts() throws IOException {
+		SocketInputRecordReader reader = new SocketInputRecordReader(0);
+		SocketInputRecordWriter writer = new SocketInputRecordWriter(
+				"localhost", reader.getPort());
+		writer.open();
+		writer.writeRecordProperties(new RecordProperties());
+		writer.writeStaticValues(new StaticProperties());
+		// fit into a frame one at a time, but not together
+		String large = text('a', SocketInputRecord.MAX_FRAME_SIZE * 2 / 3);
+		writer.writeAsyncValues(new Text(large));
+		writer.writeAsyncValues(new Text(large));
+		try {
+			writer.writeAsyncValues(new Text(text('b',
+					SocketInputRecord.MAX_FRAME_SIZE + 1)));
+			fail("Sent a frame larger than the reader accepts");
+		} catch (IOException e) {
+			// expected
+		}
+		writer.writeAsyncValues(new Text("small"));
+		writer.close();
+
+		Iterator<Text> texts = reader.getTextIterator();
+		// all texts are there once the sync values have ended
+		assertFalse(reader.getSyncValueIterator().hasNext());
+		assertNull(reader.getError());
+		assertEquals(large, texts.next().input);
+		assertEquals(large, texts.next().input);
+		assertEquals("small", texts.next().input);
+		assertFalse(texts.hasNext());
+		reader.close();
+	}
+
+	private static String text(char c, int length) {
+		char[] chars = new char[length];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+}